@@ -0,0 +1,85 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Cost of walking the ADTS frames of a finished take, which stopRecording does to find its duration, and of cutting
+ * the file into decodable chunks as it grows, which the chunk streamer does every {@code chunkDurationMs}. The input
+ * is AAC at 128kbps and 44.1kHz. Run with {@code ./gradlew :benchmark:jmh} from the android directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AdtsParserBenchmark {
+
+    private static final int SAMPLE_RATE = 44100;
+    private static final int BIT_RATE = 128_000;
+    private static final int READ_SIZE = 8192;
+
+    @Param({ "1", "10", "60" })
+    public int minutes;
+
+    private byte[] stream;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        int frameLength = BIT_RATE / 8 * AdtsParser.SAMPLES_PER_RAW_BLOCK / SAMPLE_RATE;
+        int frames = minutes * 60 * SAMPLE_RATE / AdtsParser.SAMPLES_PER_RAW_BLOCK;
+        stream = new byte[frames * frameLength];
+        Random random = new Random(9);
+        random.nextBytes(stream);
+        for (int frame = 0; frame < frames; frame++) {
+            AdtsParser.writeHeader(stream, frame * frameLength, frameLength, AdtsParser.sampleRateIndexOf(SAMPLE_RATE), 1);
+        }
+        file = File.createTempFile("recording", ".aac");
+        file.deleteOnExit();
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(stream);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public long scanFile() throws IOException {
+        return AdtsParser.scan(file).getSampleCount();
+    }
+
+    @Benchmark
+    public long scanInMemory() throws IOException {
+        return AdtsParser.scan(new ByteArrayInputStream(stream)).getSampleCount();
+    }
+
+    @Benchmark
+    public long assembleChunks() {
+        AdtsFrameAssembler assembler = new AdtsFrameAssembler(READ_SIZE * 2);
+        long bytes = 0;
+        for (int offset = 0; offset < stream.length; offset += READ_SIZE) {
+            assembler.append(stream, offset, Math.min(READ_SIZE, stream.length - offset));
+            if (assembler.getCompleteFrames() >= 43) {
+                // about a second of audio per chunk
+                bytes += assembler.takeCompleteFrames().length;
+            }
+        }
+        return bytes + assembler.takeCompleteFrames().length;
+    }
+}
@@ -0,0 +1,76 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Throughput and allocation of turning a recording into {@code recordDataBase64}: the streaming encoder that
+ * stopRecording uses against reading the whole file and encoding it in one go, which is what it did before. The
+ * {@code gc.alloc.rate.norm} column of the GC profiler shows the bytes allocated per call. Run with
+ * {@code ./gradlew :benchmark:jmh} from the android directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class Base64EncodingBenchmark {
+
+    @Param({ "1", "10" })
+    public int megabytes;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("recording", ".aac");
+        file.deleteOnExit();
+        byte[] block = new byte[1 << 20];
+        Random random = new Random(4);
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            for (int i = 0; i < megabytes; i++) {
+                random.nextBytes(block);
+                output.write(block);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public int streamingEncoder() throws IOException {
+        long encodedLength = StreamingBase64Encoder.encodedLength(file.length(), true);
+        StringWriter writer = new StringWriter((int) Math.min(encodedLength, Integer.MAX_VALUE - 8));
+        try (InputStream input = new FileInputStream(file)) {
+            new StreamingBase64Encoder(true).encode(input, writer);
+        }
+        return writer.toString().length();
+    }
+
+    @Benchmark
+    public int wholeFile() throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        byte[] encoded = Base64.getMimeEncoder(StreamingBase64Encoder.LINE_LENGTH, new byte[] { '\n' }).encode(bytes);
+        return new String(encoded, StandardCharsets.US_ASCII).length();
+    }
+}
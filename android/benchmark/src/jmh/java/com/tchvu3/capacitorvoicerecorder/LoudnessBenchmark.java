@@ -0,0 +1,103 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of measuring and normalizing one 20ms read of the audiorecord engine: the K-weighted meter, the gain stage with
+ * its limiter, and both in the sink that converts from and to the capture buffer. gc.alloc.rate.norm should stay at
+ * 0 bytes per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoudnessBenchmark {
+
+    private static final int READ_INTERVAL_MS = 20;
+
+    @Param({ "16000", "48000" })
+    public int sampleRate;
+
+    @Param({ "1", "2" })
+    public int channels;
+
+    private int frames;
+    private short[] speech;
+    private short[] work;
+    private ByteBuffer read;
+    private LoudnessMeter meter;
+    private GainStage gainStage;
+    private LoudnessSink sink;
+
+    @Setup
+    public void setUp() throws Exception {
+        frames = sampleRate * READ_INTERVAL_MS / 1000;
+        speech = new short[frames * channels];
+        work = new short[speech.length];
+        read = ByteBuffer.allocateDirect(speech.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        Random random = new Random(5);
+        for (int i = 0; i < speech.length; i++) {
+            double voiced = 0.6 * Math.sin(2 * Math.PI * 180 * (i / channels) / sampleRate);
+            speech[i] = (short) ((voiced + 0.05 * random.nextGaussian()) * 32767);
+            read.putShort(speech[i]);
+        }
+        read.flip();
+
+        meter = new LoudnessMeter(sampleRate, channels);
+        // loud enough for the limiter to work on every read
+        gainStage = new GainStage(sampleRate, channels, 6f, GainStage.DEFAULT_CEILING_DB, GainStage.DEFAULT_RELEASE_MS);
+        sink = new LoudnessSink(
+            channels,
+            new LoudnessMeter(sampleRate, channels),
+            new GainStage(sampleRate, channels, 0f, GainStage.DEFAULT_CEILING_DB, GainStage.DEFAULT_RELEASE_MS),
+            -16f,
+            20f,
+            new DiscardingSink()
+        );
+        sink.onStart();
+    }
+
+    @Benchmark
+    public long measure() {
+        meter.process(speech, 0, frames);
+        return meter.getGatedWindows();
+    }
+
+    @Benchmark
+    public short[] applyGain() {
+        System.arraycopy(speech, 0, work, 0, speech.length);
+        gainStage.process(work, 0, frames);
+        return work;
+    }
+
+    @Benchmark
+    public LoudnessSink normalizeRead() throws Exception {
+        read.rewind();
+        sink.onPcm(read);
+        return sink;
+    }
+
+    private static class DiscardingSink implements PcmSink {
+
+        @Override
+        public void onStart() {}
+
+        @Override
+        public void onPcm(ByteBuffer buffer) {
+            buffer.position(buffer.limit());
+        }
+
+        @Override
+        public void onStop() {}
+    }
+}
@@ -0,0 +1,146 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Wall time and peak heap of handing a finished recording to the bridge: as one {@code recordDataBase64} string, the
+ * way stopRecording does with the base64 return mode, and as the pieces of the stream return mode. Both end with the
+ * JSON text Capacitor sends to the web view, built with the quoting of {@code org.json}. The peak heap is the highest
+ * heap usage the memory pools saw during one call, after a GC before it, and is printed with the output of each
+ * trial. Run with {@code ./gradlew :benchmark:jmh}
+ * from the android directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PayloadResponseBenchmark {
+
+    @Param({ "1", "10", "50" })
+    public int megabytes;
+
+    private File file;
+
+    /**
+     * JMH sums auxiliary counters over iterations, so the largest peak of all calls is printed when the trial ends and
+     * shows up in the output of the fork.
+     */
+    @State(Scope.Thread)
+    public static class PeakHeap {
+
+        private long baseline;
+        private long largestPeak;
+        private int calls;
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            System.gc();
+            baseline = 0;
+            for (MemoryPoolMXBean pool : heapPools()) {
+                baseline += pool.getUsage().getUsed();
+                pool.resetPeakUsage();
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void record() {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : heapPools()) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+            largestPeak = Math.max(largestPeak, peak - baseline);
+            calls++;
+        }
+
+        @TearDown(Level.Trial)
+        public void print() {
+            System.out.printf("%nPeak heap during one call: %d MB (largest of %d calls)%n", largestPeak >> 20, calls);
+        }
+
+        private static Iterable<MemoryPoolMXBean> heapPools() {
+            return ManagementFactory.getMemoryPoolMXBeans().stream().filter(pool -> pool.getType() == MemoryType.HEAP)::iterator;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("recording", ".aac");
+        file.deleteOnExit();
+        byte[] block = new byte[1 << 20];
+        Random random = new Random(3);
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            for (int i = 0; i < megabytes; i++) {
+                random.nextBytes(block);
+                output.write(block);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public int singleString(PeakHeap heap) throws IOException {
+        long encodedLength = StreamingBase64Encoder.encodedLength(file.length(), true);
+        StringWriter writer = new StringWriter((int) Math.min(encodedLength, Integer.MAX_VALUE - 8));
+        try (InputStream input = new FileInputStream(file)) {
+            new StreamingBase64Encoder(true).encode(input, writer);
+        }
+        String recordDataBase64 = writer.toString();
+        StringBuilder json = new StringBuilder("{\"value\":{\"recordDataBase64\":");
+        quote(recordDataBase64, json);
+        return json.append("}}").toString().length();
+    }
+
+    @Benchmark
+    public int streamedPieces(PeakHeap heap) throws IOException {
+        int[] length = new int[1];
+        new Base64PayloadStreamer(Base64PayloadStreamer.DEFAULT_PIECE_BYTES).stream(file, (sequence, data, last) -> {
+            StringBuilder json = new StringBuilder("{\"payloadId\":\"id\",\"sequence\":").append(sequence).append(",\"data\":");
+            quote(data, json);
+            length[0] += json.append(",\"last\":").append(last).append('}').toString().length();
+        });
+        return length[0];
+    }
+
+    /**
+     * The escaping {@code JSONObject.quote} applies to Base64 text.
+     */
+    private static void quote(String value, StringBuilder json) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\n' -> json.append("\\n");
+                case '/' -> json.append("\\/");
+                default -> json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,63 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of reducing one 20ms read to waveform peaks while recording, and of reading the peaks back when the take stops.
+ * The reducer runs on the capture thread, so a read has to stay far below its 20ms. Run with
+ * {@code ./gradlew :benchmark:jmh} from the android directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PeakReducerBenchmark {
+
+    private static final int READ_INTERVAL_MS = 20;
+
+    @Param({ "16000", "48000" })
+    public int sampleRate;
+
+    @Param({ "1", "2" })
+    public int channels;
+
+    private ByteBuffer read;
+    private PeakReducer reducer;
+
+    @Setup
+    public void setUp() {
+        int readSize = sampleRate * READ_INTERVAL_MS / 1000 * channels * 2;
+        read = ByteBuffer.allocateDirect(readSize).order(ByteOrder.LITTLE_ENDIAN);
+        Random random = new Random(5);
+        for (int i = 0; i < readSize / 2; i++) {
+            read.putShort((short) (random.nextGaussian() * 8000));
+        }
+        read.flip();
+        reducer = new PeakReducer(channels, PeakReducer.DEFAULT_RESOLUTION);
+        // an hour of audio, so the buckets are merged as they would be late in a long take
+        for (int i = 0; i < 3600 * 1000 / READ_INTERVAL_MS; i++) {
+            reducer.add(read);
+        }
+    }
+
+    @Benchmark
+    public long reduceRead() {
+        reducer.add(read);
+        return reducer.getFrames();
+    }
+
+    @Benchmark
+    public float[] peaksForDisplay() {
+        return reducer.getPeaks(1000);
+    }
+}
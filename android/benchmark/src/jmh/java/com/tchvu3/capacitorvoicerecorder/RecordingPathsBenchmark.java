@@ -0,0 +1,37 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of normalizing the {@code subDirectory} option for every output file, with the pattern compiled once against
+ * compiling it on each call as the output file creation used to. Run with {@code ./gradlew :benchmark:jmh} from the
+ * android directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RecordingPathsBenchmark {
+
+    @Param({ "voice", "/notes/2024/voice/" })
+    public String subDirectory;
+
+    @Benchmark
+    public String precompiled() {
+        return RecordingPaths.normalizeSubDirectory(subDirectory);
+    }
+
+    @Benchmark
+    public String compiledPerCall() {
+        Matcher matcher = Pattern.compile("^/?(.+[^/])/?$").matcher(subDirectory);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+}
@@ -0,0 +1,100 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of classifying and trimming one 20ms read of the audiorecord engine. Run with
+ * {@code ./gradlew :benchmark:jmh} from the android directory, add {@code -prof gc} to the JMH arguments to confirm
+ * that nothing is allocated per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VoiceActivityDetectorBenchmark {
+
+    private static final int READ_INTERVAL_MS = 20;
+
+    @Param({ "16000", "44100", "48000" })
+    public int sampleRate;
+
+    @Param({ "1", "2" })
+    public int channels;
+
+    private ByteBuffer speech;
+    private ByteBuffer silence;
+    private VoiceActivityDetector detector;
+    private SilenceTrimmingSink trimmingSink;
+    private boolean alternate;
+
+    @Setup
+    public void setUp() throws Exception {
+        int readSize = sampleRate * READ_INTERVAL_MS / 1000 * channels * 2;
+        speech = ByteBuffer.allocateDirect(readSize).order(ByteOrder.LITTLE_ENDIAN);
+        silence = ByteBuffer.allocateDirect(readSize).order(ByteOrder.LITTLE_ENDIAN);
+        Random random = new Random(11);
+        for (int i = 0; i < readSize / 2; i++) {
+            double voiced = 0.3 * Math.sin(2 * Math.PI * 180 * (i / channels) / sampleRate);
+            speech.putShort((short) ((voiced + 0.02 * random.nextGaussian()) * 32767));
+            silence.putShort((short) (0.001 * random.nextGaussian() * 32767));
+        }
+        speech.flip();
+        silence.flip();
+
+        detector = newDetector();
+        trimmingSink = new SilenceTrimmingSink(newDetector(), new DiscardingSink(), sampleRate * channels * 2, 40, readSize);
+        trimmingSink.onStart();
+    }
+
+    private VoiceActivityDetector newDetector() {
+        return new VoiceActivityDetector(
+            sampleRate,
+            channels,
+            VoiceActivityDetector.DEFAULT_THRESHOLD_DB,
+            VoiceActivityDetector.DEFAULT_ATTACK_MS,
+            VoiceActivityDetector.DEFAULT_HANGOVER_MS
+        );
+    }
+
+    @Benchmark
+    public boolean classifySpeech() {
+        return detector.process(speech);
+    }
+
+    @Benchmark
+    public boolean classifySilence() {
+        return detector.process(silence);
+    }
+
+    @Benchmark
+    public long trimAlternatingFrames() throws Exception {
+        ByteBuffer frame = (alternate = !alternate) ? speech : silence;
+        frame.rewind();
+        trimmingSink.onPcm(frame);
+        return trimmingSink.getKeptDurationMs();
+    }
+
+    private static class DiscardingSink implements PcmSink {
+
+        @Override
+        public void onStart() {}
+
+        @Override
+        public void onPcm(ByteBuffer buffer) {
+            buffer.position(buffer.limit());
+        }
+
+        @Override
+        public void onStop() {}
+    }
+}
@@ -0,0 +1,171 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaFormat;
+import android.util.Log;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Encodes PCM to AAC-LC with {@link MediaCodec} and writes it as an ADTS stream, the same container the
+ * MediaRecorder engine produces. The codec buffers are written to the file channel directly; the only per-frame work
+ * outside the codec is filling a reused 7-byte header.
+ * <p>
+ * With a {@link SegmentTracker} the output moves to the next file between two ADTS frames. One encoder runs through
+ * all segments, so there is no encoder delay at the start of a segment and the segments play back without a gap.
+ */
+public class AacEncoderSink implements PcmSink {
+
+    private static final long DEQUEUE_TIMEOUT_US = 10_000;
+    private static final int MAX_END_OF_STREAM_WAITS = 100;
+
+    private final File outputFile;
+    private final int sampleRate;
+    private final int channelCount;
+    private final int sampleRateIndex;
+    private final SegmentTracker segments;
+    private final MediaCodec codec;
+    private final MediaCodec.BufferInfo bufferInfo = new MediaCodec.BufferInfo();
+    private final byte[] header = new byte[AdtsParser.HEADER_LENGTH];
+    private final ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+    private FileOutputStream outputStream;
+    private FileChannel channel;
+    private long queuedFrames;
+
+    public AacEncoderSink(File outputFile, int sampleRate, int channelCount, int bitRate) throws IOException {
+        this(outputFile, sampleRate, channelCount, bitRate, null);
+    }
+
+    public AacEncoderSink(File outputFile, int sampleRate, int channelCount, int bitRate, SegmentTracker segments) throws IOException {
+        this.outputFile = outputFile;
+        this.segments = segments;
+        this.sampleRate = sampleRate;
+        this.channelCount = channelCount;
+        this.sampleRateIndex = AdtsParser.sampleRateIndexOf(sampleRate);
+        if (sampleRateIndex < 0) {
+            throw new IOException("Unsupported AAC sample rate: " + sampleRate);
+        }
+
+        MediaFormat format = MediaFormat.createAudioFormat(MediaFormat.MIMETYPE_AUDIO_AAC, sampleRate, channelCount);
+        format.setInteger(MediaFormat.KEY_AAC_PROFILE, MediaCodecInfo.CodecProfileLevel.AACObjectLC);
+        format.setInteger(MediaFormat.KEY_BIT_RATE, bitRate);
+        codec = MediaCodec.createEncoderByType(MediaFormat.MIMETYPE_AUDIO_AAC);
+        try {
+            codec.configure(format, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+        } catch (RuntimeException exp) {
+            codec.release();
+            throw new IOException("Could not configure AAC encoder", exp);
+        }
+    }
+
+    @Override
+    public void onStart() throws IOException {
+        outputStream = new FileOutputStream(outputFile);
+        channel = outputStream.getChannel();
+        codec.start();
+    }
+
+    @Override
+    public void onPcm(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            int index = codec.dequeueInputBuffer(DEQUEUE_TIMEOUT_US);
+            if (index >= 0) {
+                ByteBuffer input = codec.getInputBuffer(index);
+                int length = Math.min(input.remaining(), buffer.remaining());
+                int limit = buffer.limit();
+                buffer.limit(buffer.position() + length);
+                input.put(buffer);
+                buffer.limit(limit);
+                codec.queueInputBuffer(index, 0, length, presentationTimeUs(), 0);
+                queuedFrames += length / (2 * channelCount);
+            }
+            drain(false);
+        }
+    }
+
+    @Override
+    public void onStop() throws IOException {
+        if (outputStream == null) {
+            // never started, there is nothing to drain
+            codec.release();
+            return;
+        }
+        try {
+            // the encoder may hold every input buffer, draining its output frees them for the end of stream
+            int index = codec.dequeueInputBuffer(DEQUEUE_TIMEOUT_US);
+            for (int waits = 0; index < 0 && waits < MAX_END_OF_STREAM_WAITS; waits++) {
+                drain(false);
+                index = codec.dequeueInputBuffer(DEQUEUE_TIMEOUT_US);
+            }
+            if (index >= 0) {
+                codec.queueInputBuffer(index, 0, 0, presentationTimeUs(), MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                drain(true);
+            } else {
+                Log.w("AacEncoderSink", "onStop - no input buffer for the end of stream, the last frames are lost");
+                drain(false);
+            }
+        } finally {
+            try {
+                codec.stop();
+            } catch (IllegalStateException ignore) {}
+            codec.release();
+            outputStream.close();
+        }
+        if (segments != null) {
+            segments.finish();
+        }
+    }
+
+    private long presentationTimeUs() {
+        return queuedFrames * 1_000_000L / sampleRate;
+    }
+
+    private void drain(boolean endOfStream) throws IOException {
+        int endOfStreamWaits = 0;
+        while (true) {
+            int index = codec.dequeueOutputBuffer(bufferInfo, endOfStream ? DEQUEUE_TIMEOUT_US : 0);
+            if (index == MediaCodec.INFO_TRY_AGAIN_LATER) {
+                if (!endOfStream || ++endOfStreamWaits > MAX_END_OF_STREAM_WAITS) {
+                    return;
+                }
+                continue;
+            }
+            if (index < 0) {
+                continue;
+            }
+            boolean codecConfig = (bufferInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0;
+            if (!codecConfig && bufferInfo.size > 0) {
+                ByteBuffer output = codec.getOutputBuffer(index);
+                output.limit(bufferInfo.offset + bufferInfo.size);
+                output.position(bufferInfo.offset);
+                int frameLength = bufferInfo.size + AdtsParser.HEADER_LENGTH;
+                if (segments != null) {
+                    if (!segments.fits(AdtsParser.SAMPLES_PER_RAW_BLOCK, frameLength)) {
+                        outputStream.close();
+                        outputStream = new FileOutputStream(segments.roll());
+                        channel = outputStream.getChannel();
+                    }
+                    segments.add(AdtsParser.SAMPLES_PER_RAW_BLOCK, frameLength);
+                }
+                AdtsParser.writeHeader(header, 0, frameLength, sampleRateIndex, channelCount);
+                headerBuffer.clear();
+                writeFully(headerBuffer);
+                writeFully(output);
+            }
+            codec.releaseOutputBuffer(index, false);
+            if ((bufferInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                return;
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
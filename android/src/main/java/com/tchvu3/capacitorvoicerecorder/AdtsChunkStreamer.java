@@ -0,0 +1,135 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails an ADTS file while it is being written and hands it over in chunks of at least {@code chunkDurationMs}. Every
+ * chunk ends on a frame boundary, so it can be decoded without the chunks before it. Chunks are numbered from 0: a
+ * consumer that sees a gap in the sequence knows it missed one.
+ */
+public class AdtsChunkStreamer {
+
+    public interface Listener {
+        void onChunk(long sequence, long startMs, long durationMs, byte[] data, boolean last);
+    }
+
+    private static final int MIN_POLL_INTERVAL_MS = 20;
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    private final File file;
+    private final int chunkDurationMs;
+    private final Listener listener;
+    private final AdtsFrameAssembler assembler;
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+    private final ByteBuffer readByteBuffer = ByteBuffer.wrap(readBuffer);
+    private FileChannel channel;
+    private ScheduledFuture<?> future;
+    private long position;
+    private long sequence;
+    private long emittedSamples;
+    private boolean finished;
+
+    public AdtsChunkStreamer(File file, int chunkDurationMs, Listener listener) {
+        this.file = file;
+        this.chunkDurationMs = chunkDurationMs;
+        this.listener = listener;
+        this.assembler = new AdtsFrameAssembler(READ_BUFFER_SIZE);
+    }
+
+    public synchronized void start(ScheduledExecutorService executor) {
+        int pollIntervalMs = Math.max(MIN_POLL_INTERVAL_MS, chunkDurationMs / 4);
+        future = executor.scheduleWithFixedDelay(this::pollSafely, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads whatever the recorder has written since the last poll and emits a chunk once enough audio is complete.
+     */
+    public synchronized void poll() throws IOException {
+        if (finished) {
+            return;
+        }
+        readAvailable();
+        long samples = assembler.getCompleteSamples();
+        if (samples > 0 && samples * 1000 >= (long) chunkDurationMs * assembler.getSampleRate()) {
+            emit(false);
+        }
+    }
+
+    /**
+     * Reads the file up to its end and emits the remaining complete frames as the last chunk. Has to be called after the
+     * recorder has been stopped, so nothing is written anymore.
+     */
+    public synchronized void finish() {
+        if (finished) {
+            return;
+        }
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+        try {
+            readAvailable();
+        } catch (IOException exp) {
+            Log.w("AdtsChunkStreamer", "finish - could not read the end of the recording", exp);
+        }
+        emit(true);
+        finished = true;
+        closeChannel();
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (IOException exp) {
+            Log.w("AdtsChunkStreamer", "poll", exp);
+        }
+    }
+
+    private void readAvailable() throws IOException {
+        if (channel == null) {
+            if (!file.exists()) {
+                return;
+            }
+            channel = new RandomAccessFile(file, "r").getChannel();
+        }
+        while (true) {
+            readByteBuffer.clear();
+            int read = channel.read(readByteBuffer, position);
+            if (read <= 0) {
+                return;
+            }
+            position += read;
+            assembler.append(readBuffer, 0, read);
+        }
+    }
+
+    private void emit(boolean last) {
+        int sampleRate = assembler.getSampleRate();
+        long samples = assembler.getCompleteSamples();
+        byte[] data = assembler.takeCompleteFrames();
+        if (data.length == 0 && !last) {
+            return;
+        }
+        long startMs = sampleRate == 0 ? 0 : emittedSamples * 1000 / sampleRate;
+        emittedSamples += samples;
+        long endMs = sampleRate == 0 ? 0 : emittedSamples * 1000 / sampleRate;
+        listener.onChunk(sequence++, startMs, endMs - startMs, data, last);
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignore) {}
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Cuts and joins ADTS (AAC) streams without decoding them. Frames are copied as they are, so the result has the
+ * quality of the source and the cost is that of copying the bytes. Cuts fall on frame boundaries: a trim keeps every
+ * frame that overlaps the requested range, so it is at most one frame (about 23ms at 44.1kHz) longer on each side.
+ */
+public final class AdtsEditor {
+
+    private static final int MAX_FRAME_LENGTH = (1 << 13) - 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private AdtsEditor() {}
+
+    /**
+     * @param endMs the end of the range, or a negative value for the end of the stream
+     * @return the frames written to {@code target}
+     */
+    public static AdtsStreamInfo trim(File source, File target, long startMs, long endMs) throws IOException {
+        try (
+            InputStream input = new BufferedInputStream(new FileInputStream(source), BUFFER_SIZE);
+            OutputStream output = new BufferedOutputStream(new FileOutputStream(target), BUFFER_SIZE)
+        ) {
+            return trim(input, output, startMs, endMs);
+        }
+    }
+
+    public static AdtsStreamInfo trim(InputStream input, OutputStream output, long startMs, long endMs) throws IOException {
+        if (startMs < 0 || (endMs >= 0 && endMs <= startMs)) {
+            throw new IllegalArgumentException("the range " + startMs + "-" + endMs + "ms is empty");
+        }
+        FrameCopier copier = new FrameCopier();
+        copier.copy(input, output, startMs, endMs);
+        return copier.written;
+    }
+
+    /**
+     * Joins the streams in order. They must all have the sample rate and channels of the first one: ADTS carries
+     * them in every frame, a player would not expect them to change in the middle of a file.
+     *
+     * @return the frames written to {@code target}
+     */
+    public static AdtsStreamInfo concat(List<File> sources, File target) throws IOException {
+        FrameCopier copier = new FrameCopier();
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(target), BUFFER_SIZE)) {
+            for (File source : sources) {
+                try (InputStream input = new BufferedInputStream(new FileInputStream(source), BUFFER_SIZE)) {
+                    copier.copy(input, output, 0, -1);
+                }
+            }
+        }
+        return copier.written;
+    }
+
+    /**
+     * Copies whole frames and keeps the layout of the first one it saw, across all the streams it copies.
+     */
+    static final class FrameCopier {
+
+        private final byte[] frame = new byte[MAX_FRAME_LENGTH];
+        private final AdtsStreamInfo written = new AdtsStreamInfo();
+        private int sampleRateIndex = -1;
+        private int channelConfiguration = -1;
+
+        /**
+         * Copies the frames of {@code input} that overlap {@code startMs} to {@code endMs}. A stream that ends with a
+         * frame that is cut off, as a take that was killed leaves behind, is copied up to that frame.
+         */
+        void copy(InputStream input, OutputStream output, long startMs, long endMs) throws IOException {
+            long position = 0;
+            long startSample = -1;
+            long endSample = Long.MAX_VALUE;
+            while (position < endSample && AdtsParser.readFully(input, frame, 0, AdtsParser.HEADER_LENGTH) == AdtsParser.HEADER_LENGTH) {
+                if (!AdtsParser.isHeader(frame, 0)) {
+                    if (position == 0) {
+                        throw new IOException("Not an ADTS stream");
+                    }
+                    return;
+                }
+                checkLayout();
+                int sampleRate = AdtsParser.sampleRate(frame, 0);
+                if (startSample < 0) {
+                    startSample = startMs * sampleRate / 1000;
+                    endSample = endMs < 0 ? Long.MAX_VALUE : (endMs * sampleRate + 999) / 1000;
+                }
+                int frameLength = AdtsParser.frameLength(frame, 0);
+                int bodyLength = frameLength - AdtsParser.HEADER_LENGTH;
+                if (AdtsParser.readFully(input, frame, AdtsParser.HEADER_LENGTH, bodyLength) != bodyLength) {
+                    return;
+                }
+                int samples = AdtsParser.samplesInFrame(frame, 0);
+                if (position + samples > startSample) {
+                    output.write(frame, 0, frameLength);
+                    written.addFrame(frameLength, samples, sampleRate, channelConfiguration);
+                }
+                position += samples;
+            }
+            if (position == 0) {
+                throw new IOException("Not an ADTS stream");
+            }
+        }
+
+        private void checkLayout() throws IOException {
+            int rateIndex = AdtsParser.sampleRateIndex(frame, 0);
+            int channels = AdtsParser.channelConfiguration(frame, 0);
+            if (sampleRateIndex < 0) {
+                sampleRateIndex = rateIndex;
+                channelConfiguration = channels;
+            } else if (rateIndex != sampleRateIndex || channels != channelConfiguration) {
+                throw new IOException("The streams differ in sample rate or channels");
+            }
+        }
+    }
+}
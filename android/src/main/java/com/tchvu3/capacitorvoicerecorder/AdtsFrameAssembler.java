@@ -0,0 +1,88 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.util.Arrays;
+
+/**
+ * Collects ADTS bytes as they become available and keeps track of how many of them form complete frames, so the
+ * stream can be cut into pieces that each decode on their own. Bytes that do not start a frame header are skipped
+ * until the next header.
+ */
+public class AdtsFrameAssembler {
+
+    private byte[] pending;
+    private int pendingLength;
+    private int completeLength;
+    private long completeSamples;
+    private int completeFrames;
+    private int sampleRate;
+    private long skippedBytes;
+
+    public AdtsFrameAssembler(int initialCapacity) {
+        this.pending = new byte[Math.max(initialCapacity, AdtsParser.HEADER_LENGTH)];
+    }
+
+    public void append(byte[] data, int offset, int length) {
+        if (pendingLength + length > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + length));
+        }
+        System.arraycopy(data, offset, pending, pendingLength, length);
+        pendingLength += length;
+        scan();
+    }
+
+    private void scan() {
+        while (completeLength + AdtsParser.HEADER_LENGTH <= pendingLength) {
+            if (!AdtsParser.isHeader(pending, completeLength)) {
+                skipToNextSyncByte();
+                continue;
+            }
+            int frameLength = AdtsParser.frameLength(pending, completeLength);
+            if (completeLength + frameLength > pendingLength) {
+                return;
+            }
+            completeSamples += AdtsParser.samplesInFrame(pending, completeLength);
+            sampleRate = AdtsParser.sampleRate(pending, completeLength);
+            completeFrames++;
+            completeLength += frameLength;
+        }
+    }
+
+    private void skipToNextSyncByte() {
+        int next = completeLength + 1;
+        while (next < pendingLength && (pending[next] & 0xff) != 0xff) {
+            next++;
+        }
+        System.arraycopy(pending, next, pending, completeLength, pendingLength - next);
+        skippedBytes += next - completeLength;
+        pendingLength -= next - completeLength;
+    }
+
+    public int getCompleteFrames() {
+        return completeFrames;
+    }
+
+    public long getCompleteSamples() {
+        return completeSamples;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public long getSkippedBytes() {
+        return skippedBytes;
+    }
+
+    /**
+     * Returns the complete frames collected so far and keeps the trailing partial frame for the next chunk.
+     */
+    public byte[] takeCompleteFrames() {
+        byte[] chunk = Arrays.copyOf(pending, completeLength);
+        System.arraycopy(pending, completeLength, pending, 0, pendingLength - completeLength);
+        pendingLength -= completeLength;
+        completeLength = 0;
+        completeSamples = 0;
+        completeFrames = 0;
+        return chunk;
+    }
+}
@@ -0,0 +1,143 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+/**
+ * Minimal ADTS (AAC) frame header parser. It never looks at the audio payload, frames are skipped using the length
+ * stored in their header, so a whole file can be walked with a fixed-size buffer.
+ */
+public final class AdtsParser {
+
+    public static final int HEADER_LENGTH = 7;
+    public static final int SAMPLES_PER_RAW_BLOCK = 1024;
+
+    private static final int[] SAMPLE_RATES = { 96000, 88200, 64000, 48000, 44100, 32000, 24000, 22050, 16000, 12000, 11025, 8000, 7350 };
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private AdtsParser() {}
+
+    public static boolean isHeader(byte[] data, int offset) {
+        return (
+            (data[offset] & 0xff) == 0xff &&
+            (data[offset + 1] & 0xf6) == 0xf0 &&
+            sampleRateIndex(data, offset) < SAMPLE_RATES.length &&
+            frameLength(data, offset) >= headerLength(data, offset)
+        );
+    }
+
+    public static int headerLength(byte[] data, int offset) {
+        boolean protectionAbsent = (data[offset + 1] & 0x01) == 1;
+        return protectionAbsent ? HEADER_LENGTH : HEADER_LENGTH + 2;
+    }
+
+    public static int frameLength(byte[] data, int offset) {
+        return ((data[offset + 3] & 0x03) << 11) | ((data[offset + 4] & 0xff) << 3) | ((data[offset + 5] & 0xe0) >>> 5);
+    }
+
+    public static int sampleRateIndex(byte[] data, int offset) {
+        return (data[offset + 2] & 0x3c) >>> 2;
+    }
+
+    public static int sampleRate(byte[] data, int offset) {
+        return SAMPLE_RATES[sampleRateIndex(data, offset)];
+    }
+
+    public static int channelConfiguration(byte[] data, int offset) {
+        return ((data[offset + 2] & 0x01) << 2) | ((data[offset + 3] & 0xc0) >>> 6);
+    }
+
+    public static int samplesInFrame(byte[] data, int offset) {
+        return ((data[offset + 6] & 0x03) + 1) * SAMPLES_PER_RAW_BLOCK;
+    }
+
+    public static int sampleRateIndexOf(int sampleRate) {
+        for (int i = 0; i < SAMPLE_RATES.length; i++) {
+            if (SAMPLE_RATES[i] == sampleRate) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes a 7-byte AAC-LC header without CRC for a frame of {@code frameLength} bytes, header included.
+     */
+    public static void writeHeader(byte[] data, int offset, int frameLength, int sampleRateIndex, int channelConfiguration) {
+        data[offset] = (byte) 0xff;
+        data[offset + 1] = (byte) 0xf1;
+        data[offset + 2] = (byte) ((1 << 6) | (sampleRateIndex << 2) | ((channelConfiguration >> 2) & 0x01));
+        data[offset + 3] = (byte) (((channelConfiguration & 0x03) << 6) | ((frameLength >> 11) & 0x03));
+        data[offset + 4] = (byte) ((frameLength >> 3) & 0xff);
+        data[offset + 5] = (byte) (((frameLength & 0x07) << 5) | 0x1f);
+        data[offset + 6] = (byte) 0xfc;
+    }
+
+    public static AdtsStreamInfo scan(File file) throws IOException {
+        // unlike FileInputStream, a channel stream does not skip past the end of the file, so a cut off frame is noticed
+        FileChannel channel = new FileInputStream(file).getChannel();
+        try (InputStream inputStream = new BufferedInputStream(Channels.newInputStream(channel), SCAN_BUFFER_SIZE)) {
+            return scan(inputStream);
+        }
+    }
+
+    /**
+     * Walks the frames of a stream until the end of the stream, a truncated frame or something that is not an ADTS
+     * header. Frames with a different sample rate or channel layout than the first one also end the scan.
+     */
+    public static AdtsStreamInfo scan(InputStream inputStream) throws IOException {
+        byte[] header = new byte[HEADER_LENGTH];
+        AdtsStreamInfo info = new AdtsStreamInfo();
+        int firstRateIndex = -1;
+        int firstChannels = -1;
+        while (readFully(inputStream, header) == HEADER_LENGTH && isHeader(header, 0)) {
+            if (firstRateIndex < 0) {
+                firstRateIndex = sampleRateIndex(header, 0);
+                firstChannels = channelConfiguration(header, 0);
+            } else if (firstRateIndex != sampleRateIndex(header, 0) || firstChannels != channelConfiguration(header, 0)) {
+                break;
+            }
+            int frameLength = frameLength(header, 0);
+            if (!skipFully(inputStream, frameLength - HEADER_LENGTH)) {
+                break;
+            }
+            info.addFrame(frameLength, samplesInFrame(header, 0), sampleRate(header, 0), firstChannels);
+        }
+        return info;
+    }
+
+    static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        return readFully(inputStream, buffer, 0, buffer.length);
+    }
+
+    static int readFully(InputStream inputStream, byte[] buffer, int offset, int length) throws IOException {
+        int filled = 0;
+        while (filled < length) {
+            int read = inputStream.read(buffer, offset + filled, length - filled);
+            if (read < 0) {
+                break;
+            }
+            filled += read;
+        }
+        return filled;
+    }
+
+    static boolean skipFully(InputStream inputStream, long count) throws IOException {
+        while (count > 0) {
+            long skipped = inputStream.skip(count);
+            if (skipped <= 0) {
+                if (inputStream.read() < 0) {
+                    return false;
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+        return true;
+    }
+}
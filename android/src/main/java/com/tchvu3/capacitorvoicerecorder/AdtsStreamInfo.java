@@ -0,0 +1,45 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+public class AdtsStreamInfo {
+
+    private long frameCount;
+    private long sampleCount;
+    private long validBytes;
+    private int sampleRate;
+    private int channelConfiguration;
+
+    void addFrame(int frameLength, int samples, int sampleRate, int channelConfiguration) {
+        this.frameCount++;
+        this.sampleCount += samples;
+        this.validBytes += frameLength;
+        this.sampleRate = sampleRate;
+        this.channelConfiguration = channelConfiguration;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    public long getValidBytes() {
+        return validBytes;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getChannelConfiguration() {
+        return channelConfiguration;
+    }
+
+    public long getDurationMs() {
+        if (sampleRate == 0) {
+            return -1;
+        }
+        return sampleCount * 1000 / sampleRate;
+    }
+}
@@ -0,0 +1,100 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.media.AudioRecord;
+import android.os.Process;
+import android.util.Log;
+import java.io.IOException;
+
+/**
+ * Keeps the microphone open between takes and captures into a {@link PcmRingBuffer}, so a {@link PcmRecorder} started
+ * from it begins with the audio from just before the recording was requested. Reads are twice as large as during a
+ * take, which halves the wake-ups while nothing is being recorded.
+ */
+public class ArmedCapture {
+
+    private static final int READ_INTERVAL_MS = 40;
+    private static final int CONSUMER_HEADROOM_MS = 2000;
+    private static final long STOP_TIMEOUT_MS = 2000;
+
+    private final int sampleRate;
+    private final int channelCount;
+    private final int frameSize;
+    private final int preRollBytes;
+    private final AudioRecord audioRecord;
+    private final PcmRingBuffer ring;
+    private final PcmCaptureLoop captureLoop;
+    private Thread captureThread;
+
+    public ArmedCapture(int sampleRate, int channelCount, int preRollMs) throws IOException {
+        this.sampleRate = sampleRate;
+        this.channelCount = channelCount;
+        this.frameSize = channelCount * 2;
+        this.preRollBytes = framesFor(preRollMs) * frameSize;
+        int readSize = framesFor(READ_INTERVAL_MS) * frameSize;
+        // the ring also has to hold what a take's encoder has not consumed yet
+        ring = new PcmRingBuffer(preRollBytes + framesFor(CONSUMER_HEADROOM_MS) * frameSize);
+        audioRecord = PcmRecorder.createAudioRecord(sampleRate, channelCount, readSize);
+        captureLoop = new PcmCaptureLoop(audioRecord::read, ring, readSize);
+    }
+
+    private int framesFor(int ms) {
+        return (int) ((long) sampleRate * ms / 1000);
+    }
+
+    public void start() {
+        audioRecord.startRecording();
+        captureThread = new Thread(
+            () -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+                captureLoop.run();
+            },
+            "VoiceRecorderArmedCapture"
+        );
+        captureThread.start();
+    }
+
+    public void stop() {
+        captureLoop.requestStop();
+        try {
+            audioRecord.stop();
+        } catch (IllegalStateException exp) {
+            Log.w("ArmedCapture", "stop - AudioRecord was not recording", exp);
+        }
+        try {
+            if (captureThread != null) {
+                captureThread.join(STOP_TIMEOUT_MS);
+            }
+        } catch (InterruptedException exp) {
+            Thread.currentThread().interrupt();
+        } finally {
+            audioRecord.release();
+        }
+    }
+
+    /**
+     * Whether a take with these options can be recorded from this capture.
+     */
+    public boolean matches(RecordOptions options) {
+        return (
+            options.getEngine() == RecorderEngine.AUDIO_RECORD &&
+            options.getSampleRate() == sampleRate &&
+            options.getChannels() == channelCount
+        );
+    }
+
+    public PcmRingBuffer getRing() {
+        return ring;
+    }
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    public int getPreRollBytes() {
+        return preRollBytes;
+    }
+
+    public int getErrorCode() {
+        return captureLoop.getErrorCode();
+    }
+}
@@ -0,0 +1,290 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioRecord;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.os.Build;
+import android.util.Log;
+import android.util.Range;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the device's audio encoders accept, queried from {@link MediaCodecList} once per process and then reused to
+ * validate every {@link RecordOptions}.
+ */
+public class AudioCapabilities {
+
+    private static final long MIN_SEGMENT_BYTES = 16 * 1024;
+    private static final int[] PROBED_SAMPLE_RATES = { 8000, 11025, 16000, 22050, 24000, 32000, 44100, 48000 };
+
+    private static volatile AudioCapabilities instance;
+    private static volatile DeviceCapabilities deviceCapabilities;
+
+    private final Map<String, List<MediaCodecInfo.AudioCapabilities>> encoders = new HashMap<>();
+
+    private AudioCapabilities() {
+        MediaCodecList codecList = new MediaCodecList(MediaCodecList.REGULAR_CODECS);
+        for (MediaCodecInfo info : codecList.getCodecInfos()) {
+            if (!info.isEncoder()) {
+                continue;
+            }
+            for (String type : info.getSupportedTypes()) {
+                if (!type.startsWith("audio/")) {
+                    continue;
+                }
+                MediaCodecInfo.AudioCapabilities audioCapabilities = info.getCapabilitiesForType(type).getAudioCapabilities();
+                if (audioCapabilities != null) {
+                    encoders.computeIfAbsent(type, key -> new ArrayList<>()).add(audioCapabilities);
+                }
+            }
+        }
+    }
+
+    public static AudioCapabilities get() {
+        AudioCapabilities local = instance;
+        if (local == null) {
+            synchronized (AudioCapabilities.class) {
+                local = instance;
+                if (local == null) {
+                    local = new AudioCapabilities();
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * What the device can record with. The probe only queries {@link AudioRecord#getMinBufferSize} and the encoder list,
+     * it never opens the microphone; its result is kept for the process and in a file until the next system update.
+     */
+    public static DeviceCapabilities getDeviceCapabilities(Context context) {
+        DeviceCapabilities local = deviceCapabilities;
+        if (local == null) {
+            synchronized (AudioCapabilities.class) {
+                local = deviceCapabilities;
+                if (local == null) {
+                    local = loadDeviceCapabilities(context);
+                    deviceCapabilities = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private static DeviceCapabilities loadDeviceCapabilities(Context context) {
+        File file = RecordingFiles.getCapabilitiesFile(context);
+        DeviceCapabilities capabilities = DeviceCapabilities.read(file, Build.FINGERPRINT, Build.VERSION.SDK_INT);
+        if (capabilities != null) {
+            return capabilities;
+        }
+        capabilities = get().probe(context);
+        try {
+            capabilities.write(file);
+        } catch (IOException exp) {
+            Log.w("AudioCapabilities", "loadDeviceCapabilities - could not store the capabilities", exp);
+        }
+        return capabilities;
+    }
+
+    private DeviceCapabilities probe(Context context) {
+        boolean microphone = context.getPackageManager().hasSystemFeature(PackageManager.FEATURE_MICROPHONE);
+
+        List<String> sources = new ArrayList<>(Arrays.asList("mic", "camcorder", "voice_recognition", "voice_communication"));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            AudioManager audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
+            if (audioManager != null && "true".equals(audioManager.getProperty(AudioManager.PROPERTY_SUPPORT_AUDIO_SOURCE_UNPROCESSED))) {
+                sources.add("unprocessed");
+            }
+        }
+
+        List<Integer> sampleRates = new ArrayList<>();
+        boolean stereo = false;
+        for (int sampleRate : PROBED_SAMPLE_RATES) {
+            if (AudioRecord.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT) > 0) {
+                sampleRates.add(sampleRate);
+                stereo = stereo ||
+                    AudioRecord.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_IN_STEREO, AudioFormat.ENCODING_PCM_16BIT) > 0;
+            }
+        }
+
+        List<String> encoderValues = new ArrayList<>();
+        for (RecordingEncoder encoder : RecordingEncoder.values()) {
+            if (isAvailable(encoder)) {
+                encoderValues.add(encoder.getValue());
+            }
+        }
+        List<String> formats = new ArrayList<>();
+        for (RecordingFormat format : RecordingFormat.values()) {
+            if (Build.VERSION.SDK_INT < format.getMinSdk()) {
+                continue;
+            }
+            for (RecordingEncoder encoder : RecordingEncoder.values()) {
+                if (format.supports(encoder) && isAvailable(encoder)) {
+                    formats.add(format.getValue());
+                    break;
+                }
+            }
+        }
+        return new DeviceCapabilities(
+            Build.FINGERPRINT,
+            Build.VERSION.SDK_INT,
+            microphone,
+            sources,
+            sampleRates,
+            stereo,
+            encoderValues,
+            formats
+        );
+    }
+
+    private boolean isAvailable(RecordingEncoder encoder) {
+        if (Build.VERSION.SDK_INT < encoder.getMinSdk()) {
+            return false;
+        }
+        return encoder.getCodecMimeType() == null || encoders.containsKey(encoder.getCodecMimeType());
+    }
+
+    public void validate(RecordOptions options) throws MessagesException {
+        validateSettings(options);
+        RecordingFormat format = options.getFormat();
+        RecordingEncoder encoder = options.getEncoder();
+        if (Build.VERSION.SDK_INT < format.getMinSdk() || Build.VERSION.SDK_INT < encoder.getMinSdk()) {
+            throw unsupported(format + "/" + encoder + " needs a newer Android version");
+        }
+        if (options.getEngine() == RecorderEngine.AUDIO_RECORD) {
+            int channelMask = options.getChannels() == 1 ? AudioFormat.CHANNEL_IN_MONO : AudioFormat.CHANNEL_IN_STEREO;
+            if (AudioRecord.getMinBufferSize(options.getSampleRate(), channelMask, AudioFormat.ENCODING_PCM_16BIT) <= 0) {
+                throw unsupported("sample rate " + options.getSampleRate() + " is not supported");
+            }
+        }
+        boolean mediaRecorderSegments = options.isSegmented() && options.getEngine() == RecorderEngine.MEDIA_RECORDER;
+        if (mediaRecorderSegments && Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            throw unsupported("segments with the mediarecorder engine need the mp4 format and Android 8");
+        }
+        if (encoder.getCodecMimeType() != null && !isEncoderSupported(encoder.getCodecMimeType(), options)) {
+            throw unsupported(encoder + " does not support the requested sample rate, bitrate or channels");
+        }
+    }
+
+    /**
+     * The rules of {@link #validate} that do not depend on the device, which also hold for the settings a prepared
+     * recorder takes over at start.
+     */
+    public static void validateSettings(RecordOptions options) throws MessagesException {
+        RecordingFormat format = options.getFormat();
+        RecordingEncoder encoder = options.getEncoder();
+        if (format == null || encoder == null || !format.supports(encoder)) {
+            throw unsupported("format and encoder do not match");
+        }
+        if (options.getChannels() < 1 || options.getChannels() > 2) {
+            throw unsupported("channels must be 1 or 2");
+        }
+
+        if (options.getEngine() == RecorderEngine.AUDIO_RECORD) {
+            if (format != RecordingFormat.WAV && !(format == RecordingFormat.AAC_ADTS && encoder == RecordingEncoder.AAC)) {
+                throw unsupported("the audiorecord engine only records aac/aac or wav");
+            }
+        } else if (format == RecordingFormat.WAV) {
+            throw unsupported("wav needs the audiorecord engine");
+        }
+        if (options.isTrimSilence() && options.getEngine() != RecorderEngine.AUDIO_RECORD) {
+            throw unsupported("silence trimming needs the audiorecord engine");
+        }
+        if ((options.getStorageQuotaBytes() > 0 || options.isEvictOldRecordings()) && options.getDirectory() == null) {
+            throw unsupported("a storage quota needs a directory");
+        }
+        if (options.getMaxDurationMs() < 0 || options.getMaxFileSizeBytes() < 0) {
+            throw unsupported("recording limits must not be negative");
+        }
+        if (options.getMaxFileSizeBytes() > 0 && options.isSegmented()) {
+            throw unsupported("a maximum file size does not work with segments, use segmentMaxBytes");
+        }
+        if (options.isLoudnessMeasured()) {
+            validateLoudness(options);
+        }
+        if (options.getChunkDurationMs() > 0 && format != RecordingFormat.AAC_ADTS) {
+            throw unsupported("streaming chunks needs the aac format");
+        }
+        if (options.isSegmented()) {
+            validateSegments(options);
+        }
+        if (options.getUploadUrl() != null) {
+            String url = options.getUploadUrl();
+            if (!url.startsWith("https://") && !url.startsWith("http://")) {
+                throw unsupported("uploads need an http or https url");
+            }
+            if (options.isSegmented()) {
+                throw unsupported("segmented recordings can not be uploaded");
+            }
+        }
+    }
+
+    private static void validateLoudness(RecordOptions options) throws MessagesException {
+        if (options.getEngine() != RecorderEngine.AUDIO_RECORD) {
+            throw unsupported("measuring loudness needs the audiorecord engine");
+        }
+        if (options.getTargetLoudness() >= 0 || options.getTargetLoudness() < LoudnessMeter.ABSOLUTE_GATE_LUFS) {
+            throw unsupported("the target loudness must be between -70 and 0 LUFS");
+        }
+        if (options.getMaxGainDb() < 0) {
+            throw unsupported("the maximum gain must not be negative");
+        }
+        if (options.getLoudnessNormalization() == LoudnessNormalization.ON_STOP) {
+            // chunks and segments leave the recorder before the take is over, they could not be turned up anymore
+            if (options.getChunkDurationMs() > 0 || options.isSegmented()) {
+                throw unsupported("normalizing at stop does not work with chunks or segments, use realtime");
+            }
+        }
+    }
+
+    private static void validateSegments(RecordOptions options) throws MessagesException {
+        if (options.getSegmentDurationMs() < 0 || options.getSegmentMaxBytes() < 0) {
+            throw unsupported("segment limits must not be negative");
+        }
+        if (options.getSegmentMaxBytes() > 0 && options.getSegmentMaxBytes() < MIN_SEGMENT_BYTES) {
+            throw unsupported("segments must be at least " + MIN_SEGMENT_BYTES + " bytes");
+        }
+        if (options.getChunkDurationMs() > 0) {
+            throw unsupported("chunks can not be streamed from a segmented recording");
+        }
+        if (options.getEngine() == RecorderEngine.MEDIA_RECORDER) {
+            // MediaRecorder only moves to the next file seamlessly for mp4, from Android 8, checked in validate
+            if (options.getFormat() != RecordingFormat.MPEG_4) {
+                throw unsupported("segments with the mediarecorder engine need the mp4 format and Android 8");
+            }
+        }
+    }
+
+    private boolean isEncoderSupported(String mimeType, RecordOptions options) {
+        List<MediaCodecInfo.AudioCapabilities> candidates = encoders.get(mimeType);
+        if (candidates == null) {
+            return false;
+        }
+        for (MediaCodecInfo.AudioCapabilities capabilities : candidates) {
+            Range<Integer> bitrates = capabilities.getBitrateRange();
+            if (
+                capabilities.isSampleRateSupported(options.getSampleRate()) &&
+                bitrates.contains(options.getBitRate()) &&
+                capabilities.getMaxInputChannelCount() >= options.getChannels()
+            ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static MessagesException unsupported(String reason) {
+        return new MessagesException(Messages.UNSUPPORTED_RECORDING_OPTIONS, new IllegalArgumentException(reason));
+    }
+}
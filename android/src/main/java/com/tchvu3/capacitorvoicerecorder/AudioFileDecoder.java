@@ -0,0 +1,131 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Decodes an existing recording with {@link MediaExtractor} and {@link MediaCodec} and hands every decoded buffer
+ * straight to a {@link PcmSink}, so the decoded audio is never held in memory. The codec's own buffers are the only
+ * ones in between.
+ */
+public final class AudioFileDecoder {
+
+    private static final long DEQUEUE_TIMEOUT_US = 10_000;
+
+    public interface SinkFactory<T extends PcmSink> {
+        /**
+         * Called once the decoder reported the layout of the PCM it produces.
+         */
+        T create(int sampleRate, int channelCount) throws IOException;
+    }
+
+    private AudioFileDecoder() {}
+
+    /**
+     * Reduces the waveform of the file, see {@link PeakReducer}.
+     */
+    public static PeakReducer decodePeaks(File file, int resolution) throws IOException {
+        return decode(file, (sampleRate, channelCount) -> new PeakReducer(channelCount, resolution));
+    }
+
+    /**
+     * @return the sink that received the audio, after its {@link PcmSink#onStop()}
+     */
+    public static <T extends PcmSink> T decode(File file, SinkFactory<T> factory) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        MediaCodec codec = null;
+        try {
+            extractor.setDataSource(file.getAbsolutePath());
+            MediaFormat format = selectAudioTrack(extractor);
+            if (format == null) {
+                throw new IOException("No audio track in " + file.getName());
+            }
+            codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+            codec.configure(format, null, null, 0);
+            codec.start();
+            return decode(extractor, codec, format, factory);
+        } catch (IllegalArgumentException | IllegalStateException exp) {
+            throw new IOException("Could not decode " + file.getName(), exp);
+        } finally {
+            if (codec != null) {
+                try {
+                    codec.stop();
+                } catch (IllegalStateException ignore) {}
+                codec.release();
+            }
+            extractor.release();
+        }
+    }
+
+    private static MediaFormat selectAudioTrack(MediaExtractor extractor) {
+        for (int track = 0; track < extractor.getTrackCount(); track++) {
+            MediaFormat format = extractor.getTrackFormat(track);
+            String mime = format.getString(MediaFormat.KEY_MIME);
+            if (mime != null && mime.startsWith("audio/")) {
+                extractor.selectTrack(track);
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private static <T extends PcmSink> T decode(MediaExtractor extractor, MediaCodec codec, MediaFormat format, SinkFactory<T> factory)
+        throws IOException {
+        MediaCodec.BufferInfo bufferInfo = new MediaCodec.BufferInfo();
+        int sampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+        int channels = format.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+        T sink = null;
+        boolean inputDone = false;
+        try {
+            while (true) {
+                if (!inputDone) {
+                    int index = codec.dequeueInputBuffer(DEQUEUE_TIMEOUT_US);
+                    if (index >= 0) {
+                        int size = extractor.readSampleData(codec.getInputBuffer(index), 0);
+                        if (size < 0) {
+                            codec.queueInputBuffer(index, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            inputDone = true;
+                        } else {
+                            codec.queueInputBuffer(index, 0, size, extractor.getSampleTime(), 0);
+                            extractor.advance();
+                        }
+                    }
+                }
+                int index = codec.dequeueOutputBuffer(bufferInfo, DEQUEUE_TIMEOUT_US);
+                if (index == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED && sink == null) {
+                    // the decoder may resample or up-mix, the output format describes the decoded buffers
+                    MediaFormat outputFormat = codec.getOutputFormat();
+                    sampleRate = outputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+                    channels = outputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+                }
+                if (index < 0) {
+                    continue;
+                }
+                if (sink == null) {
+                    sink = factory.create(sampleRate, channels);
+                    sink.onStart();
+                }
+                if (bufferInfo.size > 0) {
+                    ByteBuffer output = codec.getOutputBuffer(index);
+                    output.order(ByteOrder.nativeOrder());
+                    output.limit(bufferInfo.offset + bufferInfo.size);
+                    output.position(bufferInfo.offset);
+                    sink.onPcm(output);
+                }
+                codec.releaseOutputBuffer(index, false);
+                if ((bufferInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                    return sink;
+                }
+            }
+        } finally {
+            if (sink != null) {
+                sink.onStop();
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+
+/**
+ * Hands a file over as a sequence of Base64 pieces instead of one string. Each piece is encoded on its own, without
+ * padding except in the last one, so the receiver can decode and concatenate them. Only one piece is held in memory
+ * at a time: the bridge never has to copy a string of the size of the whole recording.
+ */
+public class Base64PayloadStreamer {
+
+    public static final int DEFAULT_PIECE_BYTES = 3 * 256 * 1024;
+
+    public interface Listener {
+        void onPiece(int sequence, String data, boolean last);
+    }
+
+    private final int pieceBytes;
+    private final StreamingBase64Encoder encoder;
+    private final PieceWriter writer = new PieceWriter();
+
+    /**
+     * @param pieceBytes bytes of the file per piece, a multiple of 3 so that only the last piece is padded
+     */
+    public Base64PayloadStreamer(int pieceBytes) {
+        this.pieceBytes = pieceBytes;
+        // one fill of the encoder buffer is one piece
+        this.encoder = new StreamingBase64Encoder(pieceBytes, false);
+    }
+
+    public static int pieceCount(long length, int pieceBytes) {
+        return (int) Math.max(1, (length + pieceBytes - 1) / pieceBytes);
+    }
+
+    /**
+     * Emits the pieces of {@code file} in order. An empty file is emitted as one empty last piece.
+     *
+     * @return the number of pieces
+     */
+    public int stream(File file, Listener listener) throws IOException {
+        int pieces = pieceCount(file.length(), pieceBytes);
+        try (InputStream input = new FileInputStream(file)) {
+            for (int sequence = 0; sequence < pieces; sequence++) {
+                writer.data = "";
+                encoder.encode(new LimitedInputStream(input, pieceBytes), writer);
+                String data = writer.data;
+                writer.data = null;
+                listener.onPiece(sequence, data, sequence == pieces - 1);
+            }
+        }
+        return pieces;
+    }
+
+    private static class PieceWriter extends Writer {
+
+        private String data;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            // the encoder writes a piece in a single call, the string is the only copy of it
+            data = data.isEmpty() ? new String(buffer, offset, length) : data + new String(buffer, offset, length);
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        LimitedInputStream(InputStream input, long limit) {
+            super(input);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read();
+            if (read >= 0) {
+                remaining--;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+            // the file stays open for the next piece
+        }
+    }
+}
@@ -3,21 +3,26 @@ package com.tchvu3.capacitorvoicerecorder;
 import android.content.Context;
 import android.media.MediaRecorder;
 import android.os.Build;
-import android.os.Environment;
+import android.os.SystemClock;
 import android.util.Log;
 import java.io.File;
 import java.io.IOException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Collections;
+import java.util.List;
 
-public class CustomMediaRecorder {
+public class CustomMediaRecorder implements Recorder {
 
     private final Context context;
     private final RecordOptions options;
     private MediaRecorder mediaRecorder;
     private File outputFile;
-    private CurrentRecordingStatus currentRecordingStatus = CurrentRecordingStatus.NONE;
-    private ErrorInfo errorInfo;
+    private final RecorderStateMachine state = new RecorderStateMachine();
+    private volatile ErrorInfo errorInfo;
+    private final RecordingClock recordingClock = new RecordingClock();
+    private SegmentTracker segments;
+    private long segmentedSamples;
+    private volatile RecordingLimitSink.Listener limitListener;
+    private volatile boolean limitReached;
 
     public CustomMediaRecorder(Context context, RecordOptions options) throws IOException {
         this.context = context;
@@ -29,133 +34,294 @@ public class CustomMediaRecorder {
     private void generateMediaRecorder() throws IOException {
         mediaRecorder = new MediaRecorder();
         mediaRecorder.setAudioSource(MediaRecorder.AudioSource.MIC);
-        mediaRecorder.setOutputFormat(MediaRecorder.OutputFormat.AAC_ADTS);
-        mediaRecorder.setAudioEncoder(MediaRecorder.AudioEncoder.AAC);
-        mediaRecorder.setAudioEncodingBitRate(96000);
-        mediaRecorder.setAudioSamplingRate(44100);
+        mediaRecorder.setOutputFormat(options.getFormat().getMediaRecorderFormat());
+        mediaRecorder.setAudioEncoder(options.getEncoder().getMediaRecorderEncoder());
+        mediaRecorder.setAudioEncodingBitRate(options.getBitRate());
+        mediaRecorder.setAudioSamplingRate(options.getSampleRate());
+        mediaRecorder.setAudioChannels(options.getChannels());
         setRecorderOutputFile();
+        if (options.isSegmented()) {
+            setupSegments();
+        }
+        setupLimits();
+        mediaRecorder.setOnInfoListener((mediaRecorder, what, extra) -> onInfo(what));
 
         mediaRecorder.setOnErrorListener((mediaRecorder, what, extra) -> {
             errorInfo = new ErrorInfo(what, extra);
+            state.moveTo(RecorderState.ERROR);
             Log.e("CustomMediaRecorder", "setOnErrorListener - errorInfo: " + errorInfo);
         });
         mediaRecorder.prepare();
     }
 
-    private void setRecorderOutputFile() throws IOException {
-        File outputDir = context.getCacheDir();
-        String directory = options.getDirectory();
-        String subDirectory = options.getSubDirectory();
-
-        if (directory != null) {
-            outputDir = this.getDirectory(directory);
-            if (subDirectory != null) {
-                Pattern pattern = Pattern.compile("^/?(.+[^/])/?$");
-                Matcher matcher = pattern.matcher(subDirectory);
-                if (matcher.matches()) {
-                    options.setSubDirectory(matcher.group(1));
-                    outputDir = new File(outputDir, matcher.group(1));
-                    if (!outputDir.exists()) {
-                        outputDir.mkdirs();
-                    }
-                }
-            }
+    /**
+     * MediaRecorder can only roll over by size, so a segment duration is turned into the size it takes at the
+     * configured bitrate. The next file is handed over when the current one is almost full and MediaRecorder switches
+     * to it without a gap; the segment is closed once it reports that the next file has started.
+     */
+    private void setupSegments() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return;
         }
+        long maxBytes = options.getSegmentMaxBytes();
+        if (options.getSegmentDurationMs() > 0) {
+            long durationBytes = (long) options.getBitRate() / 8 * options.getSegmentDurationMs() / 1000;
+            maxBytes = maxBytes > 0 ? Math.min(maxBytes, durationBytes) : durationBytes;
+        }
+        segments = new SegmentTracker(outputFile, options.getSampleRate(), 0, 0);
+        mediaRecorder.setMaxFileSize(maxBytes);
+    }
 
-        outputFile = File.createTempFile(String.format("recording-%d", System.currentTimeMillis()), ".aac", outputDir);
+    /**
+     * MediaRecorder enforces the limits itself and stops writing once one is reached. A segmented take already uses
+     * the maximum file size for its segments, which is why a file size limit cannot be combined with segments.
+     */
+    private void setupLimits() {
+        if (options.getMaxDurationMs() > 0) {
+            mediaRecorder.setMaxDuration((int) Math.min(Integer.MAX_VALUE, options.getMaxDurationMs()));
+        }
+        if (options.getMaxFileSizeBytes() > 0 && segments == null) {
+            mediaRecorder.setMaxFileSize(options.getMaxFileSizeBytes());
+        }
+    }
 
-        if (directory == null) {
-            outputFile.deleteOnExit();
+    private void onInfo(int what) {
+        if (what == MediaRecorder.MEDIA_RECORDER_INFO_MAX_FILESIZE_APPROACHING && segments != null) {
+            try {
+                mediaRecorder.setNextOutputFile(segments.getNextFile());
+            } catch (IOException exp) {
+                Log.e("CustomMediaRecorder", "onInfo - could not set the next segment file", exp);
+            }
+        } else if (what == MediaRecorder.MEDIA_RECORDER_INFO_NEXT_OUTPUT_FILE_STARTED && segments != null) {
+            closeSegment(false);
+        } else if (what == MediaRecorder.MEDIA_RECORDER_INFO_MAX_DURATION_REACHED) {
+            reachLimit(RecordingLimit.DURATION);
+        } else if (what == MediaRecorder.MEDIA_RECORDER_INFO_MAX_FILESIZE_REACHED) {
+            if (segments != null) {
+                Log.e("CustomMediaRecorder", "onInfo - segment full without a next file, the recording stopped");
+            } else {
+                reachLimit(RecordingLimit.FILE_SIZE);
+            }
         }
+    }
 
-        mediaRecorder.setOutputFile(outputFile.getAbsolutePath());
+    private void reachLimit(RecordingLimit limit) {
+        synchronized (this) {
+            if (limitReached) {
+                return;
+            }
+            limitReached = true;
+            // MediaRecorder stopped writing, the duration ends here rather than when the take is stopped
+            recordingClock.stop(SystemClock.elapsedRealtime());
+        }
+        Log.i("CustomMediaRecorder", "reachLimit - " + limit.getValue());
+        RecordingLimitSink.Listener listener = limitListener;
+        if (listener != null) {
+            listener.onLimitReached(limit);
+        }
     }
 
-    private File getDirectory(String directory) {
-        return switch (directory) {
-            case "DOCUMENTS" -> Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOCUMENTS);
-            case "DATA", "LIBRARY" -> context.getFilesDir();
-            case "CACHE" -> context.getCacheDir();
-            case "EXTERNAL" -> context.getExternalFilesDir(null);
-            case "EXTERNAL_STORAGE" -> Environment.getExternalStorageDirectory();
-            default -> null;
-        };
+    private void closeSegment(boolean last) {
+        synchronized (segments) {
+            long samples = recordingClock.getDurationMs(SystemClock.elapsedRealtime()) * options.getSampleRate() / 1000;
+            segments.add(samples - segmentedSamples, segments.getCurrentFile().length());
+            segmentedSamples = samples;
+            if (last) {
+                segments.finish();
+            } else {
+                segments.roll();
+            }
+        }
     }
 
-    public void startRecording() {
-        mediaRecorder.start();
-        currentRecordingStatus = CurrentRecordingStatus.RECORDING;
+    private void setRecorderOutputFile() throws IOException {
+        outputFile = RecordingFiles.createOutputFile(context, options, options.getFormat().getExtension());
+        mediaRecorder.setOutputFile(outputFile.getAbsolutePath());
     }
 
-    public void stopRecording() {
-        mediaRecorder.stop();
-        mediaRecorder.release();
-        currentRecordingStatus = CurrentRecordingStatus.NONE;
+    @Override
+    public synchronized void startRecording() {
+        if (!state.transition(RecorderState.IDLE, RecorderState.PREPARING)) {
+            throw new IllegalStateException("startRecording - recorder is " + state.get());
+        }
+        try {
+            mediaRecorder.start();
+        } catch (RuntimeException exp) {
+            state.moveTo(RecorderState.ERROR);
+            throw exp;
+        }
+        recordingClock.start(SystemClock.elapsedRealtime());
+        state.transition(RecorderState.PREPARING, RecorderState.RECORDING);
     }
 
+    @Override
+    public synchronized void stopRecording() {
+        if (state.moveTo(RecorderState.FINALIZING) == null) {
+            Log.w("CustomMediaRecorder", "stopRecording - recorder is " + state.get());
+            return;
+        }
+        recordingClock.stop(SystemClock.elapsedRealtime());
+        try {
+            mediaRecorder.stop();
+        } catch (RuntimeException exp) {
+            if (!limitReached) {
+                throw exp;
+            }
+            // some devices refuse to stop a recorder that stopped itself at its limit, the file is complete anyway
+            Log.w("CustomMediaRecorder", "stopRecording - recorder already stopped at its limit", exp);
+        } finally {
+            mediaRecorder.release();
+        }
+        if (segments != null) {
+            closeSegment(true);
+        }
+    }
+
+    @Override
     public ErrorInfo getErrorInfo() {
         return errorInfo;
     }
 
+    @Override
     public File getOutputFile() {
         return outputFile;
     }
 
+    @Override
     public RecordOptions getRecordOptions() {
         return options;
     }
 
-    public boolean pauseRecording() throws NotSupportedOsVersion {
+    @Override
+    public synchronized boolean pauseRecording() throws NotSupportedOsVersion {
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
             throw new NotSupportedOsVersion();
         }
 
-        if (currentRecordingStatus == CurrentRecordingStatus.RECORDING) {
-            mediaRecorder.pause();
-            currentRecordingStatus = CurrentRecordingStatus.PAUSED;
-            return true;
-        } else {
+        if (!state.transition(RecorderState.RECORDING, RecorderState.PAUSED)) {
             return false;
         }
+        try {
+            mediaRecorder.pause();
+        } catch (RuntimeException exp) {
+            state.moveTo(RecorderState.ERROR);
+            throw exp;
+        }
+        recordingClock.pause(SystemClock.elapsedRealtime());
+        return true;
     }
 
-    public boolean resumeRecording() throws NotSupportedOsVersion {
+    @Override
+    public synchronized boolean resumeRecording() throws NotSupportedOsVersion {
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
             throw new NotSupportedOsVersion();
         }
 
-        if (currentRecordingStatus == CurrentRecordingStatus.PAUSED) {
-            mediaRecorder.resume();
-            currentRecordingStatus = CurrentRecordingStatus.RECORDING;
-            return true;
-        } else {
+        if (!state.transition(RecorderState.PAUSED, RecorderState.RECORDING)) {
             return false;
         }
+        try {
+            mediaRecorder.resume();
+        } catch (RuntimeException exp) {
+            state.moveTo(RecorderState.ERROR);
+            throw exp;
+        }
+        recordingClock.resume(SystemClock.elapsedRealtime());
+        return true;
     }
 
+    @Override
     public CurrentRecordingStatus getCurrentStatus() {
-        return currentRecordingStatus;
+        return state.getStatus();
     }
 
-    public boolean deleteOutputFile() {
-        return outputFile.delete();
+    @Override
+    public RecorderState getState() {
+        return state.get();
     }
 
-    public static boolean canPhoneCreateMediaRecorder(Context context) {
-        return true;
+    @Override
+    public long getRecordedDurationMs() {
+        return recordingClock.getDurationMs(SystemClock.elapsedRealtime());
+    }
+
+    @Override
+    public long getTrimmedDurationMs() {
+        return 0;
+    }
+
+    @Override
+    public List<RecordingSegment> getSegments() {
+        return segments != null ? segments.getSegments() : Collections.emptyList();
+    }
+
+    @Override
+    public void setSegmentListener(SegmentTracker.Listener listener) {
+        if (segments != null) {
+            segments.setListener(listener);
+        }
+    }
+
+    @Override
+    public void setLimitListener(RecordingLimitSink.Listener listener) {
+        limitListener = listener;
+    }
+
+    @Override
+    public PeakReducer getPeakReducer() {
+        return null;
+    }
+
+    @Override
+    public LoudnessSink getLoudnessSink() {
+        return null;
     }
 
-    private static boolean canPhoneCreateMediaRecorderWhileHavingPermission(Context context) {
-        CustomMediaRecorder tempMediaRecorder = null;
+    @Override
+    public void takeLevels(float[] out) {
+        int amplitude;
         try {
-            tempMediaRecorder = new CustomMediaRecorder(context, new RecordOptions(null, null));
-            tempMediaRecorder.startRecording();
-            tempMediaRecorder.stopRecording();
-            return true;
-        } catch (Exception exp) {
-            return exp.getMessage().startsWith("stop failed");
-        } finally {
-            if (tempMediaRecorder != null) tempMediaRecorder.deleteOutputFile();
+            amplitude = mediaRecorder.getMaxAmplitude();
+        } catch (IllegalStateException exp) {
+            amplitude = 0;
+        }
+        out[0] = Math.min(1f, amplitude / 32767f);
+        out[1] = -1f;
+    }
+
+    @Override
+    public void collectMetrics(RecordingMetrics metrics) {
+        // MediaRecorder encodes internally, only the file size and its errors are known
+    }
+
+    @Override
+    public boolean hasCapturedAudio() {
+        try {
+            return mediaRecorder.getMaxAmplitude() > 0;
+        } catch (IllegalStateException exp) {
+            return false;
         }
     }
+
+    @Override
+    public synchronized void discard() {
+        boolean discarded =
+            state.transition(RecorderState.IDLE, RecorderState.FINALIZING) ||
+            state.transition(RecorderState.ERROR, RecorderState.FINALIZING);
+        if (!discarded) {
+            Log.w("CustomMediaRecorder", "discard - recorder is " + state.get());
+            return;
+        }
+        mediaRecorder.release();
+        deleteOutputFile();
+    }
+
+    @Override
+    public boolean deleteOutputFile() {
+        return outputFile.delete();
+    }
+
+    public static boolean canPhoneCreateMediaRecorder(Context context) {
+        return AudioCapabilities.getDeviceCapabilities(context).canRecord();
+    }
 }
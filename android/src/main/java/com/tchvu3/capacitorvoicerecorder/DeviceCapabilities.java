@@ -0,0 +1,183 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What the device can record with, as probed once by {@link AudioCapabilities#getDeviceCapabilities}. The result is
+ * kept in a file together with the build fingerprint and SDK level it was probed on, and is probed again once either
+ * changed, which is after a system update.
+ */
+public class DeviceCapabilities {
+
+    private static final int MAGIC = 0x56524350;
+    private static final int VERSION = 1;
+    private static final int MAX_ENTRIES = 64;
+
+    private final String fingerprint;
+    private final int sdkInt;
+    private final boolean microphone;
+    private final List<String> sources;
+    private final List<Integer> sampleRates;
+    private final boolean stereo;
+    private final List<String> encoders;
+    private final List<String> formats;
+
+    public DeviceCapabilities(
+        String fingerprint,
+        int sdkInt,
+        boolean microphone,
+        List<String> sources,
+        List<Integer> sampleRates,
+        boolean stereo,
+        List<String> encoders,
+        List<String> formats
+    ) {
+        this.fingerprint = fingerprint;
+        this.sdkInt = sdkInt;
+        this.microphone = microphone;
+        this.sources = Collections.unmodifiableList(sources);
+        this.sampleRates = Collections.unmodifiableList(sampleRates);
+        this.stereo = stereo;
+        this.encoders = Collections.unmodifiableList(encoders);
+        this.formats = Collections.unmodifiableList(formats);
+    }
+
+    /**
+     * Whether the device has a microphone that accepts at least one sample rate.
+     */
+    public boolean canRecord() {
+        return microphone && !sampleRates.isEmpty();
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public int getSdkInt() {
+        return sdkInt;
+    }
+
+    public boolean hasMicrophone() {
+        return microphone;
+    }
+
+    /**
+     * The {@code MediaRecorder.AudioSource} names the device offers, in lower case.
+     */
+    public List<String> getSources() {
+        return sources;
+    }
+
+    /**
+     * The sample rates {@code AudioRecord} accepts for 16 bit mono.
+     */
+    public List<Integer> getSampleRates() {
+        return sampleRates;
+    }
+
+    public boolean isStereo() {
+        return stereo;
+    }
+
+    /**
+     * The {@link RecordingEncoder} values the device has an encoder for.
+     */
+    public List<String> getEncoders() {
+        return encoders;
+    }
+
+    /**
+     * The {@link RecordingFormat} values the device can record to with one of its encoders.
+     */
+    public List<String> getFormats() {
+        return formats;
+    }
+
+    /**
+     * @return the capabilities stored in {@code file}, or {@code null} when there are none, they cannot be read or they
+     *     were probed on another build
+     */
+    public static DeviceCapabilities read(File file, String fingerprint, int sdkInt) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return null;
+            }
+            if (!input.readUTF().equals(fingerprint) || input.readInt() != sdkInt) {
+                return null;
+            }
+            boolean microphone = input.readBoolean();
+            List<String> sources = readStrings(input);
+            List<Integer> sampleRates = new ArrayList<>();
+            int count = readCount(input);
+            for (int i = 0; i < count; i++) {
+                sampleRates.add(input.readInt());
+            }
+            boolean stereo = input.readBoolean();
+            List<String> encoders = readStrings(input);
+            List<String> formats = readStrings(input);
+            return new DeviceCapabilities(fingerprint, sdkInt, microphone, sources, sampleRates, stereo, encoders, formats);
+        } catch (IOException exp) {
+            return null;
+        }
+    }
+
+    public void write(File file) throws IOException {
+        File written = new File(file.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(written)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeUTF(fingerprint);
+            output.writeInt(sdkInt);
+            output.writeBoolean(microphone);
+            writeStrings(output, sources);
+            output.writeInt(sampleRates.size());
+            for (int sampleRate : sampleRates) {
+                output.writeInt(sampleRate);
+            }
+            output.writeBoolean(stereo);
+            writeStrings(output, encoders);
+            writeStrings(output, formats);
+        }
+        if (!written.renameTo(file)) {
+            written.delete();
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    private static int readCount(DataInputStream input) throws IOException {
+        int count = input.readInt();
+        if (count < 0 || count > MAX_ENTRIES) {
+            throw new IOException("Not a capabilities file");
+        }
+        return count;
+    }
+
+    private static List<String> readStrings(DataInputStream input) throws IOException {
+        int count = readCount(input);
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(input.readUTF());
+        }
+        return values;
+    }
+
+    private static void writeStrings(DataOutputStream output, List<String> values) throws IOException {
+        output.writeInt(values.size());
+        for (String value : values) {
+            output.writeUTF(value);
+        }
+    }
+}
@@ -12,6 +12,14 @@ public class ErrorInfo {
         this.extra = extra;
     }
 
+    public int getWhat() {
+        return what;
+    }
+
+    public int getExtra() {
+        return extra;
+    }
+
     @NonNull
     @Override
     public String toString() {
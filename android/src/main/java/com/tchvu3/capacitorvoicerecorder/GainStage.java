@@ -0,0 +1,94 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+/**
+ * Applies a gain to interleaved 16-bit PCM, followed by a peak limiter that keeps every sample below a ceiling. The
+ * limiter works on whole frames, so the channels keep their balance: when a frame would go over the ceiling its
+ * reduction is applied at once, and it recovers towards no reduction with the release time. There is no look-ahead,
+ * which is inaudible at the few dB a normalized voice needs and keeps the stage free of latency.
+ * <p>
+ * A new gain is reached smoothly, over about {@code RAMP_MS}, so it can be changed while recording without clicks.
+ */
+public class GainStage {
+
+    public static final float DEFAULT_CEILING_DB = -1f;
+    public static final int DEFAULT_RELEASE_MS = 200;
+
+    private static final int RAMP_MS = 500;
+
+    private final int channels;
+    private final float ceiling;
+    private final float release;
+    private final float ramp;
+    private float gain;
+    private float targetGain;
+    private float reduction = 1f;
+    private long limitedFrames;
+
+    public GainStage(int sampleRate, int channels, float gainDb, float ceilingDb, int releaseMs) {
+        this.channels = channels;
+        this.ceiling = (float) Math.floor(32767 * Math.pow(10, ceilingDb / 20));
+        this.release = (float) (1 - Math.exp(-1000.0 / ((double) releaseMs * sampleRate)));
+        this.ramp = (float) (1 - Math.exp(-1000.0 / ((double) RAMP_MS * sampleRate)));
+        this.gain = this.targetGain = toLinear(gainDb);
+    }
+
+    /**
+     * Moves the gain towards {@code gainDb} from the next processed frame on.
+     */
+    public void setGainDb(float gainDb) {
+        targetGain = toLinear(gainDb);
+    }
+
+    public float getGainDb() {
+        return (float) (20 * Math.log10(gain));
+    }
+
+    /**
+     * The largest sample magnitude the limiter lets through.
+     */
+    public int getCeiling() {
+        return (int) ceiling;
+    }
+
+    /**
+     * Number of frames the limiter had to turn down so far.
+     */
+    public long getLimitedFrames() {
+        return limitedFrames;
+    }
+
+    /**
+     * Processes {@code frameCount} interleaved frames of {@code samples} in place, starting at {@code offset}.
+     */
+    public void process(short[] samples, int offset, int frameCount) {
+        float localGain = gain;
+        float localReduction = reduction;
+        long limited = 0;
+        int index = offset;
+        for (int frame = 0; frame < frameCount; frame++, index += channels) {
+            localGain += (targetGain - localGain) * ramp;
+            int framePeak = 0;
+            for (int channel = 0; channel < channels; channel++) {
+                int sample = samples[index + channel];
+                framePeak = Math.max(framePeak, sample < 0 ? -sample : sample);
+            }
+            float scaledPeak = framePeak * localGain;
+            if (scaledPeak * localReduction > ceiling) {
+                localReduction = ceiling / scaledPeak;
+                limited++;
+            }
+            float frameGain = localGain * localReduction;
+            for (int channel = 0; channel < channels; channel++) {
+                samples[index + channel] = (short) Math.max(-32768, Math.min(32767, Math.round(samples[index + channel] * frameGain)));
+            }
+            localReduction += (1f - localReduction) * release;
+        }
+        gain = localGain;
+        reduction = localReduction;
+        limitedFrames += limited;
+    }
+
+    private static float toLinear(float db) {
+        return (float) Math.pow(10, db / 20);
+    }
+}
@@ -0,0 +1,70 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.File;
+
+/**
+ * A finished recording the plugin wrote into one of the directories, as kept in the {@link RecordingIndex}.
+ */
+public class IndexedRecording {
+
+    private final String directory;
+    private final String path;
+    private final File file;
+    private final long size;
+    private final long durationMs;
+    private final long createdAtMs;
+    private long lastUsedAtMs;
+
+    /**
+     * @param path the path relative to {@code directory}, as it is returned with the recording
+     */
+    public IndexedRecording(String directory, String path, File file, long size, long durationMs, long createdAtMs, long lastUsedAtMs) {
+        this.directory = directory;
+        this.path = path;
+        this.file = file;
+        this.size = size;
+        this.durationMs = durationMs;
+        this.createdAtMs = createdAtMs;
+        this.lastUsedAtMs = lastUsedAtMs;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public long getCreatedAtMs() {
+        return createdAtMs;
+    }
+
+    public long getLastUsedAtMs() {
+        return lastUsedAtMs;
+    }
+
+    void setLastUsedAtMs(long lastUsedAtMs) {
+        this.lastUsedAtMs = lastUsedAtMs;
+    }
+
+    /**
+     * The sub directory the recording is in, {@code null} for the top of {@code directory}.
+     */
+    public String getSubDirectory() {
+        int slash = path.lastIndexOf('/');
+        return slash > 0 ? path.substring(0, slash) : null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Keeps the peak and the sum of squares of the samples seen since the last {@link #takeLevels} call. Written by the
+ * capture thread and read from any other thread; a reading may miss or double count a single buffer, which does not
+ * matter for metering.
+ */
+public class LevelMeterSink implements PcmSink {
+
+    private volatile int peak;
+    private volatile double sumOfSquares;
+    private volatile long sampleCount;
+
+    @Override
+    public void onStart() {
+        reset();
+    }
+
+    @Override
+    public void onPcm(ByteBuffer buffer) {
+        int localPeak = peak;
+        double localSum = 0;
+        int samples = 0;
+        for (int i = buffer.position(); i + 1 < buffer.limit(); i += 2) {
+            int sample = buffer.getShort(i);
+            int magnitude = sample < 0 ? -sample : sample;
+            if (magnitude > localPeak) {
+                localPeak = magnitude;
+            }
+            localSum += (double) sample * sample;
+            samples++;
+        }
+        peak = localPeak;
+        sumOfSquares += localSum;
+        sampleCount += samples;
+    }
+
+    @Override
+    public void onStop() {}
+
+    /**
+     * Writes {@code [peak, rms]} of the samples since the previous call, both normalized to 0..1, into {@code out}
+     * and starts a new measuring window.
+     */
+    public void takeLevels(float[] out) {
+        long samples = sampleCount;
+        out[0] = Math.min(1f, peak / 32767f);
+        out[1] = samples == 0 ? 0f : (float) Math.min(1.0, Math.sqrt(sumOfSquares / samples) / 32767.0);
+        reset();
+    }
+
+    private void reset() {
+        peak = 0;
+        sumOfSquares = 0;
+        sampleCount = 0;
+    }
+}
@@ -0,0 +1,88 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the level of a {@link Recorder} at a fixed rate and hands the readings over in batches, so a fast meter
+ * costs one bridge message per batch instead of one per reading. Sampling is suspended while the take is paused.
+ */
+public class LevelMonitor {
+
+    public interface Listener {
+        void onLevels(long firstSampleMs, int intervalMs, float[] peaks, float[] rms, int count);
+    }
+
+    private final Recorder recorder;
+    private final ScheduledExecutorService executor;
+    private final int intervalMs;
+    private final Listener listener;
+    private final float[] peaks;
+    private final float[] rms;
+    private final float[] reading = new float[2];
+    private ScheduledFuture<?> future;
+    private int count;
+    private long firstSampleMs;
+    private boolean hasRms = true;
+    private boolean stopped;
+
+    public LevelMonitor(Recorder recorder, ScheduledExecutorService executor, int intervalMs, int batchSize, Listener listener) {
+        this.recorder = recorder;
+        this.executor = executor;
+        this.intervalMs = intervalMs;
+        this.listener = listener;
+        this.peaks = new float[batchSize];
+        this.rms = new float[batchSize];
+    }
+
+    public synchronized void start() {
+        if (stopped || future != null) {
+            return;
+        }
+        recorder.takeLevels(reading);
+        future = executor.scheduleAtFixedRate(this::sample, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void pause() {
+        cancel();
+        flush();
+    }
+
+    public synchronized void stop() {
+        stopped = true;
+        cancel();
+        flush();
+    }
+
+    synchronized void sample() {
+        if (stopped || recorder.getCurrentStatus() != CurrentRecordingStatus.RECORDING) {
+            return;
+        }
+        if (count == 0) {
+            firstSampleMs = recorder.getRecordedDurationMs();
+        }
+        recorder.takeLevels(reading);
+        peaks[count] = reading[0];
+        rms[count] = reading[1];
+        hasRms &= reading[1] >= 0;
+        if (++count == peaks.length) {
+            flush();
+        }
+    }
+
+    private void cancel() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+    }
+
+    private void flush() {
+        if (count > 0) {
+            listener.onLevels(firstSampleMs, intervalMs, peaks, hasRms ? rms : null, count);
+            count = 0;
+            hasRms = true;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+/**
+ * Measures the integrated loudness of 16-bit PCM as ITU-R BS.1770 defines it, together with the sample peak and the
+ * unweighted RMS, in one pass while the audio streams by. The samples are K-weighted by two biquads per channel and
+ * summed into 100ms blocks; every 400ms window, overlapping by 75%, is then counted into a histogram of 0.1 LU bins
+ * between the absolute gate of -70 LUFS and +5 LUFS. The gates are applied to the histogram, so memory stays constant
+ * however long the take is and nothing is allocated per call.
+ * <p>
+ * All channels are weighted 1, which is what BS.1770 gives mono, left and right.
+ */
+public class LoudnessMeter {
+
+    public static final float ABSOLUTE_GATE_LUFS = -70f;
+
+    private static final double RELATIVE_GATE_LU = 10.0;
+    private static final double OFFSET_LU = -0.691;
+    private static final double MAX_LUFS = 5.0;
+    private static final double BINS_PER_LU = 10.0;
+    private static final int BINS = (int) ((MAX_LUFS - ABSOLUTE_GATE_LUFS) * BINS_PER_LU);
+    private static final int SUB_BLOCKS_PER_WINDOW = 4;
+    private static final double FULL_SCALE = 32768.0;
+
+    private final int channels;
+    private final int framesPerSubBlock;
+    // K-weighting: a high shelf then a high pass, as direct form II transposed with one state pair per channel
+    private final double shelfB0, shelfB1, shelfB2, shelfA1, shelfA2;
+    private final double passA1, passA2;
+    private final double[] shelfZ1, shelfZ2, passZ1, passZ2;
+
+    private final double[] subBlocks = new double[SUB_BLOCKS_PER_WINDOW];
+    private int subBlockCount;
+    private double subBlockSum;
+    private int framesInSubBlock;
+
+    private final long[] binCounts = new long[BINS];
+    private final double[] binEnergies = new double[BINS];
+    private long gatedWindows;
+
+    private int peak;
+    private double sumOfSquares;
+    private long frames;
+
+    public LoudnessMeter(int sampleRate, int channels) {
+        this.channels = channels;
+        this.framesPerSubBlock = sampleRate / 10;
+
+        double k = Math.tan(Math.PI * 1681.974450955533 / sampleRate);
+        double q = 0.7071752369554196;
+        double vh = Math.pow(10, 3.999843853973347 / 20);
+        double vb = Math.pow(vh, 0.4996667741545416);
+        double a0 = 1 + k / q + k * k;
+        shelfB0 = (vh + vb * k / q + k * k) / a0;
+        shelfB1 = 2 * (k * k - vh) / a0;
+        shelfB2 = (vh - vb * k / q + k * k) / a0;
+        shelfA1 = 2 * (k * k - 1) / a0;
+        shelfA2 = (1 - k / q + k * k) / a0;
+
+        k = Math.tan(Math.PI * 38.13547087602444 / sampleRate);
+        q = 0.5003270373238773;
+        a0 = 1 + k / q + k * k;
+        passA1 = 2 * (k * k - 1) / a0;
+        passA2 = (1 - k / q + k * k) / a0;
+
+        shelfZ1 = new double[channels];
+        shelfZ2 = new double[channels];
+        passZ1 = new double[channels];
+        passZ2 = new double[channels];
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    /**
+     * Adds {@code frameCount} interleaved frames of {@code samples}, starting at {@code offset}.
+     */
+    public void process(short[] samples, int offset, int frameCount) {
+        int localPeak = peak;
+        double localSquares = 0;
+        double blockSum = subBlockSum;
+        int inSubBlock = framesInSubBlock;
+        int index = offset;
+        for (int frame = 0; frame < frameCount; frame++) {
+            for (int channel = 0; channel < channels; channel++) {
+                int sample = samples[index++];
+                int magnitude = sample < 0 ? -sample : sample;
+                if (magnitude > localPeak) {
+                    localPeak = magnitude;
+                }
+                double x = sample / FULL_SCALE;
+                localSquares += x * x;
+
+                double shelved = shelfB0 * x + shelfZ1[channel];
+                shelfZ1[channel] = shelfB1 * x - shelfA1 * shelved + shelfZ2[channel];
+                shelfZ2[channel] = shelfB2 * x - shelfA2 * shelved;
+                double weighted = shelved + passZ1[channel];
+                passZ1[channel] = -2 * shelved - passA1 * weighted + passZ2[channel];
+                passZ2[channel] = shelved - passA2 * weighted;
+                blockSum += weighted * weighted;
+            }
+            if (++inSubBlock == framesPerSubBlock) {
+                closeSubBlock(blockSum);
+                blockSum = 0;
+                inSubBlock = 0;
+            }
+        }
+        peak = localPeak;
+        sumOfSquares += localSquares;
+        subBlockSum = blockSum;
+        framesInSubBlock = inSubBlock;
+        frames += frameCount;
+    }
+
+    private void closeSubBlock(double sum) {
+        subBlocks[subBlockCount % SUB_BLOCKS_PER_WINDOW] = sum;
+        subBlockCount++;
+        if (subBlockCount < SUB_BLOCKS_PER_WINDOW) {
+            return;
+        }
+        double windowSum = 0;
+        for (double subBlock : subBlocks) {
+            windowSum += subBlock;
+        }
+        double energy = windowSum / ((double) framesPerSubBlock * SUB_BLOCKS_PER_WINDOW);
+        double lufs = toLufs(energy);
+        if (lufs >= ABSOLUTE_GATE_LUFS) {
+            int bin = (int) Math.min(BINS - 1, (lufs - ABSOLUTE_GATE_LUFS) * BINS_PER_LU);
+            binCounts[bin]++;
+            binEnergies[bin] += energy;
+            gatedWindows++;
+        }
+    }
+
+    /**
+     * Number of 400ms windows louder than the absolute gate so far, the integrated loudness is known once it is
+     * above 0.
+     */
+    public long getGatedWindows() {
+        return gatedWindows;
+    }
+
+    /**
+     * @return the gated loudness of everything added so far in LUFS, or {@link Float#NEGATIVE_INFINITY} when no
+     *     window was louder than the absolute gate. The relative gate falls on the 0.1 LU bin that holds it.
+     */
+    public float getIntegratedLoudness() {
+        if (gatedWindows == 0) {
+            return Float.NEGATIVE_INFINITY;
+        }
+        double energy = 0;
+        for (double binEnergy : binEnergies) {
+            energy += binEnergy;
+        }
+        double relativeGate = toLufs(energy / gatedWindows) - RELATIVE_GATE_LU;
+        int firstBin = (int) Math.max(0, Math.min(BINS - 1, (relativeGate - ABSOLUTE_GATE_LUFS) * BINS_PER_LU));
+        energy = 0;
+        long windows = 0;
+        for (int bin = firstBin; bin < BINS; bin++) {
+            energy += binEnergies[bin];
+            windows += binCounts[bin];
+        }
+        return (float) toLufs(energy / windows);
+    }
+
+    /**
+     * @return the largest sample magnitude in dBFS, {@link Float#NEGATIVE_INFINITY} for digital silence
+     */
+    public float getPeakDb() {
+        return (float) (20 * Math.log10(peak / FULL_SCALE));
+    }
+
+    /**
+     * @return the unweighted RMS of all samples in dBFS, {@link Float#NEGATIVE_INFINITY} for digital silence
+     */
+    public float getRmsDb() {
+        long samples = frames * channels;
+        return samples == 0 ? Float.NEGATIVE_INFINITY : (float) (10 * Math.log10(sumOfSquares / samples));
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * The gain that brings the loudness measured so far to {@code targetLufs}, limited to {@code maxGainDb} either
+     * way. 0 when nothing louder than the absolute gate was heard, so silence is not amplified.
+     */
+    public float gainTo(float targetLufs, float maxGainDb) {
+        float loudness = getIntegratedLoudness();
+        if (loudness == Float.NEGATIVE_INFINITY) {
+            return 0f;
+        }
+        return Math.max(-maxGainDb, Math.min(maxGainDb, targetLufs - loudness));
+    }
+
+    private static double toLufs(double energy) {
+        return OFFSET_LU + 10 * Math.log10(energy);
+    }
+}
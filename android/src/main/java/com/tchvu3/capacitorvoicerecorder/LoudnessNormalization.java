@@ -0,0 +1,19 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+public enum LoudnessNormalization {
+    OFF,
+    REALTIME,
+    ON_STOP;
+
+    public static LoudnessNormalization fromString(String value, LoudnessNormalization fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        return switch (value) {
+            case "off" -> OFF;
+            case "realtime" -> REALTIME;
+            case "stop" -> ON_STOP;
+            default -> fallback;
+        };
+    }
+}
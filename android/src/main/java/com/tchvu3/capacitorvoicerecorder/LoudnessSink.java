@@ -0,0 +1,97 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Measures the loudness of the PCM passing through with a {@link LoudnessMeter} and, with a {@link GainStage}, turns
+ * it up or down before the next sink. Without a meter only the gain is applied; without a gain stage the buffers are
+ * passed on untouched.
+ * <p>
+ * When both are given the gain follows the measurement: every time the meter closes a 400ms window the gain moves
+ * towards the one that brings the loudness heard so far to the target. The samples are copied into a preallocated
+ * {@code short[]} for the kernels and written into a preallocated buffer for the next sink, so the buffer of the caller
+ * is left as it is and nothing is allocated per call.
+ */
+public class LoudnessSink implements PcmSink {
+
+    private static final int BLOCK_FRAMES = 4096;
+
+    private final LoudnessMeter meter;
+    private final GainStage gainStage;
+    private final PcmSink next;
+    private final int channels;
+    private final float targetLufs;
+    private final float maxGainDb;
+    private final short[] samples;
+    private final ByteBuffer output;
+    private long gatedWindows;
+
+    public LoudnessSink(int channels, LoudnessMeter meter, GainStage gainStage, float targetLufs, float maxGainDb, PcmSink next) {
+        this.channels = channels;
+        this.meter = meter;
+        this.gainStage = gainStage;
+        this.targetLufs = targetLufs;
+        this.maxGainDb = maxGainDb;
+        this.next = next;
+        this.samples = new short[BLOCK_FRAMES * channels];
+        this.output = gainStage != null ? ByteBuffer.allocateDirect(samples.length * 2).order(ByteOrder.LITTLE_ENDIAN) : null;
+    }
+
+    public LoudnessMeter getMeter() {
+        return meter;
+    }
+
+    public GainStage getGainStage() {
+        return gainStage;
+    }
+
+    @Override
+    public void onStart() throws IOException {
+        next.onStart();
+    }
+
+    @Override
+    public void onPcm(ByteBuffer buffer) throws IOException {
+        int frameBytes = channels * 2;
+        int start = buffer.position();
+        int end = start + (buffer.limit() - start) / frameBytes * frameBytes;
+        for (int offset = start; offset < end; ) {
+            int frames = Math.min(BLOCK_FRAMES, (end - offset) / frameBytes);
+            int count = frames * channels;
+            for (int i = 0; i < count; i++) {
+                samples[i] = buffer.getShort(offset + 2 * i);
+            }
+            if (meter != null) {
+                meter.process(samples, 0, frames);
+                followMeter();
+            }
+            if (gainStage != null) {
+                gainStage.process(samples, 0, frames);
+                output.clear();
+                for (int i = 0; i < count; i++) {
+                    output.putShort(samples[i]);
+                }
+                output.flip();
+                next.onPcm(output);
+            }
+            offset += frames * frameBytes;
+        }
+        if (gainStage == null) {
+            next.onPcm(buffer);
+        }
+    }
+
+    private void followMeter() {
+        if (gainStage != null && meter.getGatedWindows() != gatedWindows) {
+            gatedWindows = meter.getGatedWindows();
+            gainStage.setGainDb(meter.gainTo(targetLufs, maxGainDb));
+        }
+    }
+
+    @Override
+    public void onStop() throws IOException {
+        next.onStop();
+    }
+}
@@ -13,4 +13,9 @@ public abstract class Messages {
     public static final String MICROPHONE_BEING_USED = "MICROPHONE_BEING_USED";
     public static final String PLUGIN_UNBOUND = "PLUGIN_UNBOUND";
     public static final String RUNTIME_FAILED = "RUNTIME_FAILED";
+    public static final String INVALID_PATH = "INVALID_PATH";
+    public static final String UNSUPPORTED_RECORDING_OPTIONS = "UNSUPPORTED_RECORDING_OPTIONS";
+    public static final String RECORDING_NOT_FOUND = "RECORDING_NOT_FOUND";
+    public static final String UPLOAD_QUEUE_FULL = "UPLOAD_QUEUE_FULL";
+    public static final String INSUFFICIENT_STORAGE = "INSUFFICIENT_STORAGE";
 }
@@ -0,0 +1,140 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes PCM with {@link MediaCodec} and writes it into a container with {@link MediaMuxer}: AAC in mp4, Opus in
+ * ogg or webm. Encoded buffers go from the codec to the muxer without a copy.
+ */
+public class MuxerEncoderSink implements PcmSink {
+
+    private static final long DEQUEUE_TIMEOUT_US = 10_000;
+    private static final int MAX_END_OF_STREAM_WAITS = 100;
+
+    private final int sampleRate;
+    private final int channelCount;
+    private final MediaCodec codec;
+    private final MediaMuxer muxer;
+    private final MediaCodec.BufferInfo bufferInfo = new MediaCodec.BufferInfo();
+    private int track = -1;
+    private boolean started;
+    private long queuedFrames;
+
+    public MuxerEncoderSink(File outputFile, RecordingFormat format, int sampleRate, int channelCount, int bitRate) throws IOException {
+        this.sampleRate = sampleRate;
+        this.channelCount = channelCount;
+        String mimeType = format.getDefaultEncoder().getCodecMimeType();
+        MediaFormat mediaFormat = MediaFormat.createAudioFormat(mimeType, sampleRate, channelCount);
+        if (MediaFormat.MIMETYPE_AUDIO_AAC.equals(mimeType)) {
+            mediaFormat.setInteger(MediaFormat.KEY_AAC_PROFILE, MediaCodecInfo.CodecProfileLevel.AACObjectLC);
+        }
+        mediaFormat.setInteger(MediaFormat.KEY_BIT_RATE, bitRate);
+        muxer = new MediaMuxer(outputFile.getAbsolutePath(), muxerFormatOf(format));
+        codec = MediaCodec.createEncoderByType(mimeType);
+        try {
+            codec.configure(mediaFormat, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+        } catch (RuntimeException exp) {
+            codec.release();
+            muxer.release();
+            throw new IOException("Could not configure " + mimeType + " encoder", exp);
+        }
+    }
+
+    private static int muxerFormatOf(RecordingFormat format) throws IOException {
+        return switch (format) {
+            case MPEG_4 -> MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4;
+            case WEBM -> MediaMuxer.OutputFormat.MUXER_OUTPUT_WEBM;
+            case OGG -> MediaMuxer.OutputFormat.MUXER_OUTPUT_OGG;
+            default -> throw new IOException(format.getValue() + " is not written with a muxer");
+        };
+    }
+
+    @Override
+    public void onStart() {
+        codec.start();
+        started = true;
+    }
+
+    @Override
+    public void onPcm(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            int index = codec.dequeueInputBuffer(DEQUEUE_TIMEOUT_US);
+            if (index >= 0) {
+                ByteBuffer input = codec.getInputBuffer(index);
+                int length = Math.min(input.remaining(), buffer.remaining());
+                int limit = buffer.limit();
+                buffer.limit(buffer.position() + length);
+                input.put(buffer);
+                buffer.limit(limit);
+                codec.queueInputBuffer(index, 0, length, presentationTimeUs(), 0);
+                queuedFrames += length / (2 * channelCount);
+            }
+            drain(false);
+        }
+    }
+
+    @Override
+    public void onStop() throws IOException {
+        try {
+            if (started) {
+                int index = codec.dequeueInputBuffer(DEQUEUE_TIMEOUT_US * 10);
+                if (index >= 0) {
+                    codec.queueInputBuffer(index, 0, 0, presentationTimeUs(), MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                    drain(true);
+                }
+                codec.stop();
+            }
+            if (track >= 0) {
+                muxer.stop();
+            }
+        } catch (IllegalStateException exp) {
+            throw new IOException("Could not finish the file", exp);
+        } finally {
+            codec.release();
+            muxer.release();
+        }
+    }
+
+    private long presentationTimeUs() {
+        return queuedFrames * 1_000_000L / sampleRate;
+    }
+
+    private void drain(boolean endOfStream) {
+        int endOfStreamWaits = 0;
+        while (true) {
+            int index = codec.dequeueOutputBuffer(bufferInfo, endOfStream ? DEQUEUE_TIMEOUT_US : 0);
+            if (index == MediaCodec.INFO_TRY_AGAIN_LATER) {
+                if (!endOfStream || ++endOfStreamWaits > MAX_END_OF_STREAM_WAITS) {
+                    return;
+                }
+                continue;
+            }
+            if (index == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                // the format holds the codec specific data the muxer needs, it comes before the first buffer
+                track = muxer.addTrack(codec.getOutputFormat());
+                muxer.start();
+                continue;
+            }
+            if (index < 0) {
+                continue;
+            }
+            boolean codecConfig = (bufferInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0;
+            if (!codecConfig && bufferInfo.size > 0 && track >= 0) {
+                ByteBuffer output = codec.getOutputBuffer(index);
+                output.limit(bufferInfo.offset + bufferInfo.size);
+                output.position(bufferInfo.offset);
+                muxer.writeSampleData(track, output, bufferInfo);
+            }
+            codec.releaseOutputBuffer(index, false);
+            if ((bufferInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads PCM from a {@link PcmSource} into a single direct buffer and pushes it through a {@link PcmSink}. Nothing is
+ * allocated per read, so the loop can run on the audio thread for the whole take without producing garbage.
+ */
+public class PcmCaptureLoop implements Runnable {
+
+    public static final int ERROR_SINK_FAILED = -1000;
+
+    private final PcmSource source;
+    private final PcmSink sink;
+    private final ByteBuffer buffer;
+    private volatile boolean running = true;
+    private volatile boolean paused;
+    private volatile long capturedBytes;
+    // only written by the capture thread, and only when a new peak is reached
+    private volatile int peakReadBytes;
+    private volatile long peakSinkNanos;
+    private volatile int errorCode;
+    // MediaCodec reports its failures as IllegalStateException, they end the take like an IOException
+    private volatile Exception sinkException;
+
+    public PcmCaptureLoop(PcmSource source, PcmSink sink, int bufferSize) {
+        this.source = source;
+        this.sink = sink;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void run() {
+        try {
+            sink.onStart();
+            while (running) {
+                int read = source.read(buffer, buffer.capacity());
+                if (read == PcmSource.END_OF_STREAM) {
+                    break;
+                }
+                if (read < 0) {
+                    if (running) {
+                        errorCode = read;
+                    }
+                    break;
+                }
+                if (read == 0 || paused) {
+                    continue;
+                }
+                if (read > peakReadBytes) {
+                    peakReadBytes = read;
+                }
+                buffer.limit(read).position(0);
+                long sinkStartedNanos = System.nanoTime();
+                sink.onPcm(buffer);
+                long sinkNanos = System.nanoTime() - sinkStartedNanos;
+                if (sinkNanos > peakSinkNanos) {
+                    peakSinkNanos = sinkNanos;
+                }
+                capturedBytes += read;
+            }
+        } catch (IOException | RuntimeException exp) {
+            sinkException = exp;
+            errorCode = ERROR_SINK_FAILED;
+        } finally {
+            buffer.clear();
+            try {
+                sink.onStop();
+            } catch (IOException | RuntimeException exp) {
+                if (sinkException == null) {
+                    sinkException = exp;
+                    errorCode = ERROR_SINK_FAILED;
+                }
+            }
+        }
+    }
+
+    public void requestStop() {
+        running = false;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public long getCapturedBytes() {
+        return capturedBytes;
+    }
+
+    public int getBufferSize() {
+        return buffer.capacity();
+    }
+
+    public int getPeakReadBytes() {
+        return peakReadBytes;
+    }
+
+    public long getPeakSinkNanos() {
+        return peakSinkNanos;
+    }
+
+    public int getErrorCode() {
+        return errorCode;
+    }
+
+    public Exception getSinkException() {
+        return sinkException;
+    }
+}
@@ -0,0 +1,415 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.os.Process;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Recorder engine based on {@link AudioRecord}. Samples are read on a dedicated audio thread and pushed through a
+ * {@link PcmSinkChain}, which gives access to the audio while the take is in progress.
+ */
+public class PcmRecorder implements Recorder {
+
+    private static final int READ_INTERVAL_MS = 20;
+    private static final long STOP_TIMEOUT_MS = 2000;
+    private static final long RING_WAIT_NANOS = 5_000_000;
+
+    private final RecordOptions options;
+    private final int bytesPerSecond;
+    private final File outputFile;
+    private final AudioRecord audioRecord;
+    private final PcmRingBufferSource ringSource;
+    private final ArmedCapture armedCapture;
+    private final LevelMeterSink levelMeter = new LevelMeterSink();
+    private final SegmentTracker segments;
+    private final PcmSink fileSink;
+    private final SilenceTrimmingSink silenceTrimmer;
+    private final PeakReducer peakReducer;
+    private final LoudnessSink loudnessSink;
+    private final RecordingLimitSink limitSink;
+    private final PcmCaptureLoop captureLoop;
+    private Thread captureThread;
+    private final RecorderStateMachine state = new RecorderStateMachine();
+
+    public PcmRecorder(Context context, RecordOptions options) throws IOException {
+        this(context, options, createAudioRecord(options.getSampleRate(), options.getChannels(), readSizeOf(options)), null);
+    }
+
+    /**
+     * Records from an armed capture instead of opening the microphone. The take starts with the pre-roll the capture
+     * holds when this recorder is started and the capture keeps running after the take.
+     */
+    public PcmRecorder(Context context, RecordOptions options, ArmedCapture armedCapture) throws IOException {
+        this(context, options, null, armedCapture);
+    }
+
+    /**
+     * Reads from {@code audioRecord}, or from the ring of {@code armedCapture} when it is {@code null}. The
+     * AudioRecord belongs to the recorder from here on: it is released, and the output file deleted, when the
+     * recorder cannot be built.
+     */
+    private PcmRecorder(Context context, RecordOptions options, AudioRecord audioRecord, ArmedCapture armedCapture) throws IOException {
+        this.options = options;
+        this.audioRecord = audioRecord;
+        this.armedCapture = armedCapture;
+        bytesPerSecond = options.getSampleRate() * options.getChannels() * 2;
+        int readSize = readSizeOf(options);
+
+        File file = null;
+        try {
+            file = RecordingFiles.createOutputFile(context, options, options.getFormat().getExtension());
+            ringSource = armedCapture != null
+                ? new PcmRingBufferSource(armedCapture.getRing(), armedCapture.getFrameSize(), RING_WAIT_NANOS)
+                : null;
+            segments = createSegmentTracker(file, options);
+            fileSink = createFileSink(file, options, segments);
+        } catch (IOException | RuntimeException exp) {
+            if (audioRecord != null) {
+                audioRecord.release();
+            }
+            if (file != null) {
+                file.delete();
+            }
+            throw exp;
+        }
+        outputFile = file;
+        peakReducer = createPeakReducer(options);
+        PcmSink writtenSink = peakReducer != null ? new PcmSinkChain(fileSink, peakReducer) : fileSink;
+        loudnessSink = createLoudnessSink(writtenSink, options);
+        PcmSink leveledSink = loudnessSink != null ? loudnessSink : writtenSink;
+        limitSink = createLimitSink(leveledSink, options, bytesPerSecond);
+        PcmSink keptSink = limitSink != null ? limitSink : leveledSink;
+        silenceTrimmer = createSilenceTrimmer(keptSink, options, bytesPerSecond, readSize);
+        PcmSource source = audioRecord != null ? audioRecord::read : ringSource;
+        captureLoop = new PcmCaptureLoop(source, createSinkChain(keptSink), readSize);
+    }
+
+    private static int readSizeOf(RecordOptions options) {
+        return options.getSampleRate() * options.getChannels() * 2 * READ_INTERVAL_MS / 1000;
+    }
+
+    @SuppressLint("MissingPermission")
+    static AudioRecord createAudioRecord(int sampleRate, int channelCount, int readSize) throws IOException {
+        int channelMask = channelCount == 1 ? AudioFormat.CHANNEL_IN_MONO : AudioFormat.CHANNEL_IN_STEREO;
+        int minBufferSize = AudioRecord.getMinBufferSize(sampleRate, channelMask, AudioFormat.ENCODING_PCM_16BIT);
+        if (minBufferSize <= 0) {
+            throw new IOException("AudioRecord does not support " + sampleRate + " Hz");
+        }
+        AudioRecord audioRecord = new AudioRecord(
+            MediaRecorder.AudioSource.MIC,
+            sampleRate,
+            channelMask,
+            AudioFormat.ENCODING_PCM_16BIT,
+            Math.max(minBufferSize * 2, readSize * 4)
+        );
+        if (audioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
+            audioRecord.release();
+            throw new IOException("AudioRecord could not be initialized");
+        }
+        return audioRecord;
+    }
+
+    private static SegmentTracker createSegmentTracker(File outputFile, RecordOptions options) {
+        if (!options.isSegmented()) {
+            return null;
+        }
+        long maxSamples = (long) options.getSampleRate() * options.getSegmentDurationMs() / 1000;
+        return new SegmentTracker(outputFile, options.getSampleRate(), maxSamples, options.getSegmentMaxBytes());
+    }
+
+    private static PcmSink createFileSink(File outputFile, RecordOptions options, SegmentTracker segments) throws IOException {
+        return options.getFormat() == RecordingFormat.WAV
+            ? new WavFileSink(outputFile, options.getSampleRate(), options.getChannels(), segments)
+            : new AacEncoderSink(outputFile, options.getSampleRate(), options.getChannels(), options.getBitRate(), segments);
+    }
+
+    /**
+     * The waveform is reduced from what is written to the file, after silence trimming, so it matches the recording.
+     */
+    private static PeakReducer createPeakReducer(RecordOptions options) {
+        return options.getWaveformBuckets() > 0 ? new PeakReducer(options.getChannels(), PeakReducer.DEFAULT_RESOLUTION) : null;
+    }
+
+    /**
+     * The loudness is measured on what is kept after silence trimming, so pauses do not lower it. In realtime mode
+     * the gain is applied before the file and the waveform.
+     */
+    private static LoudnessSink createLoudnessSink(PcmSink writtenSink, RecordOptions options) {
+        if (!options.isLoudnessMeasured()) {
+            return null;
+        }
+        LoudnessMeter meter = new LoudnessMeter(options.getSampleRate(), options.getChannels());
+        GainStage gainStage = options.getLoudnessNormalization() == LoudnessNormalization.REALTIME
+            ? new GainStage(options.getSampleRate(), options.getChannels(), 0f, GainStage.DEFAULT_CEILING_DB, GainStage.DEFAULT_RELEASE_MS)
+            : null;
+        return new LoudnessSink(options.getChannels(), meter, gainStage, options.getTargetLoudness(), options.getMaxGainDb(), writtenSink);
+    }
+
+    /**
+     * The limits count what is kept after silence trimming, which is what ends up in the file. An AAC file is assumed
+     * to grow at its bitrate plus the ADTS header of every 1024 frames, so its size limit is met within a few frames.
+     */
+    private static RecordingLimitSink createLimitSink(PcmSink keptSink, RecordOptions options, int bytesPerSecond) {
+        if (options.getMaxDurationMs() <= 0 && options.getMaxFileSizeBytes() <= 0) {
+            return null;
+        }
+        int sampleRate = options.getSampleRate();
+        long maxDurationFrames = options.getMaxDurationMs() * sampleRate / 1000;
+        long maxSizeFrames = options.getFormat() == RecordingFormat.WAV
+            ? RecordingLimitSink.framesWithin(options.getMaxFileSizeBytes(), WavFileSink.HEADER_LENGTH, bytesPerSecond, sampleRate)
+            : RecordingLimitSink.framesWithin(
+                options.getMaxFileSizeBytes(),
+                0,
+                options.getBitRate() / 8 + (long) AdtsParser.HEADER_LENGTH * sampleRate / 1024,
+                sampleRate
+            );
+        return new RecordingLimitSink(options.getChannels() * 2, maxDurationFrames, maxSizeFrames, keptSink);
+    }
+
+    private static SilenceTrimmingSink createSilenceTrimmer(PcmSink fileSink, RecordOptions options, int bytesPerSecond, int readSize) {
+        if (!options.isTrimSilence()) {
+            return null;
+        }
+        VoiceActivityDetector detector = new VoiceActivityDetector(
+            options.getSampleRate(),
+            options.getChannels(),
+            options.getSilenceThresholdDb(),
+            options.getSpeechAttackMs(),
+            options.getSilenceHangoverMs()
+        );
+        return new SilenceTrimmingSink(detector, fileSink, bytesPerSecond, options.getSpeechAttackMs(), readSize);
+    }
+
+    private PcmSink createSinkChain(PcmSink writtenSink) {
+        // the level meter sees the silence too, so a live meter keeps moving while nothing is written
+        return new PcmSinkChain(silenceTrimmer != null ? silenceTrimmer : writtenSink, levelMeter);
+    }
+
+    @Override
+    public synchronized void startRecording() {
+        if (!state.transition(RecorderState.IDLE, RecorderState.PREPARING)) {
+            throw new IllegalStateException("startRecording - recorder is " + state.get());
+        }
+        if (audioRecord != null) {
+            try {
+                audioRecord.startRecording();
+            } catch (RuntimeException exp) {
+                state.moveTo(RecorderState.ERROR);
+                throw exp;
+            }
+        } else {
+            ringSource.seekToLatest(armedCapture.getPreRollBytes());
+        }
+        captureThread = new Thread(
+            () -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+                try {
+                    captureLoop.run();
+                } finally {
+                    // released here, so it is never released while a read on it is still running
+                    releaseAudioRecord();
+                }
+            },
+            "VoiceRecorderCapture"
+        );
+        captureThread.start();
+        state.transition(RecorderState.PREPARING, RecorderState.RECORDING);
+    }
+
+    @Override
+    public synchronized void stopRecording() {
+        if (state.moveTo(RecorderState.FINALIZING) == null) {
+            Log.w("PcmRecorder", "stopRecording - recorder is " + state.get());
+            return;
+        }
+        if (audioRecord != null) {
+            captureLoop.requestStop();
+            try {
+                audioRecord.stop();
+            } catch (IllegalStateException exp) {
+                Log.w("PcmRecorder", "stopRecording - AudioRecord was not recording", exp);
+            }
+        } else {
+            // the armed capture goes on, the take ends with what it captured until now
+            ringSource.finishAt(armedCapture.getRing().getWritePosition());
+        }
+        if (captureThread == null) {
+            releaseAudioRecord();
+        } else if (!joinCaptureThread()) {
+            Log.e("PcmRecorder", "stopRecording - the capture thread did not stop, it releases the AudioRecord when it does");
+            throw new IllegalStateException("the capture thread did not stop, the recording is incomplete");
+        }
+        if (ringSource != null && ringSource.getDroppedBytes() > 0) {
+            Log.w("PcmRecorder", "stopRecording - fell behind the armed capture, dropped " + ringSource.getDroppedBytes() + " bytes");
+        }
+        if (captureLoop.getSinkException() != null) {
+            Log.e("PcmRecorder", "stopRecording - sink failed", captureLoop.getSinkException());
+            throw new IllegalStateException("the recording could not be written", captureLoop.getSinkException());
+        }
+    }
+
+    private boolean joinCaptureThread() {
+        try {
+            captureThread.join(STOP_TIMEOUT_MS);
+            if (captureThread.isAlive()) {
+                captureThread.interrupt();
+                captureThread.join(STOP_TIMEOUT_MS);
+            }
+        } catch (InterruptedException exp) {
+            Thread.currentThread().interrupt();
+        }
+        return !captureThread.isAlive();
+    }
+
+    private void releaseAudioRecord() {
+        if (audioRecord != null) {
+            audioRecord.release();
+        }
+    }
+
+    @Override
+    public synchronized boolean pauseRecording() {
+        if (state.transition(RecorderState.RECORDING, RecorderState.PAUSED)) {
+            captureLoop.setPaused(true);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized boolean resumeRecording() {
+        if (state.transition(RecorderState.PAUSED, RecorderState.RECORDING)) {
+            captureLoop.setPaused(false);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public CurrentRecordingStatus getCurrentStatus() {
+        return state.getStatus();
+    }
+
+    @Override
+    public RecorderState getState() {
+        return state.get();
+    }
+
+    @Override
+    public ErrorInfo getErrorInfo() {
+        int errorCode = captureLoop.getErrorCode();
+        if (errorCode == 0 && armedCapture != null) {
+            errorCode = armedCapture.getErrorCode();
+        }
+        return errorCode == 0 ? null : new ErrorInfo(errorCode, 0);
+    }
+
+    @Override
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    @Override
+    public RecordOptions getRecordOptions() {
+        return options;
+    }
+
+    @Override
+    public long getRecordedDurationMs() {
+        if (limitSink != null && limitSink.isReached()) {
+            return limitSink.getPassedFrames() * 1000 / options.getSampleRate();
+        }
+        if (silenceTrimmer != null) {
+            return silenceTrimmer.getKeptDurationMs();
+        }
+        return captureLoop.getCapturedBytes() * 1000 / bytesPerSecond;
+    }
+
+    @Override
+    public long getTrimmedDurationMs() {
+        return silenceTrimmer != null ? silenceTrimmer.getTrimmedDurationMs() : 0;
+    }
+
+    @Override
+    public List<RecordingSegment> getSegments() {
+        return segments != null ? segments.getSegments() : Collections.emptyList();
+    }
+
+    @Override
+    public void setSegmentListener(SegmentTracker.Listener listener) {
+        if (segments != null) {
+            segments.setListener(listener);
+        }
+    }
+
+    @Override
+    public void setLimitListener(RecordingLimitSink.Listener listener) {
+        if (limitSink != null) {
+            limitSink.setListener(listener);
+        }
+    }
+
+    @Override
+    public PeakReducer getPeakReducer() {
+        return peakReducer;
+    }
+
+    @Override
+    public LoudnessSink getLoudnessSink() {
+        return loudnessSink;
+    }
+
+    @Override
+    public void takeLevels(float[] out) {
+        levelMeter.takeLevels(out);
+    }
+
+    @Override
+    public void collectMetrics(RecordingMetrics metrics) {
+        metrics.setCapturedBytes(captureLoop.getCapturedBytes());
+        metrics.setReadBufferBytes(captureLoop.getBufferSize());
+        metrics.setPeakReadBytes(captureLoop.getPeakReadBytes());
+        metrics.setPeakSinkMicros(captureLoop.getPeakSinkNanos() / 1000);
+        metrics.setDroppedBytes(ringSource != null ? ringSource.getDroppedBytes() : 0);
+    }
+
+    @Override
+    public boolean hasCapturedAudio() {
+        return captureLoop.getCapturedBytes() > 0;
+    }
+
+    @Override
+    public synchronized void discard() {
+        boolean discarded =
+            state.transition(RecorderState.IDLE, RecorderState.FINALIZING) ||
+            state.transition(RecorderState.ERROR, RecorderState.FINALIZING);
+        if (!discarded) {
+            Log.w("PcmRecorder", "discard - recorder is " + state.get());
+            return;
+        }
+        if (audioRecord != null) {
+            audioRecord.release();
+        }
+        try {
+            fileSink.onStop();
+        } catch (IOException exp) {
+            Log.w("PcmRecorder", "discard", exp);
+        }
+        deleteOutputFile();
+    }
+
+    @Override
+    public boolean deleteOutputFile() {
+        return outputFile.delete();
+    }
+}
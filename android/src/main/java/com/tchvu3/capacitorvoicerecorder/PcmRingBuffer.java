@@ -0,0 +1,129 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size off-heap ring of PCM bytes with one producer and any number of consumers. The producer never waits: when
+ * the ring is full it overwrites the oldest bytes, so it always holds the most recent {@code capacity} bytes. Positions
+ * are absolute byte counts since the ring was created; each consumer keeps its own position and view of the storage
+ * and detects bytes that were overwritten before or while it copied them.
+ * <p>
+ * The producer announces the range it is about to overwrite in {@code claimedPosition} before copying and publishes
+ * it in {@code writePosition} afterwards. A read is only valid if none of its bytes are inside a claimed range, which
+ * the consumer checks after copying. Nothing is allocated after construction.
+ */
+public class PcmRingBuffer implements PcmSink {
+
+    public static final int OVERRUN = -1;
+
+    private final int capacity;
+    private final ByteBuffer storage;
+    private final ByteBuffer producerView;
+    private final ByteBuffer consumerView;
+    private final AtomicLong claimedPosition = new AtomicLong();
+    private volatile long writePosition;
+    private volatile long lastReadPosition;
+
+    public PcmRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.storage = ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        this.producerView = storage.duplicate();
+        this.consumerView = newConsumerView();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * A view for a consumer that reads from its own thread with {@link #read(long, ByteBuffer, ByteBuffer)}.
+     */
+    public ByteBuffer newConsumerView() {
+        return storage.duplicate();
+    }
+
+    public long getWritePosition() {
+        return writePosition;
+    }
+
+    /**
+     * Position of the oldest byte that can still be read.
+     */
+    public long getOldestPosition() {
+        return Math.max(0, writePosition - capacity);
+    }
+
+    @Override
+    public void onStart() {}
+
+    @Override
+    public void onPcm(ByteBuffer buffer) {
+        write(buffer);
+    }
+
+    @Override
+    public void onStop() {}
+
+    /**
+     * Appends the remaining bytes of {@code source}. Must only be called from the producer thread.
+     */
+    public void write(ByteBuffer source) {
+        long position = writePosition;
+        while (source.hasRemaining()) {
+            int offset = (int) (position % capacity);
+            int length = Math.min(source.remaining(), capacity - offset);
+            // getAndSet also reads, so the copy below cannot move before the claim
+            claimedPosition.getAndSet(position + length);
+            int limit = source.limit();
+            source.limit(source.position() + length);
+            producerView.limit(offset + length).position(offset);
+            producerView.put(source);
+            source.limit(limit);
+            position += length;
+            writePosition = position;
+        }
+    }
+
+    /**
+     * Copies bytes starting at {@code position} into {@code target}, as many as are available and fit, using the
+     * ring's own consumer view. Must only be called from a single consumer thread.
+     */
+    public int read(long position, ByteBuffer target) {
+        return read(position, target, consumerView);
+    }
+
+    /**
+     * Like {@link #read(long, ByteBuffer)}, with a view from {@link #newConsumerView()} that only the calling
+     * consumer uses.
+     *
+     * @return the number of bytes copied, or {@link #OVERRUN} when bytes at {@code position} have been overwritten; the
+     *     content of {@code target} beyond its position is undefined in that case
+     */
+    public int read(long position, ByteBuffer target, ByteBuffer view) {
+        long written = writePosition;
+        if (position < written - capacity) {
+            return OVERRUN;
+        }
+        int count = (int) Math.min(written - position, target.remaining());
+        int copied = 0;
+        while (copied < count) {
+            int offset = (int) ((position + copied) % capacity);
+            int length = Math.min(count - copied, capacity - offset);
+            view.limit(offset + length).position(offset);
+            target.put(view);
+            copied += length;
+        }
+        // a volatile write keeps the copies above from moving past the claim check below
+        lastReadPosition = position;
+        if (position < claimedPosition.get() - capacity) {
+            target.position(target.position() - count);
+            return OVERRUN;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,83 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Consumer side of a {@link PcmRingBuffer}, read by a {@link PcmCaptureLoop} on its own thread while the producer
+ * keeps capturing into the ring. Reading can start in the past, which is how the pre-roll of an armed capture ends
+ * up at the start of a take. If the consumer falls so far behind that the producer overwrote its next bytes, it skips
+ * ahead to the middle of the ring, leaving the producer room to go on, and counts what it lost. Several sources can
+ * read the same ring, each at its own pace.
+ */
+public class PcmRingBufferSource implements PcmSource {
+
+    private final PcmRingBuffer ring;
+    private final ByteBuffer view;
+    private final int frameSize;
+    private final long waitNanos;
+    private long position;
+    private long droppedBytes;
+    private volatile long endPosition = Long.MAX_VALUE;
+
+    /**
+     * Creates a source that starts reading at the bytes the producer writes next.
+     */
+    public PcmRingBufferSource(PcmRingBuffer ring, int frameSize, long waitNanos) {
+        this.ring = ring;
+        this.view = ring.newConsumerView();
+        this.frameSize = frameSize;
+        this.waitNanos = waitNanos;
+        this.position = alignToFrame(ring.getWritePosition(), frameSize);
+    }
+
+    /**
+     * Moves the read position to the last {@code bytes} in the ring, or as far back as the ring goes, rounded to whole
+     * frames. Must be called by the consumer, before it starts reading.
+     */
+    public void seekToLatest(int bytes) {
+        position = alignToFrame(Math.max(ring.getOldestPosition(), ring.getWritePosition() - bytes), frameSize);
+    }
+
+    private static long alignToFrame(long position, int frameSize) {
+        return position + (frameSize - position % frameSize) % frameSize;
+    }
+
+    /**
+     * Lets the source end once everything before {@code endPosition} has been read. Can be called from any thread.
+     */
+    public void finishAt(long endPosition) {
+        this.endPosition = endPosition;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getDroppedBytes() {
+        return droppedBytes;
+    }
+
+    @Override
+    public int read(ByteBuffer buffer, int sizeInBytes) {
+        while (true) {
+            long end = endPosition;
+            if (position >= end) {
+                return END_OF_STREAM;
+            }
+            buffer.clear();
+            buffer.limit((int) Math.min(sizeInBytes, end - position));
+            int read = ring.read(position, buffer, view);
+            if (read == PcmRingBuffer.OVERRUN) {
+                long resume = alignToFrame(ring.getWritePosition() - ring.getCapacity() / 2, frameSize);
+                droppedBytes += resume - position;
+                position = resume;
+            } else if (read > 0) {
+                position += read;
+                return read;
+            } else {
+                LockSupport.parkNanos(waitNanos);
+            }
+        }
+    }
+}
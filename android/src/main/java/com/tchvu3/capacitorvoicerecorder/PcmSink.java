@@ -0,0 +1,16 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Receives 16-bit little-endian PCM from a {@link PcmCaptureLoop}. The buffer is reused for every read: a sink must
+ * consume or copy the bytes between its position and limit before returning and must not keep a reference to it.
+ */
+public interface PcmSink {
+    void onStart() throws IOException;
+
+    void onPcm(ByteBuffer buffer) throws IOException;
+
+    void onStop() throws IOException;
+}
@@ -0,0 +1,47 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class PcmSinkChain implements PcmSink {
+
+    private final PcmSink[] sinks;
+
+    public PcmSinkChain(PcmSink... sinks) {
+        this.sinks = sinks.clone();
+    }
+
+    @Override
+    public void onStart() throws IOException {
+        for (PcmSink sink : sinks) {
+            sink.onStart();
+        }
+    }
+
+    @Override
+    public void onPcm(ByteBuffer buffer) throws IOException {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        for (int i = 0; i < sinks.length; i++) {
+            buffer.limit(limit).position(position);
+            sinks[i].onPcm(buffer);
+        }
+    }
+
+    @Override
+    public void onStop() throws IOException {
+        IOException failure = null;
+        for (PcmSink sink : sinks) {
+            try {
+                sink.onStop();
+            } catch (IOException exp) {
+                if (failure == null) {
+                    failure = exp;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
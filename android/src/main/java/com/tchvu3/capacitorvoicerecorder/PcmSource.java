@@ -0,0 +1,18 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.nio.ByteBuffer;
+
+public interface PcmSource {
+    /**
+     * Returned by {@link #read} when a source that has an end has been read completely. It ends the capture without
+     * being reported as an error.
+     */
+    int END_OF_STREAM = Integer.MIN_VALUE;
+
+    /**
+     * Fills the buffer from its start with at most {@code sizeInBytes} bytes, like {@code AudioRecord.read}.
+     *
+     * @return the number of bytes read, {@link #END_OF_STREAM} or a negative error code
+     */
+    int read(ByteBuffer buffer, int sizeInBytes);
+}
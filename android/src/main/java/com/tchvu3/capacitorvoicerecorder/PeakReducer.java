@@ -0,0 +1,188 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reduces 16-bit little-endian PCM to the minimum and maximum sample of consecutive buckets, for drawing a waveform
+ * without decoding the recording again. The length of the audio does not have to be known in advance: the reducer
+ * keeps at most {@code resolution} buckets and, when they are full, merges every two neighbours and makes the
+ * following buckets twice as long. Memory stays constant and nothing is allocated per call.
+ * <p>
+ * The samples of all channels are reduced together.
+ */
+public class PeakReducer implements PcmSink {
+
+    public static final int DEFAULT_RESOLUTION = 4096;
+
+    private final int channels;
+    private final short[] mins;
+    private final short[] maxs;
+    private int count;
+    private long framesPerBucket = 1;
+    private long framesInBucket;
+    private short bucketMin = Short.MAX_VALUE;
+    private short bucketMax = Short.MIN_VALUE;
+    private long frames;
+
+    /**
+     * @param resolution the largest number of buckets that {@link #getPeaks} can return, a multiple of 2
+     */
+    public PeakReducer(int channels, int resolution) {
+        if (resolution < 2 || resolution % 2 != 0) {
+            throw new IllegalArgumentException("resolution must be a positive multiple of 2");
+        }
+        this.channels = channels;
+        this.mins = new short[resolution];
+        this.maxs = new short[resolution];
+    }
+
+    public int getResolution() {
+        return mins.length;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    @Override
+    public void onStart() {}
+
+    @Override
+    public void onPcm(ByteBuffer buffer) {
+        add(buffer);
+    }
+
+    @Override
+    public void onStop() {}
+
+    /**
+     * Adds the whole frames between the position and the limit of {@code pcm}, which are left unchanged.
+     */
+    public void add(ByteBuffer pcm) {
+        int frameBytes = channels * 2;
+        int start = pcm.position();
+        int end = start + (pcm.limit() - start) / frameBytes * frameBytes;
+        short min = bucketMin;
+        short max = bucketMax;
+        long inBucket = framesInBucket;
+        for (int offset = start; offset < end; offset += frameBytes) {
+            for (int channel = 0; channel < channels; channel++) {
+                short sample = pcm.getShort(offset + channel * 2);
+                if (sample < min) {
+                    min = sample;
+                }
+                if (sample > max) {
+                    max = sample;
+                }
+            }
+            if (++inBucket == framesPerBucket) {
+                closeBucket(min, max);
+                min = Short.MAX_VALUE;
+                max = Short.MIN_VALUE;
+                inBucket = 0;
+            }
+        }
+        bucketMin = min;
+        bucketMax = max;
+        framesInBucket = inBucket;
+        frames += (end - start) / frameBytes;
+    }
+
+    private void closeBucket(short min, short max) {
+        mins[count] = min;
+        maxs[count] = max;
+        count++;
+        if (count == mins.length) {
+            // merged right when full, so every bucket, also the next one, covers the same number of frames
+            for (int i = 0; i < count / 2; i++) {
+                mins[i] = (short) Math.min(mins[2 * i], mins[2 * i + 1]);
+                maxs[i] = (short) Math.max(maxs[2 * i], maxs[2 * i + 1]);
+            }
+            count /= 2;
+            framesPerBucket *= 2;
+        }
+    }
+
+    /**
+     * Scales the buckets by {@code gain}, for a recording that was turned up or down after it was reduced. Peaks are
+     * kept within {@code -limit..limit}, where the limiter of a {@link GainStage} keeps the samples.
+     */
+    public void scale(float gain, int limit) {
+        for (int i = 0; i < count; i++) {
+            mins[i] = scale(mins[i], gain, limit);
+            maxs[i] = scale(maxs[i], gain, limit);
+        }
+        if (framesInBucket > 0) {
+            bucketMin = scale(bucketMin, gain, limit);
+            bucketMax = scale(bucketMax, gain, limit);
+        }
+    }
+
+    private static short scale(short sample, float gain, int limit) {
+        return (short) Math.max(-limit, Math.min(limit, Math.round(sample * gain)));
+    }
+
+    /**
+     * @return {@code [min0, max0, min1, max1, ...]} of at most {@code buckets} buckets, scaled to -1..1. Fewer buckets
+     *     are returned when less audio was added than {@code buckets} frames.
+     */
+    public float[] getPeaks(int buckets) {
+        int available = count + (framesInBucket > 0 ? 1 : 0);
+        int size = Math.min(buckets, available);
+        float[] peaks = new float[size * 2];
+        for (int i = 0; i < size; i++) {
+            int from = (int) ((long) i * available / size);
+            int to = (int) ((long) (i + 1) * available / size);
+            short min = Short.MAX_VALUE;
+            short max = Short.MIN_VALUE;
+            for (int bucket = from; bucket < to; bucket++) {
+                min = (short) Math.min(min, bucket < count ? mins[bucket] : bucketMin);
+                max = (short) Math.max(max, bucket < count ? maxs[bucket] : bucketMax);
+            }
+            peaks[2 * i] = min / 32768f;
+            peaks[2 * i + 1] = max / 32768f;
+        }
+        return peaks;
+    }
+
+    public void writeTo(DataOutputStream output) throws IOException {
+        output.writeInt(channels);
+        output.writeInt(mins.length);
+        output.writeLong(frames);
+        output.writeLong(framesPerBucket);
+        output.writeLong(framesInBucket);
+        output.writeShort(bucketMin);
+        output.writeShort(bucketMax);
+        output.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            output.writeShort(mins[i]);
+            output.writeShort(maxs[i]);
+        }
+    }
+
+    public static PeakReducer readFrom(DataInputStream input) throws IOException {
+        int channels = input.readInt();
+        int resolution = input.readInt();
+        if (channels < 1 || resolution < 2 || resolution % 2 != 0 || resolution > 1 << 20) {
+            throw new IOException("Not a waveform");
+        }
+        PeakReducer reducer = new PeakReducer(channels, resolution);
+        reducer.frames = input.readLong();
+        reducer.framesPerBucket = input.readLong();
+        reducer.framesInBucket = input.readLong();
+        reducer.bucketMin = input.readShort();
+        reducer.bucketMax = input.readShort();
+        reducer.count = input.readInt();
+        if (reducer.count < 0 || reducer.count > resolution) {
+            throw new IOException("Not a waveform");
+        }
+        for (int i = 0; i < reducer.count; i++) {
+            reducer.mins[i] = input.readShort();
+            reducer.maxs[i] = input.readShort();
+        }
+        return reducer;
+    }
+}
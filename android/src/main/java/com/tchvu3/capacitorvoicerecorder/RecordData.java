@@ -1,13 +1,21 @@
 package com.tchvu3.capacitorvoicerecorder;
 
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 
 public class RecordData {
 
     private String path;
+    private String uri;
     private String recordDataBase64;
     private String mimeType;
     private int msDuration;
+    private Integer trimmedMsDuration;
+    private JSArray segments;
+    private String uploadId;
+    private JSArray waveform;
+    private String payloadId;
+    private JSObject loudness;
 
     public RecordData() {}
 
@@ -34,6 +42,14 @@ public class RecordData {
         this.msDuration = msDuration;
     }
 
+    public Integer getTrimmedMsDuration() {
+        return trimmedMsDuration;
+    }
+
+    public void setTrimmedMsDuration(Integer trimmedMsDuration) {
+        this.trimmedMsDuration = trimmedMsDuration;
+    }
+
     public String getMimeType() {
         return mimeType;
     }
@@ -42,12 +58,77 @@ public class RecordData {
         this.mimeType = mimeType;
     }
 
+    public String getUri() {
+        return uri;
+    }
+
+    public void setUri(String uri) {
+        this.uri = uri;
+    }
+
+    public JSArray getSegments() {
+        return segments;
+    }
+
+    public void setSegments(JSArray segments) {
+        this.segments = segments;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public JSArray getWaveform() {
+        return waveform;
+    }
+
+    public void setWaveform(JSArray waveform) {
+        this.waveform = waveform;
+    }
+
+    public String getPayloadId() {
+        return payloadId;
+    }
+
+    public void setPayloadId(String payloadId) {
+        this.payloadId = payloadId;
+    }
+
+    public JSObject getLoudness() {
+        return loudness;
+    }
+
+    public void setLoudness(JSObject loudness) {
+        this.loudness = loudness;
+    }
+
     public JSObject toJSObject() {
         JSObject toReturn = new JSObject();
         toReturn.put("recordDataBase64", recordDataBase64);
         toReturn.put("msDuration", msDuration);
+        toReturn.put("trimmedMsDuration", trimmedMsDuration);
         toReturn.put("mimeType", mimeType);
         toReturn.put("path", path);
+        toReturn.put("uri", uri);
+        if (segments != null) {
+            toReturn.put("segments", segments);
+        }
+        if (uploadId != null) {
+            toReturn.put("uploadId", uploadId);
+        }
+        if (payloadId != null) {
+            toReturn.put("payloadId", payloadId);
+        }
+        if (waveform != null) {
+            toReturn.put("waveform", waveform);
+        }
+        if (loudness != null) {
+            toReturn.put("loudness", loudness);
+        }
         return toReturn;
     }
 }
@@ -1,13 +1,52 @@
 package com.tchvu3.capacitorvoicerecorder;
 
+import java.util.Map;
+import java.util.Objects;
+
 public class RecordOptions {
 
+    public static final float DEFAULT_TARGET_LOUDNESS = -16f;
+    public static final float DEFAULT_MAX_GAIN_DB = 20f;
+
     private String directory;
     private String subDirectory;
+    private ReturnMode returnMode;
+    private RecorderEngine engine = RecorderEngine.MEDIA_RECORDER;
+    private RecordingFormat format = RecordingFormat.AAC_ADTS;
+    private RecordingEncoder encoder = RecordingEncoder.AAC;
+    private int bitRate = 96000;
+    private int sampleRate = 44100;
+    private int channels = 1;
+    private int meteringIntervalMs;
+    private int meteringBatchSize;
+    private int chunkDurationMs;
+    private boolean trimSilence;
+    private float silenceThresholdDb = VoiceActivityDetector.DEFAULT_THRESHOLD_DB;
+    private int speechAttackMs = VoiceActivityDetector.DEFAULT_ATTACK_MS;
+    private int silenceHangoverMs = VoiceActivityDetector.DEFAULT_HANGOVER_MS;
+    private int segmentDurationMs;
+    private long segmentMaxBytes;
+    private boolean concurrent;
+    private String uploadUrl;
+    private Map<String, String> uploadHeaders;
+    private int waveformBuckets;
+    private boolean measureLoudness;
+    private LoudnessNormalization loudnessNormalization = LoudnessNormalization.OFF;
+    private float targetLoudness = DEFAULT_TARGET_LOUDNESS;
+    private float maxGainDb = DEFAULT_MAX_GAIN_DB;
+    private long storageQuotaBytes;
+    private boolean evictOldRecordings;
+    private long maxDurationMs;
+    private long maxFileSizeBytes;
 
     public RecordOptions(String directory, String subDirectory) {
+        this(directory, subDirectory, ReturnMode.BASE64);
+    }
+
+    public RecordOptions(String directory, String subDirectory, ReturnMode returnMode) {
         this.directory = directory;
         this.subDirectory = subDirectory;
+        this.returnMode = returnMode;
     }
 
     public String getDirectory() {
@@ -21,4 +60,328 @@ public class RecordOptions {
     public void setSubDirectory(String subDirectory) {
         this.subDirectory = subDirectory;
     }
+
+    public ReturnMode getReturnMode() {
+        return returnMode;
+    }
+
+    public void setReturnMode(ReturnMode returnMode) {
+        this.returnMode = returnMode;
+    }
+
+    public RecorderEngine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(RecorderEngine engine) {
+        this.engine = engine;
+    }
+
+    public RecordingFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(RecordingFormat format) {
+        this.format = format;
+    }
+
+    public RecordingEncoder getEncoder() {
+        return encoder;
+    }
+
+    public void setEncoder(RecordingEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    public int getBitRate() {
+        return bitRate;
+    }
+
+    public void setBitRate(int bitRate) {
+        this.bitRate = bitRate;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public void setChannels(int channels) {
+        this.channels = channels;
+    }
+
+    public int getMeteringIntervalMs() {
+        return meteringIntervalMs;
+    }
+
+    public void setMeteringIntervalMs(int meteringIntervalMs) {
+        this.meteringIntervalMs = meteringIntervalMs;
+    }
+
+    public int getMeteringBatchSize() {
+        return meteringBatchSize;
+    }
+
+    public void setMeteringBatchSize(int meteringBatchSize) {
+        this.meteringBatchSize = meteringBatchSize;
+    }
+
+    public int getChunkDurationMs() {
+        return chunkDurationMs;
+    }
+
+    public void setChunkDurationMs(int chunkDurationMs) {
+        this.chunkDurationMs = chunkDurationMs;
+    }
+
+    public boolean isTrimSilence() {
+        return trimSilence;
+    }
+
+    public void setTrimSilence(boolean trimSilence) {
+        this.trimSilence = trimSilence;
+    }
+
+    public float getSilenceThresholdDb() {
+        return silenceThresholdDb;
+    }
+
+    public void setSilenceThresholdDb(float silenceThresholdDb) {
+        this.silenceThresholdDb = silenceThresholdDb;
+    }
+
+    public int getSpeechAttackMs() {
+        return speechAttackMs;
+    }
+
+    public void setSpeechAttackMs(int speechAttackMs) {
+        this.speechAttackMs = speechAttackMs;
+    }
+
+    public int getSilenceHangoverMs() {
+        return silenceHangoverMs;
+    }
+
+    public void setSilenceHangoverMs(int silenceHangoverMs) {
+        this.silenceHangoverMs = silenceHangoverMs;
+    }
+
+    public int getSegmentDurationMs() {
+        return segmentDurationMs;
+    }
+
+    public void setSegmentDurationMs(int segmentDurationMs) {
+        this.segmentDurationMs = segmentDurationMs;
+    }
+
+    public long getSegmentMaxBytes() {
+        return segmentMaxBytes;
+    }
+
+    public void setSegmentMaxBytes(long segmentMaxBytes) {
+        this.segmentMaxBytes = segmentMaxBytes;
+    }
+
+    /**
+     * Whether the take runs next to other takes, all recorded from one shared capture.
+     */
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    public void setConcurrent(boolean concurrent) {
+        this.concurrent = concurrent;
+    }
+
+    public String getUploadUrl() {
+        return uploadUrl;
+    }
+
+    public void setUploadUrl(String uploadUrl) {
+        this.uploadUrl = uploadUrl;
+    }
+
+    public Map<String, String> getUploadHeaders() {
+        return uploadHeaders;
+    }
+
+    public void setUploadHeaders(Map<String, String> uploadHeaders) {
+        this.uploadHeaders = uploadHeaders;
+    }
+
+    public int getWaveformBuckets() {
+        return waveformBuckets;
+    }
+
+    public void setWaveformBuckets(int waveformBuckets) {
+        this.waveformBuckets = waveformBuckets;
+    }
+
+    public boolean isMeasureLoudness() {
+        return measureLoudness;
+    }
+
+    public void setMeasureLoudness(boolean measureLoudness) {
+        this.measureLoudness = measureLoudness;
+    }
+
+    public LoudnessNormalization getLoudnessNormalization() {
+        return loudnessNormalization;
+    }
+
+    public void setLoudnessNormalization(LoudnessNormalization loudnessNormalization) {
+        this.loudnessNormalization = loudnessNormalization;
+    }
+
+    public float getTargetLoudness() {
+        return targetLoudness;
+    }
+
+    public void setTargetLoudness(float targetLoudness) {
+        this.targetLoudness = targetLoudness;
+    }
+
+    public float getMaxGainDb() {
+        return maxGainDb;
+    }
+
+    public void setMaxGainDb(float maxGainDb) {
+        this.maxGainDb = maxGainDb;
+    }
+
+    public long getStorageQuotaBytes() {
+        return storageQuotaBytes;
+    }
+
+    public void setStorageQuotaBytes(long storageQuotaBytes) {
+        this.storageQuotaBytes = storageQuotaBytes;
+    }
+
+    public boolean isEvictOldRecordings() {
+        return evictOldRecordings;
+    }
+
+    public void setEvictOldRecordings(boolean evictOldRecordings) {
+        this.evictOldRecordings = evictOldRecordings;
+    }
+
+    public long getMaxDurationMs() {
+        return maxDurationMs;
+    }
+
+    public void setMaxDurationMs(long maxDurationMs) {
+        this.maxDurationMs = maxDurationMs;
+    }
+
+    public long getMaxFileSizeBytes() {
+        return maxFileSizeBytes;
+    }
+
+    public void setMaxFileSizeBytes(long maxFileSizeBytes) {
+        this.maxFileSizeBytes = maxFileSizeBytes;
+    }
+
+    /**
+     * Bytes a take of {@code durationMs} is expected to take on disk: the bitrate of the encoder, or the PCM rate for
+     * wav.
+     */
+    public long getExpectedBytes(long durationMs) {
+        long bitsPerSecond = format == RecordingFormat.WAV ? (long) sampleRate * channels * 16 : bitRate;
+        return bitsPerSecond / 8 * durationMs / 1000;
+    }
+
+    /**
+     * The bytes a take may write: its maximum duration at its bitrate, clamped to its maximum file size, or that size
+     * alone. Only without any limit {@code defaultDurationMs} at its bitrate is assumed.
+     */
+    public long getReservedBytes(long defaultDurationMs) {
+        if (maxDurationMs > 0) {
+            long bytes = getExpectedBytes(maxDurationMs);
+            return maxFileSizeBytes > 0 ? Math.min(bytes, maxFileSizeBytes) : bytes;
+        }
+        return maxFileSizeBytes > 0 ? maxFileSizeBytes : getExpectedBytes(defaultDurationMs);
+    }
+
+    /**
+     * Whether the loudness is measured while recording, which normalizing it needs.
+     */
+    public boolean isLoudnessMeasured() {
+        return measureLoudness || loudnessNormalization != LoudnessNormalization.OFF;
+    }
+
+    public boolean isSegmented() {
+        return segmentDurationMs > 0 || segmentMaxBytes > 0;
+    }
+
+    /**
+     * Whether the file of a take outlives its result: it is in a directory, returned by uri or split into segments.
+     * Other takes are only in the cache until they were encoded or uploaded.
+     */
+    public boolean isFileKept() {
+        return directory != null || returnMode == ReturnMode.URI || isSegmented();
+    }
+
+    /**
+     * Whether the file of a take may be deleted with the process: it is not kept and no upload needs it after a restart.
+     */
+    public boolean isFileTemporary() {
+        return !isFileKept() && uploadUrl == null;
+    }
+
+    /**
+     * Whether a recorder built for {@code other} writes the same file as one built for these options. Settings that
+     * are only applied once the recording runs, like the return mode or events, are not compared; see
+     * {@link #applyStartSettings(RecordOptions)}.
+     */
+    public boolean hasSameRecorderSettings(RecordOptions other) {
+        return (
+            Objects.equals(directory, other.directory) &&
+            Objects.equals(RecordingPaths.normalizeSubDirectory(subDirectory), RecordingPaths.normalizeSubDirectory(other.subDirectory)) &&
+            engine == other.engine &&
+            format == other.format &&
+            encoder == other.encoder &&
+            bitRate == other.bitRate &&
+            sampleRate == other.sampleRate &&
+            channels == other.channels &&
+            trimSilence == other.trimSilence &&
+            silenceThresholdDb == other.silenceThresholdDb &&
+            speechAttackMs == other.speechAttackMs &&
+            silenceHangoverMs == other.silenceHangoverMs &&
+            segmentDurationMs == other.segmentDurationMs &&
+            segmentMaxBytes == other.segmentMaxBytes &&
+            (waveformBuckets > 0) == (other.waveformBuckets > 0) &&
+            isLoudnessMeasured() == other.isLoudnessMeasured() &&
+            loudnessNormalization == other.loudnessNormalization &&
+            targetLoudness == other.targetLoudness &&
+            maxGainDb == other.maxGainDb &&
+            maxDurationMs == other.maxDurationMs &&
+            maxFileSizeBytes == other.maxFileSizeBytes
+        );
+    }
+
+    /**
+     * Takes over the settings of {@code start} that are only applied once the recording runs, when a recorder prepared
+     * with these options is used for a take started with {@code start}. The merged options have to be validated again.
+     */
+    public void applyStartSettings(RecordOptions start) {
+        returnMode = start.returnMode;
+        meteringIntervalMs = start.meteringIntervalMs;
+        meteringBatchSize = start.meteringBatchSize;
+        chunkDurationMs = start.chunkDurationMs;
+        concurrent = start.concurrent;
+        uploadUrl = start.uploadUrl;
+        uploadHeaders = start.uploadHeaders;
+        // only whether there is a waveform is compared, the reducer does not depend on the number of buckets
+        waveformBuckets = start.waveformBuckets;
+        measureLoudness = start.measureLoudness;
+        storageQuotaBytes = start.storageQuotaBytes;
+        evictOldRecordings = start.evictOldRecordings;
+    }
 }
@@ -0,0 +1,88 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.File;
+import java.util.List;
+
+public interface Recorder {
+    void startRecording();
+
+    void stopRecording();
+
+    boolean pauseRecording() throws NotSupportedOsVersion;
+
+    boolean resumeRecording() throws NotSupportedOsVersion;
+
+    CurrentRecordingStatus getCurrentStatus();
+
+    /**
+     * Current lifecycle state, read without locking; {@link #getCurrentStatus()} is derived from it.
+     */
+    RecorderState getState();
+
+    ErrorInfo getErrorInfo();
+
+    File getOutputFile();
+
+    RecordOptions getRecordOptions();
+
+    long getRecordedDurationMs();
+
+    /**
+     * Duration of the silence that was left out of the output file, 0 when silence is not trimmed.
+     */
+    long getTrimmedDurationMs();
+
+    /**
+     * Segments closed so far when the take is split into segments, otherwise an empty list. Once the recorder is
+     * stopped the last segment is included.
+     */
+    List<RecordingSegment> getSegments();
+
+    /**
+     * Called on the thread that writes the file each time a segment is closed; does nothing when the take is not split
+     * into segments.
+     */
+    void setSegmentListener(SegmentTracker.Listener listener);
+
+    /**
+     * Called once, on the thread that writes the file, when the take reaches its maximum duration or file size. The
+     * recorder writes nothing more from then on but has to be stopped as usual; does nothing when no limit is set.
+     */
+    void setLimitListener(RecordingLimitSink.Listener listener);
+
+    /**
+     * The waveform of what was written so far when it is reduced while recording, otherwise {@code null}.
+     */
+    PeakReducer getPeakReducer();
+
+    /**
+     * The loudness measured while recording, with the gain applied in realtime mode, when it is measured, otherwise
+     * {@code null}.
+     */
+    LoudnessSink getLoudnessSink();
+
+    /**
+     * Writes {@code [peak, rms]} measured since the previous call, normalized to 0..1, into {@code out}. An engine
+     * that cannot measure RMS writes -1 in its place.
+     */
+    void takeLevels(float[] out);
+
+    /**
+     * Adds what the engine counted during the take to {@code metrics}. Called once the recorder has stopped.
+     */
+    void collectMetrics(RecordingMetrics metrics);
+
+    /**
+     * Whether audio from the microphone has reached the recorder since it was started. Used to measure the time to
+     * the first sample; the MediaRecorder engine derives it from the amplitude, which resets the peak level.
+     */
+    boolean hasCapturedAudio();
+
+    /**
+     * Releases a recorder that has been prepared but never started, or that failed to start, and deletes its output
+     * file.
+     */
+    void discard();
+
+    boolean deleteOutputFile();
+}
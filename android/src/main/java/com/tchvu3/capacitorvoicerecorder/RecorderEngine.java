@@ -0,0 +1,17 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+public enum RecorderEngine {
+    MEDIA_RECORDER,
+    AUDIO_RECORD;
+
+    public static RecorderEngine fromString(String value, RecorderEngine fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        return switch (value) {
+            case "mediarecorder" -> MEDIA_RECORDER;
+            case "audiorecord" -> AUDIO_RECORD;
+            default -> fallback;
+        };
+    }
+}
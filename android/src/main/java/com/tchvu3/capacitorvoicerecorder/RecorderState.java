@@ -0,0 +1,33 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+/**
+ * Lifecycle of a {@link Recorder}. A recorder is IDLE once it is built and prepared, PREPARING while its audio source
+ * is being started and FINALIZING from the moment it is stopped or discarded; a recorder is never started twice.
+ */
+public enum RecorderState {
+    IDLE,
+    PREPARING,
+    RECORDING,
+    PAUSED,
+    FINALIZING,
+    ERROR;
+
+    public boolean canMoveTo(RecorderState next) {
+        return switch (this) {
+            case IDLE -> next == PREPARING || next == FINALIZING;
+            case PREPARING -> next == RECORDING || next == ERROR;
+            case RECORDING -> next == PAUSED || next == FINALIZING || next == ERROR;
+            case PAUSED -> next == RECORDING || next == FINALIZING || next == ERROR;
+            case FINALIZING -> next == IDLE;
+            case ERROR -> next == FINALIZING;
+        };
+    }
+
+    public CurrentRecordingStatus toStatus() {
+        return switch (this) {
+            case RECORDING -> CurrentRecordingStatus.RECORDING;
+            case PAUSED -> CurrentRecordingStatus.PAUSED;
+            default -> CurrentRecordingStatus.NONE;
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds a {@link RecorderState} that the plugin thread, the main looper and the audio callbacks change concurrently.
+ * Every transition is a compare-and-set, so of two racing transitions out of the same state exactly one succeeds, and
+ * a transition that {@link RecorderState#canMoveTo} does not allow is always rejected. Reads never lock.
+ */
+public class RecorderStateMachine {
+
+    private final AtomicReference<RecorderState> state = new AtomicReference<>(RecorderState.IDLE);
+
+    public RecorderState get() {
+        return state.get();
+    }
+
+    public CurrentRecordingStatus getStatus() {
+        return state.get().toStatus();
+    }
+
+    /**
+     * Moves from {@code expected} to {@code next}.
+     *
+     * @return whether the state was {@code expected} and the transition is allowed
+     */
+    public boolean transition(RecorderState expected, RecorderState next) {
+        return expected.canMoveTo(next) && state.compareAndSet(expected, next);
+    }
+
+    /**
+     * Moves to {@code next} from whatever the current state is, if that transition is allowed.
+     *
+     * @return the state that was left, or {@code null} when the transition was rejected
+     */
+    public RecorderState moveTo(RecorderState next) {
+        while (true) {
+            RecorderState current = state.get();
+            if (!current.canMoveTo(next)) {
+                return null;
+            }
+            if (state.compareAndSet(current, next)) {
+                return current;
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+/**
+ * Tracks how long a take has actually been recording: the time since start minus every paused interval. Timestamps
+ * are passed in by the caller so the same logic works with {@code SystemClock.elapsedRealtime()} and in tests.
+ */
+public class RecordingClock {
+
+    private long startedAtMs = -1;
+    private long pausedAtMs = -1;
+    private long stoppedAtMs = -1;
+    private long pausedTotalMs;
+
+    public void start(long nowMs) {
+        startedAtMs = nowMs;
+        pausedAtMs = -1;
+        stoppedAtMs = -1;
+        pausedTotalMs = 0;
+    }
+
+    public void pause(long nowMs) {
+        if (startedAtMs >= 0 && pausedAtMs < 0 && stoppedAtMs < 0) {
+            pausedAtMs = nowMs;
+        }
+    }
+
+    public void resume(long nowMs) {
+        if (pausedAtMs >= 0) {
+            pausedTotalMs += nowMs - pausedAtMs;
+            pausedAtMs = -1;
+        }
+    }
+
+    public void stop(long nowMs) {
+        if (startedAtMs >= 0 && stoppedAtMs < 0) {
+            resume(nowMs);
+            stoppedAtMs = nowMs;
+        }
+    }
+
+    public boolean isStarted() {
+        return startedAtMs >= 0;
+    }
+
+    public long getDurationMs(long nowMs) {
+        if (startedAtMs < 0) {
+            return 0;
+        }
+        long end = stoppedAtMs >= 0 ? stoppedAtMs : pausedAtMs >= 0 ? pausedAtMs : nowMs;
+        return Math.max(0, end - startedAtMs - pausedTotalMs);
+    }
+}
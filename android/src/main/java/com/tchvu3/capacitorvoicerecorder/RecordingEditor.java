@@ -0,0 +1,121 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Entry points of trimRecording, concatRecordings and transcodeRecording. The edit itself is done by
+ * {@link AdtsEditor} or {@link RecordingTranscoder}; the result is written to a new output file and returned like
+ * stopRecording returns a take.
+ */
+public class RecordingEditor {
+
+    private interface RecordingEdit {
+        /**
+         * Writes the edited recording to {@code target}.
+         *
+         * @return the duration of what was written, in milliseconds
+         */
+        long writeTo(File target) throws IOException;
+    }
+
+    /**
+     * Cuts an aac recording to the frames that overlap {@code startMs} to {@code endMs}, without decoding it.
+     */
+    public static void trim(
+        Context context,
+        File source,
+        long startMs,
+        long endMs,
+        RecordOptions options,
+        VoiceRecorderService.EventListener payloadListener,
+        VoiceRecorderService.FinalizationCallback callback
+    ) {
+        editRecording(context, Collections.singletonList(source), options, payloadListener, callback, target ->
+            AdtsEditor.trim(source, target, startMs, endMs).getDurationMs()
+        );
+    }
+
+    /**
+     * Joins aac recordings of the same sample rate and channels, without decoding them.
+     */
+    public static void concat(
+        Context context,
+        List<File> sources,
+        RecordOptions options,
+        VoiceRecorderService.EventListener payloadListener,
+        VoiceRecorderService.FinalizationCallback callback
+    ) {
+        editRecording(context, sources, options, payloadListener, callback, target ->
+            AdtsEditor.concat(sources, target).getDurationMs()
+        );
+    }
+
+    /**
+     * Converts a recording to the format of {@code options}, see {@link RecordingTranscoder}.
+     */
+    public static void transcode(
+        Context context,
+        File source,
+        RecordOptions options,
+        VoiceRecorderService.EventListener payloadListener,
+        VoiceRecorderService.FinalizationCallback callback
+    ) {
+        editRecording(context, Collections.singletonList(source), options, payloadListener, callback, target ->
+            RecordingTranscoder.transcode(source, target, options.getFormat(), options.getBitRate())
+        );
+    }
+
+    /**
+     * Writes an edit of existing recordings to a new output file and returns it like stopRecording does. Runs on the
+     * finalization thread, so edits never run at the same time as the finalization of a take.
+     */
+    private static void editRecording(
+        Context context,
+        List<File> sources,
+        RecordOptions options,
+        VoiceRecorderService.EventListener payloadListener,
+        VoiceRecorderService.FinalizationCallback callback,
+        RecordingEdit edit
+    ) {
+        RecordingResults.FINALIZATION_EXECUTOR.execute(() -> {
+            File target = null;
+            boolean kept = false;
+            try {
+                for (File source : sources) {
+                    if (!source.isFile()) {
+                        throw new MessagesException(Messages.INVALID_PATH);
+                    }
+                }
+                target = RecordingFiles.createOutputFile(context, options, options.getFormat().getExtension());
+                long durationMs = edit.writeTo(target);
+                if (durationMs <= 0) {
+                    throw new MessagesException(Messages.EMPTY_RECORDING);
+                }
+                RecordData recordData = RecordingResults.toRecordData(target, options, (int) durationMs, payloadListener);
+                kept = options.getDirectory() != null || options.getReturnMode() == ReturnMode.URI;
+                RecordingStorage.touchInIndex(context, sources);
+                if (options.getDirectory() != null) {
+                    RecordingStorage.addToIndex(context, options, target, durationMs);
+                }
+                callback.onFinalized(ResponseGenerator.dataResponse(recordData.toJSObject()));
+            } catch (MessagesException exp) {
+                callback.onFailed(exp);
+            } catch (IllegalArgumentException exp) {
+                Log.e("RecordingEditor", "editRecording", exp);
+                callback.onFailed(new MessagesException(Messages.UNSUPPORTED_RECORDING_OPTIONS, exp));
+            } catch (IOException | RuntimeException exp) {
+                Log.e("RecordingEditor", "editRecording", exp);
+                callback.onFailed(new MessagesException(Messages.FAILED_TO_FETCH_RECORDING, exp));
+            } finally {
+                if (target != null && !kept) {
+                    target.delete();
+                }
+            }
+        });
+    }
+}
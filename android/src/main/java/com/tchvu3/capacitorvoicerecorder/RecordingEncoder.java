@@ -0,0 +1,53 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.media.MediaFormat;
+import android.media.MediaRecorder;
+
+public enum RecordingEncoder {
+    AAC("aac", MediaRecorder.AudioEncoder.AAC, MediaFormat.MIMETYPE_AUDIO_AAC, 1),
+    HE_AAC("he_aac", MediaRecorder.AudioEncoder.HE_AAC, MediaFormat.MIMETYPE_AUDIO_AAC, 16),
+    AAC_ELD("aac_eld", MediaRecorder.AudioEncoder.AAC_ELD, MediaFormat.MIMETYPE_AUDIO_AAC, 16),
+    OPUS("opus", MediaRecorder.AudioEncoder.OPUS, MediaFormat.MIMETYPE_AUDIO_OPUS, 29),
+    VORBIS("vorbis", MediaRecorder.AudioEncoder.VORBIS, MediaFormat.MIMETYPE_AUDIO_VORBIS, 21),
+    PCM("pcm", -1, null, 1);
+
+    private final String value;
+    private final int mediaRecorderEncoder;
+    private final String codecMimeType;
+    private final int minSdk;
+
+    RecordingEncoder(String value, int mediaRecorderEncoder, String codecMimeType, int minSdk) {
+        this.value = value;
+        this.mediaRecorderEncoder = mediaRecorderEncoder;
+        this.codecMimeType = codecMimeType;
+        this.minSdk = minSdk;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getMediaRecorderEncoder() {
+        return mediaRecorderEncoder;
+    }
+
+    public String getCodecMimeType() {
+        return codecMimeType;
+    }
+
+    public int getMinSdk() {
+        return minSdk;
+    }
+
+    public static RecordingEncoder fromString(String value, RecordingEncoder fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        for (RecordingEncoder encoder : values()) {
+            if (encoder.value.equals(value)) {
+                return encoder;
+            }
+        }
+        return fallback;
+    }
+}
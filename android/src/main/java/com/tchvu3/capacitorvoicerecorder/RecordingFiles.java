@@ -0,0 +1,140 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Environment;
+import java.io.File;
+import java.io.IOException;
+
+public class RecordingFiles {
+
+    private static final String JOURNAL_FILE = "voice-recorder.journal";
+    private static final String UPLOAD_STATE_FILE = "voice-recorder.uploads";
+    private static final String CAPABILITIES_FILE = "voice-recorder.capabilities";
+    private static final String[] DIRECTORIES = { "DOCUMENTS", "DATA", "LIBRARY", "CACHE", "EXTERNAL", "EXTERNAL_STORAGE" };
+    private static final String INDEX_FILE = "voice-recorder.index";
+
+    public static File createOutputFile(Context context, RecordOptions options, String extension) throws IOException {
+        File outputDir = getOutputDirectory(context, options);
+        String directory = options.getDirectory();
+        if (directory != null) {
+            String normalized = RecordingPaths.normalizeSubDirectory(options.getSubDirectory());
+            if (normalized != null) {
+                options.setSubDirectory(normalized);
+                if (!outputDir.exists()) {
+                    outputDir.mkdirs();
+                }
+            }
+        }
+
+        String prefix = RecordingPaths.FILE_PREFIX + System.currentTimeMillis();
+        File outputFile = File.createTempFile(prefix, extension, outputDir);
+
+        // segments are always returned as files, uploads may only be sent after a restart
+        if (options.isFileTemporary()) {
+            outputFile.deleteOnExit();
+        }
+        return outputFile;
+    }
+
+    public static RecordingJournal getJournal(Context context) throws IOException {
+        return RecordingJournal.get(new File(context.getNoBackupFilesDir(), JOURNAL_FILE));
+    }
+
+    public static UploadQueue getUploadQueue(Context context) throws IOException {
+        return UploadQueue.get(new File(context.getNoBackupFilesDir(), UPLOAD_STATE_FILE));
+    }
+
+    public static RecordingIndex getRecordingIndex(Context context) throws IOException {
+        return RecordingIndex.get(new File(context.getNoBackupFilesDir(), INDEX_FILE));
+    }
+
+    /**
+     * The directory {@link #createOutputFile} writes into for {@code options}, which may not exist yet.
+     */
+    public static File getOutputDirectory(Context context, RecordOptions options) {
+        if (options.getDirectory() == null) {
+            return context.getCacheDir();
+        }
+        File outputDir = getDirectory(context, options.getDirectory());
+        String normalized = RecordingPaths.normalizeSubDirectory(options.getSubDirectory());
+        return normalized != null ? new File(outputDir, normalized) : outputDir;
+    }
+
+    public static File getCapabilitiesFile(Context context) {
+        return new File(context.getNoBackupFilesDir(), CAPABILITIES_FILE);
+    }
+
+    public static File getDirectory(Context context, String directory) {
+        return switch (directory) {
+            case "DOCUMENTS" -> Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOCUMENTS);
+            case "DATA", "LIBRARY" -> context.getFilesDir();
+            case "CACHE" -> context.getCacheDir();
+            case "EXTERNAL" -> context.getExternalFilesDir(null);
+            case "EXTERNAL_STORAGE" -> Environment.getExternalStorageDirectory();
+            default -> null;
+        };
+    }
+
+    /**
+     * A recording given as a {@code file://} URI or absolute path, or as a path relative to one of the directories.
+     */
+    public static File resolveFile(Context context, String directory, String path) throws MessagesException {
+        if (path == null || path.isEmpty()) {
+            throw new MessagesException(Messages.INVALID_PATH);
+        }
+        if (directory == null) {
+            String filePath = path.startsWith("file://") ? Uri.parse(path).getPath() : path;
+            if (filePath == null || !filePath.startsWith("/")) {
+                throw new MessagesException(Messages.INVALID_PATH);
+            }
+            return new File(filePath);
+        }
+        File parent = getDirectory(context, directory);
+        if (parent == null) {
+            throw new MessagesException(Messages.INVALID_PATH);
+        }
+        return new File(parent, path);
+    }
+
+    /**
+     * A recording given like for {@link #resolveFile} that the plugin may delete. The path may not step up a directory,
+     * and the file must stay inside {@code directory}, or inside one of the directories for an absolute path, also
+     * when its links are followed.
+     */
+    public static File resolveRecording(Context context, String directory, String path) throws MessagesException {
+        File file = resolveFile(context, directory, path);
+        if (RecordingPaths.hasParentSegment(file.getPath())) {
+            throw new MessagesException(Messages.INVALID_PATH);
+        }
+        try {
+            File canonical = file.getCanonicalFile();
+            for (String name : directory != null ? new String[] { directory } : DIRECTORIES) {
+                File parent = getDirectory(context, name);
+                if (parent != null && RecordingPaths.isInside(canonical, parent.getCanonicalFile())) {
+                    return file;
+                }
+            }
+        } catch (IOException exp) {
+            throw new MessagesException(Messages.INVALID_PATH, exp);
+        }
+        throw new MessagesException(Messages.INVALID_PATH);
+    }
+
+    public static boolean releaseCachedRecording(Context context, String path) throws MessagesException {
+        if (path == null || path.isEmpty()) {
+            throw new MessagesException(Messages.INVALID_PATH);
+        }
+        String filePath = path.startsWith("file://") ? Uri.parse(path).getPath() : path;
+        try {
+            File file = new File(filePath).getCanonicalFile();
+            if (!RecordingPaths.isCachedRecording(file, context.getCacheDir().getCanonicalFile())) {
+                throw new MessagesException(Messages.INVALID_PATH);
+            }
+            WaveformCache.delete(file);
+            return file.delete();
+        } catch (IOException exp) {
+            throw new MessagesException(Messages.INVALID_PATH, exp);
+        }
+    }
+}
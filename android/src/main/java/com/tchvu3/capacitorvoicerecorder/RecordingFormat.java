@@ -0,0 +1,90 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.media.MediaRecorder;
+
+public enum RecordingFormat {
+    AAC_ADTS(
+        "aac",
+        "audio/aac",
+        ".aac",
+        MediaRecorder.OutputFormat.AAC_ADTS,
+        16,
+        RecordingEncoder.AAC,
+        RecordingEncoder.HE_AAC,
+        RecordingEncoder.AAC_ELD
+    ),
+    MPEG_4(
+        "mp4",
+        "audio/mp4",
+        ".m4a",
+        MediaRecorder.OutputFormat.MPEG_4,
+        1,
+        RecordingEncoder.AAC,
+        RecordingEncoder.HE_AAC,
+        RecordingEncoder.AAC_ELD
+    ),
+    OGG("ogg", "audio/ogg", ".ogg", MediaRecorder.OutputFormat.OGG, 29, RecordingEncoder.OPUS),
+    WEBM("webm", "audio/webm", ".webm", MediaRecorder.OutputFormat.WEBM, 21, RecordingEncoder.OPUS, RecordingEncoder.VORBIS),
+    WAV("wav", "audio/wav", ".wav", -1, 1, RecordingEncoder.PCM);
+
+    private final String value;
+    private final String mimeType;
+    private final String extension;
+    private final int mediaRecorderFormat;
+    private final int minSdk;
+    private final RecordingEncoder[] encoders;
+
+    RecordingFormat(String value, String mimeType, String extension, int mediaRecorderFormat, int minSdk, RecordingEncoder... encoders) {
+        this.value = value;
+        this.mimeType = mimeType;
+        this.extension = extension;
+        this.mediaRecorderFormat = mediaRecorderFormat;
+        this.minSdk = minSdk;
+        this.encoders = encoders;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public int getMediaRecorderFormat() {
+        return mediaRecorderFormat;
+    }
+
+    public int getMinSdk() {
+        return minSdk;
+    }
+
+    public RecordingEncoder getDefaultEncoder() {
+        return encoders[0];
+    }
+
+    public boolean supports(RecordingEncoder encoder) {
+        for (RecordingEncoder supported : encoders) {
+            if (supported == encoder) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static RecordingFormat fromString(String value, RecordingFormat fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        for (RecordingFormat format : values()) {
+            if (format.value.equals(value)) {
+                return format;
+            }
+        }
+        return fallback;
+    }
+}
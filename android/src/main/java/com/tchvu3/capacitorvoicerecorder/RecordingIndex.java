@@ -0,0 +1,209 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The recordings the plugin wrote into the directories and still owns, with their size, duration and when they were
+ * created and last used. Listing them and keeping a directory under its quota read this index instead of the file
+ * system, so no directory has to be walked.
+ * <p>
+ * The index is written to a state file on every change, which is rare: a recording is added when it is finished and
+ * touched when the plugin reads it again. Files deleted by other means than the plugin stay listed until they would be
+ * evicted or are deleted through the plugin.
+ */
+public class RecordingIndex {
+
+    private static final int STATE_VERSION = 1;
+
+    private static RecordingIndex instance;
+
+    private final File stateFile;
+    // by absolute path, oldest first
+    private final Map<String, IndexedRecording> recordings = new LinkedHashMap<>();
+
+    public RecordingIndex(File stateFile) throws IOException {
+        this.stateFile = stateFile;
+        read();
+    }
+
+    /**
+     * The index of this process.
+     */
+    public static synchronized RecordingIndex get(File stateFile) throws IOException {
+        if (instance == null) {
+            instance = new RecordingIndex(stateFile);
+        }
+        return instance;
+    }
+
+    public synchronized void add(IndexedRecording recording) throws IOException {
+        String key = recording.getFile().getAbsolutePath();
+        recordings.remove(key);
+        recordings.put(key, recording);
+        persist();
+    }
+
+    /**
+     * @return whether the file was in the index
+     */
+    public synchronized boolean remove(File file) throws IOException {
+        if (recordings.remove(file.getAbsolutePath()) == null) {
+            return false;
+        }
+        persist();
+        return true;
+    }
+
+    /**
+     * Marks the recording as used at {@code nowMs}, which keeps it from being evicted before recordings that were used
+     * longer ago. Does nothing for a file that is not in the index.
+     */
+    public synchronized void touch(File file, long nowMs) throws IOException {
+        IndexedRecording recording = recordings.get(file.getAbsolutePath());
+        if (recording != null) {
+            recording.setLastUsedAtMs(nowMs);
+            persist();
+        }
+    }
+
+    /**
+     * @param directory    the directory, or {@code null} for all of them
+     * @param subDirectory the sub directory in {@code directory}, or {@code null} for the top of it; ignored without
+     *                     {@code directory}
+     * @return the recordings in the order they were added
+     */
+    public synchronized List<IndexedRecording> list(String directory, String subDirectory) {
+        List<IndexedRecording> listed = new ArrayList<>();
+        for (IndexedRecording recording : recordings.values()) {
+            if (directory == null || isIn(recording, directory, subDirectory)) {
+                listed.add(recording);
+            }
+        }
+        return listed;
+    }
+
+    public synchronized long getUsedBytes(String directory, String subDirectory) {
+        long used = 0;
+        for (IndexedRecording recording : recordings.values()) {
+            if (isIn(recording, directory, subDirectory)) {
+                used += recording.getSize();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Picks the least recently used recordings of a directory to delete, so that a new recording of
+     * {@code incomingBytes} fits into the {@code usableBytes} that are free and keeps the directory within
+     * {@code quotaBytes}. Only recordings in the index are picked, never files the plugin did not write.
+     *
+     * @param quotaBytes the most the recordings of the directory may take, 0 for no quota
+     * @param pinned     files that must not be picked, like the ones waiting to be uploaded
+     * @return the recordings to delete, least recently used first, empty when there is room already, or {@code null}
+     *     when deleting all of them would not make enough room
+     */
+    public synchronized List<IndexedRecording> selectEvictions(
+        String directory,
+        String subDirectory,
+        long incomingBytes,
+        long usableBytes,
+        long quotaBytes,
+        Set<File> pinned
+    ) {
+        long needed = Math.max(0, incomingBytes - usableBytes);
+        if (quotaBytes > 0) {
+            needed = Math.max(needed, getUsedBytes(directory, subDirectory) + incomingBytes - quotaBytes);
+        }
+        if (needed <= 0) {
+            return Collections.emptyList();
+        }
+        List<IndexedRecording> candidates = new ArrayList<>();
+        for (IndexedRecording recording : recordings.values()) {
+            if (isIn(recording, directory, subDirectory) && !pinned.contains(recording.getFile())) {
+                candidates.add(recording);
+            }
+        }
+        Collections.sort(candidates, (first, second) -> Long.compare(first.getLastUsedAtMs(), second.getLastUsedAtMs()));
+        List<IndexedRecording> evicted = new ArrayList<>();
+        long freed = 0;
+        for (IndexedRecording candidate : candidates) {
+            if (freed >= needed) {
+                break;
+            }
+            evicted.add(candidate);
+            freed += candidate.getSize();
+        }
+        return freed >= needed ? evicted : null;
+    }
+
+    private static boolean isIn(IndexedRecording recording, String directory, String subDirectory) {
+        return directory.equals(recording.getDirectory()) && Objects.equals(subDirectory, recording.getSubDirectory());
+    }
+
+    private void persist() throws IOException {
+        File written = new File(stateFile.getPath() + ".tmp");
+        FileOutputStream outputStream = new FileOutputStream(written);
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream))) {
+            output.writeInt(STATE_VERSION);
+            output.writeInt(recordings.size());
+            for (IndexedRecording recording : recordings.values()) {
+                output.writeUTF(recording.getDirectory());
+                output.writeUTF(recording.getPath());
+                output.writeUTF(recording.getFile().getAbsolutePath());
+                output.writeLong(recording.getSize());
+                output.writeLong(recording.getDurationMs());
+                output.writeLong(recording.getCreatedAtMs());
+                output.writeLong(recording.getLastUsedAtMs());
+            }
+            output.flush();
+            outputStream.getFD().sync();
+        }
+        if (!written.renameTo(stateFile)) {
+            throw new IOException("Could not replace " + stateFile);
+        }
+    }
+
+    private void read() throws IOException {
+        if (!stateFile.exists()) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile)))) {
+            if (input.readInt() != STATE_VERSION) {
+                return;
+            }
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                String directory = input.readUTF();
+                String path = input.readUTF();
+                File file = new File(input.readUTF());
+                IndexedRecording recording = new IndexedRecording(
+                    directory,
+                    path,
+                    file,
+                    input.readLong(),
+                    input.readLong(),
+                    input.readLong(),
+                    input.readLong()
+                );
+                recordings.put(file.getAbsolutePath(), recording);
+            }
+        } catch (EOFException exp) {
+            // the state file is replaced atomically, a short one was not written by this index
+        }
+    }
+}
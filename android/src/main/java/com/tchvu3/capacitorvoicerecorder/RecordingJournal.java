@@ -0,0 +1,260 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the takes in progress, so a take whose process was killed can be found and recovered on the
+ * next start. Every record is synced to disk before the call returns; records are only written when a take starts,
+ * pauses, resumes, closes a segment or ends, never per buffer.
+ * <p>
+ * Each record is {@code [length, crc32, payload]}. Reading stops at the first record that is cut off or does not match
+ * its checksum, which is what a crash in the middle of an append leaves behind. When the journal is opened it is
+ * rewritten with only the takes that never ended.
+ */
+public class RecordingJournal {
+
+    private static final byte BEGIN = 1;
+    private static final byte PAUSE = 2;
+    private static final byte RESUME = 3;
+    private static final byte SEGMENT = 4;
+    private static final byte END = 5;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private static RecordingJournal instance;
+
+    private final File file;
+    private final Map<String, RecoverableRecording> openTakes = new LinkedHashMap<>();
+    private final Set<String> ownTakes = new HashSet<>();
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    private final DataOutputStream payloadWriter = new DataOutputStream(payload);
+    private final CRC32 crc = new CRC32();
+    private FileOutputStream outputStream;
+    private DataOutputStream writer;
+
+    public RecordingJournal(File file) throws IOException {
+        this.file = file;
+        read();
+        compact();
+        outputStream = new FileOutputStream(file, true);
+        writer = new DataOutputStream(outputStream);
+    }
+
+    /**
+     * The journal of this process. Takes begun through it are never reported as recoverable, also when the plugin is
+     * loaded again while they are recording.
+     */
+    public static synchronized RecordingJournal get(File file) throws IOException {
+        if (instance == null) {
+            instance = new RecordingJournal(file);
+        }
+        return instance;
+    }
+
+    public synchronized void begin(RecoverableRecording take) throws IOException {
+        openTakes.put(take.getId(), take);
+        ownTakes.add(take.getId());
+        append(BEGIN, take);
+    }
+
+    public synchronized void pause(String id, long pausedAtMs) throws IOException {
+        RecoverableRecording take = openTakes.get(id);
+        if (take != null) {
+            take.addPause(pausedAtMs);
+            append(PAUSE, id, pausedAtMs);
+        }
+    }
+
+    public synchronized void resume(String id, long resumedAtMs) throws IOException {
+        RecoverableRecording take = openTakes.get(id);
+        if (take != null) {
+            take.addResume(resumedAtMs);
+            append(RESUME, id, resumedAtMs);
+        }
+    }
+
+    public synchronized void segmentClosed(String id, int index) throws IOException {
+        RecoverableRecording take = openTakes.get(id);
+        if (take != null) {
+            take.setClosedSegments(index + 1);
+            append(SEGMENT, id, index);
+        }
+    }
+
+    /**
+     * Marks a take as finalized, recovered or discarded; it is no longer reported afterwards.
+     */
+    public synchronized void end(String id) throws IOException {
+        if (openTakes.remove(id) != null) {
+            ownTakes.remove(id);
+            append(END, id, 0);
+        }
+    }
+
+    /**
+     * Takes of earlier processes that never ended and of which the first file still exists.
+     */
+    public synchronized List<RecoverableRecording> getRecoverable() {
+        List<RecoverableRecording> recoverable = new ArrayList<>();
+        for (RecoverableRecording take : openTakes.values()) {
+            if (!ownTakes.contains(take.getId()) && take.getFile().exists()) {
+                recoverable.add(take);
+            }
+        }
+        return recoverable;
+    }
+
+    public synchronized RecoverableRecording getRecoverable(String id) {
+        for (RecoverableRecording take : getRecoverable()) {
+            if (take.getId().equals(id)) {
+                return take;
+            }
+        }
+        return null;
+    }
+
+    private void read() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] record = new byte[256];
+            while (true) {
+                int length = input.readInt();
+                int checksum = input.readInt();
+                if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                    return;
+                }
+                if (record.length < length) {
+                    record = new byte[length];
+                }
+                input.readFully(record, 0, length);
+                crc.reset();
+                crc.update(record, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    return;
+                }
+                apply(new DataInputStream(new ByteArrayInputStream(record, 0, length)));
+            }
+        } catch (EOFException exp) {
+            // the last record was cut off, everything before it is valid
+        }
+    }
+
+    private void apply(DataInputStream record) throws IOException {
+        byte type = record.readByte();
+        String id = record.readUTF();
+        if (type == BEGIN) {
+            RecoverableRecording take = new RecoverableRecording(
+                id,
+                record.readLong(),
+                new File(record.readUTF()),
+                record.readUTF(),
+                readNullable(record),
+                readNullable(record),
+                record.readBoolean()
+            );
+            openTakes.put(id, take);
+            return;
+        }
+        RecoverableRecording take = openTakes.get(id);
+        if (take == null) {
+            return;
+        }
+        long value = record.readLong();
+        switch (type) {
+            case PAUSE -> take.addPause(value);
+            case RESUME -> take.addResume(value);
+            case SEGMENT -> take.setClosedSegments((int) value + 1);
+            case END -> openTakes.remove(id);
+            default -> {}
+        }
+    }
+
+    /**
+     * Rewrites the journal with only the takes that are still open, so it does not grow across sessions.
+     */
+    private void compact() throws IOException {
+        File compacted = new File(file.getPath() + ".tmp");
+        outputStream = new FileOutputStream(compacted);
+        writer = new DataOutputStream(outputStream);
+        try {
+            for (RecoverableRecording take : openTakes.values()) {
+                append(BEGIN, take);
+                for (long[] pause : take.getPauses()) {
+                    append(PAUSE, take.getId(), pause[0]);
+                    if (pause[1] >= 0) {
+                        append(RESUME, take.getId(), pause[1]);
+                    }
+                }
+                if (take.getClosedSegments() > 0) {
+                    append(SEGMENT, take.getId(), take.getClosedSegments() - 1);
+                }
+            }
+        } finally {
+            outputStream.close();
+        }
+        if (!compacted.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    private void append(byte type, RecoverableRecording take) throws IOException {
+        payload.reset();
+        payloadWriter.writeByte(type);
+        payloadWriter.writeUTF(take.getId());
+        payloadWriter.writeLong(take.getStartedAtMs());
+        payloadWriter.writeUTF(take.getFile().getAbsolutePath());
+        payloadWriter.writeUTF(take.getFormat());
+        writeNullable(take.getDirectory());
+        writeNullable(take.getSubDirectory());
+        payloadWriter.writeBoolean(take.isSegmented());
+        writeRecord();
+    }
+
+    private void append(byte type, String id, long value) throws IOException {
+        payload.reset();
+        payloadWriter.writeByte(type);
+        payloadWriter.writeUTF(id);
+        payloadWriter.writeLong(value);
+        writeRecord();
+    }
+
+    private void writeRecord() throws IOException {
+        payloadWriter.flush();
+        byte[] bytes = payload.toByteArray();
+        crc.reset();
+        crc.update(bytes, 0, bytes.length);
+        writer.writeInt(bytes.length);
+        writer.writeInt((int) crc.getValue());
+        writer.write(bytes);
+        writer.flush();
+        outputStream.getFD().sync();
+    }
+
+    private void writeNullable(String value) throws IOException {
+        payloadWriter.writeBoolean(value != null);
+        if (value != null) {
+            payloadWriter.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream record) throws IOException {
+        return record.readBoolean() ? record.readUTF() : null;
+    }
+}
@@ -0,0 +1,20 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+/**
+ * The limit that ended a take on its own, see {@link RecordOptions#getMaxDurationMs()} and
+ * {@link RecordOptions#getMaxFileSizeBytes()}.
+ */
+public enum RecordingLimit {
+    DURATION("duration"),
+    FILE_SIZE("fileSize");
+
+    private final String value;
+
+    RecordingLimit(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
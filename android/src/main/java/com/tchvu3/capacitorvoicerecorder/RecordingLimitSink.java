@@ -0,0 +1,97 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Lets through no more than a number of frames, which is how the PCM engine keeps a take within its maximum duration
+ * and file size. The buffer that crosses the limit is cut at the exact frame, everything after it is dropped and the
+ * listener is told once, on the thread that writes, so the take can be stopped from elsewhere. Until it is, the
+ * microphone keeps being read but nothing more reaches the file.
+ */
+public class RecordingLimitSink implements PcmSink {
+
+    public interface Listener {
+        void onLimitReached(RecordingLimit limit);
+    }
+
+    private final int frameSize;
+    private final long maxFrames;
+    private final RecordingLimit limit;
+    private final PcmSink next;
+    private volatile Listener listener;
+    private volatile long passedFrames;
+    private volatile boolean reached;
+
+    /**
+     * @param maxDurationFrames frames the duration limit allows, 0 for no limit
+     * @param maxSizeFrames frames the file size limit allows, 0 for no limit
+     */
+    public RecordingLimitSink(int frameSize, long maxDurationFrames, long maxSizeFrames, PcmSink next) {
+        this.frameSize = frameSize;
+        this.next = next;
+        boolean sizeFirst = maxSizeFrames > 0 && (maxDurationFrames <= 0 || maxSizeFrames < maxDurationFrames);
+        this.maxFrames = sizeFirst ? maxSizeFrames : maxDurationFrames;
+        this.limit = sizeFirst ? RecordingLimit.FILE_SIZE : RecordingLimit.DURATION;
+    }
+
+    /**
+     * Frames of PCM a file of {@code maxBytes} holds when it has {@code headerBytes} of header and stores
+     * {@code bytesPerSecond} of audio, 0 when there is no limit. Never less than one frame, so a file is never empty.
+     */
+    public static long framesWithin(long maxBytes, long headerBytes, long bytesPerSecond, int sampleRate) {
+        if (maxBytes <= 0) {
+            return 0;
+        }
+        return Math.max(1, (maxBytes - headerBytes) * sampleRate / bytesPerSecond);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Frames passed on so far, which stops growing once the limit is reached.
+     */
+    public long getPassedFrames() {
+        return passedFrames;
+    }
+
+    public boolean isReached() {
+        return reached;
+    }
+
+    @Override
+    public void onStart() throws IOException {
+        next.onStart();
+    }
+
+    @Override
+    public void onPcm(ByteBuffer buffer) throws IOException {
+        if (reached) {
+            return;
+        }
+        long frames = buffer.remaining() / frameSize;
+        if (maxFrames <= 0 || passedFrames + frames < maxFrames) {
+            passedFrames += frames;
+            next.onPcm(buffer);
+            return;
+        }
+        long allowed = maxFrames - passedFrames;
+        int limitBefore = buffer.limit();
+        buffer.limit(buffer.position() + (int) allowed * frameSize);
+        passedFrames = maxFrames;
+        next.onPcm(buffer);
+        buffer.limit(limitBefore);
+        reached = true;
+        Listener current = listener;
+        if (current != null) {
+            current.onLimitReached(limit);
+        }
+    }
+
+    @Override
+    public void onStop() throws IOException {
+        next.onStop();
+    }
+}
@@ -0,0 +1,185 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timings and counters of one take, for telling where the time of a start or stop goes. Phases are marked with a
+ * monotonic clock in milliseconds ({@code SystemClock.elapsedRealtime()} on the device) from whichever thread reaches
+ * them; each phase keeps the first time it was marked. Counters are filled in once the recorder has stopped, so
+ * nothing is added to the audio thread beyond the peaks the capture loop keeps anyway.
+ */
+public class RecordingMetrics {
+
+    public enum Phase {
+        REQUESTED("requested"),
+        SERVICE_BOUND("serviceBound"),
+        RECORDER_READY("recorderReady"),
+        STARTED("started"),
+        FIRST_SAMPLE("firstSample"),
+        STOP_REQUESTED("stopRequested"),
+        STOPPED("stopped"),
+        NORMALIZED("normalized"),
+        DURATION_PROBED("durationProbed"),
+        ENCODED("encoded"),
+        FINALIZED("finalized");
+
+        private final String key;
+
+        Phase(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final String sessionId;
+    private final String engine;
+    private final String format;
+    private final AtomicLongArray phaseMs = new AtomicLongArray(Phase.values().length);
+    private volatile boolean prepared;
+    private volatile long bytesWritten = -1;
+    private volatile long capturedBytes = -1;
+    private volatile long droppedBytes = -1;
+    private volatile int readBufferBytes = -1;
+    private volatile int peakReadBytes = -1;
+    private volatile long peakSinkMicros = -1;
+    private volatile boolean failed;
+    private volatile ErrorInfo errorInfo;
+
+    public RecordingMetrics(String sessionId, String engine, String format) {
+        this.sessionId = sessionId;
+        this.engine = engine;
+        this.format = format;
+        for (int i = 0; i < phaseMs.length(); i++) {
+            phaseMs.set(i, -1);
+        }
+    }
+
+    /**
+     * @return {@code false} when the phase had already been marked
+     */
+    public boolean mark(Phase phase, long elapsedMs) {
+        return phaseMs.compareAndSet(phase.ordinal(), -1, elapsedMs);
+    }
+
+    /**
+     * @return the time the phase was reached, or -1 when it was not (yet)
+     */
+    public long getPhaseMs(Phase phase) {
+        return phaseMs.get(phase.ordinal());
+    }
+
+    /**
+     * @return milliseconds from {@code from} to {@code to}, or -1 when either was not reached
+     */
+    public long getLatencyMs(Phase from, Phase to) {
+        long start = getPhaseMs(from);
+        long end = getPhaseMs(to);
+        return start < 0 || end < 0 ? -1 : end - start;
+    }
+
+    public boolean isFinished() {
+        return getPhaseMs(Phase.FINALIZED) >= 0;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * Whether the take used a recorder prepared with prepareRecording.
+     */
+    public boolean isPrepared() {
+        return prepared;
+    }
+
+    public void setPrepared(boolean prepared) {
+        this.prepared = prepared;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public void setBytesWritten(long bytesWritten) {
+        this.bytesWritten = bytesWritten;
+    }
+
+    /**
+     * PCM bytes that reached the recorder, -1 for the MediaRecorder engine which does not expose them.
+     */
+    public long getCapturedBytes() {
+        return capturedBytes;
+    }
+
+    public void setCapturedBytes(long capturedBytes) {
+        this.capturedBytes = capturedBytes;
+    }
+
+    /**
+     * PCM bytes lost because the take fell behind an armed or shared capture.
+     */
+    public long getDroppedBytes() {
+        return droppedBytes;
+    }
+
+    public void setDroppedBytes(long droppedBytes) {
+        this.droppedBytes = droppedBytes;
+    }
+
+    public int getReadBufferBytes() {
+        return readBufferBytes;
+    }
+
+    public void setReadBufferBytes(int readBufferBytes) {
+        this.readBufferBytes = readBufferBytes;
+    }
+
+    /**
+     * The largest single read from the audio source.
+     */
+    public int getPeakReadBytes() {
+        return peakReadBytes;
+    }
+
+    public void setPeakReadBytes(int peakReadBytes) {
+        this.peakReadBytes = peakReadBytes;
+    }
+
+    /**
+     * The longest time the sinks took for one read: encoding and writing must stay below the read interval.
+     */
+    public long getPeakSinkMicros() {
+        return peakSinkMicros;
+    }
+
+    public void setPeakSinkMicros(long peakSinkMicros) {
+        this.peakSinkMicros = peakSinkMicros;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+
+    public ErrorInfo getErrorInfo() {
+        return errorInfo;
+    }
+
+    public void setErrorInfo(ErrorInfo errorInfo) {
+        this.errorInfo = errorInfo;
+    }
+}
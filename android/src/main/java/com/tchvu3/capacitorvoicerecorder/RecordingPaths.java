@@ -0,0 +1,62 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.File;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Path handling of the recording options that does not need a {@link android.content.Context}.
+ */
+public final class RecordingPaths {
+
+    public static final String FILE_PREFIX = "recording-";
+
+    private static final Pattern SUB_DIRECTORY = Pattern.compile("^/?(.+[^/])/?$");
+    private static final Pattern REPEATED_SLASHES = Pattern.compile("/{2,}");
+
+    private RecordingPaths() {}
+
+    /**
+     * @return the sub directory without a leading or trailing slash or repeated slashes, or {@code null} when it is not
+     *         a usable name
+     */
+    public static String normalizeSubDirectory(String subDirectory) {
+        if (subDirectory == null) {
+            return null;
+        }
+        Matcher matcher = SUB_DIRECTORY.matcher(REPEATED_SLASHES.matcher(subDirectory).replaceAll("/"));
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Whether {@code path} steps up a directory, which could leave the directory it is relative to.
+     */
+    public static boolean hasParentSegment(String path) {
+        for (String segment : path.split("/")) {
+            if (segment.equals("..")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether {@code file} is below {@code directory}; both must be canonical.
+     */
+    public static boolean isInside(File file, File directory) {
+        for (File parent = file.getParentFile(); parent != null; parent = parent.getParentFile()) {
+            if (parent.equals(directory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether {@code file} is a recording the plugin wrote into {@code cacheDirectory}; both must be canonical.
+     */
+    public static boolean isCachedRecording(File file, File cacheDirectory) {
+        File parent = file.getParentFile();
+        return parent != null && parent.equals(cacheDirectory) && file.getName().startsWith(FILE_PREFIX);
+    }
+}
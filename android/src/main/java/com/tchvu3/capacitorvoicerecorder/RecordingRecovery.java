@@ -0,0 +1,138 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.content.Context;
+import android.util.Log;
+import com.getcapacitor.JSObject;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes the {@link RecordingJournal} while takes are recorded and brings back the takes it still lists after a
+ * crash, see listRecoverableRecordings and recoverRecording.
+ */
+public class RecordingRecovery {
+
+    private static final ExecutorService JOURNAL_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "VoiceRecorderJournal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public interface JournalWrite {
+        void write(RecordingJournal journal) throws IOException;
+    }
+
+    /**
+     * Journal writes are synced to disk, so they run on their own thread in the order they were requested. A failing
+     * journal never stops a recording.
+     */
+    public static void writeJournal(Context context, JournalWrite write) {
+        JOURNAL_EXECUTOR.execute(() -> {
+            try {
+                write.write(RecordingFiles.getJournal(context));
+            } catch (IOException exp) {
+                Log.w("RecordingRecovery", "writeJournal", exp);
+            }
+        });
+    }
+
+    public static List<RecoverableRecording> listRecoverable(Context context) throws MessagesException {
+        try {
+            return RecordingFiles.getJournal(context).getRecoverable();
+        } catch (IOException exp) {
+            Log.e("RecordingRecovery", "listRecoverable", exp);
+            throw new MessagesException(Messages.FAILED_TO_FETCH_RECORDING, exp);
+        }
+    }
+
+    /**
+     * Repairs the files of a take that was cut off by a crash and returns them like stopRecording would. Runs on the
+     * finalization thread, after takes that are still being finalized.
+     */
+    public static void recoverRecording(
+        Context context,
+        String id,
+        ReturnMode returnMode,
+        VoiceRecorderService.EventListener payloadListener,
+        VoiceRecorderService.FinalizationCallback callback
+    ) {
+        RecordingResults.FINALIZATION_EXECUTOR.execute(() -> {
+            try {
+                callback.onFinalized(recover(context, id, returnMode, payloadListener));
+            } catch (MessagesException exp) {
+                callback.onFailed(exp);
+            }
+        });
+    }
+
+    private static JSObject recover(Context context, String id, ReturnMode returnMode, VoiceRecorderService.EventListener payloadListener)
+        throws MessagesException {
+        RecoverableRecording take;
+        try {
+            take = RecordingFiles.getJournal(context).getRecoverable(id);
+        } catch (IOException exp) {
+            Log.e("RecordingRecovery", "recoverRecording", exp);
+            throw new MessagesException(Messages.FAILED_TO_FETCH_RECORDING, exp);
+        }
+        if (take == null) {
+            throw new MessagesException(Messages.RECORDING_NOT_FOUND);
+        }
+        RecordOptions options = new RecordOptions(take.getDirectory(), take.getSubDirectory(), returnMode);
+        options.setFormat(RecordingFormat.fromString(take.getFormat(), RecordingFormat.AAC_ADTS));
+        boolean repairable = options.getFormat() == RecordingFormat.AAC_ADTS || options.getFormat() == RecordingFormat.WAV;
+        try {
+            List<RecordingSegment> segments = new ArrayList<>();
+            long startMs = 0;
+            for (File file : take.getFiles()) {
+                long durationMs = repair(file, options.getFormat());
+                if (repairable && durationMs < 0) {
+                    // nothing valid was written, e.g. a segment that had just been opened
+                    Log.w("RecordingRecovery", "recoverRecording - dropping " + file.getName());
+                    file.delete();
+                    continue;
+                }
+                segments.add(new RecordingSegment(segments.size(), file, startMs, durationMs, file.length()));
+                startMs += Math.max(0, durationMs);
+            }
+            if (segments.isEmpty()) {
+                writeJournal(context, journal -> journal.end(id));
+                throw new MessagesException(Messages.EMPTY_RECORDING);
+            }
+
+            RecordingSegment first = segments.get(0);
+            RecordData recordData = take.isSegmented()
+                ? RecordingResults.toRecordData(segments, options)
+                : RecordingResults.toRecordData(first.getFile(), options, (int) first.getDurationMs(), payloadListener);
+            if (options.getDirectory() != null) {
+                // like a finalized take, so it is listed and counts for the quota; -1 when the duration is unknown
+                for (RecordingSegment segment : segments) {
+                    RecordingStorage.addToIndex(context, options, segment.getFile(), segment.getDurationMs());
+                }
+            } else if (!take.isSegmented() && returnMode != ReturnMode.URI) {
+                first.getFile().delete();
+            }
+            writeJournal(context, journal -> journal.end(id));
+            Log.i("RecordingRecovery", "recoverRecording - recovered " + segments.size() + " file(s), " + startMs + "ms");
+            return ResponseGenerator.dataResponse(recordData.toJSObject());
+        } catch (IOException exp) {
+            Log.e("RecordingRecovery", "recoverRecording", exp);
+            throw new MessagesException(Messages.FAILED_TO_FETCH_RECORDING, exp);
+        }
+    }
+
+    /**
+     * @return the duration of the repaired file, or -1 when it has no valid audio or its format cannot be repaired
+     */
+    private static long repair(File file, RecordingFormat format) throws IOException {
+        return switch (format) {
+            case AAC_ADTS -> RecordingRepair.repairAdts(file);
+            case WAV -> RecordingRepair.repairWav(file);
+            // mp4, ogg and webm files of a take that never finished are returned as they are
+            default -> -1;
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Makes the file of a take that was cut off by a crash playable again. Files are read in a single streaming pass and
+ * fixed in place.
+ */
+public class RecordingRepair {
+
+    /**
+     * Cuts an ADTS stream after its last complete frame.
+     *
+     * @return the duration of the remaining frames, or -1 when not a single frame is valid
+     */
+    public static long repairAdts(File file) throws IOException {
+        AdtsStreamInfo info = AdtsParser.scan(file);
+        truncate(file, info.getValidBytes());
+        return info.getDurationMs();
+    }
+
+    /**
+     * Completes the sizes in the header of a WAV file whose recording never finished and drops a partial sample frame
+     * at the end. The sample rate and channels are taken from the header, which is written when the take starts.
+     *
+     * @return the duration of the samples, or -1 when the file does not start with a WAV header
+     */
+    public static long repairWav(File file) throws IOException {
+        try (RandomAccessFile wav = new RandomAccessFile(file, "rw")) {
+            FileChannel channel = wav.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(WavFileSink.HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {}
+            if (header.hasRemaining() || header.getInt(0) != 0x46464952 || header.getInt(8) != 0x45564157) {
+                return -1;
+            }
+            int channels = header.getShort(22);
+            int sampleRate = header.getInt(24);
+            int frameSize = channels * 2;
+            if (channels <= 0 || sampleRate <= 0) {
+                return -1;
+            }
+            long dataLength = channel.size() - WavFileSink.HEADER_LENGTH;
+            dataLength -= dataLength % frameSize;
+            channel.truncate(WavFileSink.HEADER_LENGTH + dataLength);
+            header.clear();
+            header.putInt(4, (int) Math.min(0xffffffffL, dataLength + WavFileSink.HEADER_LENGTH - 8));
+            header.putInt(40, (int) Math.min(0xffffffffL, dataLength));
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+            return WavFileSink.durationMs(WavFileSink.HEADER_LENGTH + dataLength, sampleRate, channels);
+        }
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        if (file.length() == length) {
+            return;
+        }
+        try (RandomAccessFile target = new RandomAccessFile(file, "rw")) {
+            target.getChannel().truncate(length);
+        }
+    }
+}
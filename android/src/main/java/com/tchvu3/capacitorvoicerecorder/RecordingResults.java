@@ -0,0 +1,168 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.net.Uri;
+import android.util.Log;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Turns finished recordings into what stopRecording resolves with: the file as Base64, a path, a uri or a streamed
+ * payload. Everything that produces such a result, finalizing a take as well as editing or recovering files, runs on
+ * the single {@link #FINALIZATION_EXECUTOR}, so results come back in the order they were asked for.
+ */
+public class RecordingResults {
+
+    public static final ExecutorService FINALIZATION_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "VoiceRecorderFinalizer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static RecordData toRecordData(
+        File recordedFile,
+        RecordOptions options,
+        int msDuration,
+        VoiceRecorderService.EventListener payloadListener
+    ) throws MessagesException {
+        return toRecordData(recordedFile, options, msDuration, payloadListener, true);
+    }
+
+    /**
+     * @param withPayload whether the Base64 or streamed payload is built; a take nobody waits for only needs its
+     *                    duration and path
+     */
+    public static RecordData toRecordData(
+        File recordedFile,
+        RecordOptions options,
+        int msDuration,
+        VoiceRecorderService.EventListener payloadListener,
+        boolean withPayload
+    ) throws MessagesException {
+        String path = null;
+        String uri = null;
+        String recordDataBase64 = null;
+        String payloadId = null;
+        if (options.getDirectory() != null) {
+            path = pathOf(recordedFile, options);
+        } else if (options.getReturnMode() == ReturnMode.URI) {
+            path = pathOf(recordedFile, options);
+            uri = Uri.fromFile(recordedFile).toString();
+        } else if (!withPayload) {
+            return new RecordData(null, msDuration, options.getFormat().getMimeType(), null);
+        } else if (options.getReturnMode() == ReturnMode.STREAM) {
+            payloadId = streamPayload(recordedFile, options.getFormat().getMimeType(), payloadListener);
+        } else {
+            recordDataBase64 = readRecordedFileAsBase64(recordedFile);
+        }
+        if (recordDataBase64 == null && path == null && payloadId == null) {
+            throw new MessagesException(Messages.EMPTY_RECORDING);
+        }
+        RecordData recordData = new RecordData(recordDataBase64, msDuration, options.getFormat().getMimeType(), path);
+        recordData.setUri(uri);
+        recordData.setPayloadId(payloadId);
+        return recordData;
+    }
+
+    /**
+     * Sends the file as {@link VoiceRecorderService#PAYLOAD_EVENT} events of at most 1MB of Base64 each, before the call resolves. Unlike
+     * {@code recordDataBase64}, no string of the size of the whole recording is built.
+     *
+     * @return the id the events were sent with
+     */
+    private static String streamPayload(File file, String mimeType, VoiceRecorderService.EventListener listener) throws MessagesException {
+        if (listener == null) {
+            throw new MessagesException(Messages.FAILED_TO_FETCH_RECORDING);
+        }
+        String payloadId = UUID.randomUUID().toString();
+        Base64PayloadStreamer streamer = new Base64PayloadStreamer(Base64PayloadStreamer.DEFAULT_PIECE_BYTES);
+        try {
+            streamer.stream(file, (sequence, data, last) -> {
+                JSObject piece = new JSObject();
+                piece.put("payloadId", payloadId);
+                piece.put("sequence", sequence);
+                piece.put("mimeType", mimeType);
+                piece.put("data", data);
+                piece.put("last", last);
+                listener.onEvent(VoiceRecorderService.PAYLOAD_EVENT, piece);
+            });
+        } catch (IOException exp) {
+            Log.e("RecordingResults", "streamPayload", exp);
+            throw new MessagesException(Messages.FAILED_TO_FETCH_RECORDING, exp);
+        }
+        return payloadId;
+    }
+
+    /**
+     * A segmented take is never returned as base64: the segment files are kept and listed in order.
+     */
+    public static RecordData toRecordData(List<RecordingSegment> segments, RecordOptions options) throws MessagesException {
+        if (segments.isEmpty()) {
+            throw new MessagesException(Messages.EMPTY_RECORDING);
+        }
+        JSArray manifest = new JSArray();
+        for (RecordingSegment segment : segments) {
+            manifest.put(toJSObject(segment, options));
+        }
+        RecordingSegment last = segments.get(segments.size() - 1);
+        int msDuration = (int) (last.getStartMs() + last.getDurationMs());
+        RecordData recordData = new RecordData(null, msDuration, options.getFormat().getMimeType(), null);
+        recordData.setSegments(manifest);
+        return recordData;
+    }
+
+    public static JSObject toJSObject(RecordingSegment segment, RecordOptions options) {
+        JSObject data = new JSObject();
+        data.put("index", segment.getIndex());
+        data.put("path", pathOf(segment.getFile(), options));
+        if (options.getDirectory() == null) {
+            data.put("uri", Uri.fromFile(segment.getFile()).toString());
+        }
+        data.put("startMs", segment.getStartMs());
+        data.put("durationMs", segment.getDurationMs());
+        data.put("size", segment.getSizeBytes());
+        return data;
+    }
+
+    /**
+     * Path relative to the directory option, or the absolute path when recording to the cache.
+     */
+    public static String pathOf(File file, RecordOptions options) {
+        if (options.getDirectory() == null) {
+            return file.getAbsolutePath();
+        }
+        String path = file.getName();
+        if (options.getSubDirectory() != null) {
+            path = options.getSubDirectory() + "/" + path;
+        }
+        return path;
+    }
+
+    public static JSArray toJSArray(float[] values, int count) {
+        JSArray array = new JSArray();
+        for (int i = 0; i < count; i++) {
+            array.put(Float.valueOf(values[i]));
+        }
+        return array;
+    }
+
+    private static String readRecordedFileAsBase64(File recordedFile) {
+        long encodedLength = StreamingBase64Encoder.encodedLength(recordedFile.length(), true);
+        StringWriter writer = new StringWriter((int) Math.min(encodedLength, Integer.MAX_VALUE - 8));
+        try (InputStream inputStream = new FileInputStream(recordedFile)) {
+            new StreamingBase64Encoder(true).encode(inputStream, writer);
+        } catch (IOException exp) {
+            Log.e("RecordingResults", "readRecordedFileAsBase64", exp);
+            return null;
+        }
+        return writer.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.File;
+
+/**
+ * A closed file of a recording that is split into segments. The start of a segment is the end of the one before it.
+ */
+public class RecordingSegment {
+
+    private final int index;
+    private final File file;
+    private final long startMs;
+    private final long durationMs;
+    private final long sizeBytes;
+
+    public RecordingSegment(int index, File file, long startMs, long durationMs, long sizeBytes) {
+        this.index = index;
+        this.file = file;
+        this.startMs = startMs;
+        this.durationMs = durationMs;
+        this.sizeBytes = sizeBytes;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getStartMs() {
+        return startMs;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+}
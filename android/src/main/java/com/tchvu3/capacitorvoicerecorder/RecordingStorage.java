@@ -0,0 +1,173 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.content.Context;
+import android.util.Log;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The room a take needs on the device, and the {@link RecordingIndex} of the recordings the plugin wrote into its
+ * directories.
+ */
+public class RecordingStorage {
+
+    // the free space a take without a limit needs before it starts, at its bitrate, plus what is always left free
+    private static final long RESERVED_DURATION_MS = 5 * 60_000;
+    private static final long MIN_FREE_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * Makes sure a take has room before anything is recorded. The free space of its directory must hold the maximum
+     * duration or size of the take, or {@link #RESERVED_DURATION_MS} at its bitrate without a limit, and the
+     * recordings the plugin wrote into the directory must stay within the storage quota. With
+     * {@link RecordOptions#isEvictOldRecordings()} the least recently used of them are deleted to make room; files the
+     * plugin did not write are never deleted.
+     *
+     * @param evict whether recordings are deleted now; a recorder that is only prepared checks that they could be, the
+     *              take that starts on it deletes them
+     */
+    public static void reserve(Context context, RecordOptions options, boolean evict) throws MessagesException {
+        File directory = RecordingFiles.getOutputDirectory(context, options);
+        long expectedBytes = options.getReservedBytes(RESERVED_DURATION_MS);
+        long usableBytes = usableSpaceOf(directory) - MIN_FREE_BYTES;
+        if (options.getDirectory() == null) {
+            // the cache holds no recordings of the index, there is nothing the plugin may evict
+            if (usableBytes < expectedBytes) {
+                throw new MessagesException(Messages.INSUFFICIENT_STORAGE);
+            }
+            return;
+        }
+        String subDirectory = RecordingPaths.normalizeSubDirectory(options.getSubDirectory());
+        try {
+            RecordingIndex index = RecordingFiles.getRecordingIndex(context);
+            List<IndexedRecording> evictions = index.selectEvictions(
+                options.getDirectory(),
+                subDirectory,
+                expectedBytes,
+                usableBytes,
+                options.getStorageQuotaBytes(),
+                RecordingUploads.getUploadingFiles(context)
+            );
+            if (evictions == null || (!evictions.isEmpty() && !options.isEvictOldRecordings())) {
+                Log.w("RecordingStorage", "reserve - no room for " + expectedBytes + " bytes in " + directory);
+                throw new MessagesException(Messages.INSUFFICIENT_STORAGE);
+            }
+            if (!evict) {
+                return;
+            }
+            for (IndexedRecording recording : evictions) {
+                Log.i("RecordingStorage", "reserve - evicting " + recording.getPath());
+                recording.getFile().delete();
+                WaveformCache.delete(recording.getFile());
+                index.remove(recording.getFile());
+            }
+        } catch (IOException exp) {
+            Log.e("RecordingStorage", "reserve", exp);
+            throw new MessagesException(Messages.FAILED_TO_RECORD, exp);
+        }
+    }
+
+    /**
+     * Free space of the file system {@code directory} is on, also when it was not created yet.
+     */
+    private static long usableSpaceOf(File directory) {
+        File existing = directory;
+        while (existing != null && !existing.exists()) {
+            existing = existing.getParentFile();
+        }
+        return existing != null ? existing.getUsableSpace() : 0;
+    }
+
+    public static void addToIndex(Context context, RecordOptions options, File file, long durationMs) {
+        long now = System.currentTimeMillis();
+        IndexedRecording recording = new IndexedRecording(
+            options.getDirectory(),
+            RecordingResults.pathOf(file, options),
+            file,
+            file.length(),
+            durationMs,
+            now,
+            now
+        );
+        try {
+            RecordingFiles.getRecordingIndex(context).add(recording);
+        } catch (IOException exp) {
+            Log.w("RecordingStorage", "addToIndex", exp);
+        }
+    }
+
+    public static void touchInIndex(Context context, List<File> files) {
+        try {
+            RecordingIndex index = RecordingFiles.getRecordingIndex(context);
+            for (File file : files) {
+                index.touch(file, System.currentTimeMillis());
+            }
+        } catch (IOException exp) {
+            Log.w("RecordingStorage", "touchInIndex", exp);
+        }
+    }
+
+    /**
+     * Lists the recordings the plugin wrote into {@code directory}, or into all directories, from the index.
+     */
+    public static void list(Context context, String directory, String subDirectory, VoiceRecorderService.FinalizationCallback callback) {
+        RecordingResults.FINALIZATION_EXECUTOR.execute(() -> {
+            List<IndexedRecording> recordings;
+            try {
+                recordings = RecordingFiles.getRecordingIndex(context).list(directory, RecordingPaths.normalizeSubDirectory(subDirectory));
+            } catch (IOException exp) {
+                Log.e("RecordingStorage", "list", exp);
+                callback.onFailed(new MessagesException(Messages.FAILED_TO_FETCH_RECORDING, exp));
+                return;
+            }
+            JSArray list = new JSArray();
+            for (IndexedRecording recording : recordings) {
+                list.put(toJSObject(recording));
+            }
+            JSObject result = new JSObject();
+            result.put("recordings", list);
+            callback.onFinalized(result);
+        });
+    }
+
+    private static JSObject toJSObject(IndexedRecording recording) {
+        JSObject data = new JSObject();
+        data.put("directory", recording.getDirectory());
+        data.put("path", recording.getPath());
+        data.put("size", recording.getSize());
+        data.put("msDuration", recording.getDurationMs());
+        data.put("createdAt", recording.getCreatedAtMs());
+        data.put("lastUsedAt", recording.getLastUsedAtMs());
+        return data;
+    }
+
+    /**
+     * Deletes a recording with its waveform and takes it out of the index. Only recordings in the index are deleted,
+     * a file that was already deleted by other means only leaves the index.
+     */
+    public static void delete(Context context, File file, VoiceRecorderService.FinalizationCallback callback) {
+        RecordingResults.FINALIZATION_EXECUTOR.execute(() -> {
+            if (file.isDirectory()) {
+                callback.onFailed(new MessagesException(Messages.INVALID_PATH));
+                return;
+            }
+            boolean indexed;
+            try {
+                indexed = RecordingFiles.getRecordingIndex(context).remove(file);
+            } catch (IOException exp) {
+                Log.e("RecordingStorage", "delete", exp);
+                callback.onFailed(new MessagesException(Messages.FAILED_TO_FETCH_RECORDING, exp));
+                return;
+            }
+            if (!indexed) {
+                Log.w("RecordingStorage", "delete - not a recording of the plugin: " + file);
+                callback.onFinalized(ResponseGenerator.fromBoolean(false));
+                return;
+            }
+            WaveformCache.delete(file);
+            callback.onFinalized(ResponseGenerator.fromBoolean(file.delete()));
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.os.Build;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts a recording to another format as a stream: {@link AudioFileDecoder} feeds the decoded PCM into the same
+ * sinks a recording writes with, so memory use does not depend on the length of the recording. The sample rate and
+ * channels of the source are kept.
+ */
+public final class RecordingTranscoder {
+
+    private RecordingTranscoder() {}
+
+    /**
+     * @return the duration of the written audio in milliseconds
+     */
+    public static long transcode(File source, File target, RecordingFormat format, int bitRate) throws IOException {
+        if (Build.VERSION.SDK_INT < format.getMinSdk() || Build.VERSION.SDK_INT < format.getDefaultEncoder().getMinSdk()) {
+            throw new IllegalArgumentException(format.getValue() + " needs a newer Android version");
+        }
+        CountingSink sink = AudioFileDecoder.decode(source, (sampleRate, channelCount) ->
+            new CountingSink(createSink(target, format, sampleRate, channelCount, bitRate), sampleRate, channelCount)
+        );
+        return sink != null ? sink.getDurationMs() : 0;
+    }
+
+    /**
+     * Turns a finished aac recording up or down through {@code gainStage}. It is decoded and encoded again into a
+     * file next to it, which then replaces it.
+     */
+    public static void applyGain(File file, int bitRate, GainStage gainStage) throws IOException {
+        File encoded = new File(file.getParentFile(), file.getName() + ".gain");
+        try {
+            AudioFileDecoder.decode(file, (sampleRate, channelCount) ->
+                new LoudnessSink(channelCount, null, gainStage, 0f, 0f, new AacEncoderSink(encoded, sampleRate, channelCount, bitRate))
+            );
+            if (!encoded.renameTo(file)) {
+                throw new IOException("Could not replace " + file.getName());
+            }
+        } finally {
+            encoded.delete();
+        }
+    }
+
+    private static PcmSink createSink(File target, RecordingFormat format, int sampleRate, int channelCount, int bitRate)
+        throws IOException {
+        return switch (format) {
+            case AAC_ADTS -> new AacEncoderSink(target, sampleRate, channelCount, bitRate);
+            case WAV -> new WavFileSink(target, sampleRate, channelCount);
+            default -> new MuxerEncoderSink(target, format, sampleRate, channelCount, bitRate);
+        };
+    }
+
+    private static final class CountingSink implements PcmSink {
+
+        private final PcmSink sink;
+        private final int sampleRate;
+        private final int bytesPerFrame;
+        private long frames;
+
+        CountingSink(PcmSink sink, int sampleRate, int channelCount) {
+            this.sink = sink;
+            this.sampleRate = sampleRate;
+            this.bytesPerFrame = 2 * channelCount;
+        }
+
+        @Override
+        public void onStart() throws IOException {
+            sink.onStart();
+        }
+
+        @Override
+        public void onPcm(ByteBuffer buffer) throws IOException {
+            frames += buffer.remaining() / bytesPerFrame;
+            sink.onPcm(buffer);
+        }
+
+        @Override
+        public void onStop() throws IOException {
+            sink.onStop();
+        }
+
+        long getDurationMs() {
+            return frames * 1000 / sampleRate;
+        }
+    }
+}
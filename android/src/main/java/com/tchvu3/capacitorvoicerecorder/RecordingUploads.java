@@ -0,0 +1,115 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.content.Context;
+import android.util.Log;
+import com.getcapacitor.JSObject;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Connects finished recordings to the {@link UploadQueue}: takes with an upload url are queued once they are
+ * finalized, and the progress of the queue is reported as events.
+ */
+public class RecordingUploads {
+
+    /**
+     * Rejects a take that is to be uploaded while the upload queue is full, before anything is recorded.
+     */
+    public static void checkQueue(Context context, RecordOptions options) throws MessagesException {
+        if (options.getUploadUrl() == null) {
+            return;
+        }
+        boolean full;
+        try {
+            full = RecordingFiles.getUploadQueue(context).isFull();
+        } catch (IOException exp) {
+            Log.e("RecordingUploads", "checkQueue", exp);
+            throw new MessagesException(Messages.FAILED_TO_RECORD, exp);
+        }
+        if (full) {
+            throw new MessagesException(Messages.UPLOAD_QUEUE_FULL);
+        }
+    }
+
+    /**
+     * Hands the file to the upload queue. A file that is only kept in the cache for the upload is deleted once it has
+     * been uploaded.
+     *
+     * @return the id of the upload, or {@code null} when it could not be queued
+     */
+    public static String enqueue(Context context, File file, RecordOptions options) {
+        try {
+            return enqueue(RecordingFiles.getUploadQueue(context), file, options);
+        } catch (IOException exp) {
+            Log.e("RecordingUploads", "enqueue", exp);
+            return null;
+        }
+    }
+
+    static String enqueue(UploadQueue queue, File file, RecordOptions options) throws IOException {
+        boolean cached = options.getDirectory() == null && options.getReturnMode() != ReturnMode.URI;
+        String id = UUID.randomUUID().toString();
+        String mimeType = options.getFormat().getMimeType();
+        UploadTask task = new UploadTask(id, file, options.getUploadUrl(), mimeType, options.getUploadHeaders(), cached);
+        if (queue.enqueue(task)) {
+            return task.getId();
+        }
+        Log.w("RecordingUploads", "enqueue - UPLOAD_QUEUE_FULL");
+        return null;
+    }
+
+    public static Set<File> getUploadingFiles(Context context) throws IOException {
+        Set<File> files = new HashSet<>();
+        for (UploadTask task : RecordingFiles.getUploadQueue(context).getTasks()) {
+            files.add(task.getFile());
+        }
+        return files;
+    }
+
+    /**
+     * Starts sending the uploads that are queued, also those left over from an earlier process, and reports their
+     * progress to {@code listener}. Uploads run on their own threads and go on after the service is stopped.
+     */
+    public static void start(Context context, VoiceRecorderService.EventListener listener) {
+        UploadQueue queue;
+        try {
+            queue = RecordingFiles.getUploadQueue(context);
+        } catch (IOException exp) {
+            Log.e("RecordingUploads", "start", exp);
+            return;
+        }
+        queue.setListener(
+            new UploadQueue.Listener() {
+                @Override
+                public void onProgress(UploadTask task, long sentBytes, long totalBytes) {
+                    JSObject data = new JSObject();
+                    data.put("id", task.getId());
+                    data.put("sentBytes", sentBytes);
+                    data.put("totalBytes", totalBytes);
+                    listener.onEvent(VoiceRecorderService.UPLOAD_PROGRESS_EVENT, data);
+                }
+
+                @Override
+                public void onFinished(UploadTask task, int responseCode, Exception error) {
+                    if (error != null) {
+                        Log.w("RecordingUploads", "upload failed after " + (task.getAttempts() + 1) + " attempt(s)", error);
+                    }
+                    JSObject data = new JSObject();
+                    data.put("id", task.getId());
+                    data.put("success", error == null);
+                    if (responseCode >= 0) {
+                        data.put("responseCode", responseCode);
+                    }
+                    if (error != null) {
+                        data.put("error", error.getMessage());
+                    }
+                    listener.onEvent(VoiceRecorderService.UPLOAD_FINISHED_EVENT, data);
+                }
+            }
+        );
+        queue.start();
+    }
+}
@@ -0,0 +1,72 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import android.content.Context;
+import android.util.Log;
+import com.getcapacitor.JSArray;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * The waveform of a take when it is finalized, and of existing recordings for getWaveform. Both keep a
+ * {@link WaveformCache} next to the file, so a recording is decoded at most once.
+ */
+public class RecordingWaveforms {
+
+    /**
+     * The waveform reduced while recording, or decoded from the file for the MediaRecorder engine. A waveform that
+     * cannot be made is left out rather than failing the recording.
+     */
+    public static JSArray of(Recorder recorder, RecordOptions options) {
+        PeakReducer reducer = recorder.getPeakReducer();
+        File file = recorder.getOutputFile();
+        try {
+            if (reducer == null) {
+                if (options.isSegmented()) {
+                    return null;
+                }
+                reducer = AudioFileDecoder.decodePeaks(file, PeakReducer.DEFAULT_RESOLUTION);
+            }
+            boolean kept = options.getDirectory() != null || options.getReturnMode() == ReturnMode.URI;
+            if (kept && !options.isSegmented()) {
+                WaveformCache.write(file, reducer);
+            }
+        } catch (IOException exp) {
+            Log.w("RecordingWaveforms", "of", exp);
+            if (reducer == null) {
+                return null;
+            }
+        }
+        float[] peaks = reducer.getPeaks(options.getWaveformBuckets());
+        return RecordingResults.toJSArray(peaks, peaks.length);
+    }
+
+    /**
+     * Returns the waveform of an existing recording. It is read from the cache next to the file when that is still
+     * up to date, otherwise the file is decoded once and the cache is written. Runs on the finalization thread.
+     */
+    public static void get(Context context, File file, int buckets, VoiceRecorderService.FinalizationCallback callback) {
+        RecordingResults.FINALIZATION_EXECUTOR.execute(() -> {
+            if (!file.isFile()) {
+                callback.onFailed(new MessagesException(Messages.INVALID_PATH));
+                return;
+            }
+            PeakReducer reducer = WaveformCache.read(file);
+            try {
+                if (reducer == null) {
+                    reducer = AudioFileDecoder.decodePeaks(file, PeakReducer.DEFAULT_RESOLUTION);
+                    WaveformCache.write(file, reducer);
+                }
+            } catch (IOException exp) {
+                Log.e("RecordingWaveforms", "get", exp);
+                if (reducer == null) {
+                    callback.onFailed(new MessagesException(Messages.FAILED_TO_FETCH_RECORDING, exp));
+                    return;
+                }
+            }
+            RecordingStorage.touchInIndex(context, Collections.singletonList(file));
+            float[] peaks = reducer.getPeaks(buckets);
+            callback.onFinalized(ResponseGenerator.dataResponse(RecordingResults.toJSArray(peaks, peaks.length)));
+        });
+    }
+}
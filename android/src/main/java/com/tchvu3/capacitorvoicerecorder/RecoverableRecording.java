@@ -0,0 +1,117 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A take found in the {@link RecordingJournal} that was started but never finalized, usually because the process was
+ * killed while recording.
+ */
+public class RecoverableRecording {
+
+    private final String id;
+    private final long startedAtMs;
+    private final File file;
+    private final String format;
+    private final String directory;
+    private final String subDirectory;
+    private final boolean segmented;
+    private final List<long[]> pauses = new ArrayList<>();
+    private int closedSegments;
+
+    public RecoverableRecording(
+        String id,
+        long startedAtMs,
+        File file,
+        String format,
+        String directory,
+        String subDirectory,
+        boolean segmented
+    ) {
+        this.id = id;
+        this.startedAtMs = startedAtMs;
+        this.file = file;
+        this.format = format;
+        this.directory = directory;
+        this.subDirectory = subDirectory;
+        this.segmented = segmented;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Wall clock time at which the take started.
+     */
+    public long getStartedAtMs() {
+        return startedAtMs;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public String getSubDirectory() {
+        return subDirectory;
+    }
+
+    public boolean isSegmented() {
+        return segmented;
+    }
+
+    /**
+     * Pauses as {@code [pausedAtMs, resumedAtMs]} in wall clock time; a pause that was never resumed ends with -1.
+     */
+    public List<long[]> getPauses() {
+        return Collections.unmodifiableList(pauses);
+    }
+
+    void addPause(long pausedAtMs) {
+        pauses.add(new long[] { pausedAtMs, -1 });
+    }
+
+    void addResume(long resumedAtMs) {
+        if (!pauses.isEmpty() && pauses.get(pauses.size() - 1)[1] < 0) {
+            pauses.get(pauses.size() - 1)[1] = resumedAtMs;
+        }
+    }
+
+    public int getClosedSegments() {
+        return closedSegments;
+    }
+
+    void setClosedSegments(int closedSegments) {
+        this.closedSegments = closedSegments;
+    }
+
+    /**
+     * The files that were written for this take, in order. A segmented take can have one more file than the segments
+     * that were closed: the one being written when the process died.
+     */
+    public List<File> getFiles() {
+        List<File> files = new ArrayList<>();
+        if (!segmented) {
+            if (file.exists()) {
+                files.add(file);
+            }
+            return files;
+        }
+        File segment = file;
+        while (segment.exists()) {
+            files.add(segment);
+            segment = SegmentTracker.segmentFile(file, files.size());
+        }
+        return files;
+    }
+}
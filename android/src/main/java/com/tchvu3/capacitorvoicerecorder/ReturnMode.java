@@ -0,0 +1,19 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+public enum ReturnMode {
+    BASE64,
+    URI,
+    STREAM;
+
+    public static ReturnMode fromString(String value, ReturnMode fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        return switch (value) {
+            case "base64" -> BASE64;
+            case "uri" -> URI;
+            case "stream" -> STREAM;
+            default -> fallback;
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Splits a take into consecutive segment files. The writer asks whether the next unit of audio (an AAC frame or a
+ * block of PCM) still fits the current segment and rolls to the next file when it does not, so no audio is lost or
+ * repeated between two segments. The first segment is written to the recorder's output file, the following ones next
+ * to it with the index appended to the name.
+ * <p>
+ * Counting and rolling must happen on one writer thread; the closed segments can be read from any thread.
+ */
+public class SegmentTracker {
+
+    public interface Listener {
+        void onSegmentClosed(RecordingSegment segment, boolean last);
+    }
+
+    private final File firstFile;
+    private final int sampleRate;
+    private final long maxSamples;
+    private final long maxBytes;
+    private final List<RecordingSegment> segments = new CopyOnWriteArrayList<>();
+    private volatile Listener listener;
+    private File currentFile;
+    private int index;
+    private long closedSamples;
+    private long currentSamples;
+    private long currentBytes;
+    private boolean finished;
+
+    /**
+     * @param maxSamples samples per segment, 0 for no limit
+     * @param maxBytes bytes per segment, 0 for no limit
+     */
+    public SegmentTracker(File firstFile, int sampleRate, long maxSamples, long maxBytes) {
+        this.firstFile = firstFile;
+        this.sampleRate = sampleRate;
+        this.maxSamples = maxSamples;
+        this.maxBytes = maxBytes;
+        this.currentFile = firstFile;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public File getCurrentFile() {
+        return currentFile;
+    }
+
+    /**
+     * Whether a unit of {@code samples} and {@code bytes} can be added to the current segment. A unit always fits an
+     * empty segment, so a limit below the size of one unit cannot stall the writer.
+     */
+    public boolean fits(long samples, long bytes) {
+        if (currentSamples == 0) {
+            return true;
+        }
+        return (maxSamples <= 0 || currentSamples + samples <= maxSamples) && (maxBytes <= 0 || currentBytes + bytes <= maxBytes);
+    }
+
+    public long getRemainingSamples() {
+        return maxSamples <= 0 ? Long.MAX_VALUE : Math.max(0, maxSamples - currentSamples);
+    }
+
+    public long getRemainingBytes() {
+        return maxBytes <= 0 ? Long.MAX_VALUE : Math.max(0, maxBytes - currentBytes);
+    }
+
+    public void add(long samples, long bytes) {
+        currentSamples += samples;
+        currentBytes += bytes;
+    }
+
+    /**
+     * The file the segment after the current one is written to.
+     */
+    public File getNextFile() {
+        return segmentFile(firstFile, index + 1);
+    }
+
+    /**
+     * Closes the current segment and returns the file of the next one.
+     */
+    public File roll() {
+        close(false);
+        index++;
+        currentFile = segmentFile(firstFile, index);
+        currentSamples = 0;
+        currentBytes = 0;
+        return currentFile;
+    }
+
+    /**
+     * Closes the last segment. Does nothing when it was already called.
+     */
+    public void finish() {
+        if (!finished) {
+            finished = true;
+            close(true);
+        }
+    }
+
+    private void close(boolean last) {
+        // derived from the sample counts so every segment starts where the one before it ends
+        long startMs = closedSamples * 1000 / sampleRate;
+        closedSamples += currentSamples;
+        long durationMs = closedSamples * 1000 / sampleRate - startMs;
+        RecordingSegment segment = new RecordingSegment(index, currentFile, startMs, durationMs, currentBytes);
+        segments.add(segment);
+        Listener listener = this.listener;
+        if (listener != null) {
+            listener.onSegmentClosed(segment, last);
+        }
+    }
+
+    public List<RecordingSegment> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    public long getDurationMs() {
+        int count = segments.size();
+        if (count == 0) {
+            return 0;
+        }
+        RecordingSegment last = segments.get(count - 1);
+        return last.getStartMs() + last.getDurationMs();
+    }
+
+    public static File segmentFile(File firstFile, int index) {
+        if (index == 0) {
+            return firstFile;
+        }
+        String name = firstFile.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        return new File(firstFile.getParentFile(), base + "-" + index + extension);
+    }
+}
@@ -0,0 +1,68 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Passes only the speech found by a {@link VoiceActivityDetector} on to the next sink. Frames heard during the attack
+ * time are held back in a preallocated buffer and passed on once speech is confirmed, so the start of a word is not
+ * cut off.
+ */
+public class SilenceTrimmingSink implements PcmSink {
+
+    private final VoiceActivityDetector detector;
+    private final PcmSink next;
+    private final ByteBuffer held;
+    private final int bytesPerSecond;
+    private volatile long keptBytes;
+    private volatile long trimmedBytes;
+
+    public SilenceTrimmingSink(VoiceActivityDetector detector, PcmSink next, int bytesPerSecond, int attackMs, int maxReadSize) {
+        this.detector = detector;
+        this.next = next;
+        this.bytesPerSecond = bytesPerSecond;
+        this.held = ByteBuffer.allocateDirect((int) ((long) bytesPerSecond * attackMs / 1000) + maxReadSize).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void onStart() throws IOException {
+        held.clear();
+        next.onStart();
+    }
+
+    @Override
+    public void onPcm(ByteBuffer buffer) throws IOException {
+        int length = buffer.remaining();
+        if (detector.process(buffer)) {
+            if (held.position() > 0) {
+                held.flip();
+                keptBytes += held.remaining();
+                next.onPcm(held);
+                held.clear();
+            }
+            next.onPcm(buffer);
+            keptBytes += length;
+        } else if (detector.isAttacking() && held.remaining() >= length) {
+            held.put(buffer);
+        } else {
+            trimmedBytes += held.position() + length;
+            held.clear();
+        }
+    }
+
+    @Override
+    public void onStop() throws IOException {
+        trimmedBytes += held.position();
+        held.clear();
+        next.onStop();
+    }
+
+    public long getKeptDurationMs() {
+        return keptBytes * 1000 / bytesPerSecond;
+    }
+
+    public long getTrimmedDurationMs() {
+        return trimmedBytes * 1000 / bytesPerSecond;
+    }
+}
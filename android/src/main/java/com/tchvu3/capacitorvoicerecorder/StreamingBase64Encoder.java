@@ -0,0 +1,97 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+
+/**
+ * Base64 encoder that reads its input through a fixed-size buffer, so the memory it needs does not depend on the
+ * length of the input. With line wrapping enabled the output matches {@code android.util.Base64.DEFAULT}: lines of
+ * 76 characters, each one terminated by a {@code '\n'}.
+ */
+public class StreamingBase64Encoder {
+
+    public static final int DEFAULT_BUFFER_SIZE = 3 * 4096;
+    static final int LINE_LENGTH = 76;
+
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    private final boolean wrapLines;
+    private final byte[] input;
+    private final char[] output;
+
+    public StreamingBase64Encoder(boolean wrapLines) {
+        this(DEFAULT_BUFFER_SIZE, wrapLines);
+    }
+
+    public StreamingBase64Encoder(int bufferSize, boolean wrapLines) {
+        if (bufferSize < 3 || bufferSize % 3 != 0) {
+            throw new IllegalArgumentException("bufferSize must be a positive multiple of 3");
+        }
+        this.wrapLines = wrapLines;
+        this.input = new byte[bufferSize];
+        int encodedChars = bufferSize / 3 * 4;
+        this.output = new char[wrapLines ? encodedChars + encodedChars / LINE_LENGTH + 1 : encodedChars];
+    }
+
+    public static long encodedLength(long byteCount, boolean wrapLines) {
+        long chars = (byteCount + 2) / 3 * 4;
+        if (wrapLines && chars > 0) {
+            chars += (chars + LINE_LENGTH - 1) / LINE_LENGTH;
+        }
+        return chars;
+    }
+
+    public long encode(InputStream in, Writer out) throws IOException {
+        long totalRead = 0;
+        int lineChars = 0;
+        int read;
+        while ((read = fill(in)) > 0) {
+            totalRead += read;
+            int outPos = 0;
+            int inPos = 0;
+            int fullGroupsEnd = read - read % 3;
+            while (inPos < fullGroupsEnd) {
+                int bits = ((input[inPos] & 0xff) << 16) | ((input[inPos + 1] & 0xff) << 8) | (input[inPos + 2] & 0xff);
+                inPos += 3;
+                output[outPos++] = ALPHABET[(bits >>> 18) & 0x3f];
+                output[outPos++] = ALPHABET[(bits >>> 12) & 0x3f];
+                output[outPos++] = ALPHABET[(bits >>> 6) & 0x3f];
+                output[outPos++] = ALPHABET[bits & 0x3f];
+                if (wrapLines && (lineChars += 4) == LINE_LENGTH) {
+                    output[outPos++] = '\n';
+                    lineChars = 0;
+                }
+            }
+            if (inPos < read) {
+                // only the last chunk can be shorter than a full group, fill() guarantees it
+                int bits = (input[inPos] & 0xff) << 16;
+                if (inPos + 1 < read) {
+                    bits |= (input[inPos + 1] & 0xff) << 8;
+                }
+                output[outPos++] = ALPHABET[(bits >>> 18) & 0x3f];
+                output[outPos++] = ALPHABET[(bits >>> 12) & 0x3f];
+                output[outPos++] = inPos + 1 < read ? ALPHABET[(bits >>> 6) & 0x3f] : '=';
+                output[outPos++] = '=';
+                lineChars += 4;
+            }
+            out.write(output, 0, outPos);
+        }
+        if (wrapLines && lineChars > 0) {
+            out.write('\n');
+        }
+        return totalRead;
+    }
+
+    private int fill(InputStream in) throws IOException {
+        int filled = 0;
+        while (filled < input.length) {
+            int read = in.read(input, filled, input.length - filled);
+            if (read < 0) {
+                break;
+            }
+            filled += read;
+        }
+        return filled;
+    }
+}
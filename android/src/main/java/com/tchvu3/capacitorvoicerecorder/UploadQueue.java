@@ -0,0 +1,326 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploads finished recordings in the background with a streamed HTTP PUT, so the audio never has to pass through the
+ * web view. At most {@code concurrency} files are sent at a time and at most {@code maxQueued} wait; a full queue
+ * rejects new files instead of growing. Network errors, 408, 429 and 5xx responses are retried with exponential
+ * backoff and jitter, other responses fail the upload right away.
+ * <p>
+ * The queue is written to a state file on every change, so uploads that were pending when the process died are sent
+ * once the queue is started again.
+ */
+public class UploadQueue {
+
+    public static final int DEFAULT_MAX_QUEUED = 32;
+    public static final int DEFAULT_CONCURRENCY = 2;
+    public static final int DEFAULT_MAX_ATTEMPTS = 6;
+    public static final long DEFAULT_INITIAL_BACKOFF_MS = 2000;
+
+    private static final long MAX_BACKOFF_MS = 5 * 60_000;
+    private static final int CONNECT_TIMEOUT_MS = 15_000;
+    private static final int READ_TIMEOUT_MS = 60_000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MIN_PROGRESS_STEP_BYTES = 64 * 1024;
+    private static final int STATE_VERSION = 1;
+
+    public interface Listener {
+        void onProgress(UploadTask task, long sentBytes, long totalBytes);
+
+        /**
+         * Called once per task, after it was uploaded or given up.
+         *
+         * @param responseCode the last HTTP status, or -1 when no response was received
+         * @param error        {@code null} when the upload succeeded
+         */
+        void onFinished(UploadTask task, int responseCode, Exception error);
+    }
+
+    private static UploadQueue instance;
+
+    private final File stateFile;
+    private final int maxQueued;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final Map<String, UploadTask> tasks = new LinkedHashMap<>();
+    private final ScheduledThreadPoolExecutor executor;
+    private volatile Listener listener;
+    private boolean started;
+
+    public UploadQueue(File stateFile, int maxQueued, int concurrency, int maxAttempts, long initialBackoffMs) throws IOException {
+        this.stateFile = stateFile;
+        this.maxQueued = maxQueued;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        executor = new ScheduledThreadPoolExecutor(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "VoiceRecorderUpload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        read();
+    }
+
+    /**
+     * The queue of this process, with the default limits.
+     */
+    public static synchronized UploadQueue get(File stateFile) throws IOException {
+        if (instance == null) {
+            instance =
+                new UploadQueue(stateFile, DEFAULT_MAX_QUEUED, DEFAULT_CONCURRENCY, DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF_MS);
+        }
+        return instance;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Schedules the tasks restored from the state file. Tasks enqueued afterwards are scheduled right away; before,
+     * they only wait in the queue.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        for (UploadTask task : tasks.values()) {
+            schedule(task, 0);
+        }
+    }
+
+    public synchronized boolean isFull() {
+        return tasks.size() >= maxQueued;
+    }
+
+    /**
+     * @return {@code false} when the queue is full and the task was not added
+     */
+    public synchronized boolean enqueue(UploadTask task) throws IOException {
+        if (isFull()) {
+            return false;
+        }
+        tasks.put(task.getId(), task);
+        try {
+            persist();
+        } catch (IOException exp) {
+            tasks.remove(task.getId());
+            throw exp;
+        }
+        if (started) {
+            schedule(task, 0);
+        }
+        return true;
+    }
+
+    public synchronized List<UploadTask> getTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    /**
+     * Stops the upload threads. Pending tasks stay in the state file.
+     */
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void schedule(UploadTask task, long delayMs) {
+        executor.schedule(() -> run(task), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void run(UploadTask task) {
+        if (!task.getFile().exists()) {
+            finish(task, -1, new FileNotFoundException(task.getFile().getPath()));
+            return;
+        }
+        int responseCode = -1;
+        Exception error = null;
+        try {
+            responseCode = upload(task);
+        } catch (IOException exp) {
+            error = exp;
+        }
+        if (responseCode >= 200 && responseCode < 300) {
+            finish(task, responseCode, null);
+            return;
+        }
+        if (error == null) {
+            error = new IOException("HTTP " + responseCode);
+        }
+        int attempts = task.getAttempts() + 1;
+        boolean retryable = responseCode == -1 || responseCode == 408 || responseCode == 429 || responseCode >= 500;
+        if (!retryable || attempts >= maxAttempts) {
+            finish(task, responseCode, error);
+            return;
+        }
+        synchronized (this) {
+            task.setAttempts(attempts);
+            persistQuietly();
+        }
+        schedule(task, backoffMs(attempts));
+    }
+
+    private long backoffMs(int attempts) {
+        long backoff = Math.min(MAX_BACKOFF_MS, initialBackoffMs << Math.min(attempts - 1, 20));
+        // jitter keeps the uploads of many devices from retrying in lockstep after an outage
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private void finish(UploadTask task, int responseCode, Exception error) {
+        synchronized (this) {
+            tasks.remove(task.getId());
+            persistQuietly();
+        }
+        if (error == null && task.isDeleteWhenDone()) {
+            task.getFile().delete();
+        }
+        Listener listener = this.listener;
+        if (listener != null) {
+            listener.onFinished(task, responseCode, error);
+        }
+    }
+
+    private int upload(UploadTask task) throws IOException {
+        long total = task.getFile().length();
+        HttpURLConnection connection = (HttpURLConnection) new URL(task.getUrl()).openConnection();
+        try {
+            connection.setRequestMethod("PUT");
+            connection.setDoOutput(true);
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            // streams the file from disk instead of buffering the whole request
+            connection.setFixedLengthStreamingMode(total);
+            if (task.getContentType() != null) {
+                connection.setRequestProperty("Content-Type", task.getContentType());
+            }
+            for (Map.Entry<String, String> header : task.getHeaders().entrySet()) {
+                connection.setRequestProperty(header.getKey(), header.getValue());
+            }
+
+            long step = Math.max(MIN_PROGRESS_STEP_BYTES, total / 100);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream input = new FileInputStream(task.getFile()); OutputStream output = connection.getOutputStream()) {
+                long sent = 0;
+                long reported = 0;
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    output.write(buffer, 0, read);
+                    sent += read;
+                    if (sent - reported >= step || sent == total) {
+                        reported = sent;
+                        Listener listener = this.listener;
+                        if (listener != null) {
+                            listener.onProgress(task, sent, total);
+                        }
+                    }
+                }
+            }
+            int responseCode = connection.getResponseCode();
+            drain(responseCode < 400 ? connection.getInputStream() : connection.getErrorStream());
+            return responseCode;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static void drain(InputStream response) throws IOException {
+        if (response == null) {
+            return;
+        }
+        try (InputStream input = response) {
+            byte[] buffer = new byte[1024];
+            while (input.read(buffer) != -1) {
+                // the body is not needed, reading it lets the connection be reused
+            }
+        }
+    }
+
+    private void persistQuietly() {
+        try {
+            persist();
+        } catch (IOException exp) {
+            // the state is written again on the next change
+        }
+    }
+
+    private void persist() throws IOException {
+        File written = new File(stateFile.getPath() + ".tmp");
+        FileOutputStream outputStream = new FileOutputStream(written);
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream))) {
+            output.writeInt(STATE_VERSION);
+            output.writeInt(tasks.size());
+            for (UploadTask task : tasks.values()) {
+                output.writeUTF(task.getId());
+                output.writeUTF(task.getFile().getAbsolutePath());
+                output.writeUTF(task.getUrl());
+                output.writeBoolean(task.getContentType() != null);
+                if (task.getContentType() != null) {
+                    output.writeUTF(task.getContentType());
+                }
+                output.writeBoolean(task.isDeleteWhenDone());
+                output.writeInt(task.getAttempts());
+                output.writeInt(task.getHeaders().size());
+                for (Map.Entry<String, String> header : task.getHeaders().entrySet()) {
+                    output.writeUTF(header.getKey());
+                    output.writeUTF(header.getValue());
+                }
+            }
+            output.flush();
+            outputStream.getFD().sync();
+        }
+        if (!written.renameTo(stateFile)) {
+            throw new IOException("Could not replace " + stateFile);
+        }
+    }
+
+    private void read() throws IOException {
+        if (!stateFile.exists()) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile)))) {
+            if (input.readInt() != STATE_VERSION) {
+                return;
+            }
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                String id = input.readUTF();
+                File file = new File(input.readUTF());
+                String url = input.readUTF();
+                String contentType = input.readBoolean() ? input.readUTF() : null;
+                boolean deleteWhenDone = input.readBoolean();
+                int attempts = input.readInt();
+                int headerCount = input.readInt();
+                Map<String, String> headers = new LinkedHashMap<>();
+                for (int j = 0; j < headerCount; j++) {
+                    headers.put(input.readUTF(), input.readUTF());
+                }
+                UploadTask task = new UploadTask(id, file, url, contentType, headers, deleteWhenDone);
+                task.setAttempts(attempts);
+                tasks.put(id, task);
+            }
+        } catch (EOFException exp) {
+            // the state file is replaced atomically, a short one was not written by this queue
+        }
+    }
+}
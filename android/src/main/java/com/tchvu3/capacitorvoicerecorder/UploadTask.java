@@ -0,0 +1,68 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A finished recording waiting in the {@link UploadQueue} to be sent with an HTTP PUT.
+ */
+public class UploadTask {
+
+    private final String id;
+    private final File file;
+    private final String url;
+    private final String contentType;
+    private final Map<String, String> headers;
+    private final boolean deleteWhenDone;
+    private volatile int attempts;
+
+    public UploadTask(String id, File file, String url, String contentType, Map<String, String> headers, boolean deleteWhenDone) {
+        this.id = id;
+        this.file = file;
+        this.url = url;
+        this.contentType = contentType;
+        this.headers = headers != null ? new LinkedHashMap<>(headers) : new LinkedHashMap<>();
+        this.deleteWhenDone = deleteWhenDone;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * Whether the file is deleted once it has been uploaded, for recordings that were only kept in the cache for the
+     * upload.
+     */
+    public boolean isDeleteWhenDone() {
+        return deleteWhenDone;
+    }
+
+    /**
+     * Number of attempts that failed so far.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+}
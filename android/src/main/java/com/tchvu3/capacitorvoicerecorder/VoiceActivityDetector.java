@@ -0,0 +1,111 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Energy and zero-crossing voice activity detector for 16-bit little-endian PCM. A frame counts as speech when its
+ * energy is above the threshold, or slightly below it with the high zero-crossing rate of unvoiced sounds like "s" or
+ * "f". The detector only switches to speech after {@code attackMs} of speech frames and back to silence after
+ * {@code hangoverMs} of silent frames, so short noises are ignored and pauses between words are kept.
+ * <p>
+ * The threshold is compared against the mean square of the samples, so no logarithm is taken per frame and nothing is
+ * allocated.
+ */
+public class VoiceActivityDetector {
+
+    public static final float DEFAULT_THRESHOLD_DB = -45f;
+    public static final int DEFAULT_ATTACK_MS = 40;
+    public static final int DEFAULT_HANGOVER_MS = 500;
+
+    private static final float UNVOICED_MARGIN_DB = 10f;
+    private static final float MIN_UNVOICED_ZERO_CROSSING_RATE = 0.25f;
+    private static final double FULL_SCALE_SQUARED = 32768.0 * 32768.0;
+
+    private final int channels;
+    private final double thresholdMeanSquare;
+    private final double unvoicedThresholdMeanSquare;
+    private final long attackFrames;
+    private final long hangoverFrames;
+    private boolean speech;
+    private long pendingFrames;
+    private double lastMeanSquare;
+    private float lastZeroCrossingRate;
+
+    public VoiceActivityDetector(int sampleRate, int channels, float thresholdDb, int attackMs, int hangoverMs) {
+        this.channels = channels;
+        this.thresholdMeanSquare = Math.pow(10, thresholdDb / 10.0);
+        this.unvoicedThresholdMeanSquare = Math.pow(10, (thresholdDb - UNVOICED_MARGIN_DB) / 10.0);
+        this.attackFrames = (long) sampleRate * attackMs / 1000;
+        this.hangoverFrames = (long) sampleRate * hangoverMs / 1000;
+    }
+
+    /**
+     * Classifies the samples between the position and the limit of {@code pcm}, which are left unchanged.
+     *
+     * @return whether the stream is in speech after this frame
+     */
+    public boolean process(ByteBuffer pcm) {
+        int start = pcm.position();
+        int frameBytes = channels * 2;
+        int frames = (pcm.limit() - start) / frameBytes;
+        if (frames == 0) {
+            return speech;
+        }
+
+        long sumOfSquares = 0;
+        int crossings = 0;
+        short previous = pcm.getShort(start);
+        int end = start + frames * frameBytes;
+        for (int offset = start; offset < end; offset += 2) {
+            short sample = pcm.getShort(offset);
+            sumOfSquares += sample * sample;
+        }
+        // zero crossings of the first channel only
+        for (int offset = start + frameBytes; offset < end; offset += frameBytes) {
+            short sample = pcm.getShort(offset);
+            if ((sample ^ previous) < 0) {
+                crossings++;
+            }
+            previous = sample;
+        }
+        lastMeanSquare = sumOfSquares / (frames * (double) channels) / FULL_SCALE_SQUARED;
+        lastZeroCrossingRate = (float) crossings / frames;
+
+        boolean frameIsSpeech =
+            lastMeanSquare >= thresholdMeanSquare ||
+            (lastMeanSquare >= unvoicedThresholdMeanSquare && lastZeroCrossingRate >= MIN_UNVOICED_ZERO_CROSSING_RATE);
+        update(frameIsSpeech, frames);
+        return speech;
+    }
+
+    private void update(boolean frameIsSpeech, int frames) {
+        if (frameIsSpeech == speech) {
+            pendingFrames = 0;
+            return;
+        }
+        pendingFrames += frames;
+        if (pendingFrames >= (speech ? hangoverFrames : attackFrames)) {
+            speech = frameIsSpeech;
+            pendingFrames = 0;
+        }
+    }
+
+    public boolean isSpeech() {
+        return speech;
+    }
+
+    /**
+     * Whether the last frames looked like speech but not for long enough to switch to speech yet.
+     */
+    public boolean isAttacking() {
+        return !speech && pendingFrames > 0;
+    }
+
+    public double getLastMeanSquare() {
+        return lastMeanSquare;
+    }
+
+    public float getLastZeroCrossingRate() {
+        return lastZeroCrossingRate;
+    }
+}
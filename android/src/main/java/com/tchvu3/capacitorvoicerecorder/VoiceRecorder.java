@@ -10,7 +10,9 @@ import android.os.Build;
 import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.PermissionState;
 import com.getcapacitor.Plugin;
@@ -19,6 +21,14 @@ import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.getcapacitor.annotation.Permission;
 import com.getcapacitor.annotation.PermissionCallback;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.json.JSONObject;
 
 @CapacitorPlugin(
     name = "VoiceRecorder",
@@ -32,9 +42,16 @@ import com.getcapacitor.annotation.PermissionCallback;
 public class VoiceRecorder extends Plugin {
 
     static final String RECORD_AUDIO_ALIAS = "voice recording";
-    private VoiceRecorderService recorderService;
-    private boolean isConnected = false;
-    private PluginCall startCall;
+    private static final int DEFAULT_PRE_ROLL_MS = 2000;
+    private static final int DEFAULT_WAVEFORM_BUCKETS = 100;
+    private static final int MAX_PRE_ROLL_MS = 10_000;
+    // the connection callbacks run on the main looper, the plugin methods on the plugin thread
+    private volatile VoiceRecorderService recorderService;
+    private volatile boolean isConnected = false;
+    private final AtomicReference<PluginCall> startCall = new AtomicReference<>();
+    private final AtomicReference<PluginCall> prepareCall = new AtomicReference<>();
+    private final AtomicReference<PluginCall> armCall = new AtomicReference<>();
+    private volatile long startRequestedAtMs;
 
     private final ServiceConnection connection = new ServiceConnection() {
         @Override
@@ -42,11 +59,20 @@ public class VoiceRecorder extends Plugin {
             Log.i("VoiceRecorder", "onServiceConnected");
             VoiceRecorderService.LocalBinder binder = (VoiceRecorderService.LocalBinder) service;
             recorderService = binder.getService();
+            recorderService.setEventListener(VoiceRecorder.this::onServiceEvent);
             isConnected = true;
 
-            if (startCall != null) {
-                startRecordingByCall(startCall);
-                startCall = null;
+            PluginCall call = armCall.getAndSet(null);
+            if (call != null) {
+                armRecordingByCall(call);
+            }
+            call = prepareCall.getAndSet(null);
+            if (call != null) {
+                prepareRecordingByCall(call);
+            }
+            call = startCall.getAndSet(null);
+            if (call != null) {
+                startRecordingByCall(call);
             }
         }
 
@@ -58,9 +84,9 @@ public class VoiceRecorder extends Plugin {
         }
     };
 
-    private CustomMediaRecorder getMediaRecorder() {
+    private Recorder getRecorder(String sessionId) {
         if (isConnected) {
-            return recorderService.getMediaRecorder();
+            return recorderService.getRecorder(sessionId);
         }
         return null;
     }
@@ -71,15 +97,34 @@ public class VoiceRecorder extends Plugin {
         Context context = getContext();
         Intent intent = new Intent(context, VoiceRecorderService.class);
         context.bindService(intent, connection, 0);
+        RecordingUploads.start(context.getApplicationContext(), this::notifyListeners);
     }
 
     @PluginMethod
     public void canDeviceVoiceRecord(PluginCall call) {
-        if (CustomMediaRecorder.canPhoneCreateMediaRecorder(getContext())) {
-            call.resolve(ResponseGenerator.successResponse());
-        } else {
-            call.resolve(ResponseGenerator.failResponse());
+        DeviceCapabilities capabilities = AudioCapabilities.getDeviceCapabilities(getContext());
+        JSObject response = ResponseGenerator.fromBoolean(capabilities.canRecord());
+        response.put("capabilities", toJSObject(capabilities));
+        call.resolve(response);
+    }
+
+    private static JSObject toJSObject(DeviceCapabilities capabilities) {
+        JSObject data = new JSObject();
+        data.put("microphone", capabilities.hasMicrophone());
+        data.put("sources", toJSArray(capabilities.getSources()));
+        data.put("sampleRates", toJSArray(capabilities.getSampleRates()));
+        data.put("stereo", capabilities.isStereo());
+        data.put("encoders", toJSArray(capabilities.getEncoders()));
+        data.put("formats", toJSArray(capabilities.getFormats()));
+        return data;
+    }
+
+    private static JSArray toJSArray(List<?> values) {
+        JSArray array = new JSArray();
+        for (Object value : values) {
+            array.put(value);
         }
+        return array;
     }
 
     @PluginMethod
@@ -102,31 +147,98 @@ public class VoiceRecorder extends Plugin {
     }
 
     @PluginMethod
-    public void startRecording(PluginCall call) {
-        if (!CustomMediaRecorder.canPhoneCreateMediaRecorder(getContext())) {
-            Log.i("VoiceRecorder", "CANNOT_RECORD_ON_THIS_PHONE");
-            call.reject(Messages.CANNOT_RECORD_ON_THIS_PHONE);
+    public void prepareRecording(PluginCall call) {
+        if (!canRecord(call)) {
             return;
         }
 
-        if (!doesUserGaveAudioRecordingPermission()) {
-            Log.i("VoiceRecorder", "MISSING_PERMISSION");
-            call.reject(Messages.MISSING_PERMISSION);
+        if (isConnected) {
+            prepareRecordingByCall(call);
             return;
         }
 
-        if (this.isMicrophoneOccupied()) {
-            Log.i("VoiceRecorder", "MICROPHONE_BEING_USED");
-            call.reject(Messages.MICROPHONE_BEING_USED);
+        // binding creates the service without moving it to the foreground, that only happens once recording starts
+        Log.i("VoiceRecorder", "prepareRecording - binding service");
+        Context context = getContext();
+        prepareCall.set(call);
+        context.bindService(new Intent(context, VoiceRecorderService.class), connection, Context.BIND_AUTO_CREATE);
+    }
+
+    private void prepareRecordingByCall(PluginCall call) {
+        try {
+            Log.i("VoiceRecorder", "prepareRecordingByCall");
+            long idleTimeoutMs = call.getLong("idleTimeoutMs", VoiceRecorderService.DEFAULT_PREPARED_IDLE_TIMEOUT_MS);
+            recorderService.prepareRecording(readRecordOptions(call), idleTimeoutMs);
+            call.resolve(ResponseGenerator.successResponse());
+        } catch (MessagesException e) {
+            call.reject(e.getMessage(), e);
+        }
+    }
+
+    @PluginMethod
+    public void armRecording(PluginCall call) {
+        if (!canRecord(call)) {
             return;
         }
 
         if (isConnected) {
-            try {
-                //If the user is initiating a new recording, it's because the previous recording has already been closed.
-                recorderService.stopRecording();
-            } catch (Exception e) {
-                Log.w("VoiceRecorder", "Forcing stop recording.", e);
+            if (!recorderService.isForeground()) {
+                startForegroundServiceByCall(call);
+            }
+            armRecordingByCall(call);
+            return;
+        }
+
+        // the microphone stays open while armed, so the service has to run in the foreground
+        try {
+            Intent intent = startForegroundServiceByCall(call);
+            armCall.set(call);
+            Context context = getContext();
+            new Handler(Looper.getMainLooper()).post(() -> context.bindService(intent, connection, 0));
+        } catch (Exception exp) {
+            Log.e("VoiceRecorder", "armRecording", exp);
+            call.reject(Messages.FAILED_TO_RECORD, exp);
+            unbindAndStopService();
+        }
+    }
+
+    private void armRecordingByCall(PluginCall call) {
+        try {
+            Log.i("VoiceRecorder", "armRecordingByCall");
+            int preRollMs = call.getInt("preRollMs", DEFAULT_PRE_ROLL_MS);
+            recorderService.arm(readRecordOptions(call), Math.max(0, Math.min(preRollMs, MAX_PRE_ROLL_MS)));
+            call.resolve(ResponseGenerator.successResponse());
+        } catch (MessagesException e) {
+            call.reject(e.getMessage(), e);
+        }
+    }
+
+    @PluginMethod
+    public void disarmRecording(PluginCall call) {
+        if (isConnected) {
+            recorderService.disarm();
+            if (!recorderService.hasSessions()) {
+                unbindAndStopService();
+            }
+        }
+        call.resolve(ResponseGenerator.successResponse());
+    }
+
+    @PluginMethod
+    public void startRecording(PluginCall call) {
+        startRequestedAtMs = SystemClock.elapsedRealtime();
+        if (!canRecord(call)) {
+            return;
+        }
+
+        if (isConnected) {
+            //If the user is initiating a new recording, it's because the previous recording has already been closed.
+            if (!call.getBoolean("concurrent", false) && recorderService.hasSessions()) {
+                Log.w("VoiceRecorder", "Forcing stop recording.");
+                recorderService.stopAllRecordings();
+            }
+            if (!recorderService.isForeground()) {
+                startForegroundServiceByCall(call);
             }
             startRecordingByCall(call);
             return;
@@ -141,20 +253,96 @@ public class VoiceRecorder extends Plugin {
         }
     }
 
+    private boolean canRecord(PluginCall call) {
+        if (!CustomMediaRecorder.canPhoneCreateMediaRecorder(getContext())) {
+            Log.i("VoiceRecorder", "CANNOT_RECORD_ON_THIS_PHONE");
+            call.reject(Messages.CANNOT_RECORD_ON_THIS_PHONE);
+            return false;
+        }
+
+        if (!doesUserGaveAudioRecordingPermission()) {
+            Log.i("VoiceRecorder", "MISSING_PERMISSION");
+            call.reject(Messages.MISSING_PERMISSION);
+            return false;
+        }
+
+        if (this.isMicrophoneOccupied()) {
+            Log.i("VoiceRecorder", "MICROPHONE_BEING_USED");
+            call.reject(Messages.MICROPHONE_BEING_USED);
+            return false;
+        }
+        return true;
+    }
+
     private void startRecordingByCall(PluginCall call) {
         try {
             Log.i("VoiceRecorder", "startRecordingByCall");
-            String directory = call.getString("directory");
-            String subDirectory = call.getString("subDirectory");
-            recorderService.startRecording(directory, subDirectory);
-            call.resolve(ResponseGenerator.successResponse());
+            RecordOptions options = readRecordOptions(call);
+            String sessionId = recorderService.startRecording(options, startRequestedAtMs);
+            JSObject response = ResponseGenerator.successResponse();
+            response.put("sessionId", sessionId);
+            call.resolve(response);
         } catch (MessagesException e) {
             call.reject(e.getMessage(), e);
         }
     }
 
+    private RecordOptions readRecordOptions(PluginCall call) {
+        String directory = call.getString("directory");
+        String subDirectory = call.getString("subDirectory");
+        ReturnMode returnMode = ReturnMode.fromString(call.getString("returnMode"), ReturnMode.BASE64);
+        RecordOptions options = new RecordOptions(directory, subDirectory, returnMode);
+        options.setEngine(RecorderEngine.fromString(call.getString("engine"), RecorderEngine.MEDIA_RECORDER));
+        RecordingFormat format = RecordingFormat.fromString(call.getString("format"), RecordingFormat.AAC_ADTS);
+        options.setFormat(format);
+        options.setEncoder(RecordingEncoder.fromString(call.getString("encoder"), format.getDefaultEncoder()));
+        options.setBitRate(call.getInt("bitRate", options.getBitRate()));
+        options.setSampleRate(call.getInt("sampleRate", options.getSampleRate()));
+        options.setChannels(call.getInt("channels", options.getChannels()));
+        options.setMeteringIntervalMs(call.getInt("meteringIntervalMs", 0));
+        options.setMeteringBatchSize(call.getInt("meteringBatchSize", 0));
+        options.setChunkDurationMs(call.getInt("chunkDurationMs", 0));
+        options.setTrimSilence(call.getBoolean("trimSilence", false));
+        options.setSilenceThresholdDb(call.getFloat("silenceThresholdDb", options.getSilenceThresholdDb()));
+        options.setSpeechAttackMs(call.getInt("speechAttackMs", options.getSpeechAttackMs()));
+        options.setSilenceHangoverMs(call.getInt("silenceHangoverMs", options.getSilenceHangoverMs()));
+        options.setSegmentDurationMs(call.getInt("segmentDurationMs", 0));
+        options.setSegmentMaxBytes(call.getLong("segmentMaxBytes", 0L));
+        options.setConcurrent(call.getBoolean("concurrent", false));
+        options.setWaveformBuckets(Math.max(0, call.getInt("waveformBuckets", 0)));
+        options.setStorageQuotaBytes(Math.max(0L, call.getLong("storageQuotaBytes", 0L)));
+        options.setEvictOldRecordings(call.getBoolean("evictOldRecordings", false));
+        options.setMaxDurationMs(call.getLong("maxDurationMs", 0L));
+        options.setMaxFileSizeBytes(call.getLong("maxFileSizeBytes", 0L));
+        options.setMeasureLoudness(call.getBoolean("measureLoudness", false));
+        options.setLoudnessNormalization(
+            LoudnessNormalization.fromString(call.getString("normalizeLoudness"), LoudnessNormalization.OFF)
+        );
+        options.setTargetLoudness(call.getFloat("targetLoudness", options.getTargetLoudness()));
+        options.setMaxGainDb(call.getFloat("maxGainDb", options.getMaxGainDb()));
+        options.setUploadUrl(call.getString("uploadUrl"));
+        JSObject uploadHeaders = call.getObject("uploadHeaders");
+        if (uploadHeaders != null) {
+            Map<String, String> headers = new LinkedHashMap<>();
+            Iterator<String> names = uploadHeaders.keys();
+            while (names.hasNext()) {
+                String name = names.next();
+                headers.put(name, uploadHeaders.getString(name));
+            }
+            options.setUploadHeaders(headers);
+        }
+        return options;
+    }
+
     private void startServiceByCall(PluginCall call) {
         Log.i("VoiceRecorder", "startServiceByCall");
+        Intent intent = startForegroundServiceByCall(call);
+        startCall.set(call);
+        Context context = getContext();
+        new Handler(Looper.getMainLooper()).post(() -> context.bindService(intent, connection, 0));
+    }
+
+    private Intent startForegroundServiceByCall(PluginCall call) {
         String title = call.getString("title", "Recording in progress");
         String message = call.getString("message", "Recording audio");
 
@@ -168,9 +356,7 @@ public class VoiceRecorder extends Plugin {
         } else {
             context.startService(intent);
         }
-
-        startCall = call;
-        new Handler(Looper.getMainLooper()).post(() -> context.bindService(intent, connection, 0));
+        return intent;
     }
 
     @PluginMethod
@@ -181,21 +367,242 @@ public class VoiceRecorder extends Plugin {
             return;
         }
 
+        ReturnMode returnMode = ReturnMode.fromString(call.getString("returnMode"), null);
+        recorderService.stopRecording(
+            call.getString("sessionId"),
+            returnMode,
+            new VoiceRecorderService.FinalizationCallback() {
+                @Override
+                public void onFinalized(JSObject result) {
+                    call.resolve(result);
+                }
+
+                @Override
+                public void onFailed(MessagesException exception) {
+                    Log.e("VoiceRecorder", "stopRecording", exception);
+                    call.reject(exception.getMessage(), exception.toJSObject());
+                }
+            }
+        );
+
+        stopServiceIfIdle();
+    }
+
+    private void stopServiceIfIdle() {
+        if (isConnected && !recorderService.isArmed() && !recorderService.hasSessions()) {
+            unbindAndStopService();
+        }
+    }
+
+    private void onServiceEvent(String eventName, JSObject data) {
+        notifyListeners(eventName, data);
+        if (VoiceRecorderService.LIMIT_REACHED_EVENT.equals(eventName)) {
+            // a take that stopped at its limit releases the service like stopRecording does
+            new Handler(Looper.getMainLooper()).post(this::stopServiceIfIdle);
+        }
+    }
+
+    @PluginMethod
+    public void releaseRecording(PluginCall call) {
+        try {
+            boolean deleted = RecordingFiles.releaseCachedRecording(getContext(), call.getString("path"));
+            call.resolve(ResponseGenerator.fromBoolean(deleted));
+        } catch (MessagesException e) {
+            Log.e("VoiceRecorder", "releaseRecording", e);
+            call.reject(e.getMessage(), e);
+        }
+    }
+
+    @PluginMethod
+    public void getWaveform(PluginCall call) {
+        int buckets = Math.max(1, call.getInt("buckets", DEFAULT_WAVEFORM_BUCKETS));
+        File file;
+        try {
+            file = RecordingFiles.resolveRecording(getContext(), call.getString("directory"), call.getString("path"));
+        } catch (MessagesException e) {
+            call.reject(e.getMessage(), e);
+            return;
+        }
+        Context context = getContext().getApplicationContext();
+        RecordingWaveforms.get(context, file, buckets, finalizationCallback(call, "getWaveform"));
+    }
+
+    @PluginMethod
+    public void listRecordings(PluginCall call) {
+        Context context = getContext().getApplicationContext();
+        String directory = call.getString("directory");
+        String subDirectory = call.getString("subDirectory");
+        RecordingStorage.list(context, directory, subDirectory, finalizationCallback(call, "listRecordings"));
+    }
+
+    @PluginMethod
+    public void deleteRecording(PluginCall call) {
+        File file;
+        try {
+            file = RecordingFiles.resolveRecording(getContext(), call.getString("directory"), call.getString("path"));
+        } catch (MessagesException e) {
+            call.reject(e.getMessage(), e);
+            return;
+        }
+        RecordingStorage.delete(getContext().getApplicationContext(), file, finalizationCallback(call, "deleteRecording"));
+    }
+
+    @PluginMethod
+    public void trimRecording(PluginCall call) {
+        try {
+            File source = readSourceFile(call.getObject("source"));
+            long startMs = call.getLong("startMs", 0L);
+            long endMs = call.getLong("endMs", -1L);
+            RecordOptions options = readEditOptions(call, RecordingFormat.AAC_ADTS);
+            Context context = getContext().getApplicationContext();
+            VoiceRecorderService.FinalizationCallback callback = finalizationCallback(call, "trimRecording");
+            RecordingEditor.trim(context, source, startMs, endMs, options, this::notifyListeners, callback);
+        } catch (MessagesException e) {
+            call.reject(e.getMessage(), e);
+        }
+    }
+
+    @PluginMethod
+    public void concatRecordings(PluginCall call) {
         try {
-            JSObject obj = recorderService.stopRecording();
-            call.resolve(obj);
+            JSArray array = call.getArray("sources");
+            if (array == null || array.length() == 0) {
+                throw new MessagesException(Messages.INVALID_PATH);
+            }
+            List<File> sources = new ArrayList<>();
+            for (int i = 0; i < array.length(); i++) {
+                sources.add(readSourceFile(array.optJSONObject(i)));
+            }
+            RecordOptions options = readEditOptions(call, RecordingFormat.AAC_ADTS);
+            Context context = getContext().getApplicationContext();
+            VoiceRecorderService.FinalizationCallback callback = finalizationCallback(call, "concatRecordings");
+            RecordingEditor.concat(context, sources, options, this::notifyListeners, callback);
+        } catch (MessagesException e) {
+            call.reject(e.getMessage(), e);
+        }
+    }
+
+    @PluginMethod
+    public void transcodeRecording(PluginCall call) {
+        try {
+            File source = readSourceFile(call.getObject("source"));
+            RecordingFormat format = RecordingFormat.fromString(call.getString("format"), null);
+            if (format == null) {
+                throw new MessagesException(Messages.UNSUPPORTED_RECORDING_OPTIONS);
+            }
+            RecordOptions options = readEditOptions(call, format);
+            options.setBitRate(call.getInt("bitRate", options.getBitRate()));
+            Context context = getContext().getApplicationContext();
+            VoiceRecorderService.FinalizationCallback callback = finalizationCallback(call, "transcodeRecording");
+            RecordingEditor.transcode(context, source, options, this::notifyListeners, callback);
+        } catch (MessagesException e) {
+            call.reject(e.getMessage(), e);
+        }
+    }
+
+    private File readSourceFile(JSONObject source) throws MessagesException {
+        if (source == null) {
+            throw new MessagesException(Messages.INVALID_PATH);
+        }
+        String directory = source.isNull("directory") ? null : source.optString("directory");
+        String path = source.isNull("path") ? null : source.optString("path");
+        return RecordingFiles.resolveFile(getContext(), directory, path);
+    }
+
+    /**
+     * The output of an edit is placed and returned like a recording made with the same options.
+     */
+    private static RecordOptions readEditOptions(PluginCall call, RecordingFormat format) {
+        ReturnMode returnMode = ReturnMode.fromString(call.getString("returnMode"), ReturnMode.BASE64);
+        RecordOptions options = new RecordOptions(call.getString("directory"), call.getString("subDirectory"), returnMode);
+        options.setFormat(format);
+        options.setEncoder(format.getDefaultEncoder());
+        return options;
+    }
+
+    private static VoiceRecorderService.FinalizationCallback finalizationCallback(PluginCall call, String method) {
+        return new VoiceRecorderService.FinalizationCallback() {
+            @Override
+            public void onFinalized(JSObject result) {
+                call.resolve(result);
+            }
+
+            @Override
+            public void onFailed(MessagesException exception) {
+                Log.e("VoiceRecorder", method, exception);
+                call.reject(exception.getMessage(), exception.toJSObject());
+            }
+        };
+    }
+
+    @PluginMethod
+    public void listRecoverableRecordings(PluginCall call) {
+        try {
+            JSArray recordings = new JSArray();
+            for (RecoverableRecording take : RecordingRecovery.listRecoverable(getContext())) {
+                recordings.put(toJSObject(take));
+            }
+            call.resolve(ResponseGenerator.dataResponse(recordings));
         } catch (MessagesException e) {
-            Log.e("VoiceRecorder", "stopRecording", e);
-            call.reject(e.getMessage(), e.toJSObject());
+            call.reject(e.getMessage(), e);
+        }
+    }
+
+    private static JSObject toJSObject(RecoverableRecording take) {
+        JSArray pauses = new JSArray();
+        for (long[] pause : take.getPauses()) {
+            JSObject entry = new JSObject();
+            entry.put("pausedAt", pause[0]);
+            if (pause[1] >= 0) {
+                entry.put("resumedAt", pause[1]);
+            }
+            pauses.put(entry);
         }
+        RecordingFormat format = RecordingFormat.fromString(take.getFormat(), RecordingFormat.AAC_ADTS);
+        JSObject data = new JSObject();
+        data.put("id", take.getId());
+        data.put("startedAt", take.getStartedAtMs());
+        data.put("mimeType", format.getMimeType());
+        data.put("segmented", take.isSegmented());
+        data.put("pauses", pauses);
+        return data;
+    }
 
-        unbindAndStopService();
+    @PluginMethod
+    public void recoverRecording(PluginCall call) {
+        String id = call.getString("id");
+        if (id == null) {
+            call.reject(Messages.RECORDING_NOT_FOUND);
+            return;
+        }
+        ReturnMode returnMode = ReturnMode.fromString(call.getString("returnMode"), ReturnMode.BASE64);
+        RecordingRecovery.recoverRecording(
+            getContext().getApplicationContext(),
+            id,
+            returnMode,
+            this::notifyListeners,
+            new VoiceRecorderService.FinalizationCallback() {
+                @Override
+                public void onFinalized(JSObject result) {
+                    call.resolve(result);
+                }
+
+                @Override
+                public void onFailed(MessagesException exception) {
+                    Log.e("VoiceRecorder", "recoverRecording", exception);
+                    call.reject(exception.getMessage(), exception.toJSObject());
+                }
+            }
+        );
     }
 
     private void unbindAndStopService() {
         Context context = getContext();
         Intent intent = new Intent(context, VoiceRecorderService.class);
 
+        if (recorderService != null) {
+            recorderService.setEventListener(null);
+        }
         try {
             context.unbindService(connection);
         } catch (IllegalArgumentException e) {
@@ -209,13 +616,14 @@ public class VoiceRecorder extends Plugin {
 
     @PluginMethod
     public void pauseRecording(PluginCall call) {
-        CustomMediaRecorder mediaRecorder = getMediaRecorder();
-        if (mediaRecorder == null) {
+        String sessionId = call.getString("sessionId");
+        Recorder recorder = getRecorder(sessionId);
+        if (recorder == null) {
             call.reject(Messages.RECORDING_HAS_NOT_STARTED);
             return;
         }
         try {
-            call.resolve(ResponseGenerator.fromBoolean(mediaRecorder.pauseRecording()));
+            call.resolve(ResponseGenerator.fromBoolean(recorderService.pauseRecording(sessionId)));
         } catch (NotSupportedOsVersion exception) {
             call.reject(Messages.NOT_SUPPORTED_OS_VERSION);
         }
@@ -223,13 +631,14 @@ public class VoiceRecorder extends Plugin {
 
     @PluginMethod
     public void resumeRecording(PluginCall call) {
-        CustomMediaRecorder mediaRecorder = getMediaRecorder();
-        if (mediaRecorder == null) {
+        String sessionId = call.getString("sessionId");
+        Recorder recorder = getRecorder(sessionId);
+        if (recorder == null) {
             call.reject(Messages.RECORDING_HAS_NOT_STARTED);
             return;
         }
         try {
-            call.resolve(ResponseGenerator.fromBoolean(mediaRecorder.resumeRecording()));
+            call.resolve(ResponseGenerator.fromBoolean(recorderService.resumeRecording(sessionId)));
         } catch (NotSupportedOsVersion exception) {
             call.reject(Messages.NOT_SUPPORTED_OS_VERSION);
         }
@@ -237,12 +646,26 @@ public class VoiceRecorder extends Plugin {
 
     @PluginMethod
     public void getCurrentStatus(PluginCall call) {
-        CustomMediaRecorder mediaRecorder = getMediaRecorder();
-        if (mediaRecorder == null) {
+        Recorder recorder = getRecorder(call.getString("sessionId"));
+        if (recorder == null) {
             call.resolve(ResponseGenerator.statusResponse(CurrentRecordingStatus.NONE));
         } else {
-            call.resolve(ResponseGenerator.statusResponse(mediaRecorder.getCurrentStatus()));
+            call.resolve(ResponseGenerator.statusResponse(recorder.getCurrentStatus()));
+        }
+    }
+
+    @PluginMethod
+    public void getMetrics(PluginCall call) {
+        List<RecordingMetrics> all = VoiceRecorderService.getFinishedMetrics();
+        VoiceRecorderService service = recorderService;
+        if (isConnected && service != null) {
+            all.addAll(service.getActiveMetrics());
+        }
+        JSArray metrics = new JSArray();
+        for (RecordingMetrics take : all) {
+            metrics.put(VoiceRecorderService.toJSObject(take));
         }
+        call.resolve(ResponseGenerator.dataResponse(metrics));
     }
 
     private boolean doesUserGaveAudioRecordingPermission() {
@@ -1,21 +1,152 @@
 package com.tchvu3.capacitorvoicerecorder;
 
 import android.app.Service;
+import android.content.Context;
 import android.content.Intent;
-import android.media.MediaPlayer;
 import android.os.Binder;
+import android.os.Build;
 import android.os.IBinder;
+import android.os.SystemClock;
 import android.util.Base64;
 import android.util.Log;
 import com.getcapacitor.JSObject;
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class VoiceRecorderService extends Service {
 
+    public static final String LEVELS_EVENT = "recordingLevels";
+    public static final String CHUNK_EVENT = "recordingChunk";
+    public static final String PAYLOAD_EVENT = "recordingPayload";
+    public static final String STARTED_EVENT = "recordingStarted";
+    public static final String SEGMENT_EVENT = "recordingSegment";
+    public static final String UPLOAD_PROGRESS_EVENT = "uploadProgress";
+    public static final String UPLOAD_FINISHED_EVENT = "uploadFinished";
+    public static final String METRICS_EVENT = "recordingMetrics";
+    public static final String LIMIT_REACHED_EVENT = "recordingLimitReached";
+    public static final long DEFAULT_PREPARED_IDLE_TIMEOUT_MS = 30_000;
+
+    private static final long DURATION_TOLERANCE_MS = 500;
+    private static final int LEVEL_BATCH_WINDOW_MS = 100;
+    private static final long FIRST_SAMPLE_POLL_MS = 5;
+    private static final long FIRST_SAMPLE_TIMEOUT_MS = 2000;
+    private static final int MAX_FINISHED_METRICS = 20;
+    private static final float MIN_NORMALIZATION_GAIN_DB = 0.1f;
+    private static final int GAIN_BLOCK_FRAMES = 8192;
+
+    // the metrics of the last takes of this process, oldest first
+    private static final Deque<RecordingMetrics> FINISHED_METRICS = new ArrayDeque<>();
+
     private final IBinder binder = new LocalBinder();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+        new Thread(runnable, "VoiceRecorderScheduler")
+    );
+    private final Map<String, RecordingSession> sessions = new ConcurrentHashMap<>();
+    private volatile String latestSessionId;
+    private volatile EventListener eventListener;
+    // guarded by this, the scheduler releases the prepared recorder when it idles out
+    private Recorder preparedRecorder;
+    private ScheduledFuture<?> preparedIdleTimeout;
+    private volatile boolean foreground;
+    private volatile ArmedCapture armedCapture;
+    private volatile boolean sharedCapture;
+    private volatile long boundAtMs = -1;
+
+    public interface EventListener {
+        void onEvent(String eventName, JSObject data);
+    }
+
+    public interface FinalizationCallback {
+        void onFinalized(JSObject result);
+
+        void onFailed(MessagesException exception);
+    }
+
+    /**
+     * A take in progress and what runs alongside it. The session id is also the take's id in the journal.
+     */
+    private static class RecordingSession {
+
+        private final String id;
+        private final Recorder recorder;
+        private final boolean shared;
+        private final RecordingMetrics metrics;
+        private LevelMonitor levelMonitor;
+        private AdtsChunkStreamer chunkStreamer;
+        private FirstSampleProbe firstSampleProbe;
+
+        RecordingSession(String id, Recorder recorder, boolean shared, RecordingMetrics metrics) {
+            this.id = id;
+            this.recorder = recorder;
+            this.shared = shared;
+            this.metrics = metrics;
+        }
+    }
+
+    /**
+     * Polls a started recorder until its first audio arrives and reports the start latencies with the
+     * {@link #STARTED_EVENT}.
+     */
+    private class FirstSampleProbe implements Runnable {
+
+        private final String sessionId;
+        private final Recorder recorder;
+        private final long requestedAtMs;
+        private final long startedAtMs;
+        private final boolean prepared;
+        private final RecordingMetrics metrics;
+        private ScheduledFuture<?> future;
+
+        FirstSampleProbe(String sessionId, Recorder recorder, long requestedAtMs, long startedAtMs, RecordingMetrics metrics) {
+            this.sessionId = sessionId;
+            this.recorder = recorder;
+            this.requestedAtMs = requestedAtMs;
+            this.startedAtMs = startedAtMs;
+            this.prepared = metrics.isPrepared();
+            this.metrics = metrics;
+        }
+
+        synchronized void start() {
+            future = scheduler.scheduleWithFixedDelay(this, 0, FIRST_SAMPLE_POLL_MS, TimeUnit.MILLISECONDS);
+        }
+
+        synchronized void cancel() {
+            future.cancel(false);
+        }
+
+        @Override
+        public synchronized void run() {
+            long now = SystemClock.elapsedRealtime();
+            boolean captured = recorder.hasCapturedAudio();
+            if (future.isCancelled() || (!captured && now - startedAtMs < FIRST_SAMPLE_TIMEOUT_MS)) {
+                return;
+            }
+            future.cancel(false);
+            if (captured) {
+                metrics.mark(RecordingMetrics.Phase.FIRST_SAMPLE, now);
+            }
+            long firstSampleLatencyMs = captured ? now - requestedAtMs : -1;
+            Log.i("VoiceRecorderService", "startRecording - first sample after " + firstSampleLatencyMs + "ms, prepared: " + prepared);
+            JSObject data = new JSObject();
+            data.put("sessionId", sessionId);
+            data.put("prepared", prepared);
+            data.put("startLatencyMs", startedAtMs - requestedAtMs);
+            data.put("firstSampleLatencyMs", firstSampleLatencyMs);
+            notifyEvent(STARTED_EVENT, data);
+        }
+    }
 
     public class LocalBinder extends Binder {
 
@@ -29,125 +160,783 @@ public class VoiceRecorderService extends Service {
         String title = intent != null ? intent.getStringExtra("title") : null;
         String message = intent != null ? intent.getStringExtra("message") : null;
         startForeground(1, VoiceRecorderNotification.createNotification(this, title, message));
+        foreground = true;
         return START_NOT_STICKY;
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
-        if (mediaRecorder != null) {
-            try {
-                stopRecording();
-            } catch (Exception e) {
-                Log.e("VoiceRecorderService", "Exception while stopping recording in onDestroy", e);
-            }
-        }
+        stopAllRecordings();
+        releasePreparedRecorder();
+        disarm();
+        scheduler.shutdownNow();
     }
 
     @Override
     public IBinder onBind(Intent intent) {
+        boundAtMs = SystemClock.elapsedRealtime();
         return binder;
     }
 
-    private CustomMediaRecorder mediaRecorder;
+    /**
+     * @param sessionId the session, or {@code null} for the most recently started one
+     */
+    public Recorder getRecorder(String sessionId) {
+        RecordingSession session = getSession(sessionId);
+        return session != null ? session.recorder : null;
+    }
+
+    private RecordingSession getSession(String sessionId) {
+        String id = sessionId != null ? sessionId : latestSessionId;
+        return id != null ? sessions.get(id) : null;
+    }
+
+    public boolean hasSessions() {
+        return !sessions.isEmpty();
+    }
+
+    public boolean isForeground() {
+        return foreground;
+    }
+
+    /**
+     * @return the metrics of the takes that are still recording
+     */
+    public List<RecordingMetrics> getActiveMetrics() {
+        List<RecordingMetrics> active = new ArrayList<>();
+        for (RecordingSession session : sessions.values()) {
+            active.add(session.metrics);
+        }
+        return active;
+    }
+
+    /**
+     * @return the metrics of the last finalized takes of this process, oldest first
+     */
+    public static List<RecordingMetrics> getFinishedMetrics() {
+        synchronized (FINISHED_METRICS) {
+            return new ArrayList<>(FINISHED_METRICS);
+        }
+    }
+
+    private static void addFinishedMetrics(RecordingMetrics metrics) {
+        synchronized (FINISHED_METRICS) {
+            if (FINISHED_METRICS.size() == MAX_FINISHED_METRICS) {
+                FINISHED_METRICS.removeFirst();
+            }
+            FINISHED_METRICS.addLast(metrics);
+        }
+    }
+
+    public void setEventListener(EventListener eventListener) {
+        this.eventListener = eventListener;
+    }
+
+    private void notifyEvent(String eventName, JSObject data) {
+        EventListener listener = eventListener;
+        if (listener != null) {
+            listener.onEvent(eventName, data);
+        }
+    }
+
+    /**
+     * Opens the microphone and keeps the last {@code preRollMs} of audio, so a take recorded with the audiorecord
+     * engine and the same sample rate and channels starts with what was said just before startRecording. The capture
+     * keeps running between takes until {@link #disarm()} or until the service is destroyed.
+     */
+    public void arm(RecordOptions options, int preRollMs) throws MessagesException {
+        if (!sessions.isEmpty()) {
+            throw new MessagesException(Messages.ALREADY_RECORDING);
+        }
+        options.setEngine(RecorderEngine.AUDIO_RECORD);
+        AudioCapabilities.get().validate(options);
+        releasePreparedRecorder();
+        disarm();
+        openCapture(options, preRollMs);
+    }
+
+    private void openCapture(RecordOptions options, int preRollMs) throws MessagesException {
+        try {
+            Log.i("VoiceRecorderService", "openCapture - preRollMs: " + preRollMs);
+            ArmedCapture capture = new ArmedCapture(options.getSampleRate(), options.getChannels(), preRollMs);
+            capture.start();
+            armedCapture = capture;
+        } catch (Exception exp) {
+            Log.e("VoiceRecorderService", "openCapture", exp);
+            throw new MessagesException(Messages.FAILED_TO_RECORD, exp);
+        }
+    }
+
+    /**
+     * Closes the armed capture. While concurrent sessions record from it, it is closed once the last of them stops.
+     */
+    public void disarm() {
+        if (hasSharedSessions()) {
+            sharedCapture = true;
+            return;
+        }
+        if (armedCapture != null) {
+            Log.i("VoiceRecorderService", "disarm");
+            synchronized (this) {
+                if (preparedRecorder != null && preparedRecorder.getRecordOptions().getEngine() == RecorderEngine.AUDIO_RECORD) {
+                    releasePreparedRecorder();
+                }
+            }
+            armedCapture.stop();
+            armedCapture = null;
+            sharedCapture = false;
+        }
+    }
+
+    private boolean hasSharedSessions() {
+        for (RecordingSession session : sessions.values()) {
+            if (session.shared) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Makes sure a capture that concurrent sessions can share is running. Sessions share one {@link ArmedCapture}
+     * without pre-roll, so the microphone is read once and every session encodes from its ring on its own thread.
+     */
+    private void openSharedCapture(RecordOptions options) throws MessagesException {
+        if (options.getEngine() != RecorderEngine.AUDIO_RECORD) {
+            throw unsupported("concurrent recordings need the audiorecord engine");
+        }
+        for (RecordingSession session : sessions.values()) {
+            if (!session.shared) {
+                // a session that was not started as concurrent holds the microphone on its own
+                throw new MessagesException(Messages.ALREADY_RECORDING);
+            }
+        }
+        if (armedCapture != null && armedCapture.matches(options)) {
+            return;
+        }
+        if (!sessions.isEmpty()) {
+            throw unsupported("concurrent recordings need the same sample rate and channels");
+        }
+        releasePreparedRecorder();
+        disarm();
+        openCapture(options, 0);
+        sharedCapture = true;
+    }
+
+    private void closeSharedCaptureIfUnused() {
+        if (sharedCapture && !hasSharedSessions()) {
+            disarm();
+        }
+    }
+
+    private static MessagesException unsupported(String reason) {
+        return new MessagesException(Messages.UNSUPPORTED_RECORDING_OPTIONS, new IllegalArgumentException(reason));
+    }
+
+    public boolean isArmed() {
+        return armedCapture != null;
+    }
+
+    /**
+     * Builds and prepares a recorder ahead of time, so a following {@link #startRecording} with the same recorder
+     * settings only has to start it. The prepared recorder is released when it is not used within
+     * {@code idleTimeoutMs}.
+     */
+    public void prepareRecording(RecordOptions options, long idleTimeoutMs) throws MessagesException {
+        AudioCapabilities.get().validate(options);
+        RecordingStorage.reserve(getApplicationContext(), options, false);
+        disarmIfNotMatching(options);
+        Recorder prepared;
+        try {
+            Log.i("VoiceRecorderService", "prepareRecording");
+            prepared = createRecorder(options);
+        } catch (Exception exp) {
+            Log.e("VoiceRecorderService", "prepareRecording", exp);
+            throw new MessagesException(Messages.FAILED_TO_RECORD, exp);
+        }
+        synchronized (this) {
+            releasePreparedRecorder();
+            preparedRecorder = prepared;
+            preparedIdleTimeout = scheduler.schedule(this::releasePreparedRecorder, idleTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized Recorder takePreparedRecorder(RecordOptions options) throws MessagesException {
+        Recorder prepared = preparedRecorder;
+        if (prepared == null) {
+            return null;
+        }
+        preparedRecorder = null;
+        preparedIdleTimeout.cancel(false);
+        if (!prepared.getRecordOptions().hasSameRecorderSettings(options)) {
+            Log.i("VoiceRecorderService", "startRecording - discarding recorder prepared with other settings");
+            prepared.discard();
+            return null;
+        }
+        prepared.getRecordOptions().applyStartSettings(options);
+        try {
+            // the recorder was validated with its own settings, not with the ones it took over
+            AudioCapabilities.validateSettings(prepared.getRecordOptions());
+        } catch (MessagesException exp) {
+            prepared.discard();
+            throw exp;
+        }
+        return prepared;
+    }
+
+    private synchronized void releasePreparedRecorder() {
+        if (preparedRecorder != null) {
+            Log.i("VoiceRecorderService", "releasePreparedRecorder");
+            preparedIdleTimeout.cancel(false);
+            preparedRecorder.discard();
+            preparedRecorder = null;
+        }
+    }
 
-    public CustomMediaRecorder getMediaRecorder() {
-        return mediaRecorder;
+    public String startRecording(RecordOptions options) throws MessagesException {
+        return startRecording(options, SystemClock.elapsedRealtime());
     }
 
-    public void startRecording(String directory, String subDirectory) throws MessagesException {
+    /**
+     * Starts a new session. Without {@link RecordOptions#isConcurrent()} no other session may be recording; concurrent
+     * sessions all record from one shared capture and need the audiorecord engine with the same sample rate and
+     * channels.
+     *
+     * @param requestedAtMs {@link SystemClock#elapsedRealtime()} at which the recording was requested, the start of
+     *                      the latencies reported with the {@link #STARTED_EVENT}
+     * @return the id of the session
+     */
+    public String startRecording(RecordOptions options, long requestedAtMs) throws MessagesException {
+        // also for a prepared recorder, which only compares the settings it was built with
+        AudioCapabilities.get().validate(options);
+        if (options.isConcurrent()) {
+            openSharedCapture(options);
+        } else if (!sessions.isEmpty()) {
+            throw new MessagesException(Messages.ALREADY_RECORDING);
+        }
+        RecordingUploads.checkQueue(getApplicationContext(), options);
+        RecordingStorage.reserve(getApplicationContext(), options, true);
+        // a prepared recorder would open the microphone a second time
+        Recorder prepared = options.isConcurrent() ? null : takePreparedRecorder(options);
+        if (prepared == null) {
+            disarmIfNotMatching(options);
+        }
+        String id = UUID.randomUUID().toString();
+        Recorder recorder = prepared;
         try {
-            Log.i("VoiceRecorderService", "startRecording");
-            RecordOptions options = new RecordOptions(directory, subDirectory);
-            mediaRecorder = new CustomMediaRecorder(getApplicationContext(), options);
-            mediaRecorder.startRecording();
+            Log.i("VoiceRecorderService", "startRecording - prepared: " + (prepared != null) + ", concurrent: " + options.isConcurrent());
+            if (recorder == null) {
+                recorder = createRecorder(options);
+            }
+            RecordOptions recorderOptions = recorder.getRecordOptions();
+            RecordingMetrics metrics = createMetrics(id, recorder, requestedAtMs, prepared != null);
+            recorder.setSegmentListener((segment, last) -> {
+                emitSegment(id, recorderOptions, segment, last);
+                if (!last) {
+                    RecordingRecovery.writeJournal(getApplicationContext(), journal -> journal.segmentClosed(id, segment.getIndex()));
+                }
+            });
+            // the limit is reached on the audio thread, the take is stopped off it
+            recorder.setLimitListener(limit -> scheduler.execute(() -> stopAtLimit(id, limit)));
+            recorder.startRecording();
+            metrics.mark(RecordingMetrics.Phase.STARTED, SystemClock.elapsedRealtime());
+            RecordingSession session = new RecordingSession(id, recorder, options.isConcurrent(), metrics);
+            sessions.put(id, session);
+            latestSessionId = id;
+            RecoverableRecording take = new RecoverableRecording(
+                id,
+                System.currentTimeMillis(),
+                recorder.getOutputFile(),
+                recorderOptions.getFormat().getValue(),
+                recorderOptions.getDirectory(),
+                recorderOptions.getSubDirectory(),
+                recorderOptions.isSegmented()
+            );
+            RecordingRecovery.writeJournal(getApplicationContext(), journal -> journal.begin(take));
+            long startedAtMs = metrics.getPhaseMs(RecordingMetrics.Phase.STARTED);
+            session.firstSampleProbe = new FirstSampleProbe(id, recorder, requestedAtMs, startedAtMs, metrics);
+            session.firstSampleProbe.start();
+            startLevelMonitor(session, options);
+            startChunkStreamer(session, options);
+            return id;
         } catch (Exception exp) {
             Log.e("VoiceRecorderService", "startRecording", exp);
-            mediaRecorder = null;
+            sessions.remove(id);
+            if (recorder != null) {
+                discardFailedStart(recorder);
+            }
+            closeSharedCaptureIfUnused();
             throw new MessagesException(Messages.FAILED_TO_RECORD, exp);
         }
     }
 
-    public JSObject stopRecording() throws MessagesException {
-        if (mediaRecorder == null) {
+    /**
+     * Releases the microphone and the file of a take that could not be started. A recorder that was already running
+     * when the session failed is stopped first.
+     */
+    private static void discardFailedStart(Recorder recorder) {
+        if (recorder.getCurrentStatus() == CurrentRecordingStatus.NONE) {
+            recorder.discard();
+            return;
+        }
+        try {
+            recorder.stopRecording();
+        } catch (RuntimeException exp) {
+            Log.w("VoiceRecorderService", "discardFailedStart", exp);
+        }
+        recorder.deleteOutputFile();
+    }
+
+    private RecordingMetrics createMetrics(String id, Recorder recorder, long requestedAtMs, boolean prepared) {
+        String engine = recorder instanceof PcmRecorder ? "audiorecord" : "mediarecorder";
+        RecordingMetrics metrics = new RecordingMetrics(id, engine, recorder.getRecordOptions().getFormat().getValue());
+        metrics.setPrepared(prepared);
+        metrics.mark(RecordingMetrics.Phase.REQUESTED, requestedAtMs);
+        long boundAt = boundAtMs;
+        if (boundAt >= requestedAtMs) {
+            // the service was bound for this take, not before it
+            metrics.mark(RecordingMetrics.Phase.SERVICE_BOUND, boundAt);
+        }
+        metrics.mark(RecordingMetrics.Phase.RECORDER_READY, SystemClock.elapsedRealtime());
+        return metrics;
+    }
+
+    private void disarmIfNotMatching(RecordOptions options) {
+        if (armedCapture != null && !armedCapture.matches(options)) {
+            // the take needs the microphone with other settings
+            Log.w("VoiceRecorderService", "disarming, the armed capture does not match the recording options");
+            disarm();
+        }
+    }
+
+    private Recorder createRecorder(RecordOptions options) throws IOException {
+        if (armedCapture != null && armedCapture.matches(options)) {
+            return new PcmRecorder(getApplicationContext(), options, armedCapture);
+        }
+        return switch (options.getEngine()) {
+            case AUDIO_RECORD -> new PcmRecorder(getApplicationContext(), options);
+            case MEDIA_RECORDER -> new CustomMediaRecorder(getApplicationContext(), options);
+        };
+    }
+
+    private void startLevelMonitor(RecordingSession session, RecordOptions options) {
+        int intervalMs = options.getMeteringIntervalMs();
+        if (intervalMs <= 0) {
+            return;
+        }
+        int batchSize = options.getMeteringBatchSize();
+        if (batchSize <= 0) {
+            batchSize = Math.max(1, LEVEL_BATCH_WINDOW_MS / intervalMs);
+        }
+        String id = session.id;
+        LevelMonitor.Listener listener = (firstSampleMs, interval, peaks, rms, count) ->
+            emitLevels(id, firstSampleMs, interval, peaks, rms, count);
+        session.levelMonitor = new LevelMonitor(session.recorder, scheduler, intervalMs, batchSize, listener);
+        session.levelMonitor.start();
+    }
+
+    private void emitLevels(String sessionId, long firstSampleMs, int intervalMs, float[] peaks, float[] rms, int count) {
+        JSObject data = new JSObject();
+        data.put("sessionId", sessionId);
+        data.put("firstSampleMs", firstSampleMs);
+        data.put("intervalMs", intervalMs);
+        data.put("peaks", RecordingResults.toJSArray(peaks, count));
+        if (rms != null) {
+            data.put("rms", RecordingResults.toJSArray(rms, count));
+        }
+        notifyEvent(LEVELS_EVENT, data);
+    }
+
+    /**
+     * Phases are given in milliseconds from the request, counters only once they are known.
+     */
+    public static JSObject toJSObject(RecordingMetrics metrics) {
+        JSObject data = new JSObject();
+        data.put("sessionId", metrics.getSessionId());
+        data.put("engine", metrics.getEngine());
+        data.put("format", metrics.getFormat());
+        data.put("prepared", metrics.isPrepared());
+        data.put("finished", metrics.isFinished());
+        data.put("failed", metrics.isFailed());
+        JSObject phases = new JSObject();
+        for (RecordingMetrics.Phase phase : RecordingMetrics.Phase.values()) {
+            long offsetMs = metrics.getLatencyMs(RecordingMetrics.Phase.REQUESTED, phase);
+            if (offsetMs >= 0) {
+                phases.put(phase.getKey(), offsetMs);
+            }
+        }
+        data.put("phases", phases);
+        putIfKnown(data, "bytesWritten", metrics.getBytesWritten());
+        putIfKnown(data, "capturedBytes", metrics.getCapturedBytes());
+        putIfKnown(data, "droppedBytes", metrics.getDroppedBytes());
+        putIfKnown(data, "readBufferBytes", metrics.getReadBufferBytes());
+        putIfKnown(data, "peakReadBytes", metrics.getPeakReadBytes());
+        putIfKnown(data, "peakSinkMicros", metrics.getPeakSinkMicros());
+        ErrorInfo errorInfo = metrics.getErrorInfo();
+        if (errorInfo != null) {
+            JSObject error = new JSObject();
+            error.put("what", errorInfo.getWhat());
+            error.put("extra", errorInfo.getExtra());
+            data.put("error", error);
+        }
+        JSObject device = new JSObject();
+        device.put("manufacturer", Build.MANUFACTURER);
+        device.put("model", Build.MODEL);
+        device.put("sdkInt", Build.VERSION.SDK_INT);
+        data.put("device", device);
+        return data;
+    }
+
+    private static void putIfKnown(JSObject data, String key, long value) {
+        if (value >= 0) {
+            data.put(key, value);
+        }
+    }
+
+    private void startChunkStreamer(RecordingSession session, RecordOptions options) {
+        if (options.getChunkDurationMs() <= 0) {
+            return;
+        }
+        String id = session.id;
+        String mimeType = options.getFormat().getMimeType();
+        AdtsChunkStreamer.Listener listener = (sequence, startMs, durationMs, data, last) ->
+            emitChunk(id, mimeType, sequence, startMs, durationMs, data, last);
+        session.chunkStreamer = new AdtsChunkStreamer(session.recorder.getOutputFile(), options.getChunkDurationMs(), listener);
+        session.chunkStreamer.start(scheduler);
+    }
+
+    private void emitChunk(String sessionId, String mimeType, long sequence, long startMs, long durationMs, byte[] data, boolean last) {
+        JSObject chunk = new JSObject();
+        chunk.put("sessionId", sessionId);
+        chunk.put("sequence", sequence);
+        chunk.put("startMs", startMs);
+        chunk.put("durationMs", durationMs);
+        chunk.put("mimeType", mimeType);
+        chunk.put("data", Base64.encodeToString(data, Base64.NO_WRAP));
+        chunk.put("last", last);
+        notifyEvent(CHUNK_EVENT, chunk);
+    }
+
+    private void emitSegment(String sessionId, RecordOptions options, RecordingSegment segment, boolean last) {
+        // segments are closed on the audio thread, the event is built off it
+        scheduler.execute(() -> {
+            JSObject data = RecordingResults.toJSObject(segment, options);
+            data.put("sessionId", sessionId);
+            data.put("mimeType", options.getFormat().getMimeType());
+            data.put("last", last);
+            notifyEvent(SEGMENT_EVENT, data);
+        });
+    }
+
+    /**
+     * @param sessionId the session, or {@code null} for the most recently started one
+     */
+    public boolean pauseRecording(String sessionId) throws NotSupportedOsVersion {
+        RecordingSession session = getSession(sessionId);
+        boolean paused = session != null && session.recorder.pauseRecording();
+        if (paused && session.levelMonitor != null) {
+            session.levelMonitor.pause();
+        }
+        if (paused) {
+            String id = session.id;
+            long pausedAtMs = System.currentTimeMillis();
+            RecordingRecovery.writeJournal(getApplicationContext(), journal -> journal.pause(id, pausedAtMs));
+        }
+        return paused;
+    }
+
+    /**
+     * @param sessionId the session, or {@code null} for the most recently started one
+     */
+    public boolean resumeRecording(String sessionId) throws NotSupportedOsVersion {
+        RecordingSession session = getSession(sessionId);
+        boolean resumed = session != null && session.recorder.resumeRecording();
+        if (resumed && session.levelMonitor != null) {
+            session.levelMonitor.start();
+        }
+        if (resumed) {
+            String id = session.id;
+            long resumedAtMs = System.currentTimeMillis();
+            RecordingRecovery.writeJournal(getApplicationContext(), journal -> journal.resume(id, resumedAtMs));
+        }
+        return resumed;
+    }
+
+    /**
+     * Stops a take that reached its maximum duration or file size and reports it with the {@link #LIMIT_REACHED_EVENT},
+     * which carries the finalized recording, so nothing has to wait for the app to call stopRecording. A take that
+     * was stopped in the meantime is left alone.
+     */
+    private void stopAtLimit(String sessionId, RecordingLimit limit) {
+        if (!sessions.containsKey(sessionId)) {
+            return;
+        }
+        Log.i("VoiceRecorderService", "stopAtLimit - " + limit.getValue() + " reached, sessionId: " + sessionId);
+        stopRecording(
+            sessionId,
+            null,
+            new FinalizationCallback() {
+                @Override
+                public void onFinalized(JSObject result) {
+                    JSObject data = new JSObject();
+                    data.put("sessionId", sessionId);
+                    data.put("limit", limit.getValue());
+                    data.put("value", result.opt("value"));
+                    notifyEvent(LIMIT_REACHED_EVENT, data);
+                }
+
+                @Override
+                public void onFailed(MessagesException exception) {
+                    Log.e("VoiceRecorderService", "stopAtLimit", exception);
+                    JSObject data = new JSObject();
+                    data.put("sessionId", sessionId);
+                    data.put("limit", limit.getValue());
+                    data.put("error", exception.toJSObject());
+                    notifyEvent(LIMIT_REACHED_EVENT, data);
+                }
+            }
+        );
+    }
+
+    /**
+     * Stops every session without reporting their results.
+     */
+    public void stopAllRecordings() {
+        for (String sessionId : sessions.keySet()) {
+            stopRecording(sessionId, null, null);
+        }
+    }
+
+    /**
+     * Stops a take right away, so the microphone is released before this method returns and a following
+     * startRecording never competes with it. Reading and encoding the file then happens on a single process-wide
+     * finalization thread: callbacks are invoked in the order the takes were stopped, also across service restarts.
+     * Without a {@code callback} nobody waits for the result, so no Base64 or streamed payload is built.
+     *
+     * @param sessionId the session, or {@code null} for the most recently started one
+     */
+    public void stopRecording(String sessionId, ReturnMode returnModeOverride, FinalizationCallback callback) {
+        RecordingSession session = getSession(sessionId);
+        if (session == null || sessions.remove(session.id) == null) {
             Log.w("VoiceRecorderService", "stopRecording - RECORDING_HAS_NOT_STARTED");
-            throw new MessagesException(Messages.RECORDING_HAS_NOT_STARTED);
+            if (callback != null) {
+                callback.onFailed(new MessagesException(Messages.RECORDING_HAS_NOT_STARTED));
+            }
+            return;
+        }
+        Recorder recorder = session.recorder;
+        String id = session.id;
+        RecordingMetrics metrics = session.metrics;
+        metrics.mark(RecordingMetrics.Phase.STOP_REQUESTED, SystemClock.elapsedRealtime());
+        if (id.equals(latestSessionId)) {
+            Iterator<String> remaining = sessions.keySet().iterator();
+            latestSessionId = remaining.hasNext() ? remaining.next() : null;
+        }
+        if (session.levelMonitor != null) {
+            session.levelMonitor.stop();
+        }
+        AdtsChunkStreamer chunkStreamer = session.chunkStreamer;
+        if (session.firstSampleProbe != null) {
+            session.firstSampleProbe.cancel();
         }
 
+        Exception stopException = null;
         try {
-            if (mediaRecorder.getErrorInfo() != null) {
-                try {
-                    mediaRecorder.stopRecording();
-                } catch (Exception exp) {
-                    Log.e("VoiceRecorderService", "mediaRecorder.stopRecording():", exp);
+            recorder.stopRecording();
+        } catch (Exception exp) {
+            Log.e("VoiceRecorderService", "recorder.stopRecording():", exp);
+            stopException = exp;
+        }
+        metrics.mark(RecordingMetrics.Phase.STOPPED, SystemClock.elapsedRealtime());
+        recorder.collectMetrics(metrics);
+        closeSharedCaptureIfUnused();
+        if (returnModeOverride != null) {
+            recorder.getRecordOptions().setReturnMode(returnModeOverride);
+        }
+
+        Exception finalStopException = stopException;
+        Context context = getApplicationContext();
+        // the plugin may unbind before the take is finalized, a streamed payload and the metrics still have to reach it
+        EventListener listener = eventListener;
+        RecordingResults.FINALIZATION_EXECUTOR.execute(() -> {
+            if (chunkStreamer != null) {
+                chunkStreamer.finish();
+            }
+            try {
+                JSObject result = finalizeRecording(context, recorder, finalStopException, listener, metrics, callback != null);
+                if (callback != null) {
+                    callback.onFinalized(result);
+                }
+            } catch (MessagesException exp) {
+                metrics.setFailed(true);
+                if (callback != null) {
+                    callback.onFailed(exp);
                 }
-                Log.e("VoiceRecorderService", "stopRecording - errorInfo: " + mediaRecorder.getErrorInfo().toString());
-                throw new MessagesException(Messages.RUNTIME_FAILED + " error info: " + mediaRecorder.getErrorInfo());
+            } finally {
+                RecordingRecovery.writeJournal(context, journal -> journal.end(id));
+                metrics.mark(RecordingMetrics.Phase.FINALIZED, SystemClock.elapsedRealtime());
+                addFinishedMetrics(metrics);
+                if (listener != null) {
+                    listener.onEvent(METRICS_EVENT, toJSObject(metrics));
+                }
+            }
+        });
+    }
+
+    private JSObject finalizeRecording(
+        Context context,
+        Recorder recorder,
+        Exception stopException,
+        EventListener payloadListener,
+        RecordingMetrics metrics,
+        boolean withPayload
+    ) throws MessagesException {
+        boolean uploading = false;
+        try {
+            metrics.setErrorInfo(recorder.getErrorInfo());
+            if (recorder.getErrorInfo() != null) {
+                Log.e("VoiceRecorderService", "stopRecording - errorInfo: " + recorder.getErrorInfo().toString());
+                throw new MessagesException(Messages.RUNTIME_FAILED + " error info: " + recorder.getErrorInfo(), stopException);
+            }
+            if (stopException != null) {
+                throw stopException;
             }
 
-            mediaRecorder.stopRecording();
-            File recordedFile = mediaRecorder.getOutputFile();
-            RecordOptions options = mediaRecorder.getRecordOptions();
+            File recordedFile = recorder.getOutputFile();
+            RecordOptions options = recorder.getRecordOptions();
+            LoudnessSink loudness = recorder.getLoudnessSink();
+            float gainDb = loudness != null ? normalizeLoudness(recorder, loudness, metrics) : 0f;
 
-            String path = null;
-            String recordDataBase64 = null;
-            if (options.getDirectory() != null) {
-                path = recordedFile.getName();
-                if (options.getSubDirectory() != null) {
-                    path = options.getSubDirectory() + "/" + path;
+            RecordData recordData;
+            if (options.isSegmented()) {
+                long bytesWritten = 0;
+                for (RecordingSegment segment : recorder.getSegments()) {
+                    bytesWritten += segment.getFile().length();
+                }
+                metrics.setBytesWritten(bytesWritten);
+                recordData = RecordingResults.toRecordData(recorder.getSegments(), options);
+                if (options.getDirectory() != null) {
+                    for (RecordingSegment segment : recorder.getSegments()) {
+                        RecordingStorage.addToIndex(context, options, segment.getFile(), segment.getDurationMs());
+                    }
                 }
             } else {
-                recordDataBase64 = readRecordedFileAsBase64(recordedFile);
+                metrics.setBytesWritten(recordedFile.length());
+                int msDuration = getMsDurationOfRecording(recorder, recordedFile);
+                metrics.mark(RecordingMetrics.Phase.DURATION_PROBED, SystemClock.elapsedRealtime());
+                recordData = RecordingResults.toRecordData(recordedFile, options, msDuration, payloadListener, withPayload);
+                if (options.getDirectory() != null && msDuration >= 0) {
+                    RecordingStorage.addToIndex(context, options, recordedFile, msDuration);
+                }
             }
-
-            RecordData recordData = new RecordData(
-                recordDataBase64,
-                getMsDurationOfAudioFile(recordedFile.getAbsolutePath()),
-                "audio/aac",
-                path
-            );
-            if ((recordDataBase64 == null && path == null) || recordData.getMsDuration() < 0) {
+            metrics.mark(RecordingMetrics.Phase.ENCODED, SystemClock.elapsedRealtime());
+            if (options.isTrimSilence()) {
+                recordData.setTrimmedMsDuration((int) recorder.getTrimmedDurationMs());
+            }
+            if (recordData.getMsDuration() < 0) {
                 throw new MessagesException(Messages.EMPTY_RECORDING);
-            } else {
-                return ResponseGenerator.dataResponse(recordData.toJSObject());
             }
+            if (options.getWaveformBuckets() > 0) {
+                recordData.setWaveform(RecordingWaveforms.of(recorder, options));
+            }
+            if (loudness != null) {
+                recordData.setLoudness(toJSObject(loudness.getMeter(), gainDb));
+            }
+            if (options.getUploadUrl() != null) {
+                recordData.setUploadId(RecordingUploads.enqueue(context, recordedFile, options));
+                uploading = recordData.getUploadId() != null;
+            }
+            return ResponseGenerator.dataResponse(recordData.toJSObject());
         } catch (Exception exp) {
             Log.e("VoiceRecorderService", "stopRecording - FAILED_TO_FETCH_RECORDING", exp);
             throw new MessagesException(Messages.FAILED_TO_FETCH_RECORDING, exp);
         } finally {
-            RecordOptions options = mediaRecorder.getRecordOptions();
-            if (options.getDirectory() == null) {
-                mediaRecorder.deleteOutputFile();
+            if (!recorder.getRecordOptions().isFileKept() && !uploading) {
+                recorder.deleteOutputFile();
             }
+            Log.i("VoiceRecorderService", "stopRecording - finalized");
+        }
+    }
 
-            mediaRecorder = null;
-            Log.i("VoiceRecorderService", "stopRecording - stopped");
+    /**
+     * Normalizes the take at stop, in one streaming pass over the file, and returns the gain it got. In realtime mode
+     * the gain was applied while recording and the last one is returned.
+     */
+    private static float normalizeLoudness(Recorder recorder, LoudnessSink loudness, RecordingMetrics metrics) throws IOException {
+        RecordOptions options = recorder.getRecordOptions();
+        if (options.getLoudnessNormalization() == LoudnessNormalization.REALTIME) {
+            return loudness.getGainStage().getGainDb();
+        } else if (options.getLoudnessNormalization() != LoudnessNormalization.ON_STOP) {
+            return 0f;
+        }
+        float gainDb = loudness.getMeter().gainTo(options.getTargetLoudness(), options.getMaxGainDb());
+        if (Math.abs(gainDb) < MIN_NORMALIZATION_GAIN_DB) {
+            return 0f;
+        }
+        GainStage gainStage = new GainStage(
+            options.getSampleRate(),
+            options.getChannels(),
+            gainDb,
+            GainStage.DEFAULT_CEILING_DB,
+            GainStage.DEFAULT_RELEASE_MS
+        );
+        File file = recorder.getOutputFile();
+        if (options.getFormat() == RecordingFormat.WAV) {
+            WavFileSink.applyGain(file, options.getChannels(), gainStage, GAIN_BLOCK_FRAMES);
+        } else {
+            RecordingTranscoder.applyGain(file, options.getBitRate(), gainStage);
         }
+        PeakReducer reducer = recorder.getPeakReducer();
+        if (reducer != null) {
+            reducer.scale((float) Math.pow(10, gainDb / 20), gainStage.getCeiling());
+        }
+        metrics.mark(RecordingMetrics.Phase.NORMALIZED, SystemClock.elapsedRealtime());
+        return gainDb;
     }
 
-    private String readRecordedFileAsBase64(File recordedFile) {
-        BufferedInputStream bufferedInputStream;
-        byte[] bArray = new byte[(int) recordedFile.length()];
-        try {
-            bufferedInputStream = new BufferedInputStream(new FileInputStream(recordedFile));
-            bufferedInputStream.read(bArray);
-            bufferedInputStream.close();
-        } catch (IOException exp) {
-            return null;
+    /**
+     * Levels that are not known, like the loudness of a silent take, are left out.
+     */
+    private static JSObject toJSObject(LoudnessMeter meter, float gainDb) {
+        JSObject data = new JSObject();
+        putIfFinite(data, "integrated", meter.getIntegratedLoudness());
+        putIfFinite(data, "rms", meter.getRmsDb());
+        putIfFinite(data, "peak", meter.getPeakDb());
+        data.put("gain", gainDb);
+        return data;
+    }
+
+    private static void putIfFinite(JSObject data, String key, float value) {
+        if (!Float.isInfinite(value) && !Float.isNaN(value)) {
+            data.put(key, value);
         }
-        return Base64.encodeToString(bArray, Base64.DEFAULT);
     }
 
-    private int getMsDurationOfAudioFile(String recordedFilePath) {
+    private int getMsDurationOfRecording(Recorder recorder, File recordedFile) {
+        long clockMs = recorder.getRecordedDurationMs();
+        RecordOptions options = recorder.getRecordOptions();
+        if (options.getFormat() == RecordingFormat.WAV) {
+            return (int) WavFileSink.durationMs(recordedFile.length(), options.getSampleRate(), options.getChannels());
+        } else if (options.getFormat() != RecordingFormat.AAC_ADTS) {
+            return (int) clockMs;
+        }
+
+        long fileMs;
         try {
-            MediaPlayer mediaPlayer = new MediaPlayer();
-            mediaPlayer.setDataSource(recordedFilePath);
-            mediaPlayer.prepare();
-            int duration = mediaPlayer.getDuration();
-            mediaPlayer.release();
-            return duration;
-        } catch (Exception ignore) {
+            fileMs = AdtsParser.scan(recordedFile).getDurationMs();
+        } catch (IOException exp) {
+            Log.w("VoiceRecorderService", "getMsDurationOfRecording - could not scan recording", exp);
+            return (int) clockMs;
+        }
+
+        if (fileMs < 0) {
             return -1;
         }
+        if (Math.abs(clockMs - fileMs) > DURATION_TOLERANCE_MS) {
+            Log.w("VoiceRecorderService", "getMsDurationOfRecording - clock: " + clockMs + "ms, file: " + fileMs + "ms");
+            return (int) fileMs;
+        }
+        return (int) clockMs;
     }
 }
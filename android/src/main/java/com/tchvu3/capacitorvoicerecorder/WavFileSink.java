@@ -0,0 +1,167 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes 16-bit PCM into a WAV file. The header is written with empty sizes first and completed when the take stops.
+ * With a {@link SegmentTracker} the take is split into complete WAV files at sample boundaries.
+ */
+public class WavFileSink implements PcmSink {
+
+    public static final int HEADER_LENGTH = 44;
+
+    private final File outputFile;
+    private final int sampleRate;
+    private final int channelCount;
+    private final int frameSize;
+    private final SegmentTracker segments;
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private long dataLength;
+
+    public WavFileSink(File outputFile, int sampleRate, int channelCount) {
+        this(outputFile, sampleRate, channelCount, null);
+    }
+
+    public WavFileSink(File outputFile, int sampleRate, int channelCount, SegmentTracker segments) {
+        this.outputFile = outputFile;
+        this.sampleRate = sampleRate;
+        this.channelCount = channelCount;
+        this.frameSize = channelCount * 2;
+        this.segments = segments;
+    }
+
+    @Override
+    public void onStart() throws IOException {
+        open(outputFile);
+    }
+
+    private void open(File target) throws IOException {
+        file = new RandomAccessFile(target, "rw");
+        file.setLength(0);
+        channel = file.getChannel();
+        dataLength = 0;
+        writeHeader();
+        channel.position(HEADER_LENGTH);
+        if (segments != null) {
+            segments.add(0, HEADER_LENGTH);
+        }
+    }
+
+    @Override
+    public void onPcm(ByteBuffer buffer) throws IOException {
+        if (segments == null) {
+            write(buffer);
+            return;
+        }
+        int limit = buffer.limit();
+        while (buffer.hasRemaining()) {
+            long fit = Math.min(segments.getRemainingSamples() * frameSize, segments.getRemainingBytes());
+            fit -= fit % frameSize;
+            if (fit == 0 && dataLength > 0) {
+                close();
+                open(segments.roll());
+                continue;
+            }
+            int length = (int) Math.min(buffer.remaining(), Math.max(fit, frameSize));
+            buffer.limit(buffer.position() + length);
+            write(buffer);
+            buffer.limit(limit);
+            segments.add(length / frameSize, length);
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            dataLength += channel.write(buffer);
+        }
+    }
+
+    @Override
+    public void onStop() throws IOException {
+        if (file == null) {
+            return;
+        }
+        close();
+        if (segments != null) {
+            segments.finish();
+        }
+    }
+
+    private void close() throws IOException {
+        try {
+            writeHeader();
+        } finally {
+            file.close();
+            file = null;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        int blockAlign = channelCount * 2;
+        header.clear();
+        header.put((byte) 'R').put((byte) 'I').put((byte) 'F').put((byte) 'F');
+        header.putInt((int) Math.min(0xffffffffL, dataLength + HEADER_LENGTH - 8));
+        header.put((byte) 'W').put((byte) 'A').put((byte) 'V').put((byte) 'E');
+        header.put((byte) 'f').put((byte) 'm').put((byte) 't').put((byte) ' ');
+        header.putInt(16);
+        header.putShort((short) 1);
+        header.putShort((short) channelCount);
+        header.putInt(sampleRate);
+        header.putInt(sampleRate * blockAlign);
+        header.putShort((short) blockAlign);
+        header.putShort((short) 16);
+        header.put((byte) 'd').put((byte) 'a').put((byte) 't').put((byte) 'a');
+        header.putInt((int) Math.min(0xffffffffL, dataLength));
+        header.flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+
+    public static long durationMs(long fileLength, int sampleRate, int channelCount) {
+        long dataLength = Math.max(0, fileLength - HEADER_LENGTH);
+        return dataLength * 1000 / ((long) sampleRate * channelCount * 2);
+    }
+
+    /**
+     * Runs the samples of a WAV file this sink wrote through {@code gainStage}, in place and in blocks of
+     * {@code blockFrames}. The header does not change.
+     */
+    public static void applyGain(File wavFile, int channelCount, GainStage gainStage, int blockFrames) throws IOException {
+        short[] samples = new short[blockFrames * channelCount];
+        ByteBuffer block = ByteBuffer.allocateDirect(samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        try (RandomAccessFile file = new RandomAccessFile(wavFile, "rw"); FileChannel channel = file.getChannel()) {
+            long position = HEADER_LENGTH;
+            while (true) {
+                block.clear();
+                while (block.hasRemaining() && channel.read(block, position + block.position()) > 0) {}
+                int frames = block.position() / (channelCount * 2);
+                if (frames == 0) {
+                    return;
+                }
+                int count = frames * channelCount;
+                for (int i = 0; i < count; i++) {
+                    samples[i] = block.getShort(2 * i);
+                }
+                gainStage.process(samples, 0, frames);
+                block.clear();
+                for (int i = 0; i < count; i++) {
+                    block.putShort(samples[i]);
+                }
+                block.flip();
+                while (block.hasRemaining()) {
+                    channel.write(block, position + block.position());
+                }
+                position += count * 2L;
+            }
+        }
+    }
+}
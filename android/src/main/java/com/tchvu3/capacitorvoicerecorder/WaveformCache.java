@@ -0,0 +1,69 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Keeps the reduced waveform of a recording in a small file next to it, so asking for the waveform again does not
+ * decode the audio. The cache stores the length and modification time of the recording and is ignored once either
+ * changed.
+ */
+public final class WaveformCache {
+
+    private static final int MAGIC = 0x5746504b;
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".peaks";
+
+    private WaveformCache() {}
+
+    public static File cacheFileFor(File audio) {
+        return new File(audio.getPath() + EXTENSION);
+    }
+
+    /**
+     * @return the cached waveform, or {@code null} when there is none or it is out of date
+     */
+    public static PeakReducer read(File audio) {
+        File cache = cacheFileFor(audio);
+        if (!cache.isFile()) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cache)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return null;
+            }
+            if (input.readLong() != audio.length() || input.readLong() != audio.lastModified()) {
+                return null;
+            }
+            return PeakReducer.readFrom(input);
+        } catch (IOException exp) {
+            return null;
+        }
+    }
+
+    public static void write(File audio, PeakReducer reducer) throws IOException {
+        File cache = cacheFileFor(audio);
+        File written = new File(cache.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(written)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(audio.length());
+            output.writeLong(audio.lastModified());
+            reducer.writeTo(output);
+        }
+        if (!written.renameTo(cache)) {
+            written.delete();
+            throw new IOException("Could not replace " + cache);
+        }
+    }
+
+    public static boolean delete(File audio) {
+        return cacheFileFor(audio).delete();
+    }
+}
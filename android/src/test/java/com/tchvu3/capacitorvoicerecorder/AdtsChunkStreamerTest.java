@@ -0,0 +1,84 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class AdtsChunkStreamerTest {
+
+    @Test
+    public void assemblerKeepsPartialFrameForLater() {
+        byte[] stream = AdtsTestStreams.stream(3, AdtsTestStreams.SAMPLE_RATE_INDEX_16000, 1);
+        AdtsFrameAssembler assembler = new AdtsFrameAssembler(16);
+
+        assembler.append(stream, 0, stream.length - 10);
+        assertEquals(2, assembler.getCompleteFrames());
+        byte[] firstTwo = assembler.takeCompleteFrames();
+
+        assembler.append(stream, stream.length - 10, 10);
+        assertEquals(1, assembler.getCompleteFrames());
+        byte[] last = assembler.takeCompleteFrames();
+        assertEquals(stream.length, firstTwo.length + last.length);
+    }
+
+    @Test
+    public void assemblerSkipsBytesBeforeTheNextHeader() {
+        byte[] frame = AdtsTestStreams.frame(AdtsTestStreams.SAMPLE_RATE_INDEX_44100, 2, 50, 3);
+        AdtsFrameAssembler assembler = new AdtsFrameAssembler(16);
+        assembler.append(new byte[] { 1, 2, (byte) 0xff, 4 }, 0, 4);
+        assembler.append(frame, 0, frame.length);
+
+        assertEquals(4, assembler.getSkippedBytes());
+        assertArrayEquals(frame, assembler.takeCompleteFrames());
+    }
+
+    @Test
+    public void emitsDecodableChunksInSequence() throws Exception {
+        byte[] stream = AdtsTestStreams.stream(10, AdtsTestStreams.SAMPLE_RATE_INDEX_16000, 1);
+        File file = File.createTempFile("adts-stream", ".aac");
+        file.deleteOnExit();
+        List<byte[]> chunks = new ArrayList<>();
+        List<Long> sequences = new ArrayList<>();
+        List<Long> starts = new ArrayList<>();
+        boolean[] lastSeen = new boolean[1];
+        AdtsChunkStreamer streamer = new AdtsChunkStreamer(file, 200, (sequence, startMs, durationMs, data, last) -> {
+            assertFalse(lastSeen[0]);
+            chunks.add(data);
+            sequences.add(sequence);
+            starts.add(startMs);
+            lastSeen[0] = last;
+        });
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            // written in uneven pieces, like a recorder flushing its buffers
+            for (int offset = 0; offset < stream.length; offset += 333) {
+                out.write(stream, offset, Math.min(333, stream.length - offset));
+                out.flush();
+                streamer.poll();
+            }
+        }
+        streamer.finish();
+
+        // 1024 samples at 16kHz are 64ms, so a 200ms chunk needs 4 frames
+        assertEquals(List.of(0L, 1L, 2L), sequences);
+        assertEquals(List.of(0L, 256L, 512L), starts);
+        assertTrue(lastSeen[0]);
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        for (byte[] chunk : chunks) {
+            AdtsStreamInfo info = AdtsParser.scan(new ByteArrayInputStream(chunk));
+            assertEquals(chunk.length, info.getValidBytes());
+            joined.writeBytes(chunk);
+        }
+        assertEquals(2, AdtsParser.scan(new ByteArrayInputStream(chunks.get(2))).getFrameCount());
+        assertArrayEquals(stream, joined.toByteArray());
+    }
+}
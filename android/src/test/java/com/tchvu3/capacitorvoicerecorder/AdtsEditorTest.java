@@ -0,0 +1,90 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AdtsEditorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void trimKeepsTheFramesThatOverlapTheRange() throws IOException {
+        // at 16kHz a frame is 64ms: 100ms to 300ms overlaps frames 1 to 4
+        byte[] stream = AdtsTestStreams.stream(20, AdtsTestStreams.SAMPLE_RATE_INDEX_16000, 1);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        AdtsStreamInfo info = AdtsEditor.trim(new ByteArrayInputStream(stream), output, 100, 300);
+
+        assertEquals(4, info.getFrameCount());
+        assertEquals(4 * 1024 * 1000 / 16000, info.getDurationMs());
+        assertArrayEquals(Arrays.copyOfRange(stream, frameOffset(1), frameOffset(5)), output.toByteArray());
+    }
+
+    @Test
+    public void trimToTheEndDropsAFrameThatIsCutOff() throws IOException {
+        byte[] stream = AdtsTestStreams.stream(10, AdtsTestStreams.SAMPLE_RATE_INDEX_44100, 2);
+        byte[] cutOff = Arrays.copyOf(stream, stream.length - 5);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        AdtsStreamInfo info = AdtsEditor.trim(new ByteArrayInputStream(cutOff), output, 0, -1);
+
+        assertEquals(9, info.getFrameCount());
+        assertArrayEquals(Arrays.copyOf(stream, frameOffset(9)), output.toByteArray());
+    }
+
+    @Test
+    public void rejectsAnEmptyRangeAndWhatIsNotAdts() {
+        byte[] stream = AdtsTestStreams.stream(10, AdtsTestStreams.SAMPLE_RATE_INDEX_44100, 1);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertThrows(IllegalArgumentException.class, () -> AdtsEditor.trim(new ByteArrayInputStream(stream), output, 500, 500));
+        assertThrows(IOException.class, () -> AdtsEditor.trim(new ByteArrayInputStream(new byte[64]), output, 0, -1));
+    }
+
+    @Test
+    public void concatJoinsStreamsOfTheSameLayout() throws IOException {
+        byte[] first = AdtsTestStreams.stream(7, AdtsTestStreams.SAMPLE_RATE_INDEX_44100, 1);
+        byte[] second = AdtsTestStreams.stream(12, AdtsTestStreams.SAMPLE_RATE_INDEX_44100, 1);
+        File target = folder.newFile("joined.aac");
+
+        AdtsStreamInfo info = AdtsEditor.concat(Arrays.asList(write("first.aac", first), write("second.aac", second)), target);
+
+        assertEquals(19, info.getFrameCount());
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.writeBytes(first);
+        expected.writeBytes(second);
+        assertArrayEquals(expected.toByteArray(), Files.readAllBytes(target.toPath()));
+
+        File other = write("other.aac", AdtsTestStreams.stream(3, AdtsTestStreams.SAMPLE_RATE_INDEX_16000, 1));
+        assertThrows(IOException.class, () -> AdtsEditor.concat(Arrays.asList(write("third.aac", first), other), target));
+    }
+
+    /**
+     * Offset of frame {@code index} in {@link AdtsTestStreams#stream}.
+     */
+    private static int frameOffset(int index) {
+        int offset = 0;
+        for (int i = 0; i < index; i++) {
+            offset += AdtsParser.HEADER_LENGTH + 100 + (i * 37) % 300;
+        }
+        return offset;
+    }
+
+    private File write(String name, byte[] data) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), data);
+        return file;
+    }
+}
@@ -0,0 +1,70 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class AdtsParserTest {
+
+    @Test
+    public void parsesHeaderFields() {
+        byte[] frame = AdtsTestStreams.frame(AdtsTestStreams.SAMPLE_RATE_INDEX_44100, 2, 250, 0);
+
+        assertTrue(AdtsParser.isHeader(frame, 0));
+        assertEquals(257, AdtsParser.frameLength(frame, 0));
+        assertEquals(44100, AdtsParser.sampleRate(frame, 0));
+        assertEquals(2, AdtsParser.channelConfiguration(frame, 0));
+        assertEquals(1024, AdtsParser.samplesInFrame(frame, 0));
+        assertEquals(AdtsParser.HEADER_LENGTH, AdtsParser.headerLength(frame, 0));
+    }
+
+    @Test
+    public void computesDurationFromFrameCount() throws Exception {
+        byte[] stream = AdtsTestStreams.stream(431, AdtsTestStreams.SAMPLE_RATE_INDEX_44100, 1);
+
+        AdtsStreamInfo info = AdtsParser.scan(new ByteArrayInputStream(stream));
+
+        assertEquals(431, info.getFrameCount());
+        assertEquals(431 * 1024, info.getSampleCount());
+        assertEquals(stream.length, info.getValidBytes());
+        assertEquals(431L * 1024 * 1000 / 44100, info.getDurationMs());
+    }
+
+    @Test
+    public void stopsAtTruncatedTail() throws Exception {
+        byte[] stream = AdtsTestStreams.stream(50, AdtsTestStreams.SAMPLE_RATE_INDEX_16000, 1);
+        byte[] complete = Arrays.copyOf(stream, stream.length);
+        byte[] truncated = Arrays.copyOf(stream, stream.length - 20);
+
+        AdtsStreamInfo completeInfo = AdtsParser.scan(new ByteArrayInputStream(complete));
+        AdtsStreamInfo truncatedInfo = AdtsParser.scan(new ByteArrayInputStream(truncated));
+
+        assertEquals(50, completeInfo.getFrameCount());
+        assertEquals(49, truncatedInfo.getFrameCount());
+        assertTrue(truncatedInfo.getValidBytes() < truncated.length);
+    }
+
+    @Test
+    public void stopsAtGarbage() throws Exception {
+        byte[] frames = AdtsTestStreams.stream(10, AdtsTestStreams.SAMPLE_RATE_INDEX_44100, 1);
+        byte[] stream = Arrays.copyOf(frames, frames.length + 64);
+
+        AdtsStreamInfo info = AdtsParser.scan(new ByteArrayInputStream(stream));
+
+        assertEquals(10, info.getFrameCount());
+        assertEquals(frames.length, info.getValidBytes());
+    }
+
+    @Test
+    public void emptyStreamHasNoDuration() throws Exception {
+        AdtsStreamInfo info = AdtsParser.scan(new ByteArrayInputStream(new byte[0]));
+
+        assertEquals(0, info.getFrameCount());
+        assertEquals(-1, info.getDurationMs());
+        assertFalse(AdtsParser.isHeader(new byte[AdtsParser.HEADER_LENGTH], 0));
+    }
+}
@@ -0,0 +1,35 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import java.io.ByteArrayOutputStream;
+
+final class AdtsTestStreams {
+
+    static final int SAMPLE_RATE_INDEX_44100 = 4;
+    static final int SAMPLE_RATE_INDEX_16000 = 8;
+
+    private AdtsTestStreams() {}
+
+    static byte[] frame(int sampleRateIndex, int channels, int payloadLength, int seed) {
+        int length = AdtsParser.HEADER_LENGTH + payloadLength;
+        byte[] frame = new byte[length];
+        frame[0] = (byte) 0xff;
+        frame[1] = (byte) 0xf1;
+        frame[2] = (byte) ((1 << 6) | (sampleRateIndex << 2) | ((channels >> 2) & 0x01));
+        frame[3] = (byte) (((channels & 0x03) << 6) | ((length >> 11) & 0x03));
+        frame[4] = (byte) ((length >> 3) & 0xff);
+        frame[5] = (byte) (((length & 0x07) << 5) | 0x1f);
+        frame[6] = (byte) 0xfc;
+        for (int i = AdtsParser.HEADER_LENGTH; i < length; i++) {
+            frame[i] = (byte) (seed + i);
+        }
+        return frame;
+    }
+
+    static byte[] stream(int frames, int sampleRateIndex, int channels) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < frames; i++) {
+            out.writeBytes(frame(sampleRateIndex, channels, 100 + (i * 37) % 300, i));
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,48 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class AudioCapabilitiesTest {
+
+    @Test
+    public void rejectsAStartWithInvalidSettingsOnAPreparedRecorder() throws MessagesException {
+        RecordOptions prepared = new RecordOptions(null, null, ReturnMode.BASE64);
+        AudioCapabilities.validateSettings(prepared);
+
+        RecordOptions start = new RecordOptions(null, null, ReturnMode.BASE64);
+        start.setUploadUrl("ftp://example.com/upload");
+        assertTrue(prepared.hasSameRecorderSettings(start));
+        assertRejected(start);
+    }
+
+    @Test
+    public void rejectsStartSettingsThatDoNotFitThePreparedRecorder() throws MessagesException {
+        RecordOptions prepared = new RecordOptions(null, null, ReturnMode.BASE64);
+        prepared.setFormat(RecordingFormat.MPEG_4);
+        prepared.setSegmentDurationMs(60_000);
+        AudioCapabilities.validateSettings(prepared);
+
+        RecordOptions upload = new RecordOptions(null, null, ReturnMode.BASE64);
+        upload.setUploadUrl("https://example.com/upload");
+        prepared.applyStartSettings(upload);
+        assertRejected(prepared);
+
+        RecordOptions chunks = new RecordOptions(null, null, ReturnMode.BASE64);
+        chunks.setChunkDurationMs(500);
+        prepared.applyStartSettings(chunks);
+        assertRejected(prepared);
+    }
+
+    private static void assertRejected(RecordOptions options) {
+        try {
+            AudioCapabilities.validateSettings(options);
+            fail("the options were accepted");
+        } catch (MessagesException exp) {
+            assertEquals(Messages.UNSUPPORTED_RECORDING_OPTIONS, exp.getMessage());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class Base64PayloadStreamerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void piecesDecodeAndJoinToTheFile() throws Exception {
+        for (int length : new int[] { 1, 2999, 3000, 3001, 100_000 }) {
+            byte[] content = new byte[length];
+            new Random(length).nextBytes(content);
+            File file = write(content);
+            List<String> pieces = new ArrayList<>();
+            List<Boolean> lasts = new ArrayList<>();
+
+            int count = new Base64PayloadStreamer(3000).stream(file, (sequence, data, last) -> {
+                assertEquals(pieces.size(), sequence);
+                pieces.add(data);
+                lasts.add(last);
+            });
+
+            assertEquals(Base64PayloadStreamer.pieceCount(length, 3000), count);
+            assertEquals(count, pieces.size());
+            ByteArrayOutputStream joined = new ByteArrayOutputStream();
+            for (int i = 0; i < count; i++) {
+                assertEquals(i == count - 1, lasts.get(i));
+                assertTrue(pieces.get(i).length() <= 4000);
+                joined.write(Base64.getDecoder().decode(pieces.get(i)));
+            }
+            assertArrayEquals("length " + length, content, joined.toByteArray());
+        }
+    }
+
+    @Test
+    public void anEmptyFileIsOneEmptyLastPiece() throws Exception {
+        List<String> pieces = new ArrayList<>();
+        int count = new Base64PayloadStreamer(3000).stream(write(new byte[0]), (sequence, data, last) -> {
+            assertTrue(last);
+            pieces.add(data);
+        });
+
+        assertEquals(1, count);
+        assertEquals("", pieces.get(0));
+    }
+
+    private File write(byte[] content) throws IOException {
+        File file = folder.newFile();
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(content);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,83 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DeviceCapabilitiesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void isReadBackOnTheBuildItWasProbedOn() throws IOException {
+        File file = new File(folder.getRoot(), "capabilities");
+        DeviceCapabilities probed = capabilities("vendor/device:14/AP1A/1:user/release-keys", 34);
+        probed.write(file);
+
+        DeviceCapabilities cached = DeviceCapabilities.read(file, "vendor/device:14/AP1A/1:user/release-keys", 34);
+        assertNotNull(cached);
+        assertTrue(cached.canRecord());
+        assertEquals(probed.getSources(), cached.getSources());
+        assertEquals(probed.getSampleRates(), cached.getSampleRates());
+        assertEquals(probed.getEncoders(), cached.getEncoders());
+        assertEquals(probed.getFormats(), cached.getFormats());
+        assertTrue(cached.isStereo());
+
+        // a system update changes the fingerprint and the device is probed again
+        assertNull(DeviceCapabilities.read(file, "vendor/device:14/AP2A/2:user/release-keys", 34));
+        assertNull(DeviceCapabilities.read(file, "vendor/device:14/AP1A/1:user/release-keys", 35));
+    }
+
+    @Test
+    public void ignoresAFileThatIsCutOff() throws IOException {
+        File file = new File(folder.getRoot(), "capabilities");
+        capabilities("fingerprint", 30).write(file);
+        long length = file.length();
+        try (FileOutputStream output = new FileOutputStream(file, true)) {
+            output.getChannel().truncate(length - 3);
+        }
+
+        assertNull(DeviceCapabilities.read(file, "fingerprint", 30));
+        assertNull(DeviceCapabilities.read(new File(folder.getRoot(), "missing"), "fingerprint", 30));
+    }
+
+    @Test
+    public void cannotRecordWithoutAMicrophoneOrSampleRates() {
+        DeviceCapabilities noRates = new DeviceCapabilities(
+            "fingerprint",
+            30,
+            true,
+            Collections.singletonList("mic"),
+            Collections.emptyList(),
+            false,
+            Collections.singletonList("pcm"),
+            Collections.singletonList("wav")
+        );
+        assertFalse(noRates.canRecord());
+    }
+
+    private static DeviceCapabilities capabilities(String fingerprint, int sdkInt) {
+        return new DeviceCapabilities(
+            fingerprint,
+            sdkInt,
+            true,
+            Arrays.asList("mic", "voice_recognition", "unprocessed"),
+            Arrays.asList(8000, 16000, 44100, 48000),
+            true,
+            Arrays.asList("aac", "opus", "pcm"),
+            Arrays.asList("aac", "mp4", "ogg", "wav")
+        );
+    }
+}
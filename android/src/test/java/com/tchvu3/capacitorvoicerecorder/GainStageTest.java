@@ -0,0 +1,109 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Test;
+
+public class GainStageTest {
+
+    private static final int SAMPLE_RATE = 48000;
+
+    @Test
+    public void appliesTheGain() {
+        GainStage stage = new GainStage(SAMPLE_RATE, 1, 6.0206f, GainStage.DEFAULT_CEILING_DB, GainStage.DEFAULT_RELEASE_MS);
+        short[] samples = { 1000, -1000, 2000, -3000 };
+        stage.process(samples, 0, 4);
+
+        assertEquals(2000, samples[0]);
+        assertEquals(-2000, samples[1]);
+        assertEquals(4000, samples[2]);
+        assertEquals(-6000, samples[3]);
+        assertEquals(0, stage.getLimitedFrames());
+    }
+
+    @Test
+    public void limitsPeaksToTheCeilingWithoutChangingTheBalance() {
+        GainStage stage = new GainStage(SAMPLE_RATE, 2, 12f, GainStage.DEFAULT_CEILING_DB, GainStage.DEFAULT_RELEASE_MS);
+        short[] samples = LoudnessMeterTest.sine(997, -6, 2, SAMPLE_RATE);
+        for (int i = 0; i < samples.length; i += 2) {
+            samples[i + 1] = (short) (samples[i] / 2);
+        }
+        stage.process(samples, 0, SAMPLE_RATE);
+
+        for (int i = 0; i < samples.length; i += 2) {
+            assertTrue(Math.abs(samples[i]) <= stage.getCeiling());
+            assertEquals(samples[i] / 2.0, samples[i + 1], 3.0);
+        }
+        assertTrue(stage.getLimitedFrames() > 0);
+    }
+
+    @Test
+    public void rampsToANewGain() {
+        GainStage stage = new GainStage(SAMPLE_RATE, 1, 0f, GainStage.DEFAULT_CEILING_DB, GainStage.DEFAULT_RELEASE_MS);
+        stage.setGainDb(6f);
+        short[] samples = new short[SAMPLE_RATE / 100];
+        stage.process(samples, 0, samples.length);
+        // 10ms into a 500ms ramp
+        assertTrue(stage.getGainDb() > 0f && stage.getGainDb() < 1f);
+
+        samples = new short[SAMPLE_RATE * 5];
+        stage.process(samples, 0, samples.length);
+        assertEquals(6f, stage.getGainDb(), 0.01f);
+    }
+
+    @Test
+    public void loudnessSinkTurnsTheStreamTowardsTheTarget() throws Exception {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE, 1);
+        GainStage stage = new GainStage(SAMPLE_RATE, 1, 0f, GainStage.DEFAULT_CEILING_DB, GainStage.DEFAULT_RELEASE_MS);
+        LoudnessMeter written = new LoudnessMeter(SAMPLE_RATE, 1);
+        LoudnessSink sink = new LoudnessSink(1, meter, stage, -16f, 20f, new MeteringSink(written));
+        short[] tone = LoudnessMeterTest.sine(997, -30, 1, SAMPLE_RATE * 10);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(tone.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (short sample : tone) {
+            buffer.putShort(sample);
+        }
+        buffer.flip();
+
+        sink.onStart();
+        for (int offset = 0; offset < tone.length * 2; offset += 1920) {
+            buffer.limit(offset + 1920).position(offset);
+            sink.onPcm(buffer);
+            // the buffer of the caller is not changed
+            assertEquals(tone[offset / 2 + 100], buffer.getShort(offset + 200));
+        }
+        sink.onStop();
+
+        assertEquals(-33.0f, meter.getIntegratedLoudness(), 0.1f);
+        assertEquals(17.0f, stage.getGainDb(), 0.1f);
+        // the first seconds are turned up while the gain is still ramping
+        assertEquals(-16.5f, written.getIntegratedLoudness(), 1.0f);
+    }
+
+    private static class MeteringSink implements PcmSink {
+
+        private final LoudnessMeter meter;
+        private final short[] samples = new short[8192];
+
+        MeteringSink(LoudnessMeter meter) {
+            this.meter = meter;
+        }
+
+        @Override
+        public void onStart() {}
+
+        @Override
+        public void onPcm(ByteBuffer buffer) {
+            int count = buffer.remaining() / 2;
+            for (int i = 0; i < count; i++) {
+                samples[i] = buffer.getShort(buffer.position() + 2 * i);
+            }
+            meter.process(samples, 0, count);
+        }
+
+        @Override
+        public void onStop() {}
+    }
+}
@@ -0,0 +1,168 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class LevelMonitorTest {
+
+    @Test
+    public void deliversReadingsInBatches() {
+        FakeRecorder recorder = new FakeRecorder();
+        List<float[]> batches = new ArrayList<>();
+        List<Long> starts = new ArrayList<>();
+        LevelMonitor monitor = new LevelMonitor(recorder, null, 20, 3, (firstSampleMs, intervalMs, peaks, rms, count) -> {
+            batches.add(Arrays.copyOf(peaks, count));
+            starts.add(firstSampleMs);
+        });
+
+        for (int i = 1; i <= 7; i++) {
+            recorder.durationMs = i * 20L;
+            recorder.peak = i / 10f;
+            monitor.sample();
+        }
+        assertEquals(2, batches.size());
+
+        monitor.stop();
+        assertEquals(3, batches.size());
+        assertArrayEquals(new float[] { 0.1f, 0.2f, 0.3f }, batches.get(0), 0f);
+        assertArrayEquals(new float[] { 0.7f }, batches.get(2), 0f);
+        assertEquals(List.of(20L, 80L, 140L), starts);
+
+        monitor.sample();
+        assertEquals(3, batches.size());
+    }
+
+    @Test
+    public void skipsReadingsWhileNotRecordingAndDropsMissingRms() {
+        FakeRecorder recorder = new FakeRecorder();
+        recorder.rms = -1;
+        List<float[]> rmsBatches = new ArrayList<>();
+        LevelMonitor monitor = new LevelMonitor(recorder, null, 50, 10, (firstSampleMs, intervalMs, peaks, rms, count) ->
+            rmsBatches.add(rms)
+        );
+
+        monitor.sample();
+        recorder.status = CurrentRecordingStatus.PAUSED;
+        monitor.sample();
+        assertEquals(1, recorder.takeCount);
+
+        monitor.pause();
+        assertEquals(1, rmsBatches.size());
+        assertNull(rmsBatches.get(0));
+    }
+
+    private static class FakeRecorder implements Recorder {
+
+        CurrentRecordingStatus status = CurrentRecordingStatus.RECORDING;
+        long durationMs;
+        float peak;
+        float rms = 0.5f;
+        int takeCount;
+
+        @Override
+        public void startRecording() {}
+
+        @Override
+        public void stopRecording() {}
+
+        @Override
+        public boolean pauseRecording() {
+            return false;
+        }
+
+        @Override
+        public boolean resumeRecording() {
+            return false;
+        }
+
+        @Override
+        public CurrentRecordingStatus getCurrentStatus() {
+            return status;
+        }
+
+        @Override
+        public RecorderState getState() {
+            return switch (status) {
+                case RECORDING -> RecorderState.RECORDING;
+                case PAUSED -> RecorderState.PAUSED;
+                case NONE -> RecorderState.IDLE;
+            };
+        }
+
+        @Override
+        public ErrorInfo getErrorInfo() {
+            return null;
+        }
+
+        @Override
+        public File getOutputFile() {
+            return null;
+        }
+
+        @Override
+        public RecordOptions getRecordOptions() {
+            return null;
+        }
+
+        @Override
+        public long getRecordedDurationMs() {
+            return durationMs;
+        }
+
+        @Override
+        public long getTrimmedDurationMs() {
+            return 0;
+        }
+
+        @Override
+        public List<RecordingSegment> getSegments() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void setSegmentListener(SegmentTracker.Listener listener) {}
+
+        @Override
+        public void setLimitListener(RecordingLimitSink.Listener listener) {}
+
+        @Override
+        public void collectMetrics(RecordingMetrics metrics) {}
+
+        @Override
+        public PeakReducer getPeakReducer() {
+            return null;
+        }
+
+        @Override
+        public LoudnessSink getLoudnessSink() {
+            return null;
+        }
+
+        @Override
+        public void takeLevels(float[] out) {
+            takeCount++;
+            out[0] = peak;
+            out[1] = rms;
+        }
+
+        @Override
+        public boolean hasCapturedAudio() {
+            return takeCount > 0;
+        }
+
+        @Override
+        public void discard() {}
+
+        @Override
+        public boolean deleteOutputFile() {
+            return false;
+        }
+    }
+}
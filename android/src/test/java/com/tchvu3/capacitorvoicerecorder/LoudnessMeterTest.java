@@ -0,0 +1,72 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class LoudnessMeterTest {
+
+    private static final int SAMPLE_RATE = 48000;
+
+    @Test
+    public void measuresTheReferenceToneOfBs1770() {
+        // a 997 Hz sine at -20 dBFS in one channel reads -23 LUFS
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE, 1);
+        short[] tone = sine(997, -20, 1, SAMPLE_RATE * 5);
+        for (int offset = 0; offset < tone.length; offset += 960) {
+            meter.process(tone, offset, 960);
+        }
+
+        assertEquals(-23.0f, meter.getIntegratedLoudness(), 0.1f);
+        assertEquals(-20.0f, meter.getPeakDb(), 0.01f);
+        assertEquals(-23.01f, meter.getRmsDb(), 0.01f);
+        assertEquals(7.0f, meter.gainTo(-16f, 20f), 0.1f);
+        assertEquals(5.0f, meter.gainTo(-16f, 5f), 0f);
+    }
+
+    @Test
+    public void addsTheChannelsUp() {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE, 2);
+        meter.process(sine(997, -20, 2, SAMPLE_RATE * 2), 0, SAMPLE_RATE * 2);
+
+        assertEquals(-20.0f, meter.getIntegratedLoudness(), 0.1f);
+    }
+
+    @Test
+    public void gatesPausesOut() {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE, 1);
+        short[] tone = sine(997, -20, 1, SAMPLE_RATE * 2);
+        short[] quiet = sine(997, -60, 1, SAMPLE_RATE * 4);
+        meter.process(tone, 0, tone.length);
+        meter.process(new short[SAMPLE_RATE * 4], 0, SAMPLE_RATE * 4);
+        meter.process(quiet, 0, quiet.length);
+        meter.process(tone, 0, tone.length);
+
+        // digital silence is below the absolute gate, the quiet tone below the relative one; only the windows that
+        // overlap the end of a tone pull it down a little
+        assertEquals(-23.0f, meter.getIntegratedLoudness(), 0.5f);
+    }
+
+    @Test
+    public void doesNotTurnUpSilence() {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE, 1);
+        meter.process(new short[SAMPLE_RATE], 0, SAMPLE_RATE);
+
+        assertEquals(0, meter.getGatedWindows());
+        assertEquals(Float.NEGATIVE_INFINITY, meter.getIntegratedLoudness(), 0f);
+        assertEquals(Float.NEGATIVE_INFINITY, meter.getPeakDb(), 0f);
+        assertEquals(0f, meter.gainTo(-16f, 20f), 0f);
+    }
+
+    static short[] sine(double frequency, double levelDb, int channels, int frames) {
+        double amplitude = 32768 * Math.pow(10, levelDb / 20);
+        short[] samples = new short[frames * channels];
+        for (int frame = 0; frame < frames; frame++) {
+            short sample = (short) Math.round(amplitude * Math.sin(2 * Math.PI * frequency * frame / SAMPLE_RATE));
+            for (int channel = 0; channel < channels; channel++) {
+                samples[frame * channels + channel] = sample;
+            }
+        }
+        return samples;
+    }
+}
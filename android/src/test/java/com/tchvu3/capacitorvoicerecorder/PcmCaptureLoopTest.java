@@ -0,0 +1,188 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Test;
+
+public class PcmCaptureLoopTest {
+
+    @Test
+    public void deliversEveryReadToEverySinkInOrder() {
+        FakePcmSource source = new FakePcmSource(20, 320);
+        RecordingSink first = new RecordingSink();
+        RecordingSink second = new RecordingSink();
+        PcmCaptureLoop loop = new PcmCaptureLoop(source, new PcmSinkChain(first, second), 320);
+        source.loop = loop;
+
+        loop.run();
+
+        assertEquals(20 * 320, loop.getCapturedBytes());
+        assertEquals(320, loop.getPeakReadBytes());
+        assertTrue(loop.getPeakSinkNanos() > 0);
+        assertEquals(0, loop.getErrorCode());
+        assertTrue(first.started && first.stopped);
+        assertArrayEquals(source.expected(), first.bytes());
+        assertArrayEquals(source.expected(), second.bytes());
+    }
+
+    @Test
+    public void dropsSamplesWhilePaused() {
+        FakePcmSource source = new FakePcmSource(10, 100);
+        RecordingSink sink = new RecordingSink();
+        PcmCaptureLoop loop = new PcmCaptureLoop(source, sink, 100);
+        source.loop = loop;
+        source.pauseBetween = new int[] { 3, 7 };
+
+        loop.run();
+
+        assertEquals(5 * 100, loop.getCapturedBytes());
+        assertEquals(5 * 100, sink.bytes().length);
+    }
+
+    @Test
+    public void reportsSourceErrorsAndStillStopsSinks() {
+        PcmSource failing = (buffer, size) -> -3;
+        RecordingSink sink = new RecordingSink();
+        PcmCaptureLoop loop = new PcmCaptureLoop(failing, sink, 64);
+
+        loop.run();
+
+        assertEquals(-3, loop.getErrorCode());
+        assertNull(loop.getSinkException());
+        assertTrue(sink.stopped);
+    }
+
+    @Test
+    public void reportsCodecFailuresOfASinkAndStillStopsIt() {
+        FakePcmSource source = new FakePcmSource(10, 100);
+        RecordingSink sink = new RecordingSink() {
+            @Override
+            public void onPcm(ByteBuffer buffer) {
+                throw new IllegalStateException("codec released");
+            }
+        };
+        PcmCaptureLoop loop = new PcmCaptureLoop(source, sink, 100);
+        source.loop = loop;
+
+        loop.run();
+
+        assertEquals(PcmCaptureLoop.ERROR_SINK_FAILED, loop.getErrorCode());
+        assertTrue(loop.getSinkException() instanceof IllegalStateException);
+        assertTrue(sink.stopped);
+    }
+
+    @Test
+    public void levelMeterReportsPeakAndRms() {
+        LevelMeterSink meter = new LevelMeterSink();
+        ByteBuffer buffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putShort((short) 16384).putShort((short) -16384).putShort((short) 16384).putShort((short) -32767).flip();
+        meter.onPcm(buffer);
+
+        float[] levels = new float[2];
+        meter.takeLevels(levels);
+
+        assertEquals(1f, levels[0], 0.0001f);
+        assertEquals(Math.sqrt((3 * 16384.0 * 16384 + 32767.0 * 32767) / 4) / 32767, levels[1], 0.0001);
+        meter.takeLevels(levels);
+        assertEquals(0f, levels[0], 0f);
+    }
+
+    @Test
+    public void captureLoopDoesNotAllocatePerRead() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+
+        allocatedWhileCapturing(threadBean, 2_000);
+        long small = allocatedWhileCapturing(threadBean, 2_000);
+        long large = allocatedWhileCapturing(threadBean, 50_000);
+
+        assertTrue("small: " + small + " large: " + large, large - small < 16 * 1024);
+    }
+
+    private static long allocatedWhileCapturing(com.sun.management.ThreadMXBean threadBean, int reads) {
+        FakePcmSource source = new FakePcmSource(reads, 1764);
+        PcmCaptureLoop loop = new PcmCaptureLoop(source, new PcmSinkChain(new LevelMeterSink(), new LevelMeterSink()), 1764);
+        source.loop = loop;
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        loop.run();
+        return threadBean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private static class FakePcmSource implements PcmSource {
+
+        private final int reads;
+        private final int bytesPerRead;
+        private int readCount;
+        PcmCaptureLoop loop;
+        int[] pauseBetween;
+
+        FakePcmSource(int reads, int bytesPerRead) {
+            this.reads = reads;
+            this.bytesPerRead = bytesPerRead;
+        }
+
+        @Override
+        public int read(ByteBuffer buffer, int sizeInBytes) {
+            if (pauseBetween != null) {
+                loop.setPaused(readCount >= pauseBetween[0] && readCount <= pauseBetween[1]);
+            }
+            int count = Math.min(sizeInBytes, bytesPerRead);
+            for (int i = 0; i < count; i++) {
+                buffer.put(i, (byte) (readCount * 31 + i));
+            }
+            if (++readCount >= reads) {
+                loop.requestStop();
+            }
+            return count;
+        }
+
+        byte[] expected() {
+            byte[] expected = new byte[reads * bytesPerRead];
+            for (int read = 0; read < reads; read++) {
+                for (int i = 0; i < bytesPerRead; i++) {
+                    expected[read * bytesPerRead + i] = (byte) (read * 31 + i);
+                }
+            }
+            return expected;
+        }
+    }
+
+    private static class RecordingSink implements PcmSink {
+
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        boolean started;
+        boolean stopped;
+
+        @Override
+        public void onStart() {
+            started = true;
+        }
+
+        @Override
+        public void onPcm(ByteBuffer buffer) {
+            while (buffer.hasRemaining()) {
+                received.write(buffer.get());
+            }
+        }
+
+        @Override
+        public void onStop() throws IOException {
+            stopped = true;
+        }
+
+        byte[] bytes() {
+            return received.toByteArray();
+        }
+    }
+}
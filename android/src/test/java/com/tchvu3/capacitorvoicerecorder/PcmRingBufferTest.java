@@ -0,0 +1,198 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+public class PcmRingBufferTest {
+
+    @Test
+    public void readsAcrossTheWrapAround() {
+        PcmRingBuffer ring = new PcmRingBuffer(10);
+        ring.write(ByteBuffer.wrap(sequence(0, 7)));
+        ByteBuffer target = ByteBuffer.allocate(10);
+        assertEquals(7, ring.read(0, target));
+
+        ring.write(ByteBuffer.wrap(sequence(7, 6)));
+        target.clear();
+        assertEquals(6, ring.read(7, target));
+        assertArrayEquals(sequence(7, 6), bytes(target));
+        assertEquals(3, ring.getOldestPosition());
+    }
+
+    @Test
+    public void reportsBytesThatWereOverwritten() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        ring.write(ByteBuffer.wrap(sequence(0, 20)));
+
+        assertEquals(PcmRingBuffer.OVERRUN, ring.read(11, ByteBuffer.allocate(4)));
+        ByteBuffer target = ByteBuffer.allocate(4);
+        assertEquals(4, ring.read(12, target));
+        assertArrayEquals(sequence(12, 4), bytes(target));
+    }
+
+    @Test
+    public void sourceStartsWithThePreRollAndEndsWhereItIsFinished() {
+        PcmRingBuffer ring = new PcmRingBuffer(100);
+        ring.write(ByteBuffer.wrap(sequence(0, 60)));
+        PcmRingBufferSource source = new PcmRingBufferSource(ring, 2, 1_000);
+        source.seekToLatest(25);
+        ring.write(ByteBuffer.wrap(sequence(60, 10)));
+        source.finishAt(ring.getWritePosition());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PcmCaptureLoop loop = new PcmCaptureLoop(source, new CollectingSink(out), 8);
+        loop.run();
+
+        // 25 bytes rounded to whole 2-byte frames: the take starts at 36
+        assertEquals(0, loop.getErrorCode());
+        assertArrayEquals(sequence(36, 34), out.toByteArray());
+    }
+
+    @Test
+    public void consumerSeesEveryByteInOrderWhileProducerRuns() throws Exception {
+        int total = 4 << 20;
+        PcmRingBuffer ring = new PcmRingBuffer(64 * 1024);
+        PcmRingBufferSource source = new PcmRingBufferSource(ring, 1, 10_000);
+        AtomicReference<String> failure = new AtomicReference<>();
+        AtomicLong consumed = new AtomicLong();
+
+        Thread producer = new Thread(() -> {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(1000);
+            long written = 0;
+            while (written < total) {
+                chunk.clear();
+                int length = (int) Math.min(chunk.capacity(), total - written);
+                for (int i = 0; i < length; i++) {
+                    chunk.put((byte) (written + i));
+                }
+                chunk.flip();
+                // stay less than a ring behind, like an encoder that keeps up
+                while (written - consumed.get() > ring.getCapacity() / 2) {
+                    Thread.onSpinWait();
+                }
+                ring.write(chunk);
+                written += length;
+            }
+            source.finishAt(total);
+        });
+        producer.start();
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(777);
+        long expected = 0;
+        int read;
+        while ((read = source.read(buffer, buffer.capacity())) != PcmSource.END_OF_STREAM) {
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) != (byte) (expected + i) && failure.get() == null) {
+                    failure.set("mismatch at " + (expected + i));
+                }
+            }
+            expected += read;
+            consumed.set(expected);
+        }
+        producer.join();
+
+        assertEquals(null, failure.get());
+        assertEquals(total, expected);
+        assertEquals(0, source.getDroppedBytes());
+    }
+
+    @Test
+    public void sourcesReadTheSameRingIndependently() throws Exception {
+        PcmRingBuffer ring = new PcmRingBuffer(64);
+        ring.write(ByteBuffer.wrap(sequence(0, 40)));
+        PcmRingBufferSource early = new PcmRingBufferSource(ring, 1, 1_000);
+        early.seekToLatest(40);
+        PcmRingBufferSource late = new PcmRingBufferSource(ring, 1, 1_000);
+        late.seekToLatest(10);
+        ring.write(ByteBuffer.wrap(sequence(40, 20)));
+        early.finishAt(ring.getWritePosition());
+        late.finishAt(ring.getWritePosition());
+
+        ByteArrayOutputStream earlyOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream lateOut = new ByteArrayOutputStream();
+        Thread other = new Thread(new PcmCaptureLoop(late, new CollectingSink(lateOut), 7));
+        other.start();
+        new PcmCaptureLoop(early, new CollectingSink(earlyOut), 5).run();
+        other.join();
+
+        assertArrayEquals(sequence(0, 60), earlyOut.toByteArray());
+        assertArrayEquals(sequence(30, 30), lateOut.toByteArray());
+    }
+
+    @Test
+    public void writingAndReadingDoNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        PcmRingBuffer ring = new PcmRingBuffer(4096);
+        ByteBuffer input = ByteBuffer.allocateDirect(640);
+        ByteBuffer output = ByteBuffer.allocateDirect(640);
+        long position = 0;
+        for (int i = 0; i < 10_000; i++) {
+            input.clear();
+            ring.write(input);
+            output.clear();
+            position += ring.read(position, output);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            input.clear();
+            ring.write(input);
+            output.clear();
+            position += ring.read(position, output);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue("allocated " + allocated + " bytes", allocated < 16 * 1024);
+    }
+
+    private static byte[] sequence(int start, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (start + i);
+        }
+        return bytes;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static class CollectingSink implements PcmSink {
+
+        private final ByteArrayOutputStream out;
+
+        CollectingSink(ByteArrayOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void onStart() {}
+
+        @Override
+        public void onPcm(ByteBuffer buffer) {
+            while (buffer.hasRemaining()) {
+                out.write(buffer.get());
+            }
+        }
+
+        @Override
+        public void onStop() {}
+    }
+}
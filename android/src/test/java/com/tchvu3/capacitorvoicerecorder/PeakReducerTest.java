@@ -0,0 +1,132 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PeakReducerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsTheMinimumAndMaximumOfEveryBucket() {
+        PeakReducer reducer = new PeakReducer(1, 8);
+        reducer.add(pcm(new short[] { 100, -200, 300, -400, 16384, -16384 }));
+
+        assertArrayEquals(new float[] { -200 / 32768f, 100 / 32768f, -400 / 32768f, 300 / 32768f, -0.5f, 0.5f }, reducer.getPeaks(3), 0f);
+        // fewer buckets than were asked for when there is less audio
+        assertEquals(12, reducer.getPeaks(100).length);
+    }
+
+    @Test
+    public void mergesBucketsWithoutLosingPeaksWhateverTheBufferSizes() {
+        Random random = new Random(7);
+        short[] samples = new short[8192];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (random.nextGaussian() * 3000);
+        }
+        samples[1234] = Short.MAX_VALUE;
+        samples[6543] = Short.MIN_VALUE;
+
+        PeakReducer whole = new PeakReducer(1, 16);
+        whole.add(pcm(samples));
+        PeakReducer pieces = new PeakReducer(1, 16);
+        ByteBuffer buffer = pcm(samples);
+        for (int offset = 0; offset < buffer.limit(); offset += 346) {
+            ByteBuffer piece = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            piece.position(offset).limit(Math.min(buffer.limit(), offset + 346));
+            pieces.add(piece);
+            assertEquals(offset, piece.position());
+        }
+
+        assertEquals(samples.length, whole.getFrames());
+        assertArrayEquals(whole.getPeaks(16), pieces.getPeaks(16), 0f);
+        float[] one = whole.getPeaks(1);
+        assertArrayEquals(new float[] { -1f, Short.MAX_VALUE / 32768f }, one, 0f);
+
+        // every bucket covers the same span, so the extremes land in the bucket of their position
+        float[] peaks = whole.getPeaks(8);
+        int bucketOfMax = -1;
+        int bucketOfMin = -1;
+        for (int i = 0; i < 8; i++) {
+            if (peaks[2 * i + 1] == Short.MAX_VALUE / 32768f) {
+                bucketOfMax = i;
+            }
+            if (peaks[2 * i] == -1f) {
+                bucketOfMin = i;
+            }
+        }
+        assertEquals(1234 * 8 / samples.length, bucketOfMax);
+        assertEquals(6543 * 8 / samples.length, bucketOfMin);
+    }
+
+    @Test
+    public void reducesAllChannelsTogether() {
+        PeakReducer reducer = new PeakReducer(2, 4);
+        reducer.add(pcm(new short[] { 10, -20, 30, 40, -50, 5 }));
+
+        assertEquals(3, reducer.getFrames());
+        assertArrayEquals(new float[] { -50 / 32768f, 40 / 32768f }, reducer.getPeaks(1), 0f);
+    }
+
+    @Test
+    public void scalesPeaksUpToTheLimit() {
+        // two samples fill the buckets, the third one is in the bucket that is still open
+        PeakReducer reducer = new PeakReducer(1, 2);
+        reducer.add(pcm(new short[] { 100, -400, 16384 }));
+        reducer.scale(2f, 30000);
+
+        assertArrayEquals(new float[] { -800 / 32768f, 200 / 32768f, 30000 / 32768f, 30000 / 32768f }, reducer.getPeaks(2), 0f);
+    }
+
+    @Test
+    public void cacheIsReadBackUntilTheRecordingChanges() throws IOException {
+        File audio = folder.newFile("take.wav");
+        write(audio, 1000);
+        PeakReducer reducer = new PeakReducer(1, 64);
+        short[] samples = new short[5000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (Math.sin(i / 20.0) * 10000);
+        }
+        reducer.add(pcm(samples));
+
+        assertNull(WaveformCache.read(audio));
+        WaveformCache.write(audio, reducer);
+        PeakReducer cached = WaveformCache.read(audio);
+        assertNotNull(cached);
+        assertEquals(reducer.getFrames(), cached.getFrames());
+        assertArrayEquals(reducer.getPeaks(50), cached.getPeaks(50), 0f);
+
+        write(audio, 2000);
+        assertNull(WaveformCache.read(audio));
+        assertTrue(WaveformCache.delete(audio));
+    }
+
+    private static ByteBuffer pcm(short[] samples) {
+        ByteBuffer buffer = ByteBuffer.allocate(samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (short sample : samples) {
+            buffer.putShort(sample);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void write(File file, int length) throws IOException {
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(new byte[length]);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RecordOptionsTest {
+
+    @Test
+    public void usesTheWaveformBucketsOfTheStartOnAPreparedRecorder() {
+        RecordOptions prepared = new RecordOptions(null, null, ReturnMode.BASE64);
+        prepared.setWaveformBuckets(100);
+        RecordOptions start = new RecordOptions(null, null, ReturnMode.BASE64);
+        start.setWaveformBuckets(40);
+        assertTrue(prepared.hasSameRecorderSettings(start));
+
+        prepared.applyStartSettings(start);
+        assertEquals(40, prepared.getWaveformBuckets());
+    }
+
+    @Test
+    public void reservesTheWholeMaximumDurationOfATake() {
+        RecordOptions options = new RecordOptions(null, null, ReturnMode.BASE64);
+        options.setBitRate(96000);
+        assertEquals(12_000 * 5 * 60, options.getReservedBytes(5 * 60_000));
+
+        options.setMaxDurationMs(60 * 60_000);
+        assertEquals(12_000 * 60 * 60, options.getReservedBytes(5 * 60_000));
+
+        options.setMaxFileSizeBytes(10_000_000);
+        assertEquals(10_000_000, options.getReservedBytes(5 * 60_000));
+
+        options.setMaxDurationMs(0);
+        assertEquals(10_000_000, options.getReservedBytes(5 * 60_000));
+    }
+
+    @Test
+    public void matchesAPreparedRecorderWhoseSubDirectoryWasNormalized() {
+        RecordOptions prepared = new RecordOptions("DATA", "notes/voice", ReturnMode.URI);
+        assertTrue(prepared.hasSameRecorderSettings(new RecordOptions("DATA", "/notes/voice/", ReturnMode.URI)));
+        assertTrue(prepared.hasSameRecorderSettings(new RecordOptions("DATA", "notes//voice", ReturnMode.URI)));
+        assertFalse(prepared.hasSameRecorderSettings(new RecordOptions("DATA", "notes", ReturnMode.URI)));
+    }
+
+    @Test
+    public void keepsTheCachedFileOfATakeReturnedByUri() {
+        RecordOptions uri = new RecordOptions(null, null, ReturnMode.URI);
+        assertTrue(uri.isFileKept());
+        assertFalse(uri.isFileTemporary());
+
+        RecordOptions base64 = new RecordOptions(null, null, ReturnMode.BASE64);
+        assertFalse(base64.isFileKept());
+        assertTrue(base64.isFileTemporary());
+
+        // the upload still needs the file after a restart, it deletes it once sent
+        base64.setUploadUrl("https://example.com/upload");
+        assertFalse(base64.isFileKept());
+        assertFalse(base64.isFileTemporary());
+    }
+}
@@ -0,0 +1,160 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+public class RecorderStateMachineTest {
+
+    private static final RecorderState[] STATES = RecorderState.values();
+
+    @Test
+    public void rejectsEveryTransitionThatIsNotAllowed() {
+        for (RecorderState from : STATES) {
+            for (RecorderState to : STATES) {
+                RecorderStateMachine machine = machineIn(from);
+                assertEquals(from + " -> " + to, from.canMoveTo(to), machine.transition(from, to));
+                assertEquals(from.canMoveTo(to) ? to : from, machine.get());
+
+                machine = machineIn(from);
+                assertEquals(from + " -> " + to, from.canMoveTo(to) ? from : null, machine.moveTo(to));
+            }
+        }
+    }
+
+    @Test
+    public void transitionFailsWhenTheStateChangedMeanwhile() {
+        RecorderStateMachine machine = machineIn(RecorderState.RECORDING);
+        assertTrue(machine.transition(RecorderState.RECORDING, RecorderState.PAUSED));
+
+        assertFalse(machine.transition(RecorderState.RECORDING, RecorderState.FINALIZING));
+        assertEquals(RecorderState.PAUSED, machine.get());
+        assertEquals(CurrentRecordingStatus.PAUSED, machine.getStatus());
+    }
+
+    @Test
+    public void concurrentStartPauseResumeStopAndStatusKeepTheInvariants() throws Exception {
+        int threads = 8;
+        int operations = 200_000;
+        RecorderStateMachine machine = new RecorderStateMachine();
+        AtomicInteger stopping = new AtomicInteger();
+        AtomicReference<String> failure = new AtomicReference<>();
+        long[][][] counts = new long[threads][STATES.length][STATES.length];
+        CountDownLatch go = new CountDownLatch(1);
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long[][] mine = counts[t];
+            workers[t] = new Thread(() -> {
+                awaitQuietly(go);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < operations && failure.get() == null; i++) {
+                    switch (random.nextInt(6)) {
+                        case 0 -> {
+                            if (transition(machine, mine, RecorderState.IDLE, RecorderState.PREPARING)) {
+                                transition(machine, mine, RecorderState.PREPARING, RecorderState.RECORDING);
+                            }
+                        }
+                        case 1 -> transition(machine, mine, RecorderState.RECORDING, RecorderState.PAUSED);
+                        case 2 -> transition(machine, mine, RecorderState.PAUSED, RecorderState.RECORDING);
+                        case 3 -> {
+                            // stop: the audio source must never be stopped twice
+                            RecorderState left = machine.moveTo(RecorderState.FINALIZING);
+                            if (left != null) {
+                                mine[left.ordinal()][RecorderState.FINALIZING.ordinal()]++;
+                                if (stopping.incrementAndGet() != 1) {
+                                    failure.compareAndSet(null, "stopped twice");
+                                }
+                                stopping.decrementAndGet();
+                                transition(machine, mine, RecorderState.FINALIZING, RecorderState.IDLE);
+                            }
+                        }
+                        case 4 -> {
+                            RecorderState left = machine.moveTo(RecorderState.ERROR);
+                            if (left != null) {
+                                mine[left.ordinal()][RecorderState.ERROR.ordinal()]++;
+                            }
+                        }
+                        default -> {
+                            RecorderState state = machine.get();
+                            if (state == null) {
+                                failure.compareAndSet(null, "read no state");
+                            }
+                        }
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        go.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertNull(failure.get());
+        // every state was entered as often as it was left, except the first and the last one
+        long total = 0;
+        for (RecorderState state : STATES) {
+            long in = 0;
+            long out = 0;
+            for (RecorderState other : STATES) {
+                for (long[][] mine : counts) {
+                    assertTrue(other + " -> " + state, mine[other.ordinal()][state.ordinal()] == 0 || other.canMoveTo(state));
+                    in += mine[other.ordinal()][state.ordinal()];
+                    out += mine[state.ordinal()][other.ordinal()];
+                }
+            }
+            int expected = (state == machine.get() ? 1 : 0) - (state == RecorderState.IDLE ? 1 : 0);
+            assertEquals(state.name(), expected, in - out);
+            total += in;
+        }
+        assertTrue("only " + total + " transitions", total > 1000);
+    }
+
+    private static boolean transition(RecorderStateMachine machine, long[][] counts, RecorderState from, RecorderState to) {
+        if (machine.transition(from, to)) {
+            counts[from.ordinal()][to.ordinal()]++;
+            return true;
+        }
+        return false;
+    }
+
+    private static RecorderStateMachine machineIn(RecorderState state) {
+        RecorderStateMachine machine = new RecorderStateMachine();
+        switch (state) {
+            case IDLE -> {}
+            case PREPARING -> machine.transition(RecorderState.IDLE, RecorderState.PREPARING);
+            case RECORDING -> {
+                machine.transition(RecorderState.IDLE, RecorderState.PREPARING);
+                machine.transition(RecorderState.PREPARING, RecorderState.RECORDING);
+            }
+            case PAUSED -> {
+                machine.transition(RecorderState.IDLE, RecorderState.PREPARING);
+                machine.transition(RecorderState.PREPARING, RecorderState.RECORDING);
+                machine.transition(RecorderState.RECORDING, RecorderState.PAUSED);
+            }
+            case FINALIZING -> machine.transition(RecorderState.IDLE, RecorderState.FINALIZING);
+            case ERROR -> {
+                machine.transition(RecorderState.IDLE, RecorderState.PREPARING);
+                machine.transition(RecorderState.PREPARING, RecorderState.ERROR);
+            }
+        }
+        assertEquals(state, machine.get());
+        return machine;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException exp) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class RecordingClockTest {
+
+    @Test
+    public void excludesPausedIntervals() {
+        RecordingClock clock = new RecordingClock();
+        clock.start(1_000);
+        clock.pause(3_000);
+        assertEquals(2_000, clock.getDurationMs(10_000));
+        clock.resume(5_000);
+        clock.pause(6_000);
+        clock.resume(6_500);
+        clock.stop(9_000);
+
+        assertEquals(5_500, clock.getDurationMs(20_000));
+    }
+
+    @Test
+    public void stoppingWhilePausedClosesThePause() {
+        RecordingClock clock = new RecordingClock();
+        clock.start(0);
+        clock.pause(1_000);
+        clock.stop(4_000);
+
+        assertEquals(1_000, clock.getDurationMs(4_000));
+    }
+}
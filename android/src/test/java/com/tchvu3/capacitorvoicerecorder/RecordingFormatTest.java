@@ -0,0 +1,24 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class RecordingFormatTest {
+
+    @Test
+    public void parsesKnownValues() {
+        assertEquals(RecordingFormat.WAV, RecordingFormat.fromString("wav", RecordingFormat.AAC_ADTS));
+        assertEquals(RecordingEncoder.HE_AAC, RecordingEncoder.fromString("he_aac", RecordingEncoder.AAC));
+    }
+
+    @Test
+    public void fallsBackForMissingAndUnknownValues() {
+        assertEquals(RecordingFormat.AAC_ADTS, RecordingFormat.fromString(null, RecordingFormat.AAC_ADTS));
+        assertEquals(RecordingFormat.AAC_ADTS, RecordingFormat.fromString("mp3", RecordingFormat.AAC_ADTS));
+        assertNull(RecordingFormat.fromString("mp3", null));
+        assertEquals(RecordingEncoder.AAC, RecordingEncoder.fromString(null, RecordingEncoder.AAC));
+        assertEquals(RecordingEncoder.AAC, RecordingEncoder.fromString("mp3", RecordingEncoder.AAC));
+    }
+}
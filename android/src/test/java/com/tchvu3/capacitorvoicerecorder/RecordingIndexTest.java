@@ -0,0 +1,87 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RecordingIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void listsTheRecordingsOfADirectoryAndReadsThemBack() throws Exception {
+        File state = new File(folder.getRoot(), "index");
+        RecordingIndex index = new RecordingIndex(state);
+        index.add(recording("a.aac", 1000, 10));
+        index.add(recording("notes/b.aac", 2000, 20));
+        index.add(recording("notes/c.aac", 3000, 30));
+
+        assertEquals(1, index.list("DATA", null).size());
+        assertEquals(2, index.list("DATA", "notes").size());
+        assertEquals(0, index.list("CACHE", null).size());
+        assertEquals(3, index.list(null, null).size());
+        assertEquals(5000, index.getUsedBytes("DATA", "notes"));
+
+        assertTrue(index.remove(fileOf("notes/b.aac")));
+        assertFalse(index.remove(fileOf("notes/b.aac")));
+
+        List<IndexedRecording> read = new RecordingIndex(state).list("DATA", "notes");
+        assertEquals(1, read.size());
+        IndexedRecording recording = read.get(0);
+        assertEquals("notes/c.aac", recording.getPath());
+        assertEquals(fileOf("notes/c.aac"), recording.getFile());
+        assertEquals(3000, recording.getSize());
+        assertEquals(3000, recording.getDurationMs());
+        assertEquals(30, recording.getCreatedAtMs());
+        assertEquals(30, recording.getLastUsedAtMs());
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedRecordingsForTheQuota() throws Exception {
+        RecordingIndex index = new RecordingIndex(new File(folder.getRoot(), "index"));
+        index.add(recording("a.aac", 1000, 10));
+        index.add(recording("b.aac", 1000, 20));
+        index.add(recording("c.aac", 1000, 30));
+        index.touch(fileOf("a.aac"), 40);
+        long plenty = Long.MAX_VALUE / 2;
+
+        assertTrue(index.selectEvictions("DATA", null, 500, plenty, 4000, Collections.emptySet()).isEmpty());
+        assertTrue(index.selectEvictions("DATA", null, 500, plenty, 0, Collections.emptySet()).isEmpty());
+
+        List<IndexedRecording> evicted = index.selectEvictions("DATA", null, 1500, plenty, 3500, Collections.emptySet());
+        assertEquals(1, evicted.size());
+        assertEquals("b.aac", evicted.get(0).getPath());
+
+        evicted = index.selectEvictions("DATA", null, 1500, plenty, 3500, Collections.singleton(fileOf("b.aac")));
+        assertEquals("c.aac", evicted.get(0).getPath());
+    }
+
+    @Test
+    public void evictsForFreeSpaceAndGivesUpWhenThatIsNotEnough() throws Exception {
+        RecordingIndex index = new RecordingIndex(new File(folder.getRoot(), "index"));
+        index.add(recording("a.aac", 1000, 10));
+        index.add(recording("b.aac", 1000, 20));
+        index.add(recording("other/c.aac", 5000, 5));
+
+        assertEquals(2, index.selectEvictions("DATA", null, 2500, 800, 0, Collections.emptySet()).size());
+        // recordings of other directories are never picked
+        assertNull(index.selectEvictions("DATA", null, 3000, 800, 0, Collections.emptySet()));
+    }
+
+    private IndexedRecording recording(String path, long size, long createdAtMs) {
+        return new IndexedRecording("DATA", path, fileOf(path), size, size, createdAtMs, createdAtMs);
+    }
+
+    private File fileOf(String path) {
+        return new File(folder.getRoot(), path);
+    }
+}
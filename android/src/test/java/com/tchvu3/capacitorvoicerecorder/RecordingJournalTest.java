@@ -0,0 +1,82 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Test;
+
+public class RecordingJournalTest {
+
+    @Test
+    public void takesThatNeverEndedAreRecoverableAfterARestart() throws Exception {
+        File directory = Files.createTempDirectory("journal").toFile();
+        File journalFile = new File(directory, "journal");
+        File recording = new File(directory, "recording-1.aac");
+        recording.createNewFile();
+
+        RecordingJournal journal = new RecordingJournal(journalFile);
+        journal.begin(new RecoverableRecording("crashed", 1000, recording, "aac", null, null, true));
+        journal.pause("crashed", 2000);
+        journal.resume("crashed", 2500);
+        journal.pause("crashed", 3000);
+        journal.segmentClosed("crashed", 0);
+        journal.begin(new RecoverableRecording("finished", 1100, recording, "wav", "DATA", "takes", false));
+        journal.end("finished");
+        // taken while recording in this process
+        assertTrue(journal.getRecoverable().isEmpty());
+
+        List<RecoverableRecording> recoverable = new RecordingJournal(journalFile).getRecoverable();
+        assertEquals(1, recoverable.size());
+        RecoverableRecording take = recoverable.get(0);
+        assertEquals("crashed", take.getId());
+        assertEquals(1000, take.getStartedAtMs());
+        assertEquals(recording.getAbsoluteFile(), take.getFile());
+        assertEquals("aac", take.getFormat());
+        assertTrue(take.isSegmented());
+        assertEquals(1, take.getClosedSegments());
+        assertEquals(2, take.getPauses().size());
+        assertArrayEquals(new long[] { 2000, 2500 }, take.getPauses().get(0));
+        assertArrayEquals(new long[] { 3000, -1 }, take.getPauses().get(1));
+    }
+
+    @Test
+    public void aRecordCutOffByACrashIsIgnored() throws Exception {
+        File directory = Files.createTempDirectory("journal").toFile();
+        File journalFile = new File(directory, "journal");
+        File recording = new File(directory, "recording-2.wav");
+        recording.createNewFile();
+
+        RecordingJournal journal = new RecordingJournal(journalFile);
+        journal.begin(new RecoverableRecording("take", 1000, recording, "wav", null, null, false));
+        long validLength = journalFile.length();
+        journal.end("take");
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            file.setLength(validLength + 5);
+        }
+
+        RecordingJournal reopened = new RecordingJournal(journalFile);
+        assertEquals("take", reopened.getRecoverable("take").getId());
+        // compacted to the open take only
+        assertEquals(validLength, journalFile.length());
+
+        reopened.end("take");
+        assertNull(new RecordingJournal(journalFile).getRecoverable("take"));
+    }
+
+    @Test
+    public void takesWithoutAFileAreNotRecoverable() throws Exception {
+        File directory = Files.createTempDirectory("journal").toFile();
+        File journalFile = new File(directory, "journal");
+        new RecordingJournal(journalFile).begin(
+            new RecoverableRecording("gone", 1000, new File(directory, "missing.aac"), "aac", null, null, false)
+        );
+
+        assertTrue(new RecordingJournal(journalFile).getRecoverable().isEmpty());
+    }
+}
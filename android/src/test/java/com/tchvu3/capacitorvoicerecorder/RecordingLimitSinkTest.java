@@ -0,0 +1,96 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class RecordingLimitSinkTest {
+
+    @Test
+    public void cutsTheBufferAtTheDurationLimitAndNotifiesOnce() throws Exception {
+        CollectingSink next = new CollectingSink();
+        List<RecordingLimit> reached = new ArrayList<>();
+        RecordingLimitSink sink = new RecordingLimitSink(4, 250, 0, next);
+        sink.setListener(reached::add);
+
+        for (int i = 0; i < 5; i++) {
+            sink.onPcm(frames(100, 4, i));
+        }
+
+        assertEquals(250 * 4, next.bytes.size());
+        assertEquals(250, sink.getPassedFrames());
+        assertTrue(sink.isReached());
+        assertEquals(1, reached.size());
+        assertEquals(RecordingLimit.DURATION, reached.get(0));
+        byte[] written = next.bytes.toByteArray();
+        assertEquals(2, written[written.length - 1]);
+    }
+
+    @Test
+    public void passesEverythingBelowTheLimits() throws Exception {
+        CollectingSink next = new CollectingSink();
+        RecordingLimitSink sink = new RecordingLimitSink(2, 0, 0, next);
+
+        for (int i = 0; i < 10; i++) {
+            sink.onPcm(frames(50, 2, 1));
+        }
+
+        assertEquals(500 * 2, next.bytes.size());
+        assertFalse(sink.isReached());
+    }
+
+    @Test
+    public void reportsTheLimitThatIsReachedFirst() throws Exception {
+        List<RecordingLimit> reached = new ArrayList<>();
+        RecordingLimitSink sink = new RecordingLimitSink(2, 1000, 300, new CollectingSink());
+        sink.setListener(reached::add);
+
+        sink.onPcm(frames(300, 2, 0));
+        sink.onPcm(frames(300, 2, 0));
+
+        assertEquals(300, sink.getPassedFrames());
+        assertEquals(1, reached.size());
+        assertEquals(RecordingLimit.FILE_SIZE, reached.get(0));
+    }
+
+    @Test
+    public void fitsFramesBehindTheHeader() {
+        // one second of 16 kHz mono wav is 32000 bytes after the 44 byte header
+        assertEquals(16000, RecordingLimitSink.framesWithin(32044, 44, 32000, 16000));
+        assertEquals(1, RecordingLimitSink.framesWithin(10, 44, 32000, 16000));
+        assertEquals(0, RecordingLimitSink.framesWithin(0, 44, 32000, 16000));
+    }
+
+    private static ByteBuffer frames(int count, int frameSize, int value) {
+        ByteBuffer buffer = ByteBuffer.allocate(count * frameSize);
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) value);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static class CollectingSink implements PcmSink {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        @Override
+        public void onStart() {}
+
+        @Override
+        public void onPcm(ByteBuffer buffer) {
+            while (buffer.hasRemaining()) {
+                bytes.write(buffer.get());
+            }
+        }
+
+        @Override
+        public void onStop() {}
+    }
+}
@@ -0,0 +1,37 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RecordingMetricsTest {
+
+    @Test
+    public void keepsTheFirstTimeAPhaseIsReached() {
+        RecordingMetrics metrics = new RecordingMetrics("take", "audiorecord", "aac");
+        assertTrue(metrics.mark(RecordingMetrics.Phase.REQUESTED, 1000));
+        assertTrue(metrics.mark(RecordingMetrics.Phase.STARTED, 1040));
+        assertFalse(metrics.mark(RecordingMetrics.Phase.STARTED, 1300));
+
+        assertEquals(1040, metrics.getPhaseMs(RecordingMetrics.Phase.STARTED));
+        assertEquals(40, metrics.getLatencyMs(RecordingMetrics.Phase.REQUESTED, RecordingMetrics.Phase.STARTED));
+    }
+
+    @Test
+    public void latencyIsUnknownUntilBothPhasesAreReached() {
+        RecordingMetrics metrics = new RecordingMetrics("take", "mediarecorder", "mp4");
+        metrics.mark(RecordingMetrics.Phase.STOP_REQUESTED, 5000);
+
+        assertEquals(-1, metrics.getPhaseMs(RecordingMetrics.Phase.STOPPED));
+        assertEquals(-1, metrics.getLatencyMs(RecordingMetrics.Phase.STOP_REQUESTED, RecordingMetrics.Phase.STOPPED));
+        assertEquals(-1, metrics.getCapturedBytes());
+        assertFalse(metrics.isFinished());
+
+        metrics.mark(RecordingMetrics.Phase.STOPPED, 5120);
+        metrics.mark(RecordingMetrics.Phase.FINALIZED, 5400);
+        assertEquals(120, metrics.getLatencyMs(RecordingMetrics.Phase.STOP_REQUESTED, RecordingMetrics.Phase.STOPPED));
+        assertTrue(metrics.isFinished());
+    }
+}
@@ -0,0 +1,54 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import org.junit.Test;
+
+public class RecordingPathsTest {
+
+    @Test
+    public void stripsTheSlashesAroundASubDirectory() {
+        assertEquals("notes/voice", RecordingPaths.normalizeSubDirectory("/notes/voice/"));
+        assertEquals("notes", RecordingPaths.normalizeSubDirectory("notes"));
+        assertNull(RecordingPaths.normalizeSubDirectory("/"));
+        assertNull(RecordingPaths.normalizeSubDirectory(null));
+    }
+
+    @Test
+    public void collapsesRepeatedSlashesOfASubDirectory() {
+        assertEquals("notes/voice", RecordingPaths.normalizeSubDirectory("notes//voice"));
+        assertEquals("notes/voice", RecordingPaths.normalizeSubDirectory("//notes///voice//"));
+        assertNull(RecordingPaths.normalizeSubDirectory("//"));
+    }
+
+    @Test
+    public void findsPathsThatStepUpADirectory() {
+        assertTrue(RecordingPaths.hasParentSegment("../recording.aac"));
+        assertTrue(RecordingPaths.hasParentSegment("/data/files/notes/../../recording.aac"));
+        assertFalse(RecordingPaths.hasParentSegment("notes/recording..aac"));
+        assertFalse(RecordingPaths.hasParentSegment("/data/files/notes/recording.aac"));
+    }
+
+    @Test
+    public void findsFilesBelowADirectory() {
+        File directory = new File("/data/files");
+        assertTrue(RecordingPaths.isInside(new File("/data/files/recording.aac"), directory));
+        assertTrue(RecordingPaths.isInside(new File("/data/files/notes/recording.aac"), directory));
+        assertFalse(RecordingPaths.isInside(new File("/data/files"), directory));
+        assertFalse(RecordingPaths.isInside(new File("/data/files-other/recording.aac"), directory));
+        assertFalse(RecordingPaths.isInside(new File("/data/recording.aac"), directory));
+    }
+
+    @Test
+    public void releasesOnlyRecordingsOfTheCache() {
+        File cache = new File("/data/cache");
+        assertTrue(RecordingPaths.isCachedRecording(new File("/data/cache/recording-123.aac"), cache));
+        assertFalse(RecordingPaths.isCachedRecording(new File("/data/cache/photo.jpg"), cache));
+        assertFalse(RecordingPaths.isCachedRecording(new File("/data/cache/notes/recording-123.aac"), cache));
+        assertFalse(RecordingPaths.isCachedRecording(new File("/data/files/recording-123.aac"), cache));
+    }
+}
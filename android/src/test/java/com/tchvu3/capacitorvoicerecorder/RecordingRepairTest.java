@@ -0,0 +1,54 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class RecordingRepairTest {
+
+    @Test
+    public void cutsAnAdtsStreamAfterTheLastCompleteFrame() throws Exception {
+        byte[] stream = AdtsTestStreams.stream(20, AdtsTestStreams.SAMPLE_RATE_INDEX_16000, 1);
+        byte[] lastFrame = AdtsTestStreams.frame(AdtsTestStreams.SAMPLE_RATE_INDEX_16000, 1, 200, 99);
+        File file = File.createTempFile("recording", ".aac");
+        file.deleteOnExit();
+        byte[] truncated = Arrays.copyOf(stream, stream.length + 50);
+        System.arraycopy(lastFrame, 0, truncated, stream.length, 50);
+        Files.write(file.toPath(), truncated);
+
+        assertEquals(20 * 1024 * 1000 / 16000, RecordingRepair.repairAdts(file));
+        assertArrayEquals(stream, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void completesTheHeaderOfAnUnfinishedWav() throws Exception {
+        File file = File.createTempFile("recording", ".wav");
+        file.deleteOnExit();
+        WavFileSink sink = new WavFileSink(file, 16000, 2);
+        sink.onStart();
+        // the process dies before onStop: the header still has empty sizes, the last frame is incomplete
+        sink.onPcm(ByteBuffer.allocate(6403));
+
+        assertEquals(100, RecordingRepair.repairWav(file));
+        ByteBuffer repaired = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(WavFileSink.HEADER_LENGTH + 6400, repaired.limit());
+        assertEquals(6400 + WavFileSink.HEADER_LENGTH - 8, repaired.getInt(4));
+        assertEquals(6400, repaired.getInt(40));
+    }
+
+    @Test
+    public void leavesFilesThatAreNotWavAlone() throws Exception {
+        File file = File.createTempFile("recording", ".wav");
+        file.deleteOnExit();
+        Files.write(file.toPath(), new byte[10]);
+
+        assertEquals(-1, RecordingRepair.repairWav(file));
+        assertEquals(10, file.length());
+    }
+}
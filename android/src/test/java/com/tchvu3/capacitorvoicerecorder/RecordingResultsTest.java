@@ -0,0 +1,91 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RecordingResultsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void finalizesOffTheCallingThreadInTheOrderTakesWereStopped() throws InterruptedException {
+        Thread caller = Thread.currentThread();
+        List<Integer> finalized = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(3);
+        for (int take = 0; take < 3; take++) {
+            int id = take;
+            RecordingResults.FINALIZATION_EXECUTOR.execute(() -> {
+                try {
+                    // the first take takes longest to finalize, it still completes first
+                    Thread.sleep(30 - id * 10);
+                } catch (InterruptedException exp) {
+                    Thread.currentThread().interrupt();
+                }
+                threads.add(Thread.currentThread());
+                finalized.add(id);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(0, 1, 2), finalized);
+        for (Thread thread : threads) {
+            assertNotEquals(caller, thread);
+            assertEquals("VoiceRecorderFinalizer", thread.getName());
+        }
+    }
+
+    @Test
+    public void buildsNoPayloadForATakeNobodyWaitsFor() throws IOException, MessagesException {
+        RecordOptions options = new RecordOptions(null, null, ReturnMode.BASE64);
+        File file = newRecording();
+
+        RecordData withoutPayload = RecordingResults.toRecordData(file, options, 1000, null, false);
+        assertNull(withoutPayload.getRecordDataBase64());
+        assertNull(withoutPayload.getPayloadId());
+        assertEquals(1000, withoutPayload.getMsDuration());
+
+        RecordData withPayload = RecordingResults.toRecordData(file, options, 1000, null, true);
+        assertNotNull(withPayload.getRecordDataBase64());
+    }
+
+    @Test
+    public void deletesOnlyTheCachedFilesOfTakesThatAreNotKept() {
+        // a take in the cache is deleted once finalized, also when it was stopped without a callback
+        assertFalse(new RecordOptions(null, null, ReturnMode.BASE64).isFileKept());
+        assertFalse(new RecordOptions(null, null, ReturnMode.STREAM).isFileKept());
+        assertTrue(new RecordOptions("DATA", null, ReturnMode.BASE64).isFileKept());
+        assertTrue(new RecordOptions(null, null, ReturnMode.URI).isFileKept());
+
+        RecordOptions segmented = new RecordOptions(null, null, ReturnMode.BASE64);
+        segmented.setSegmentDurationMs(60_000);
+        assertTrue(segmented.isFileKept());
+    }
+
+    private File newRecording() throws IOException {
+        File file = folder.newFile("recording-1.aac");
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(new byte[] { 1, 2, 3, 4, 5 });
+        }
+        return file;
+    }
+}
@@ -0,0 +1,44 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RecordingUploadsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void queuesTheUploadOfATakeStartedOnAPreparedRecorder() throws IOException {
+        RecordOptions prepared = new RecordOptions(null, null, ReturnMode.BASE64);
+        RecordOptions start = new RecordOptions(null, null, ReturnMode.URI);
+        start.setUploadUrl("https://example.com/upload");
+        start.setUploadHeaders(Collections.singletonMap("Authorization", "Bearer token"));
+        assertTrue(prepared.hasSameRecorderSettings(start));
+
+        prepared.applyStartSettings(start);
+        File file = folder.newFile("take.aac");
+        UploadQueue queue = new UploadQueue(new File(folder.getRoot(), "uploads.state"), 4, 1, 4, 10);
+        String id = RecordingUploads.enqueue(queue, file, prepared);
+
+        assertNotNull(id);
+        List<UploadTask> tasks = queue.getTasks();
+        assertEquals(1, tasks.size());
+        assertEquals(id, tasks.get(0).getId());
+        assertEquals(file, tasks.get(0).getFile());
+        assertEquals("https://example.com/upload", tasks.get(0).getUrl());
+        assertEquals("Bearer token", tasks.get(0).getHeaders().get("Authorization"));
+        // the take is returned as a file, the upload must not delete it
+        assertFalse(tasks.get(0).isDeleteWhenDone());
+    }
+}
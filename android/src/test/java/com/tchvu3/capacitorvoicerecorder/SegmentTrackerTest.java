@@ -0,0 +1,94 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class SegmentTrackerTest {
+
+    @Test
+    public void wavSegmentsSplitAtTheDurationWithoutLosingSamples() throws Exception {
+        File first = File.createTempFile("segments", ".wav");
+        SegmentTracker segments = new SegmentTracker(first, 16000, 16000 * 250 / 1000, 0);
+        List<Boolean> lastFlags = new ArrayList<>();
+        segments.setListener((segment, last) -> lastFlags.add(last));
+        WavFileSink sink = new WavFileSink(first, 16000, 1, segments);
+        ByteBuffer block = ByteBuffer.allocateDirect(640).order(ByteOrder.LITTLE_ENDIAN);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+
+        // 1 second in 20ms blocks, which do not line up with the 250ms segments
+        sink.onStart();
+        short sample = 0;
+        for (int i = 0; i < 50; i++) {
+            block.clear();
+            while (block.hasRemaining()) {
+                expected.write(sample & 0xff);
+                expected.write((sample >> 8) & 0xff);
+                block.putShort(sample++);
+            }
+            block.flip();
+            sink.onPcm(block);
+        }
+        sink.onStop();
+
+        List<RecordingSegment> closed = segments.getSegments();
+        assertEquals(4, closed.size());
+        assertEquals(List.of(false, false, false, true), lastFlags);
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        for (int i = 0; i < closed.size(); i++) {
+            RecordingSegment segment = closed.get(i);
+            File file = segment.getFile();
+            file.deleteOnExit();
+            assertEquals(SegmentTracker.segmentFile(first, i), file);
+            assertEquals(i * 250, segment.getStartMs());
+            assertEquals(250, segment.getDurationMs());
+            assertEquals(file.length(), segment.getSizeBytes());
+
+            ByteBuffer written = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(8000, written.getInt(40));
+            joined.write(written.array(), WavFileSink.HEADER_LENGTH, written.limit() - WavFileSink.HEADER_LENGTH);
+        }
+        assertArrayEquals(expected.toByteArray(), joined.toByteArray());
+        assertEquals(1000, segments.getDurationMs());
+    }
+
+    @Test
+    public void rollsBeforeAFrameThatWouldExceedTheSize() {
+        SegmentTracker segments = new SegmentTracker(new File("/tmp/take.aac"), 44100, 0, 1000);
+        int frames = 0;
+        for (int i = 0; i < 10; i++) {
+            if (!segments.fits(1024, 300)) {
+                assertEquals(new File("/tmp/take-" + (i / 3) + ".aac"), segments.roll());
+            }
+            segments.add(1024, 300);
+            frames++;
+        }
+        segments.finish();
+        segments.finish();
+
+        List<RecordingSegment> closed = segments.getSegments();
+        assertEquals(4, closed.size());
+        assertEquals(900, closed.get(0).getSizeBytes());
+        assertEquals(300, closed.get(3).getSizeBytes());
+        assertEquals(frames * 1024L * 1000 / 44100, segments.getDurationMs());
+    }
+
+    @Test
+    public void aUnitAlwaysFitsAnEmptySegment() {
+        SegmentTracker segments = new SegmentTracker(new File("take.aac"), 44100, 512, 100);
+        assertTrue(segments.fits(1024, 400));
+        segments.add(1024, 400);
+        assertFalse(segments.fits(1024, 1));
+        assertEquals(0, segments.getRemainingSamples());
+    }
+}
@@ -0,0 +1,131 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import org.junit.Test;
+
+public class StreamingBase64EncoderTest {
+
+    @Test
+    public void encodesLikeAndroidDefaultFlags() throws Exception {
+        Random random = new Random(42);
+        for (int length : new int[] { 0, 1, 2, 3, 56, 57, 58, 114, 1000, 3 * 4096, 3 * 4096 + 1, 100_000 }) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            byte[] separator = "\n".getBytes(StandardCharsets.US_ASCII);
+            String mime = Base64.getMimeEncoder(StreamingBase64Encoder.LINE_LENGTH, separator).encodeToString(data);
+            String expected = length == 0 ? "" : mime + "\n";
+
+            StringWriter writer = new StringWriter();
+            long read = new StreamingBase64Encoder(true).encode(new ByteArrayInputStream(data), writer);
+
+            assertEquals(length, read);
+            assertEquals("length " + length, expected, writer.toString());
+            assertEquals(expected.length(), StreamingBase64Encoder.encodedLength(length, true));
+        }
+    }
+
+    @Test
+    public void encodesWithoutLineWrapping() throws Exception {
+        byte[] data = new byte[10_001];
+        new Random(7).nextBytes(data);
+        StringWriter writer = new StringWriter();
+        new StreamingBase64Encoder(300, false).encode(new ByteArrayInputStream(data), writer);
+
+        assertEquals(Base64.getEncoder().encodeToString(data), writer.toString());
+        assertEquals(writer.toString().length(), StreamingBase64Encoder.encodedLength(data.length, false));
+    }
+
+    @Test
+    public void shortReadsDoNotCorruptOutput() throws Exception {
+        byte[] data = new byte[5000];
+        new Random(1).nextBytes(data);
+        InputStream trickle = new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        StringWriter writer = new StringWriter();
+        new StreamingBase64Encoder(true).encode(trickle, writer);
+
+        StringWriter reference = new StringWriter();
+        new StreamingBase64Encoder(true).encode(new ByteArrayInputStream(data), reference);
+        assertEquals(reference.toString(), writer.toString());
+    }
+
+    @Test
+    public void allocationDoesNotGrowWithInputSize() throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        allocatedWhileEncoding(threadBean, 1 << 20);
+        long small = allocatedWhileEncoding(threadBean, 1 << 20);
+        long large = allocatedWhileEncoding(threadBean, 32 << 20);
+
+        assertTrue("small: " + small + " large: " + large, large - small < 16 * 1024);
+        assertTrue("encoder allocated " + large + " bytes", large < 256 * 1024);
+    }
+
+    private static long allocatedWhileEncoding(com.sun.management.ThreadMXBean threadBean, long size) throws IOException {
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        new StreamingBase64Encoder(true).encode(new GeneratedInputStream(size), new DiscardingWriter());
+        return threadBean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private static class GeneratedInputStream extends InputStream {
+
+        private long remaining;
+
+        GeneratedInputStream(long size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() {
+            return remaining-- > 0 ? (int) (remaining & 0xff) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = (int) Math.min(len, remaining);
+            for (int i = 0; i < count; i++) {
+                b[off + i] = (byte) (remaining - i);
+            }
+            remaining -= count;
+            return count;
+        }
+    }
+
+    private static class DiscardingWriter extends Writer {
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {}
+
+        @Override
+        public void write(int c) {}
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
@@ -0,0 +1,217 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class UploadQueueTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private final List<byte[]> bodies = new CopyOnWriteArrayList<>();
+    private final List<String> contentTypes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private volatile IntSupplier status = () -> 200;
+    private volatile long responseDelayMs;
+    private final BlockingQueue<Finished> finished = new LinkedBlockingQueue<>();
+    private final List<long[]> progress = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/upload", exchange -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try (InputStream body = exchange.getRequestBody()) {
+                bodies.add("PUT".equals(exchange.getRequestMethod()) ? readAll(body) : new byte[0]);
+                contentTypes.add(exchange.getRequestHeaders().getFirst("Content-Type"));
+                Thread.sleep(responseDelayMs);
+                exchange.sendResponseHeaders(status.getAsInt(), -1);
+            } catch (InterruptedException exp) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void streamsTheFileAndDeletesItWhenDone() throws Exception {
+        byte[] content = content(300_000);
+        File file = write("take.aac", content);
+        UploadQueue queue = newQueue(4, 2);
+        queue.start();
+
+        assertTrue(queue.enqueue(new UploadTask("a", file, url(), "audio/aac", null, true)));
+        Finished result = finished.poll(5, TimeUnit.SECONDS);
+
+        assertEquals("a", result.id);
+        assertEquals(200, result.responseCode);
+        assertNull(result.error);
+        assertArrayEquals(content, bodies.get(0));
+        assertEquals("audio/aac", contentTypes.get(0));
+        assertEquals(content.length, progress.get(progress.size() - 1)[0]);
+        assertFalse(file.exists());
+        assertTrue(queue.getTasks().isEmpty());
+        queue.close();
+    }
+
+    @Test
+    public void retriesServerErrorsButNotClientErrors() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        status = () -> requests.incrementAndGet() <= 2 ? 503 : 201;
+        UploadQueue queue = newQueue(4, 1);
+        queue.start();
+
+        queue.enqueue(new UploadTask("retried", write("a.aac", content(10)), url(), null, null, false));
+        Finished retried = finished.poll(5, TimeUnit.SECONDS);
+        assertEquals(201, retried.responseCode);
+        assertNull(retried.error);
+        assertEquals(3, requests.get());
+
+        status = () -> 403;
+        File rejected = write("b.aac", content(10));
+        queue.enqueue(new UploadTask("rejected", rejected, url(), null, null, true));
+        Finished failed = finished.poll(5, TimeUnit.SECONDS);
+        assertEquals(403, failed.responseCode);
+        assertTrue(failed.error != null);
+        assertTrue("a failed upload keeps its file", rejected.exists());
+        assertEquals(4, bodies.size());
+        queue.close();
+    }
+
+    @Test
+    public void boundsTheQueueAndTheConcurrentUploads() throws Exception {
+        responseDelayMs = 200;
+        UploadQueue queue = newQueue(3, 2);
+        queue.start();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.enqueue(new UploadTask("t" + i, write(i + ".aac", content(1000)), url(), null, null, false)));
+        }
+        assertTrue(queue.isFull());
+        assertFalse(queue.enqueue(new UploadTask("t3", write("3.aac", content(1000)), url(), null, null, false)));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, finished.poll(5, TimeUnit.SECONDS).responseCode);
+        }
+        assertEquals(2, maxActive.get());
+        assertFalse(queue.isFull());
+        queue.close();
+    }
+
+    @Test
+    public void pendingUploadsSurviveARestart() throws Exception {
+        File file = write("take.aac", content(5000));
+        UploadQueue first = newQueue(4, 1);
+        first.enqueue(new UploadTask("kept", file, url(), "audio/aac", Collections.singletonMap("Authorization", "Bearer x"), false));
+        first.close();
+        assertTrue(bodies.isEmpty());
+
+        UploadQueue second = newQueue(4, 1);
+        UploadTask restored = second.getTasks().get(0);
+        assertEquals("kept", restored.getId());
+        assertEquals(file.getAbsolutePath(), restored.getFile().getAbsolutePath());
+        assertEquals("Bearer x", restored.getHeaders().get("Authorization"));
+
+        second.start();
+        assertEquals(200, finished.poll(5, TimeUnit.SECONDS).responseCode);
+        assertEquals(5000, bodies.get(0).length);
+        assertTrue(newQueue(4, 1).getTasks().isEmpty());
+        second.close();
+    }
+
+    private UploadQueue newQueue(int maxQueued, int concurrency) throws IOException {
+        UploadQueue queue = new UploadQueue(new File(folder.getRoot(), "uploads.state"), maxQueued, concurrency, 4, 10);
+        queue.setListener(
+            new UploadQueue.Listener() {
+                @Override
+                public void onProgress(UploadTask task, long sentBytes, long totalBytes) {
+                    progress.add(new long[] { sentBytes, totalBytes });
+                }
+
+                @Override
+                public void onFinished(UploadTask task, int responseCode, Exception error) {
+                    finished.add(new Finished(task.getId(), responseCode, error));
+                }
+            }
+        );
+        return queue;
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/upload";
+    }
+
+    private File write(String name, byte[] content) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(content);
+        }
+        return file;
+    }
+
+    private static byte[] content(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        return bytes;
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+    private static class Finished {
+
+        final String id;
+        final int responseCode;
+        final Exception error;
+
+        Finished(String id, int responseCode, Exception error) {
+            this.id = id;
+            this.responseCode = responseCode;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import org.junit.Test;
+
+public class VoiceActivityDetectorTest {
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final int FRAME_MS = 20;
+
+    @Test
+    public void switchesToSpeechAfterTheAttackAndBackAfterTheHangover() {
+        VoiceActivityDetector detector = new VoiceActivityDetector(SAMPLE_RATE, 1, -45f, 40, 100);
+
+        assertFalse(detector.process(tone(0.3)));
+        assertTrue(detector.isAttacking());
+        assertTrue(detector.process(tone(0.3)));
+
+        // 80ms of silence is a pause between words, 100ms ends the speech
+        for (int i = 0; i < 4; i++) {
+            assertTrue(detector.process(silence()));
+        }
+        assertFalse(detector.process(silence()));
+    }
+
+    @Test
+    public void ignoresNoiseShorterThanTheAttack() {
+        VoiceActivityDetector detector = new VoiceActivityDetector(SAMPLE_RATE, 1, -45f, 60, 100);
+
+        detector.process(tone(0.3));
+        detector.process(tone(0.3));
+        assertFalse(detector.process(silence()));
+        assertFalse(detector.isAttacking());
+        assertFalse(detector.process(tone(0.3)));
+    }
+
+    @Test
+    public void treatsQuietHissAsUnvoicedSpeech() {
+        VoiceActivityDetector detector = new VoiceActivityDetector(SAMPLE_RATE, 1, -30f, 0, 100);
+
+        // about -34 dBFS: below the threshold, but with the zero-crossing rate of a fricative
+        assertTrue(detector.process(alternating(0.02)));
+        assertTrue(detector.getLastZeroCrossingRate() > 0.9f);
+
+        VoiceActivityDetector hum = new VoiceActivityDetector(SAMPLE_RATE, 1, -30f, 0, 100);
+        assertFalse(hum.process(tone(0.02)));
+    }
+
+    @Test
+    public void trimmingSinkKeepsSpeechWithItsAttack() throws Exception {
+        VoiceActivityDetector detector = new VoiceActivityDetector(SAMPLE_RATE, 1, -45f, 40, 100);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        int frameBytes = SAMPLE_RATE * FRAME_MS / 1000 * 2;
+        SilenceTrimmingSink sink = new SilenceTrimmingSink(detector, new CollectingSink(written), SAMPLE_RATE * 2, 40, frameBytes);
+
+        sink.onStart();
+        for (int i = 0; i < 10; i++) {
+            sink.onPcm(silence());
+        }
+        for (int i = 0; i < 10; i++) {
+            sink.onPcm(tone(0.3));
+        }
+        for (int i = 0; i < 25; i++) {
+            sink.onPcm(silence());
+        }
+        sink.onStop();
+
+        // the speech including its held back first frame, and the 80ms of silence before the hangover ran out
+        assertEquals(280, sink.getKeptDurationMs());
+        assertEquals(620, sink.getTrimmedDurationMs());
+        assertEquals(280 * SAMPLE_RATE / 1000 * 2, written.size());
+    }
+
+    private static ByteBuffer tone(double amplitude) {
+        ByteBuffer buffer = frame();
+        for (int i = 0; i < buffer.capacity() / 2; i++) {
+            buffer.putShort((short) (amplitude * 32767 * Math.sin(2 * Math.PI * 200 * i / SAMPLE_RATE)));
+        }
+        return buffer.flip();
+    }
+
+    private static ByteBuffer alternating(double amplitude) {
+        ByteBuffer buffer = frame();
+        Random random = new Random(3);
+        for (int i = 0; i < buffer.capacity() / 2; i++) {
+            double jitter = 0.8 + 0.4 * random.nextDouble();
+            buffer.putShort((short) ((i % 2 == 0 ? 1 : -1) * amplitude * jitter * 32767));
+        }
+        return buffer.flip();
+    }
+
+    private static ByteBuffer silence() {
+        ByteBuffer buffer = frame();
+        buffer.position(buffer.capacity());
+        return buffer.flip();
+    }
+
+    private static ByteBuffer frame() {
+        return ByteBuffer.allocate(SAMPLE_RATE * FRAME_MS / 1000 * 2).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static class CollectingSink implements PcmSink {
+
+        private final ByteArrayOutputStream out;
+
+        CollectingSink(ByteArrayOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void onStart() {}
+
+        @Override
+        public void onPcm(ByteBuffer buffer) {
+            while (buffer.hasRemaining()) {
+                out.write(buffer.get());
+            }
+        }
+
+        @Override
+        public void onStop() {}
+    }
+}
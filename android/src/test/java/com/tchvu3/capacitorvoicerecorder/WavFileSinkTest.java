@@ -0,0 +1,69 @@
+package com.tchvu3.capacitorvoicerecorder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class WavFileSinkTest {
+
+    @Test
+    public void writesHeaderAndSamples() throws Exception {
+        File file = File.createTempFile("wav-sink", ".wav");
+        file.deleteOnExit();
+        WavFileSink sink = new WavFileSink(file, 16000, 1);
+        ByteBuffer samples = ByteBuffer.allocateDirect(3200).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 1600; i++) {
+            samples.putShort((short) i);
+        }
+
+        sink.onStart();
+        for (int i = 0; i < 10; i++) {
+            samples.position(0).limit(3200);
+            sink.onPcm(samples);
+        }
+        sink.onStop();
+
+        ByteBuffer written = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(WavFileSink.HEADER_LENGTH + 32000, written.limit());
+        assertEquals(0x46464952, written.getInt(0));
+        assertEquals(32000 + WavFileSink.HEADER_LENGTH - 8, written.getInt(4));
+        assertEquals(16000, written.getInt(24));
+        assertEquals(32000, written.getInt(28));
+        assertEquals(32000, written.getInt(40));
+        assertEquals(5, written.getShort(WavFileSink.HEADER_LENGTH + 10));
+        assertEquals(1000, WavFileSink.durationMs(written.limit(), 16000, 1));
+    }
+
+    @Test
+    public void appliesAGainInPlace() throws Exception {
+        File file = File.createTempFile("wav-gain", ".wav");
+        file.deleteOnExit();
+        WavFileSink sink = new WavFileSink(file, 16000, 2);
+        ByteBuffer samples = ByteBuffer.allocateDirect(4000).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 1000; i++) {
+            samples.putShort((short) 1000).putShort((short) -500);
+        }
+        samples.flip();
+        sink.onStart();
+        sink.onPcm(samples);
+        sink.onStop();
+        byte[] header = Arrays.copyOf(Files.readAllBytes(file.toPath()), WavFileSink.HEADER_LENGTH);
+
+        // blocks that do not divide the data, so the last one is short
+        WavFileSink.applyGain(file, 2, new GainStage(16000, 2, 6.0206f, GainStage.DEFAULT_CEILING_DB, 200), 300);
+
+        ByteBuffer written = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(WavFileSink.HEADER_LENGTH + 4000, written.limit());
+        assertArrayEquals(header, Arrays.copyOf(written.array(), WavFileSink.HEADER_LENGTH));
+        for (int offset = WavFileSink.HEADER_LENGTH; offset < written.limit(); offset += 4) {
+            assertEquals(2000, written.getShort(offset));
+            assertEquals(-1000, written.getShort(offset + 2));
+        }
+    }
+}
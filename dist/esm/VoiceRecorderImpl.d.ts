@@ -1,4 +1,4 @@
-import type { CurrentRecordingStatus, GenericResponse, RecordingData, RecordingOptions } from './definitions';
+import type { CurrentRecordingStatus, GenericResponse, RecordingData, RecordingOptions, ReleaseRecordingOptions, StopRecordingOptions } from './definitions';
 declare const POSSIBLE_MIME_TYPES: {
     'audio/aac': string;
     'audio/mp4': string;
@@ -10,11 +10,13 @@ export declare class VoiceRecorderImpl {
     private mediaRecorder;
     private chunks;
     private pendingResult;
+    private stopReturnMode;
     static canDeviceVoiceRecord(): Promise<GenericResponse>;
     startRecording(options?: RecordingOptions): Promise<GenericResponse>;
-    stopRecording(): Promise<RecordingData>;
+    stopRecording(options?: StopRecordingOptions): Promise<RecordingData>;
     static hasAudioRecordingPermission(): Promise<GenericResponse>;
     static requestAudioRecordingPermission(): Promise<GenericResponse>;
+    static releaseRecording(options: ReleaseRecordingOptions): Promise<GenericResponse>;
     pauseRecording(): Promise<GenericResponse>;
     resumeRecording(): Promise<GenericResponse>;
     getCurrentStatus(): Promise<CurrentRecordingStatus>;
@@ -1,7 +1,7 @@
 import write_blob from 'capacitor-blob-writer';
 import getBlobDuration from 'get-blob-duration';
 import { RecordingStatus } from './definitions';
-import { alreadyRecordingError, couldNotQueryPermissionStatusError, deviceCannotVoiceRecordError, emptyRecordingError, failedToFetchRecordingError, failedToRecordError, failureResponse, missingPermissionError, recordingHasNotStartedError, successResponse, } from './predefined-web-responses';
+import { alreadyRecordingError, couldNotQueryPermissionStatusError, deviceCannotVoiceRecordError, emptyRecordingError, failedToFetchRecordingError, failedToRecordError, failureResponse, invalidPathError, missingPermissionError, recordingHasNotStartedError, successResponse, } from './predefined-web-responses';
 // these mime types will be checked one by one in order until one of them is found to be supported by the current browser
 const POSSIBLE_MIME_TYPES = {
     'audio/aac': '.aac',
@@ -43,11 +43,12 @@ export class VoiceRecorderImpl {
             .then((stream) => this.onSuccessfullyStartedRecording(stream, options))
             .catch(this.onFailedToStartRecording.bind(this));
     }
-    async stopRecording() {
+    async stopRecording(options) {
         if (this.mediaRecorder == null) {
             throw recordingHasNotStartedError();
         }
         try {
+            this.stopReturnMode = options === null || options === void 0 ? void 0 : options.returnMode;
             this.mediaRecorder.stop();
             this.mediaRecorder.stream.getTracks().forEach((track) => track.stop());
             return this.pendingResult;
@@ -88,6 +89,14 @@ export class VoiceRecorderImpl {
             .then(() => successResponse())
             .catch(() => failureResponse());
     }
+    static async releaseRecording(options) {
+        var _a;
+        if (!((_a = options === null || options === void 0 ? void 0 : options.path) === null || _a === void 0 ? void 0 : _a.startsWith('blob:'))) {
+            throw invalidPathError();
+        }
+        URL.revokeObjectURL(options.path);
+        return successResponse();
+    }
     pauseRecording() {
         if (this.mediaRecorder == null) {
             throw recordingHasNotStartedError();
@@ -140,7 +149,7 @@ export class VoiceRecorderImpl {
                 reject(failedToRecordError());
             };
             this.mediaRecorder.onstop = async () => {
-                var _a, _b, _c;
+                var _a, _b, _c, _d, _e;
                 const mimeType = VoiceRecorderImpl.getSupportedMimeType();
                 if (mimeType == null) {
                     this.prepareInstanceForNextOperation();
@@ -154,9 +163,11 @@ export class VoiceRecorderImpl {
                     return;
                 }
                 let path;
+                let uri;
                 let recordDataBase64;
-                if (options != null) {
-                    const subDirectory = (_c = (_b = (_a = options.subDirectory) === null || _a === void 0 ? void 0 : _a.match(/^\/?(.+[^/])\/?$/)) === null || _b === void 0 ? void 0 : _b[1]) !== null && _c !== void 0 ? _c : '';
+                const returnMode = (_b = (_a = this.stopReturnMode) !== null && _a !== void 0 ? _a : options === null || options === void 0 ? void 0 : options.returnMode) !== null && _b !== void 0 ? _b : 'base64';
+                if ((options === null || options === void 0 ? void 0 : options.directory) != null) {
+                    const subDirectory = (_e = (_d = (_c = options.subDirectory) === null || _c === void 0 ? void 0 : _c.match(/^\/?(.+[^/])\/?$/)) === null || _d === void 0 ? void 0 : _d[1]) !== null && _e !== void 0 ? _e : '';
                     path = `${subDirectory}/recording-${new Date().getTime()}${POSSIBLE_MIME_TYPES[mimeType]}`;
                     await write_blob({
                         blob: blobVoiceRecording,
@@ -166,12 +177,16 @@ export class VoiceRecorderImpl {
                         recursive: true,
                     });
                 }
+                else if (returnMode === 'uri') {
+                    uri = URL.createObjectURL(blobVoiceRecording);
+                    path = uri;
+                }
                 else {
                     recordDataBase64 = await VoiceRecorderImpl.blobToBase64(blobVoiceRecording);
                 }
                 const recordingDuration = await getBlobDuration(blobVoiceRecording);
                 this.prepareInstanceForNextOperation();
-                resolve({ value: { recordDataBase64, mimeType, msDuration: recordingDuration * 1000, path } });
+                resolve({ value: { recordDataBase64, mimeType, msDuration: recordingDuration * 1000, path, uri } });
             };
             this.mediaRecorder.ondataavailable = (event) => this.chunks.push(event.data);
             this.mediaRecorder.start();
@@ -1,4 +1,5 @@
 import type { VoiceRecorderPlugin } from './definitions';
 declare const VoiceRecorder: VoiceRecorderPlugin;
 export * from './definitions';
+export * from './payload';
 export { VoiceRecorder };
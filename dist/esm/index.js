@@ -3,5 +3,6 @@ const VoiceRecorder = registerPlugin('VoiceRecorder', {
     web: () => import('./web').then((m) => new m.VoiceRecorderWeb()),
 });
 export * from './definitions';
+export * from './payload';
 export { VoiceRecorder };
 //# sourceMappingURL=index.js.map
\ No newline at end of file
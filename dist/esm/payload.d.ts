@@ -0,0 +1,11 @@
+import type { RecordingData, StopRecordingOptions, VoiceRecorderPlugin } from './definitions';
+export interface RecordingBlob {
+    blob: Blob;
+    data: RecordingData['value'];
+}
+/**
+ * Stops a recording with `returnMode: 'stream'` and joins the `recordingPayload` events into a `Blob`, so a large
+ * recording never crosses the bridge as a single string. Where the recording is returned as `recordDataBase64`
+ * instead (web and iOS), that is decoded.
+ */
+export declare function stopRecordingAsBlob(plugin: VoiceRecorderPlugin, options?: StopRecordingOptions): Promise<RecordingBlob>;
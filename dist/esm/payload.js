@@ -0,0 +1,44 @@
+/**
+ * Stops a recording with `returnMode: 'stream'` and joins the `recordingPayload` events into a `Blob`, so a large
+ * recording never crosses the bridge as a single string. Where the recording is returned as `recordDataBase64`
+ * instead (web and iOS), that is decoded.
+ */
+export async function stopRecordingAsBlob(plugin, options) {
+    var _a;
+    const pieces = new Map();
+    // the events of a payload are sent before stopRecording resolves
+    const handle = await plugin.addListener('recordingPayload', (piece) => {
+        let parts = pieces.get(piece.payloadId);
+        if (parts === undefined) {
+            parts = [];
+            pieces.set(piece.payloadId, parts);
+        }
+        parts[piece.sequence] = base64ToBytes(piece.data);
+    });
+    try {
+        const { value } = await plugin.stopRecording(Object.assign(Object.assign({}, options), { returnMode: 'stream' }));
+        if (value.payloadId !== undefined) {
+            const parts = (_a = pieces.get(value.payloadId)) !== null && _a !== void 0 ? _a : [];
+            if (parts.length === 0 || parts.some((part) => part === undefined)) {
+                throw new Error('Pieces of the recording are missing.');
+            }
+            return { blob: new Blob(parts, { type: value.mimeType }), data: value };
+        }
+        if (value.recordDataBase64 !== undefined) {
+            return { blob: new Blob([base64ToBytes(value.recordDataBase64)], { type: value.mimeType }), data: value };
+        }
+        throw new Error('The recording was saved to a file, read it from its path instead.');
+    }
+    finally {
+        await handle.remove();
+    }
+}
+function base64ToBytes(data) {
+    const binary = atob(data);
+    const bytes = new Uint8Array(binary.length);
+    for (let i = 0; i < binary.length; i++) {
+        bytes[i] = binary.charCodeAt(i);
+    }
+    return bytes;
+}
+//# sourceMappingURL=payload.js.map
\ No newline at end of file
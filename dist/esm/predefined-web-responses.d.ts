@@ -9,4 +9,5 @@ export declare const failedToRecordError: () => Error;
 export declare const emptyRecordingError: () => Error;
 export declare const recordingHasNotStartedError: () => Error;
 export declare const failedToFetchRecordingError: () => Error;
+export declare const invalidPathError: () => Error;
 export declare const couldNotQueryPermissionStatusError: () => Error;
@@ -8,5 +8,6 @@ export const failedToRecordError = () => new Error('FAILED_TO_RECORD');
 export const emptyRecordingError = () => new Error('EMPTY_RECORDING');
 export const recordingHasNotStartedError = () => new Error('RECORDING_HAS_NOT_STARTED');
 export const failedToFetchRecordingError = () => new Error('FAILED_TO_FETCH_RECORDING');
+export const invalidPathError = () => new Error('INVALID_PATH');
 export const couldNotQueryPermissionStatusError = () => new Error('COULD_NOT_QUERY_PERMISSION_STATUS');
 //# sourceMappingURL=predefined-web-responses.js.map
\ No newline at end of file
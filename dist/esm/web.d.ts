@@ -1,13 +1,26 @@
 import { WebPlugin } from '@capacitor/core';
-import type { CurrentRecordingStatus, GenericResponse, RecordingData, RecordingOptions, VoiceRecorderPlugin } from './definitions';
+import type { CurrentRecordingStatus, GenericResponse, RecordingData, RecordingList, RecordingMetricsList, RecordingOptions, RecoverableRecordings, ReleaseRecordingOptions, StopRecordingOptions, VoiceRecorderPlugin, WaveformData } from './definitions';
 export declare class VoiceRecorderWeb extends WebPlugin implements VoiceRecorderPlugin {
     private voiceRecorderInstance;
     canDeviceVoiceRecord(): Promise<GenericResponse>;
     hasAudioRecordingPermission(): Promise<GenericResponse>;
     requestAudioRecordingPermission(): Promise<GenericResponse>;
+    prepareRecording(): Promise<GenericResponse>;
+    armRecording(): Promise<GenericResponse>;
+    disarmRecording(): Promise<GenericResponse>;
     startRecording(options?: RecordingOptions): Promise<GenericResponse>;
-    stopRecording(): Promise<RecordingData>;
+    stopRecording(options?: StopRecordingOptions): Promise<RecordingData>;
     pauseRecording(): Promise<GenericResponse>;
     resumeRecording(): Promise<GenericResponse>;
     getCurrentStatus(): Promise<CurrentRecordingStatus>;
+    releaseRecording(options: ReleaseRecordingOptions): Promise<GenericResponse>;
+    getWaveform(): Promise<WaveformData>;
+    trimRecording(): Promise<RecordingData>;
+    concatRecordings(): Promise<RecordingData>;
+    transcodeRecording(): Promise<RecordingData>;
+    listRecordings(): Promise<RecordingList>;
+    deleteRecording(): Promise<GenericResponse>;
+    listRecoverableRecordings(): Promise<RecoverableRecordings>;
+    recoverRecording(): Promise<RecordingData>;
+    getMetrics(): Promise<RecordingMetricsList>;
 }
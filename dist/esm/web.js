@@ -14,11 +14,20 @@ export class VoiceRecorderWeb extends WebPlugin {
     requestAudioRecordingPermission() {
         return VoiceRecorderImpl.requestAudioRecordingPermission();
     }
+    async prepareRecording() {
+        throw this.unimplemented('Not implemented on web.');
+    }
+    async armRecording() {
+        throw this.unimplemented('Not implemented on web.');
+    }
+    async disarmRecording() {
+        throw this.unimplemented('Not implemented on web.');
+    }
     startRecording(options) {
         return this.voiceRecorderInstance.startRecording(options);
     }
-    stopRecording() {
-        return this.voiceRecorderInstance.stopRecording();
+    stopRecording(options) {
+        return this.voiceRecorderInstance.stopRecording(options);
     }
     pauseRecording() {
         return this.voiceRecorderInstance.pauseRecording();
@@ -29,5 +38,35 @@ export class VoiceRecorderWeb extends WebPlugin {
     getCurrentStatus() {
         return this.voiceRecorderInstance.getCurrentStatus();
     }
+    releaseRecording(options) {
+        return VoiceRecorderImpl.releaseRecording(options);
+    }
+    async getWaveform() {
+        throw this.unimplemented('Not implemented on web.');
+    }
+    async trimRecording() {
+        throw this.unimplemented('Not implemented on web.');
+    }
+    async concatRecordings() {
+        throw this.unimplemented('Not implemented on web.');
+    }
+    async transcodeRecording() {
+        throw this.unimplemented('Not implemented on web.');
+    }
+    async listRecordings() {
+        throw this.unimplemented('Not implemented on web.');
+    }
+    async deleteRecording() {
+        throw this.unimplemented('Not implemented on web.');
+    }
+    async listRecoverableRecordings() {
+        throw this.unimplemented('Not implemented on web.');
+    }
+    async recoverRecording() {
+        throw this.unimplemented('Not implemented on web.');
+    }
+    async getMetrics() {
+        throw this.unimplemented('Not implemented on web.');
+    }
 }
 //# sourceMappingURL=web.js.map
\ No newline at end of file
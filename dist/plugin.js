@@ -7,6 +7,50 @@ var capacitorVoiceRecorder = (function (exports, core, write_blob, getBlobDurati
         NONE: 'NONE',
     };
 
+    /**
+     * Stops a recording with `returnMode: 'stream'` and joins the `recordingPayload` events into a `Blob`, so a large
+     * recording never crosses the bridge as a single string. Where the recording is returned as `recordDataBase64`
+     * instead (web and iOS), that is decoded.
+     */
+    async function stopRecordingAsBlob(plugin, options) {
+        var _a;
+        const pieces = new Map();
+        // the events of a payload are sent before stopRecording resolves
+        const handle = await plugin.addListener('recordingPayload', (piece) => {
+            let parts = pieces.get(piece.payloadId);
+            if (parts === undefined) {
+                parts = [];
+                pieces.set(piece.payloadId, parts);
+            }
+            parts[piece.sequence] = base64ToBytes(piece.data);
+        });
+        try {
+            const { value } = await plugin.stopRecording(Object.assign(Object.assign({}, options), { returnMode: 'stream' }));
+            if (value.payloadId !== undefined) {
+                const parts = (_a = pieces.get(value.payloadId)) !== null && _a !== void 0 ? _a : [];
+                if (parts.length === 0 || parts.some((part) => part === undefined)) {
+                    throw new Error('Pieces of the recording are missing.');
+                }
+                return { blob: new Blob(parts, { type: value.mimeType }), data: value };
+            }
+            if (value.recordDataBase64 !== undefined) {
+                return { blob: new Blob([base64ToBytes(value.recordDataBase64)], { type: value.mimeType }), data: value };
+            }
+            throw new Error('The recording was saved to a file, read it from its path instead.');
+        }
+        finally {
+            await handle.remove();
+        }
+    }
+    function base64ToBytes(data) {
+        const binary = atob(data);
+        const bytes = new Uint8Array(binary.length);
+        for (let i = 0; i < binary.length; i++) {
+            bytes[i] = binary.charCodeAt(i);
+        }
+        return bytes;
+    }
+
     const VoiceRecorder = core.registerPlugin('VoiceRecorder', {
         web: () => Promise.resolve().then(function () { return web; }).then((m) => new m.VoiceRecorderWeb()),
     });
@@ -20,6 +64,7 @@ var capacitorVoiceRecorder = (function (exports, core, write_blob, getBlobDurati
     const emptyRecordingError = () => new Error('EMPTY_RECORDING');
     const recordingHasNotStartedError = () => new Error('RECORDING_HAS_NOT_STARTED');
     const failedToFetchRecordingError = () => new Error('FAILED_TO_FETCH_RECORDING');
+    const invalidPathError = () => new Error('INVALID_PATH');
     const couldNotQueryPermissionStatusError = () => new Error('COULD_NOT_QUERY_PERMISSION_STATUS');
 
     // these mime types will be checked one by one in order until one of them is found to be supported by the current browser
@@ -63,11 +108,12 @@ var capacitorVoiceRecorder = (function (exports, core, write_blob, getBlobDurati
                 .then((stream) => this.onSuccessfullyStartedRecording(stream, options))
                 .catch(this.onFailedToStartRecording.bind(this));
         }
-        async stopRecording() {
+        async stopRecording(options) {
             if (this.mediaRecorder == null) {
                 throw recordingHasNotStartedError();
             }
             try {
+                this.stopReturnMode = options === null || options === void 0 ? void 0 : options.returnMode;
                 this.mediaRecorder.stop();
                 this.mediaRecorder.stream.getTracks().forEach((track) => track.stop());
                 return this.pendingResult;
@@ -108,6 +154,14 @@ var capacitorVoiceRecorder = (function (exports, core, write_blob, getBlobDurati
                 .then(() => successResponse())
                 .catch(() => failureResponse());
         }
+        static async releaseRecording(options) {
+            var _a;
+            if (!((_a = options === null || options === void 0 ? void 0 : options.path) === null || _a === void 0 ? void 0 : _a.startsWith('blob:'))) {
+                throw invalidPathError();
+            }
+            URL.revokeObjectURL(options.path);
+            return successResponse();
+        }
         pauseRecording() {
             if (this.mediaRecorder == null) {
                 throw recordingHasNotStartedError();
@@ -160,7 +214,7 @@ var capacitorVoiceRecorder = (function (exports, core, write_blob, getBlobDurati
                     reject(failedToRecordError());
                 };
                 this.mediaRecorder.onstop = async () => {
-                    var _a, _b, _c;
+                    var _a, _b, _c, _d, _e;
                     const mimeType = VoiceRecorderImpl.getSupportedMimeType();
                     if (mimeType == null) {
                         this.prepareInstanceForNextOperation();
@@ -174,9 +228,11 @@ var capacitorVoiceRecorder = (function (exports, core, write_blob, getBlobDurati
                         return;
                     }
                     let path;
+                    let uri;
                     let recordDataBase64;
-                    if (options != null) {
-                        const subDirectory = (_c = (_b = (_a = options.subDirectory) === null || _a === void 0 ? void 0 : _a.match(/^\/?(.+[^/])\/?$/)) === null || _b === void 0 ? void 0 : _b[1]) !== null && _c !== void 0 ? _c : '';
+                    const returnMode = (_b = (_a = this.stopReturnMode) !== null && _a !== void 0 ? _a : options === null || options === void 0 ? void 0 : options.returnMode) !== null && _b !== void 0 ? _b : 'base64';
+                    if ((options === null || options === void 0 ? void 0 : options.directory) != null) {
+                        const subDirectory = (_e = (_d = (_c = options.subDirectory) === null || _c === void 0 ? void 0 : _c.match(/^\/?(.+[^/])\/?$/)) === null || _d === void 0 ? void 0 : _d[1]) !== null && _e !== void 0 ? _e : '';
                         path = `${subDirectory}/recording-${new Date().getTime()}${POSSIBLE_MIME_TYPES[mimeType]}`;
                         await write_blob({
                             blob: blobVoiceRecording,
@@ -186,12 +242,16 @@ var capacitorVoiceRecorder = (function (exports, core, write_blob, getBlobDurati
                             recursive: true,
                         });
                     }
+                    else if (returnMode === 'uri') {
+                        uri = URL.createObjectURL(blobVoiceRecording);
+                        path = uri;
+                    }
                     else {
                         recordDataBase64 = await VoiceRecorderImpl.blobToBase64(blobVoiceRecording);
                     }
                     const recordingDuration = await getBlobDuration(blobVoiceRecording);
                     this.prepareInstanceForNextOperation();
-                    resolve({ value: { recordDataBase64, mimeType, msDuration: recordingDuration * 1000, path } });
+                    resolve({ value: { recordDataBase64, mimeType, msDuration: recordingDuration * 1000, path, uri } });
                 };
                 this.mediaRecorder.ondataavailable = (event) => this.chunks.push(event.data);
                 this.mediaRecorder.start();
@@ -243,11 +303,20 @@ var capacitorVoiceRecorder = (function (exports, core, write_blob, getBlobDurati
         requestAudioRecordingPermission() {
             return VoiceRecorderImpl.requestAudioRecordingPermission();
         }
+        async prepareRecording() {
+            throw this.unimplemented('Not implemented on web.');
+        }
+        async armRecording() {
+            throw this.unimplemented('Not implemented on web.');
+        }
+        async disarmRecording() {
+            throw this.unimplemented('Not implemented on web.');
+        }
         startRecording(options) {
             return this.voiceRecorderInstance.startRecording(options);
         }
-        stopRecording() {
-            return this.voiceRecorderInstance.stopRecording();
+        stopRecording(options) {
+            return this.voiceRecorderInstance.stopRecording(options);
         }
         pauseRecording() {
             return this.voiceRecorderInstance.pauseRecording();
@@ -258,6 +327,36 @@ var capacitorVoiceRecorder = (function (exports, core, write_blob, getBlobDurati
         getCurrentStatus() {
             return this.voiceRecorderInstance.getCurrentStatus();
         }
+        releaseRecording(options) {
+            return VoiceRecorderImpl.releaseRecording(options);
+        }
+        async getWaveform() {
+            throw this.unimplemented('Not implemented on web.');
+        }
+        async trimRecording() {
+            throw this.unimplemented('Not implemented on web.');
+        }
+        async concatRecordings() {
+            throw this.unimplemented('Not implemented on web.');
+        }
+        async transcodeRecording() {
+            throw this.unimplemented('Not implemented on web.');
+        }
+        async listRecordings() {
+            throw this.unimplemented('Not implemented on web.');
+        }
+        async deleteRecording() {
+            throw this.unimplemented('Not implemented on web.');
+        }
+        async listRecoverableRecordings() {
+            throw this.unimplemented('Not implemented on web.');
+        }
+        async recoverRecording() {
+            throw this.unimplemented('Not implemented on web.');
+        }
+        async getMetrics() {
+            throw this.unimplemented('Not implemented on web.');
+        }
     }
 
     var web = /*#__PURE__*/Object.freeze({
@@ -267,6 +366,7 @@ var capacitorVoiceRecorder = (function (exports, core, write_blob, getBlobDurati
 
     exports.RecordingStatus = RecordingStatus;
     exports.VoiceRecorder = VoiceRecorder;
+    exports.stopRecordingAsBlob = stopRecordingAsBlob;
 
     return exports;
 
@@ -12,4 +12,17 @@ CAP_PLUGIN(VoiceRecorder, "VoiceRecorder",
            CAP_PLUGIN_METHOD(pauseRecording, CAPPluginReturnPromise);
            CAP_PLUGIN_METHOD(resumeRecording, CAPPluginReturnPromise);
            CAP_PLUGIN_METHOD(getCurrentStatus, CAPPluginReturnPromise);
+           CAP_PLUGIN_METHOD(prepareRecording, CAPPluginReturnPromise);
+           CAP_PLUGIN_METHOD(armRecording, CAPPluginReturnPromise);
+           CAP_PLUGIN_METHOD(disarmRecording, CAPPluginReturnPromise);
+           CAP_PLUGIN_METHOD(releaseRecording, CAPPluginReturnPromise);
+           CAP_PLUGIN_METHOD(getWaveform, CAPPluginReturnPromise);
+           CAP_PLUGIN_METHOD(trimRecording, CAPPluginReturnPromise);
+           CAP_PLUGIN_METHOD(concatRecordings, CAPPluginReturnPromise);
+           CAP_PLUGIN_METHOD(transcodeRecording, CAPPluginReturnPromise);
+           CAP_PLUGIN_METHOD(listRecordings, CAPPluginReturnPromise);
+           CAP_PLUGIN_METHOD(deleteRecording, CAPPluginReturnPromise);
+           CAP_PLUGIN_METHOD(listRecoverableRecordings, CAPPluginReturnPromise);
+           CAP_PLUGIN_METHOD(recoverRecording, CAPPluginReturnPromise);
+           CAP_PLUGIN_METHOD(getMetrics, CAPPluginReturnPromise);
 )
@@ -7,6 +7,9 @@ import type {
   GenericResponse,
   RecordingData,
   RecordingOptions,
+  ReleaseRecordingOptions,
+  ReturnMode,
+  StopRecordingOptions,
 } from './definitions';
 import { RecordingStatus } from './definitions';
 import {
@@ -17,6 +20,7 @@ import {
   failedToFetchRecordingError,
   failedToRecordError,
   failureResponse,
+  invalidPathError,
   missingPermissionError,
   recordingHasNotStartedError,
   successResponse,
@@ -36,6 +40,7 @@ export class VoiceRecorderImpl {
   private mediaRecorder: MediaRecorder | null = null;
   private chunks: any[] = [];
   private pendingResult: Promise<RecordingData> = neverResolvingPromise();
+  private stopReturnMode: ReturnMode | undefined;
 
   public static async canDeviceVoiceRecord(): Promise<GenericResponse> {
     if (navigator?.mediaDevices?.getUserMedia == null || VoiceRecorderImpl.getSupportedMimeType() == null) {
@@ -64,11 +69,12 @@ export class VoiceRecorderImpl {
       .catch(this.onFailedToStartRecording.bind(this));
   }
 
-  public async stopRecording(): Promise<RecordingData> {
+  public async stopRecording(options?: StopRecordingOptions): Promise<RecordingData> {
     if (this.mediaRecorder == null) {
       throw recordingHasNotStartedError();
     }
     try {
+      this.stopReturnMode = options?.returnMode;
       this.mediaRecorder.stop();
       this.mediaRecorder.stream.getTracks().forEach((track) => track.stop());
       return this.pendingResult;
@@ -112,6 +118,14 @@ export class VoiceRecorderImpl {
       .catch(() => failureResponse());
   }
 
+  public static async releaseRecording(options: ReleaseRecordingOptions): Promise<GenericResponse> {
+    if (!options?.path?.startsWith('blob:')) {
+      throw invalidPathError();
+    }
+    URL.revokeObjectURL(options.path);
+    return successResponse();
+  }
+
   public pauseRecording(): Promise<GenericResponse> {
     if (this.mediaRecorder == null) {
       throw recordingHasNotStartedError();
@@ -178,8 +192,10 @@ export class VoiceRecorderImpl {
         }
 
         let path;
+        let uri;
         let recordDataBase64;
-        if (options != null) {
+        const returnMode = this.stopReturnMode ?? options?.returnMode ?? 'base64';
+        if (options?.directory != null) {
           const subDirectory = options.subDirectory?.match(/^\/?(.+[^/])\/?$/)?.[1] ?? '';
           path = `${subDirectory}/recording-${new Date().getTime()}${POSSIBLE_MIME_TYPES[mimeType]}`;
 
@@ -190,13 +206,16 @@ export class VoiceRecorderImpl {
             path,
             recursive: true,
           });
+        } else if (returnMode === 'uri') {
+          uri = URL.createObjectURL(blobVoiceRecording);
+          path = uri;
         } else {
           recordDataBase64 = await VoiceRecorderImpl.blobToBase64(blobVoiceRecording);
         }
 
         const recordingDuration = await getBlobDuration(blobVoiceRecording);
         this.prepareInstanceForNextOperation();
-        resolve({ value: { recordDataBase64, mimeType, msDuration: recordingDuration * 1000, path } });
+        resolve({ value: { recordDataBase64, mimeType, msDuration: recordingDuration * 1000, path, uri } });
       };
       this.mediaRecorder.ondataavailable = (event: any) => this.chunks.push(event.data);
       this.mediaRecorder.start();
@@ -1,3 +1,4 @@
+import type { PluginListenerHandle } from '@capacitor/core';
 import type { Directory } from '@capacitor/filesystem';
 
 export type Base64String = string;
@@ -6,24 +7,297 @@ export interface RecordingData {
   value: {
     recordDataBase64?: Base64String;
     msDuration: number;
+    trimmedMsDuration?: number;
     mimeType: string;
     path?: string;
+    uri?: string;
+    segments?: RecordingSegment[];
+    uploadId?: string;
+    waveform?: number[];
+    payloadId?: string;
+    loudness?: LoudnessData;
   };
 }
 
+export interface LoudnessData {
+  integrated?: number;
+  rms?: number;
+  peak?: number;
+  gain: number;
+}
+
+export type LoudnessNormalization = 'off' | 'realtime' | 'stop';
+
+export interface RecordingSegment {
+  index: number;
+  path: string;
+  uri?: string;
+  startMs: number;
+  durationMs: number;
+  size: number;
+}
+
+export type ReturnMode = 'base64' | 'uri' | 'stream';
+
+export type RecorderEngine = 'mediarecorder' | 'audiorecord';
+
+export type RecordingFormat = 'aac' | 'mp4' | 'ogg' | 'webm' | 'wav';
+
+export type RecordingEncoder = 'aac' | 'he_aac' | 'aac_eld' | 'opus' | 'vorbis' | 'pcm';
+
 export type RecordingOptions =
   | never
   | {
-      directory: Directory;
+      directory?: Directory;
       subDirectory?: string;
       title?: string;
       message?: string;
+      returnMode?: ReturnMode;
+      engine?: RecorderEngine;
+      format?: RecordingFormat;
+      encoder?: RecordingEncoder;
+      bitRate?: number;
+      sampleRate?: number;
+      channels?: 1 | 2;
+      meteringIntervalMs?: number;
+      meteringBatchSize?: number;
+      chunkDurationMs?: number;
+      trimSilence?: boolean;
+      silenceThresholdDb?: number;
+      speechAttackMs?: number;
+      silenceHangoverMs?: number;
+      segmentDurationMs?: number;
+      segmentMaxBytes?: number;
+      concurrent?: boolean;
+      uploadUrl?: string;
+      uploadHeaders?: Record<string, string>;
+      waveformBuckets?: number;
+      measureLoudness?: boolean;
+      normalizeLoudness?: LoudnessNormalization;
+      targetLoudness?: number;
+      maxGainDb?: number;
+      storageQuotaBytes?: number;
+      evictOldRecordings?: boolean;
+      maxDurationMs?: number;
+      maxFileSizeBytes?: number;
     };
 
+export type PrepareRecordingOptions = RecordingOptions & {
+  idleTimeoutMs?: number;
+};
+
+export type ArmRecordingOptions = RecordingOptions & {
+  preRollMs?: number;
+};
+
+export interface SessionOptions {
+  sessionId?: string;
+}
+
+export interface StopRecordingOptions extends SessionOptions {
+  returnMode?: ReturnMode;
+}
+
+export interface ReleaseRecordingOptions {
+  path: string;
+}
+
+export interface GetWaveformOptions {
+  path: string;
+  directory?: Directory;
+  buckets?: number;
+}
+
+export interface WaveformData {
+  value: number[];
+}
+
+export interface RecordingFile {
+  path: string;
+  directory?: Directory;
+}
+
+export interface EditOutputOptions {
+  directory?: Directory;
+  subDirectory?: string;
+  returnMode?: ReturnMode;
+}
+
+export interface TrimRecordingOptions extends EditOutputOptions {
+  source: RecordingFile;
+  startMs?: number;
+  endMs?: number;
+}
+
+export interface ConcatRecordingsOptions extends EditOutputOptions {
+  sources: RecordingFile[];
+}
+
+export interface TranscodeRecordingOptions extends EditOutputOptions {
+  source: RecordingFile;
+  format: RecordingFormat;
+  bitRate?: number;
+}
+
+export interface ListRecordingsOptions {
+  directory?: Directory;
+  subDirectory?: string;
+}
+
+export interface IndexedRecording {
+  directory: Directory;
+  path: string;
+  size: number;
+  msDuration: number;
+  createdAt: number;
+  lastUsedAt: number;
+}
+
+export interface RecordingList {
+  recordings: IndexedRecording[];
+}
+
+export interface RecoverRecordingOptions {
+  id: string;
+  returnMode?: ReturnMode;
+}
+
+export interface RecordingPause {
+  pausedAt: number;
+  resumedAt?: number;
+}
+
+export interface RecoverableRecording {
+  id: string;
+  startedAt: number;
+  mimeType: string;
+  segmented: boolean;
+  pauses: RecordingPause[];
+}
+
+export interface RecoverableRecordings {
+  value: RecoverableRecording[];
+}
+
+export interface RecordingLevels {
+  sessionId: string;
+  firstSampleMs: number;
+  intervalMs: number;
+  peaks: number[];
+  rms?: number[];
+}
+
+export interface RecordingChunk {
+  sessionId: string;
+  sequence: number;
+  startMs: number;
+  durationMs: number;
+  mimeType: string;
+  data: Base64String;
+  last: boolean;
+}
+
+export interface RecordingPayload {
+  payloadId: string;
+  sequence: number;
+  mimeType: string;
+  data: Base64String;
+  last: boolean;
+}
+
+export interface RecordingMetrics {
+  sessionId: string;
+  engine: 'audiorecord' | 'mediarecorder';
+  format: RecordingFormat;
+  prepared: boolean;
+  finished: boolean;
+  failed: boolean;
+  /** Milliseconds from the startRecording call to each phase that was reached. */
+  phases: {
+    requested: number;
+    serviceBound?: number;
+    recorderReady?: number;
+    started?: number;
+    firstSample?: number;
+    stopRequested?: number;
+    stopped?: number;
+    normalized?: number;
+    durationProbed?: number;
+    encoded?: number;
+    finalized?: number;
+  };
+  bytesWritten?: number;
+  capturedBytes?: number;
+  droppedBytes?: number;
+  readBufferBytes?: number;
+  peakReadBytes?: number;
+  peakSinkMicros?: number;
+  error?: { what: number; extra: number };
+  device: { manufacturer: string; model: string; sdkInt: number };
+}
+
+export interface RecordingMetricsList {
+  value: RecordingMetrics[];
+}
+
+export interface RecordingSegmentClosed extends RecordingSegment {
+  sessionId: string;
+  mimeType: string;
+  last: boolean;
+}
+
+export type RecordingLimit = 'duration' | 'fileSize';
+
+export interface RecordingLimitReached {
+  sessionId: string;
+  limit: RecordingLimit;
+  /** The finalized recording, as stopRecording would have resolved it. */
+  value?: RecordingData['value'];
+  error?: { message: string; causes: string[] };
+}
+
+export interface UploadProgress {
+  id: string;
+  sentBytes: number;
+  totalBytes: number;
+}
+
+export interface UploadFinished {
+  id: string;
+  success: boolean;
+  responseCode?: number;
+  error?: string;
+}
+
+export interface RecordingStarted {
+  sessionId: string;
+  prepared: boolean;
+  startLatencyMs: number;
+  firstSampleLatencyMs: number;
+}
+
 export interface GenericResponse {
   value: boolean;
 }
 
+export interface DeviceCapabilities {
+  microphone: boolean;
+  sources: string[];
+  sampleRates: number[];
+  stereo: boolean;
+  encoders: string[];
+  formats: RecordingFormat[];
+}
+
+export interface CanDeviceVoiceRecordResponse extends GenericResponse {
+  /** Android only. */
+  capabilities?: DeviceCapabilities;
+}
+
+export interface StartRecordingResponse extends GenericResponse {
+  sessionId?: string;
+}
+
 export const RecordingStatus = {
   RECORDING: 'RECORDING',
   PAUSED: 'PAUSED',
@@ -35,19 +309,92 @@ export interface CurrentRecordingStatus {
 }
 
 export interface VoiceRecorderPlugin {
-  canDeviceVoiceRecord(): Promise<GenericResponse>;
+  canDeviceVoiceRecord(): Promise<CanDeviceVoiceRecordResponse>;
 
   requestAudioRecordingPermission(): Promise<GenericResponse>;
 
   hasAudioRecordingPermission(): Promise<GenericResponse>;
 
-  startRecording(options?: RecordingOptions): Promise<GenericResponse>;
+  prepareRecording(options?: PrepareRecordingOptions): Promise<GenericResponse>;
+
+  armRecording(options?: ArmRecordingOptions): Promise<GenericResponse>;
+
+  disarmRecording(): Promise<GenericResponse>;
+
+  startRecording(options?: RecordingOptions): Promise<StartRecordingResponse>;
+
+  stopRecording(options?: StopRecordingOptions): Promise<RecordingData>;
+
+  pauseRecording(options?: SessionOptions): Promise<GenericResponse>;
+
+  resumeRecording(options?: SessionOptions): Promise<GenericResponse>;
+
+  getCurrentStatus(options?: SessionOptions): Promise<CurrentRecordingStatus>;
+
+  releaseRecording(options: ReleaseRecordingOptions): Promise<GenericResponse>;
+
+  getWaveform(options: GetWaveformOptions): Promise<WaveformData>;
+
+  trimRecording(options: TrimRecordingOptions): Promise<RecordingData>;
+
+  concatRecordings(options: ConcatRecordingsOptions): Promise<RecordingData>;
+
+  transcodeRecording(options: TranscodeRecordingOptions): Promise<RecordingData>;
+
+  listRecordings(options?: ListRecordingsOptions): Promise<RecordingList>;
+
+  deleteRecording(options: RecordingFile): Promise<GenericResponse>;
+
+  listRecoverableRecordings(): Promise<RecoverableRecordings>;
+
+  recoverRecording(options: RecoverRecordingOptions): Promise<RecordingData>;
+
+  getMetrics(): Promise<RecordingMetricsList>;
+
+  addListener(
+    eventName: 'recordingLevels',
+    listenerFunc: (levels: RecordingLevels) => void,
+  ): Promise<PluginListenerHandle>;
+
+  addListener(
+    eventName: 'recordingChunk',
+    listenerFunc: (chunk: RecordingChunk) => void,
+  ): Promise<PluginListenerHandle>;
+
+  addListener(
+    eventName: 'recordingPayload',
+    listenerFunc: (payload: RecordingPayload) => void,
+  ): Promise<PluginListenerHandle>;
+
+  addListener(
+    eventName: 'recordingMetrics',
+    listenerFunc: (metrics: RecordingMetrics) => void,
+  ): Promise<PluginListenerHandle>;
+
+  addListener(
+    eventName: 'recordingSegment',
+    listenerFunc: (segment: RecordingSegmentClosed) => void,
+  ): Promise<PluginListenerHandle>;
+
+  addListener(
+    eventName: 'recordingLimitReached',
+    listenerFunc: (reached: RecordingLimitReached) => void,
+  ): Promise<PluginListenerHandle>;
 
-  stopRecording(): Promise<RecordingData>;
+  addListener(
+    eventName: 'uploadProgress',
+    listenerFunc: (progress: UploadProgress) => void,
+  ): Promise<PluginListenerHandle>;
 
-  pauseRecording(): Promise<GenericResponse>;
+  addListener(
+    eventName: 'uploadFinished',
+    listenerFunc: (finished: UploadFinished) => void,
+  ): Promise<PluginListenerHandle>;
 
-  resumeRecording(): Promise<GenericResponse>;
+  addListener(
+    eventName: 'recordingStarted',
+    listenerFunc: (started: RecordingStarted) => void,
+  ): Promise<PluginListenerHandle>;
 
-  getCurrentStatus(): Promise<CurrentRecordingStatus>;
+  removeAllListeners(): Promise<void>;
 }
@@ -7,4 +7,5 @@ const VoiceRecorder = registerPlugin<VoiceRecorderPlugin>('VoiceRecorder', {
 });
 
 export * from './definitions';
+export * from './payload';
 export { VoiceRecorder };
@@ -12,5 +12,6 @@ export const emptyRecordingError = (): Error => new Error('EMPTY_RECORDING');
 
 export const recordingHasNotStartedError = (): Error => new Error('RECORDING_HAS_NOT_STARTED');
 export const failedToFetchRecordingError = (): Error => new Error('FAILED_TO_FETCH_RECORDING');
+export const invalidPathError = (): Error => new Error('INVALID_PATH');
 
 export const couldNotQueryPermissionStatusError = (): Error => new Error('COULD_NOT_QUERY_PERMISSION_STATUS');
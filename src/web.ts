@@ -5,8 +5,14 @@ import type {
   CurrentRecordingStatus,
   GenericResponse,
   RecordingData,
+  RecordingList,
+  RecordingMetricsList,
   RecordingOptions,
+  RecoverableRecordings,
+  ReleaseRecordingOptions,
+  StopRecordingOptions,
   VoiceRecorderPlugin,
+  WaveformData,
 } from './definitions';
 
 export class VoiceRecorderWeb extends WebPlugin implements VoiceRecorderPlugin {
@@ -24,12 +30,24 @@ export class VoiceRecorderWeb extends WebPlugin implements VoiceRecorderPlugin {
     return VoiceRecorderImpl.requestAudioRecordingPermission();
   }
 
+  public async prepareRecording(): Promise<GenericResponse> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  public async armRecording(): Promise<GenericResponse> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  public async disarmRecording(): Promise<GenericResponse> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
   public startRecording(options?: RecordingOptions): Promise<GenericResponse> {
     return this.voiceRecorderInstance.startRecording(options);
   }
 
-  public stopRecording(): Promise<RecordingData> {
-    return this.voiceRecorderInstance.stopRecording();
+  public stopRecording(options?: StopRecordingOptions): Promise<RecordingData> {
+    return this.voiceRecorderInstance.stopRecording(options);
   }
 
   public pauseRecording(): Promise<GenericResponse> {
@@ -43,4 +61,44 @@ export class VoiceRecorderWeb extends WebPlugin implements VoiceRecorderPlugin {
   public getCurrentStatus(): Promise<CurrentRecordingStatus> {
     return this.voiceRecorderInstance.getCurrentStatus();
   }
+
+  public releaseRecording(options: ReleaseRecordingOptions): Promise<GenericResponse> {
+    return VoiceRecorderImpl.releaseRecording(options);
+  }
+
+  public async getWaveform(): Promise<WaveformData> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  public async trimRecording(): Promise<RecordingData> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  public async concatRecordings(): Promise<RecordingData> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  public async transcodeRecording(): Promise<RecordingData> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  public async listRecordings(): Promise<RecordingList> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  public async deleteRecording(): Promise<GenericResponse> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  public async listRecoverableRecordings(): Promise<RecoverableRecordings> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  public async recoverRecording(): Promise<RecordingData> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  public async getMetrics(): Promise<RecordingMetricsList> {
+    throw this.unimplemented('Not implemented on web.');
+  }
 }